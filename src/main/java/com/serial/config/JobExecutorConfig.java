@@ -0,0 +1,33 @@
+package com.serial.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 背景工作執行器設定。
+ *
+ * <p>背景工作（例如大量序號產生）大部分時間都在等待資料庫 I/O，
+ * 使用虛擬執行緒（Virtual Threads）：每個工作一條執行緒，不佔用 HTTP 請求執行緒，
+ * 也不需要調整執行緒池大小。</p>
+ *
+ * <p>執行器本身不限制同時執行的數量：虛擬執行緒可以無限增加，連線池卻不行，等連線逾時的段落只會失敗重試。
+ * 每段長時間佔用連線的工作由各服務自行限制同時執行的數量（{@code serial.generation-job.max-running}、
+ * {@code serial.admin.export.job.max-running}），其餘工作排隊等待。</p>
+ */
+@Configuration
+public class JobExecutorConfig {
+
+    /**
+     * 背景工作專用執行器。
+     * 應用程式關閉時呼叫 {@code close()}，等待執行中的工作結束目前這一段。
+     *
+     * @return 每個任務一條虛擬執行緒的 ExecutorService
+     */
+    @Bean(name = "serialJobExecutor", destroyMethod = "close")
+    public ExecutorService serialJobExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("serial-job-", 0).factory());
+    }
+}
@@ -0,0 +1,15 @@
+package com.serial.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 排程設定。
+ *
+ * <p>{@code @EnableScheduling}：啟用 {@code @Scheduled} 註解，
+ * 讓背景維護工作（例如已發行序號點陣圖的增量同步）可以定期執行。</p>
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
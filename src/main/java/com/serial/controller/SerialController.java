@@ -1,13 +1,25 @@
 package com.serial.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.serial.dto.request.*;
 import com.serial.dto.response.*;
+import com.serial.service.SerialGenerationJobService;
+import com.serial.service.SerialRedeemService;
 import com.serial.service.SerialService;
+import com.serial.service.SerialStatusJobService;
+import com.serial.service.allocator.SerialCodeAllocator;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * 序號管理 REST API 控制器。
  *
@@ -26,8 +38,30 @@ public class SerialController {
     /** 核心業務邏輯服務，透過建構函式注入（Spring 推薦方式） */
     private final SerialService serialService;
 
-    public SerialController(SerialService serialService) {
+    /** 核銷前置服務（交易外的快速拒絕），再委派給 SerialService */
+    private final SerialRedeemService serialRedeemService;
+
+    /** 非同步大量序號產生工作 */
+    private final SerialGenerationJobService generationJobService;
+
+    /** 大量序號狀態變更工作（依條件註銷） */
+    private final SerialStatusJobService statusJobService;
+
+    /** 序號配發器：同步新增在開啟交易前先取得配發名額 */
+    private final SerialCodeAllocator codeAllocator;
+
+    /** 批次核銷以串流方式輸出 JSON */
+    private final ObjectMapper objectMapper;
+
+    public SerialController(SerialService serialService, SerialRedeemService serialRedeemService,
+                            SerialGenerationJobService generationJobService, SerialStatusJobService statusJobService,
+                            SerialCodeAllocator codeAllocator, ObjectMapper objectMapper) {
         this.serialService = serialService;
+        this.serialRedeemService = serialRedeemService;
+        this.generationJobService = generationJobService;
+        this.statusJobService = statusJobService;
+        this.codeAllocator = codeAllocator;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -41,7 +75,7 @@ public class SerialController {
     @PostMapping("/serials_insert")
     public ResponseEntity<ApiResponse<SerialInsertResponseData>> insertSerials(
             @Valid @RequestBody SerialInsertRequest request) {
-        SerialInsertResponseData data = serialService.insertSerials(request);
+        SerialInsertResponseData data = codeAllocator.limitConcurrency(() -> serialService.insertSerials(request));
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("活動與序號已成功產生", data));
     }
@@ -57,7 +91,7 @@ public class SerialController {
     @PostMapping("/serials_additional_insert")
     public ResponseEntity<ApiResponse<SerialInsertResponseData>> additionalInsertSerials(
             @Valid @RequestBody SerialAdditionalInsertRequest request) {
-        SerialInsertResponseData data = serialService.additionalInsertSerials(request);
+        SerialInsertResponseData data = codeAllocator.limitConcurrency(() -> serialService.additionalInsertSerials(request));
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("序號已成功產生", data));
     }
@@ -65,7 +99,7 @@ public class SerialController {
     /**
      * POST /api/serials_redeem — 核銷指定序號（標記為已使用）。
      *
-     * <p>流程：查詢序號（加悲觀鎖）→ 驗證狀態與有效期 → 更新為已核銷。</p>
+     * <p>流程：前置快速判斷（交易外）→ 查詢序號（加悲觀鎖）→ 驗證狀態與有效期 → 更新為已核銷。</p>
      *
      * @param request 包含要核銷的序號內容（8 碼）
      * @return 200 OK，回傳序號內容與核銷時間
@@ -73,16 +107,68 @@ public class SerialController {
     @PostMapping("/serials_redeem")
     public ResponseEntity<ApiResponse<SerialRedeemResponseData>> redeemSerial(
             @Valid @RequestBody SerialRedeemRequest request) {
-        SerialRedeemResponseData data = serialService.redeemSerial(request);
+        SerialRedeemResponseData data = serialRedeemService.redeem(request);
         return ResponseEntity.ok(ApiResponse.success("核銷成功", data));
     }
 
+    /**
+     * POST /api/serials_redeem_batch — 批次核銷多筆序號（POS / 合作夥伴離線結算）。
+     *
+     * <p>流程：驗證序號格式 → 每 2000 筆一段，以集合式 SQL 依序號排序鎖定並核銷 →
+     * 每段完成後立即寫出該段結果（串流輸出，不在記憶體中累積整份回應）。</p>
+     *
+     * <p>核銷規則與 {@code /api/serials_redeem} 相同；{@code data} 依輸入順序列出每個序號的結果，
+     * 最後附上成功與失敗筆數。</p>
+     *
+     * @param request  包含序號清單（最多 5000 筆）
+     * @param response 直接寫入串流回應
+     */
+    @PostMapping("/serials_redeem_batch")
+    public void redeemSerialBatch(@Valid @RequestBody SerialRedeemBatchRequest request,
+                                  HttpServletResponse response) throws IOException {
+        // 格式錯誤須在開始輸出前拋出，才能回 422
+        serialRedeemService.validateBatch(request.getContent());
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeStringField("status", "success");
+            gen.writeStringField("message", "批次核銷完成");
+            gen.writeArrayFieldStart("data");
+
+            int[] counts = new int[2];  // [成功, 失敗]
+            try {
+                serialRedeemService.redeemBatch(request.getContent(), results -> {
+                    try {
+                        for (SerialBatchRedeemResult result : results) {
+                            objectMapper.writeValue(gen, result);
+                            counts[result.isSuccess() ? 0 : 1]++;
+                        }
+                        gen.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            gen.writeEndArray();
+            gen.writeNumberField("success_count", counts[0]);
+            gen.writeNumberField("fail_count", counts[1]);
+            gen.writeEndObject();
+        }
+    }
+
     /**
      * POST /api/serials_cancel — 批次註銷指定序號（標記為不可使用）。
      *
-     * <p>流程：驗證序號格式 → 批次查詢（加悲觀鎖）→ 各別判斷可否註銷 → 批次更新。</p>
+     * <p>流程：驗證序號格式 → 每 2000 筆以一個集合式 UPDATE 註銷未核銷序號 → 依結果列分類失敗原因。</p>
      *
-     * @param request 包含序號清單（最多 1000 筆）與備註原因
+     * @param request 包含序號清單（最多 50000 筆）與備註原因
      * @return 200 OK，回傳成功/失敗清單與原因
      */
     @PostMapping("/serials_cancel")
@@ -91,4 +177,76 @@ public class SerialController {
         SerialCancelResponse response = serialService.cancelSerials(request);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * POST /api/serials_insert_jobs — 建立新活動，並以背景工作大量產生序號。
+     *
+     * <p>流程：驗證請求 → 建立活動記錄與工作記錄 → 立即回傳工作 ID → 背景分段產生序號。</p>
+     *
+     * @param request 包含活動名稱、唯一 ID、有效期間、產生數量（最多 5,000,000 筆）
+     * @return 202 Accepted，回傳工作 ID 與初始進度
+     */
+    @PostMapping("/serials_insert_jobs")
+    public ResponseEntity<ApiResponse<SerialGenerationJobResponseData>> submitInsertJob(
+            @Valid @RequestBody SerialInsertJobRequest request) {
+        SerialGenerationJobResponseData data = generationJobService.submitInsert(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("序號產生工作已建立", data));
+    }
+
+    /**
+     * POST /api/serials_additional_insert_jobs — 對現有活動以背景工作大量追加序號。
+     *
+     * <p>流程：驗證活動存在 → 更新活動配額並建立工作記錄 → 立即回傳工作 ID → 背景分段產生序號。</p>
+     *
+     * @param request 包含活動唯一 ID、新有效期間、追加數量（最多 5,000,000 筆）、備註
+     * @return 202 Accepted，回傳工作 ID 與初始進度
+     */
+    @PostMapping("/serials_additional_insert_jobs")
+    public ResponseEntity<ApiResponse<SerialGenerationJobResponseData>> submitAdditionalInsertJob(
+            @Valid @RequestBody SerialAdditionalInsertJobRequest request) {
+        SerialGenerationJobResponseData data = generationJobService.submitAdditionalInsert(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("序號追加工作已建立", data));
+    }
+
+    /**
+     * GET /api/serials_jobs/{id} — 查詢序號產生工作的進度與結果。
+     *
+     * @param id 工作 ID
+     * @return 200 OK，回傳工作狀態、已產生數量與完成百分比
+     */
+    @GetMapping("/serials_jobs/{id}")
+    public ResponseEntity<ApiResponse<SerialGenerationJobResponseData>> getGenerationJob(@PathVariable int id) {
+        SerialGenerationJobResponseData data = generationJobService.getJob(id);
+        return ResponseEntity.ok(ApiResponse.success("查詢成功", data));
+    }
+
+    /**
+     * POST /api/serials_cancel_jobs — 以背景工作註銷符合條件的所有未使用序號。
+     *
+     * <p>流程：驗證條件 → 建立工作記錄 → 立即回傳工作 ID → 背景依主鍵範圍分段註銷。</p>
+     *
+     * @param request 包含活動唯一 ID 及/或發行時間區間、備註原因
+     * @return 202 Accepted，回傳工作 ID 與初始進度
+     */
+    @PostMapping("/serials_cancel_jobs")
+    public ResponseEntity<ApiResponse<SerialStatusJobResponseData>> submitCancelJob(
+            @Valid @RequestBody SerialCancelJobRequest request) {
+        SerialStatusJobResponseData data = statusJobService.submitCancel(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("序號註銷工作已建立", data));
+    }
+
+    /**
+     * GET /api/serials_cancel_jobs/{id} — 查詢序號註銷工作的進度與結果。
+     *
+     * @param id 工作 ID
+     * @return 200 OK，回傳工作狀態、已註銷數量與完成百分比
+     */
+    @GetMapping("/serials_cancel_jobs/{id}")
+    public ResponseEntity<ApiResponse<SerialStatusJobResponseData>> getCancelJob(@PathVariable int id) {
+        SerialStatusJobResponseData data = statusJobService.getJob(id);
+        return ResponseEntity.ok(ApiResponse.success("查詢成功", data));
+    }
 }
@@ -1,29 +1,38 @@
 package com.serial.controller.admin;
 
-import com.serial.entity.SerialActivity;
+import com.serial.dto.response.ApiResponse;
+import com.serial.dto.response.SerialExportJobResponseData;
 import com.serial.entity.SerialDetail;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.criteria.*;
+import com.serial.repository.SerialDetailSearchRepository;
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import com.serial.service.SerialExportJobService;
+import com.serial.service.SerialExportService;
+import com.serial.service.count.SerialCountStrategy;
 import jakarta.servlet.http.HttpServletResponse;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.csv.QuoteMode;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -35,16 +44,33 @@ import java.util.concurrent.TimeUnit;
 @RequestMapping("/admin/serials")
 public class SerialAdminController {
 
-    private final EntityManager entityManager;
-    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-    public SerialAdminController(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    private final SerialDetailSearchRepository searchRepo;
+    private final SerialCountStrategy countStrategy;  // 總筆數（依 serial.admin.count.mode 快取、估計或不計算）
+    private final SerialExportService exportService;  // CSV 匯出
+    private final SerialExportJobService exportJobService;  // CSV 匯出工作（背景執行、可續傳下載）
+
+    /** 每頁筆數 (Laravel 預設 15 筆) */
+    private static final int PAGE_SIZE = 15;
+
+    /** 匯出模式：stream（逐列寫出）/ parallel-gzip（平行讀取、gzip 壓縮） */
+    private final String exportMode;
+
+    public SerialAdminController(SerialDetailSearchRepository searchRepo, SerialCountStrategy countStrategy,
+                                 SerialExportService exportService, SerialExportJobService exportJobService,
+                                 @Value("${serial.admin.export.mode:stream}") String exportMode) {
+        this.searchRepo = searchRepo;
+        this.countStrategy = countStrategy;
+        this.exportService = exportService;
+        this.exportJobService = exportJobService;
+        this.exportMode = exportMode;
     }
 
     /**
      * 後台列表頁面
      * 對應 Laravel: SerialAdminController@index
+     *
+     * <p>以 keyset 方式分頁：{@code after} 為下一頁（較舊）的游標、{@code before} 為上一頁（較新）的游標，
+     * 兩者皆無時為第一頁；游標無效或與目前的搜尋條件不符時也回到第一頁。</p>
      */
     @GetMapping
     public String index(
@@ -53,14 +79,17 @@ public class SerialAdminController {
             @RequestParam(required = false) Integer status,
             @RequestParam(name = "date_start", required = false) String dateStart,
             @RequestParam(name = "date_end", required = false) String dateEnd,
-            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             Model model) {
 
-        // 分頁設定 (Laravel 預設 15 筆)
-        Pageable pageable = PageRequest.of(page - 1, 15);
+        SerialSearchFilter filter = new SerialSearchFilter(keyword, content, status, dateStart, dateEnd);
+        Integer beforeId = SerialListCursor.decode(before, filter);
 
         // 查詢資料
-        Page<SerialDetail> list = searchSerials(keyword, content, status, dateStart, dateEnd, pageable);
+        SerialListPage list = beforeId != null
+                ? newerPage(filter, beforeId)
+                : olderPage(filter, SerialListCursor.decode(after, filter));
 
         // 不需要傳遞參數到 Model，Thymeleaf 可以直接使用 param
         model.addAttribute("list", list);
@@ -71,8 +100,12 @@ public class SerialAdminController {
     /**
      * CSV 匯出功能
      * 對應 Laravel: SerialAdminController@export
-     * 使用分批查詢（chunk）避免記憶體溢位
+     * 由 {@link SerialExportService} 以 keyset 分段讀取匯出欄位並逐列寫出，記憶體用量與筆數無關
      * 使用 AJAX 方式匯出，支援 Loading 效果
+     *
+     * <p>{@code serial.admin.export.mode=parallel-gzip} 時改為平行讀取並以 gzip 壓縮：
+     * 瀏覽器接受 gzip 時以 {@code Content-Encoding: gzip} 傳送（瀏覽器自動解壓，下載的仍是 .csv），
+     * 否則以 .csv.gz 檔案下載。</p>
      */
     @GetMapping("/export")
     public void export(
@@ -81,6 +114,7 @@ public class SerialAdminController {
             @RequestParam(required = false) Integer status,
             @RequestParam(name = "date_start", required = false) String dateStart,
             @RequestParam(name = "date_end", required = false) String dateEnd,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
             HttpServletResponse response) throws IOException {
 
         // 模擬耗時的匯出過程（測試 Loading 動畫）
@@ -92,131 +126,105 @@ public class SerialAdminController {
 
         // 設定檔名
         String filename = "serial_export_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv";
-        
+        SerialSearchFilter filter = new SerialSearchFilter(keyword, content, status, dateStart, dateEnd);
+
+        if ("parallel-gzip".equals(exportMode)) {
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response.setContentType("text/csv; charset=UTF-8");
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            } else {
+                response.setContentType("application/gzip");
+                filename += ".gz";
+            }
+            response.setHeader("X-Suggested-Filename", filename);
+            exportService.exportGzip(filter, response.getOutputStream());  // 已含 UTF-8 BOM
+            return;
+        }
+
         // 設定 HTTP Header
         response.setContentType("text/csv; charset=UTF-8");
         response.setHeader("X-Suggested-Filename", filename);  // 自訂 Header 給前端抓
 
-        // 寫入 CSV（使用 UTF-8 BOM）
-        OutputStreamWriter writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+        // 寫入 CSV（使用 UTF-8 BOM），由匯出服務分段讀取並逐列寫出
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 64 * 1024);
         writer.write('\ufeff'); // UTF-8 BOM
 
-        CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.builder()
-                .setHeader("活動名稱", "活動唯一ID", "序號", "狀態", "更新時間", "有效期限（起）", "有效期限（迄）", "備註說明", "新增時間")
-                .setQuoteMode(QuoteMode.ALL)
-                .build());
-
-        // 使用分批查詢（chunk），每次 1000 筆，對應 Laravel 的 chunk(1000)
-        int chunkSize = 1000;
-        int pageNumber = 0;
-
-        while (true) {
-            Pageable pageable = PageRequest.of(pageNumber, chunkSize);
-            Page<SerialDetail> page = searchSerials(keyword, content, status, dateStart, dateEnd, pageable);
-
-            // 寫入當前批次的資料
-            for (SerialDetail detail : page.getContent()) {
-                csvPrinter.printRecord(
-                        detail.getSerialActivity().getActivityName(),
-                        detail.getSerialActivity().getActivityUniqueId(),
-                        detail.getContent(),
-                        getStatusText(detail.getStatus()),
-                        detail.getUpdatedAt() != null ? detail.getUpdatedAt().format(DTF) : "--",
-                        detail.getStartDate().format(DTF),
-                        detail.getEndDate().format(DTF),
-                        detail.getNote() != null ? detail.getNote() : "-",
-                        detail.getCreatedAt().format(DTF)
-                );
-            }
+        exportService.export(filter, writer);
+        writer.flush();
+    }
 
-            // 沒有下一頁就結束
-            if (!page.hasNext()) break;
-            pageNumber++;
-        }
+    /**
+     * 提交 CSV 匯出工作（後台「匯出 CSV」按鈕使用）
+     * 背景寫入共用的匯出目錄後，前端輪詢 {@link #getExportJob} 取得狀態，完成後以下載網址下載；
+     * 條件與資料都沒有變化時沿用先前的工作
+     */
+    @PostMapping("/export_jobs")
+    public ResponseEntity<ApiResponse<SerialExportJobResponseData>> submitExportJob(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String content,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(name = "date_start", required = false) String dateStart,
+            @RequestParam(name = "date_end", required = false) String dateEnd) {
 
-        csvPrinter.flush();
-        csvPrinter.close();
+        SerialSearchFilter filter = new SerialSearchFilter(keyword, content, status, dateStart, dateEnd);
+        SerialExportJobResponseData data = exportJobService.submit(filter);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("匯出工作已建立", data));
     }
 
     /**
-     * 分頁查詢
+     * 查詢 CSV 匯出工作的狀態
      */
-    private Page<SerialDetail> searchSerials(String keyword, String content, Integer status,
-                                             String dateStart, String dateEnd, Pageable pageable) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<SerialDetail> query = cb.createQuery(SerialDetail.class);
-        Root<SerialDetail> root = query.from(SerialDetail.class);
-        root.fetch("serialActivity", JoinType.INNER);
-
-        List<Predicate> predicates = buildPredicates(cb, root, keyword, content, status, dateStart, dateEnd);
-        query.where(predicates.toArray(new Predicate[0]));
-        query.orderBy(cb.desc(root.get("id")));
-
-        List<SerialDetail> resultList = entityManager.createQuery(query)
-                .setFirstResult((int) pageable.getOffset())
-                .setMaxResults(pageable.getPageSize())
-                .getResultList();
-
-        // 計算總筆數
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<SerialDetail> countRoot = countQuery.from(SerialDetail.class);
-        countRoot.join("serialActivity", JoinType.INNER);
-        List<Predicate> countPredicates = buildPredicates(cb, countRoot, keyword, content, status, dateStart, dateEnd);
-        countQuery.select(cb.count(countRoot)).where(countPredicates.toArray(new Predicate[0]));
-        Long total = entityManager.createQuery(countQuery).getSingleResult();
-
-        return new PageImpl<>(resultList, pageable, total);
+    @GetMapping("/export_jobs/{id}")
+    public ResponseEntity<ApiResponse<SerialExportJobResponseData>> getExportJob(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.success("查詢成功", exportJobService.getJob(id)));
     }
 
     /**
-     * 建立查詢條件
-     * 完全對應 Laravel 的查詢邏輯
+     * 下載已完成的匯出檔案
+     * 回傳 {@link Resource} 時由 Spring MVC 處理 {@code Range} 請求（206 Partial Content），
+     * 檔案完成後不再變動，以工作 ID 作為 ETag，瀏覽器中斷後可用 {@code If-Range} 續傳
      */
-    private List<Predicate> buildPredicates(CriteriaBuilder cb, Root<SerialDetail> root,
-                                            String keyword, String content, Integer status,
-                                            String dateStart, String dateEnd) {
-        List<Predicate> predicates = new ArrayList<>();
-        Join<SerialDetail, SerialActivity> activityJoin = root.join("serialActivity", JoinType.INNER);
-
-        // keyword：活動名稱 OR 活動唯一ID（模糊搜尋）
-        if (keyword != null && !keyword.isBlank()) {
-            Predicate namePredicate = cb.like(activityJoin.get("activityName"), "%" + keyword + "%");
-            Predicate idPredicate = cb.like(activityJoin.get("activityUniqueId"), "%" + keyword + "%");
-            predicates.add(cb.or(namePredicate, idPredicate));
-        }
-
-        // content：序號內容（精確搜尋，轉大寫）
-        if (content != null && !content.isBlank()) {
-            predicates.add(cb.equal(root.get("content"), content.trim().toUpperCase()));
-        }
-
-        // status：核銷狀況
-        if (status != null) {
-            predicates.add(cb.equal(root.get("status"), status));
-        }
-
-        // date_start / date_end：序號生效日/失效日範圍（對應 Laravel: where('start_date', '>=', ...) 和 where('end_date', '<=', ...)）
-        if (dateStart != null && !dateStart.isBlank()) {
-            LocalDateTime start = LocalDateTime.parse(dateStart + " 00:00:00", DTF);
-            predicates.add(cb.greaterThanOrEqualTo(root.get("startDate"), start));
-        }
-        if (dateEnd != null && !dateEnd.isBlank()) {
-            LocalDateTime end = LocalDateTime.parse(dateEnd + " 23:59:59", DTF);
-            predicates.add(cb.lessThanOrEqualTo(root.get("endDate"), end));
-        }
+    @GetMapping("/export_jobs/{id}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String id) {
+        SerialExportJobService.ExportFile file = exportJobService.getFile(id);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(file.filename())
+                        .build()
+                        .toString())
+                .eTag(id)
+                .body(new FileSystemResource(file.path()));
+    }
 
-        return predicates;
+    /**
+     * 從 {@code cursorId} 往舊的方向取一頁（cursorId 為 null 時為第一頁）。
+     * 多讀一筆判斷是否還有下一頁。
+     */
+    private SerialListPage olderPage(SerialSearchFilter filter, Integer cursorId) {
+        List<SerialDetail> rows = searchRepo.findOlder(filter, cursorId, PAGE_SIZE + 1);
+        boolean hasNext = rows.size() > PAGE_SIZE;
+        List<SerialDetail> content = hasNext ? rows.subList(0, PAGE_SIZE) : rows;
+
+        String previous = cursorId != null && !content.isEmpty()
+                ? SerialListCursor.encode(content.getFirst().getId(), filter) : null;
+        String next = hasNext ? SerialListCursor.encode(content.getLast().getId(), filter) : null;
+        return new SerialListPage(content, previous, next, SerialListCursor.encode(0, filter), countStrategy.count(filter));
     }
 
     /**
-     * 狀態文字轉換
+     * 從 {@code cursorId} 往新的方向取一頁（cursorId 為 0 時為最末頁）。
+     * 較新的資料不足一頁時表示已到最前面，改為顯示第一頁，避免第一頁不滿。
      */
-    private String getStatusText(int status) {
-        return switch (status) {
-            case 0 -> "未核銷";
-            case 1 -> "已核銷";
-            case 2 -> "已註銷";
-            default -> "未設定";
-        };
+    private SerialListPage newerPage(SerialSearchFilter filter, int cursorId) {
+        List<SerialDetail> rows = searchRepo.findNewer(filter, cursorId, PAGE_SIZE + 1);
+        if (rows.size() <= PAGE_SIZE) return olderPage(filter, null);
+
+        // 多讀的一筆是最新的一筆（排在最前面），只用來判斷還有上一頁
+        List<SerialDetail> content = rows.subList(1, rows.size());
+        String previous = SerialListCursor.encode(content.getFirst().getId(), filter);
+        String next = cursorId > 0 ? SerialListCursor.encode(content.getLast().getId(), filter) : null;
+        return new SerialListPage(content, previous, next, SerialListCursor.encode(0, filter), countStrategy.count(filter));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.serial.controller.admin;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * 後台列表的分頁游標：頁面邊界那一筆的 id 加上搜尋條件的指紋，以 Base64URL 編碼成不透明字串。
+ *
+ * <p>游標綁定產生它的搜尋條件：條件改變後舊游標不再適用，解碼時視為無效並回到第一頁，
+ * 不會拿另一組條件的 id 去定位。格式不保證相容，只用於頁面上的連結。</p>
+ */
+final class SerialListCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private SerialListCursor() {}
+
+    /**
+     * 產生游標。
+     *
+     * @param id     頁面邊界那一筆的 id
+     * @param filter 目前的搜尋條件
+     */
+    static String encode(int id, SerialSearchFilter filter) {
+        String value = id + ":" + Long.toHexString(fingerprint(filter));
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析游標。
+     *
+     * @return 游標的 id；沒有游標、格式錯誤或搜尋條件不符時為 null
+     */
+    static Integer decode(String cursor, SerialSearchFilter filter) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String value = new String(DECODER.decode(cursor.trim()), StandardCharsets.US_ASCII);
+            int separator = value.indexOf(':');
+            if (separator < 0) return null;
+            if (Long.parseLong(value.substring(separator + 1), 16) != fingerprint(filter)) return null;
+            int id = Integer.parseInt(value.substring(0, separator));
+            return id >= 0 ? id : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** 正規化後搜尋條件的 CRC32 */
+    private static long fingerprint(SerialSearchFilter filter) {
+        SerialSearchFilter n = filter.normalized();
+        String value = String.join("\u0001",
+                Objects.toString(n.keyword(), ""),
+                Objects.toString(n.content(), ""),
+                Objects.toString(n.status(), ""),
+                Objects.toString(n.dateStart(), ""),
+                Objects.toString(n.dateEnd(), ""));
+        CRC32 crc = new CRC32();
+        crc.update(value.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
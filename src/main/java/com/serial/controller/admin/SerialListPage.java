@@ -0,0 +1,62 @@
+package com.serial.controller.admin;
+
+import com.serial.entity.SerialDetail;
+import com.serial.service.count.SerialCount;
+
+import java.util.List;
+
+/**
+ * 後台列表的一頁（keyset 分頁）：本頁資料、前後頁的游標與總筆數（可能是估計值或不計算），供 Thymeleaf 產生分頁連結。
+ *
+ * <p>keyset 分頁沒有「第 N 頁」，分頁列只提供第一頁、上一頁、下一頁與最末頁。</p>
+ */
+public final class SerialListPage {
+
+    private final List<SerialDetail> content;
+    private final String previousCursor;
+    private final String nextCursor;
+    private final String lastCursor;
+    private final SerialCount total;
+
+    SerialListPage(List<SerialDetail> content, String previousCursor, String nextCursor, String lastCursor,
+                   SerialCount total) {
+        this.content = content;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+        this.lastCursor = lastCursor;
+        this.total = total;
+    }
+
+    /** 本頁資料（依 id 由新到舊） */
+    public List<SerialDetail> getContent() {
+        return content;
+    }
+
+    /** 上一頁（較新）的游標；第一頁時為 null */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /** 下一頁（較舊）的游標；最後一頁時為 null */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /** 最末頁的游標 */
+    public String getLastCursor() {
+        return lastCursor;
+    }
+
+    /** 符合條件的總筆數；不計算總筆數時為 null */
+    public SerialCount getTotal() {
+        return total;
+    }
+
+    public boolean isFirst() {
+        return previousCursor == null;
+    }
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.serial.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.*;
+import java.time.LocalDateTime;
+
+/**
+ * POST /api/serials_additional_insert_jobs 的請求參數 DTO。
+ *
+ * <p>欄位與 {@link SerialAdditionalInsertRequest} 相同，差別在於產生數量上限：
+ * 此 API 以背景工作分段產生序號，不受同步 API 的 100 筆限制。</p>
+ */
+public class SerialAdditionalInsertJobRequest {
+
+    /** 活動唯一識別碼（必填，目標活動必須已存在） */
+    @NotBlank(message = "活動唯一 ID 欄位為必填。")
+    @JsonProperty("activity_unique_id")
+    private String activityUniqueId;
+
+    /** 本批追加序號的生效開始時間（必填） */
+    @NotNull(message = "開始日期 欄位為必填。")
+    @JsonProperty("start_date")
+    private LocalDateTime startDate;
+
+    /** 本批追加序號的生效結束時間（必填） */
+    @NotNull(message = "結束日期 欄位為必填。")
+    @JsonProperty("end_date")
+    private LocalDateTime endDate;
+
+    /** 本次追加的序號數量（必填，1～5,000,000 筆） */
+    @NotNull(message = "產生數量 欄位為必填。")
+    @Min(value = 1, message = "產生數量 不能小於 1。")
+    @Max(value = 5_000_000, message = "產生數量 不能大於 5000000。")
+    @JsonProperty("quota")
+    private Integer quota;
+
+    /** 追加原因備註（必填，會寫入每一筆追加序號的 note 欄位） */
+    @NotBlank(message = "備註追加原因 欄位為必填。")
+    @JsonProperty("note")
+    private String note;
+
+    public String getActivityUniqueId() { return activityUniqueId; }
+    public void setActivityUniqueId(String activityUniqueId) { this.activityUniqueId = activityUniqueId; }
+
+    public LocalDateTime getStartDate() { return startDate; }
+    public void setStartDate(LocalDateTime startDate) { this.startDate = startDate; }
+
+    public LocalDateTime getEndDate() { return endDate; }
+    public void setEndDate(LocalDateTime endDate) { this.endDate = endDate; }
+
+    public Integer getQuota() { return quota; }
+    public void setQuota(Integer quota) { this.quota = quota; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+}
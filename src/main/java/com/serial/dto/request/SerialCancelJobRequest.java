@@ -0,0 +1,53 @@
+package com.serial.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
+
+/**
+ * POST /api/serials_cancel_jobs 的請求參數 DTO。
+ *
+ * <p>依條件註銷所有未使用的序號（背景工作）。條件至少需提供一項：
+ * 活動唯一 ID、發行時間區間，或兩者併用。</p>
+ *
+ * <p>請求範例：</p>
+ * <pre>{@code
+ * {
+ *   "activity_unique_id": "EVENT_2025_01",
+ *   "created_from": "2025-06-01 00:00:00",
+ *   "created_to": "2025-07-01 00:00:00",
+ *   "note": "活動下架"
+ * }
+ * }</pre>
+ */
+public class SerialCancelJobRequest {
+
+    /** 活動唯一識別碼（選填，只註銷此活動的序號） */
+    @JsonProperty("activity_unique_id")
+    private String activityUniqueId;
+
+    /** 發行時間下限（選填，含） */
+    @JsonProperty("created_from")
+    private LocalDateTime createdFrom;
+
+    /** 發行時間上限（選填，不含） */
+    @JsonProperty("created_to")
+    private LocalDateTime createdTo;
+
+    /** 註銷原因備註（必填，會寫入每一筆被註銷序號的 note 欄位） */
+    @NotBlank(message = "備註 欄位為必填。")
+    @JsonProperty("note")
+    private String note;
+
+    public String getActivityUniqueId() { return activityUniqueId; }
+    public void setActivityUniqueId(String activityUniqueId) { this.activityUniqueId = activityUniqueId; }
+
+    public LocalDateTime getCreatedFrom() { return createdFrom; }
+    public void setCreatedFrom(LocalDateTime createdFrom) { this.createdFrom = createdFrom; }
+
+    public LocalDateTime getCreatedTo() { return createdTo; }
+    public void setCreatedTo(LocalDateTime createdTo) { this.createdTo = createdTo; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+}
@@ -21,11 +21,12 @@ import java.util.List;
 public class SerialCancelRequest {
 
     /**
-     * 要註銷的序號清單（必填，至少 1 筆，最多 1000 筆）。
+     * 要註銷的序號清單（必填，至少 1 筆，最多 50000 筆）。
+     * 服務端以每段 2000 筆的集合式 UPDATE 分段處理。
      * 每個序號必須為 8 個字元。
      */
     @NotEmpty(message = "序號內容 欄位為必填。")
-    @Size(max = 1000, message = "序號內容 一次最多只能處理 1000 筆。")
+    @Size(max = 50000, message = "序號內容 一次最多只能處理 50000 筆。")
     @JsonProperty("content")
     private List<String> content;
 
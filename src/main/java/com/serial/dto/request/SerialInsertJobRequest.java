@@ -0,0 +1,67 @@
+package com.serial.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.*;
+import java.time.LocalDateTime;
+
+/**
+ * POST /api/serials_insert_jobs 的請求參數 DTO。
+ *
+ * <p>欄位與 {@link SerialInsertRequest} 相同，差別在於產生數量上限：
+ * 此 API 以背景工作分段產生序號，不受同步 API 的 100 筆限制。</p>
+ *
+ * <p>請求範例：</p>
+ * <pre>{@code
+ * {
+ *   "activity_name": "2025年會員活動",
+ *   "activity_unique_id": "EVENT_2025_01",
+ *   "start_date": "2025-01-01 00:00:00",
+ *   "end_date": "2025-12-31 23:59:59",
+ *   "quota": 500000
+ * }
+ * }</pre>
+ */
+public class SerialInsertJobRequest {
+
+    /** 活動名稱（必填，顯示用途） */
+    @NotBlank(message = "活動名稱 欄位為必填。")
+    @JsonProperty("activity_name")
+    private String activityName;
+
+    /** 活動唯一識別碼（必填，全系統不可重複，由呼叫方自訂） */
+    @NotBlank(message = "活動唯一 ID 欄位為必填。")
+    @JsonProperty("activity_unique_id")
+    private String activityUniqueId;
+
+    /** 序號生效開始時間（必填，格式：yyyy-MM-dd HH:mm:ss） */
+    @NotNull(message = "開始日期 欄位為必填。")
+    @JsonProperty("start_date")
+    private LocalDateTime startDate;
+
+    /** 序號生效結束時間（必填，必須晚於開始時間且不能早於當前時間） */
+    @NotNull(message = "結束日期 欄位為必填。")
+    @JsonProperty("end_date")
+    private LocalDateTime endDate;
+
+    /** 本次產生的序號數量（必填，1～5,000,000 筆） */
+    @NotNull(message = "產生數量 欄位為必填。")
+    @Min(value = 1, message = "產生數量 不能小於 1。")
+    @Max(value = 5_000_000, message = "產生數量 不能大於 5000000。")
+    @JsonProperty("quota")
+    private Integer quota;
+
+    public String getActivityName() { return activityName; }
+    public void setActivityName(String activityName) { this.activityName = activityName; }
+
+    public String getActivityUniqueId() { return activityUniqueId; }
+    public void setActivityUniqueId(String activityUniqueId) { this.activityUniqueId = activityUniqueId; }
+
+    public LocalDateTime getStartDate() { return startDate; }
+    public void setStartDate(LocalDateTime startDate) { this.startDate = startDate; }
+
+    public LocalDateTime getEndDate() { return endDate; }
+    public void setEndDate(LocalDateTime endDate) { this.endDate = endDate; }
+
+    public Integer getQuota() { return quota; }
+    public void setQuota(Integer quota) { this.quota = quota; }
+}
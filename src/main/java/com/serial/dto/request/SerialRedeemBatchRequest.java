@@ -0,0 +1,33 @@
+package com.serial.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+/**
+ * POST /api/serials_redeem_batch 的請求參數 DTO。
+ *
+ * <p>用於 POS 或合作夥伴一次結算多筆離線核銷。每個序號各自獨立判斷，
+ * 回應依輸入順序列出每個序號的結果。提交的序號會自動去除前後空白並轉換為大寫。</p>
+ *
+ * <p>請求範例：</p>
+ * <pre>{@code
+ * {
+ *   "content": ["A0001234", "B9876543"]
+ * }
+ * }</pre>
+ */
+public class SerialRedeemBatchRequest {
+
+    /**
+     * 要核銷的序號清單（必填，至少 1 筆，最多 5000 筆）。
+     * 每個序號必須為 8 個字元。
+     */
+    @NotEmpty(message = "序號內容 欄位為必填。")
+    @Size(max = 5000, message = "序號內容 一次最多只能處理 5000 筆。")
+    @JsonProperty("content")
+    private List<String> content;
+
+    public List<String> getContent() { return content; }
+    public void setContent(List<String> content) { this.content = content; }
+}
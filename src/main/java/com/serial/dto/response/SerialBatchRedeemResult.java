@@ -0,0 +1,74 @@
+package com.serial.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 批次核銷中單一序號的結果 DTO。
+ *
+ * <p>用於 POST /api/serials_redeem_batch 的回應，{@code data} 陣列依輸入順序排列：</p>
+ * <pre>{@code
+ * {
+ *   "status": "success",
+ *   "message": "批次核銷完成",
+ *   "data": [
+ *     { "serial_content": "A0001234", "result": "success", "redeemed_at": "2025-06-01 12:00:00" },
+ *     { "serial_content": "B9876543", "result": "fail", "reason": "此序號已經被核銷使用" }
+ *   ],
+ *   "success_count": 1,
+ *   "fail_count": 1
+ * }
+ * }</pre>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SerialBatchRedeemResult {
+
+    /** 序號內容（8碼大寫英數） */
+    @JsonProperty("serial_content")
+    private String serialContent;
+
+    /** 核銷結果：{@code "success"} 或 {@code "fail"} */
+    @JsonProperty("result")
+    private String result;
+
+    /** 核銷完成的時間（成功時才有，格式：yyyy-MM-dd HH:mm:ss） */
+    @JsonProperty("redeemed_at")
+    private String redeemedAt;
+
+    /** 失敗原因（失敗時才有，與單筆核銷 API 的錯誤訊息相同） */
+    @JsonProperty("reason")
+    private String reason;
+
+    public SerialBatchRedeemResult() {}
+
+    public SerialBatchRedeemResult(String serialContent, String result, String redeemedAt, String reason) {
+        this.serialContent = serialContent;
+        this.result = result;
+        this.redeemedAt = redeemedAt;
+        this.reason = reason;
+    }
+
+    public static SerialBatchRedeemResult success(String serialContent, String redeemedAt) {
+        return new SerialBatchRedeemResult(serialContent, "success", redeemedAt, null);
+    }
+
+    public static SerialBatchRedeemResult fail(String serialContent, String reason) {
+        return new SerialBatchRedeemResult(serialContent, "fail", null, reason);
+    }
+
+    @JsonIgnore
+    public boolean isSuccess() { return "success".equals(result); }
+
+    public String getSerialContent() { return serialContent; }
+    public void setSerialContent(String serialContent) { this.serialContent = serialContent; }
+
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+
+    public String getRedeemedAt() { return redeemedAt; }
+    public void setRedeemedAt(String redeemedAt) { this.redeemedAt = redeemedAt; }
+
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+}
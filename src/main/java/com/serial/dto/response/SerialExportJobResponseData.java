@@ -0,0 +1,107 @@
+package com.serial.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 後台 CSV 匯出工作的狀態回應 DTO。
+ *
+ * <p>用於 POST /admin/serials/export_jobs 與 GET /admin/serials/export_jobs/{id} 的回應。</p>
+ *
+ * <p>回應 JSON 結構（包在 ApiResponse.data 內）：</p>
+ * <pre>{@code
+ * {
+ *   "job_id": "6f1c2e0a-...",
+ *   "status": "completed",
+ *   "reused": false,
+ *   "rows": 1200000,
+ *   "file_size": 183500800,
+ *   "download_url": "/admin/serials/export_jobs/6f1c2e0a-.../download",
+ *   "created_at": "2025-06-01 12:00:00",
+ *   "finished_at": "2025-06-01 12:00:41"
+ * }
+ * }</pre>
+ *
+ * <p>{@code reused} 為 true 表示條件與資料都沒有變化，直接沿用先前的匯出工作（與其檔案）。</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SerialExportJobResponseData {
+
+    /** 工作 ID（查詢進度與下載時使用） */
+    @JsonProperty("job_id")
+    private String jobId;
+
+    /** 工作狀態：{@code pending}、{@code running}、{@code completed}、{@code failed} */
+    @JsonProperty("status")
+    private String status;
+
+    /** 是否沿用先前相同條件的工作 */
+    @JsonProperty("reused")
+    private Boolean reused;
+
+    /** 匯出的筆數（完成後才輸出） */
+    @JsonProperty("rows")
+    private Long rows;
+
+    /** 檔案大小（位元組，完成後才輸出） */
+    @JsonProperty("file_size")
+    private Long fileSize;
+
+    /** 下載網址（完成後才輸出，支援 HTTP Range 續傳） */
+    @JsonProperty("download_url")
+    private String downloadUrl;
+
+    /** 失敗原因（僅失敗時輸出） */
+    @JsonProperty("error_message")
+    private String errorMessage;
+
+    /** 工作建立時間（格式：yyyy-MM-dd HH:mm:ss） */
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    /** 工作結束時間（尚未結束時不輸出） */
+    @JsonProperty("finished_at")
+    private String finishedAt;
+
+    public SerialExportJobResponseData() {}
+
+    public SerialExportJobResponseData(String jobId, String status, Boolean reused, Long rows, Long fileSize,
+                                       String downloadUrl, String errorMessage, String createdAt, String finishedAt) {
+        this.jobId = jobId;
+        this.status = status;
+        this.reused = reused;
+        this.rows = rows;
+        this.fileSize = fileSize;
+        this.downloadUrl = downloadUrl;
+        this.errorMessage = errorMessage;
+        this.createdAt = createdAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Boolean getReused() { return reused; }
+    public void setReused(Boolean reused) { this.reused = reused; }
+
+    public Long getRows() { return rows; }
+    public void setRows(Long rows) { this.rows = rows; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getDownloadUrl() { return downloadUrl; }
+    public void setDownloadUrl(String downloadUrl) { this.downloadUrl = downloadUrl; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public String getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(String finishedAt) { this.finishedAt = finishedAt; }
+}
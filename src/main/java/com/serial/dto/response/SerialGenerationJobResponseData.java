@@ -0,0 +1,109 @@
+package com.serial.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 非同步序號產生工作的狀態回應 DTO。
+ *
+ * <p>用於 POST /api/serials_insert_jobs、POST /api/serials_additional_insert_jobs
+ * 與 GET /api/serials_jobs/{id} 的回應。</p>
+ *
+ * <p>回應 JSON 結構（包在 ApiResponse.data 內）：</p>
+ * <pre>{@code
+ * {
+ *   "job_id": 12,
+ *   "activity_id": 3,
+ *   "status": "running",
+ *   "quota": 500000,
+ *   "generated": 120000,
+ *   "progress": 24.0,
+ *   "created_at": "2025-06-01 12:00:00",
+ *   "finished_at": null
+ * }
+ * }</pre>
+ *
+ * <p>{@code status} 的可能值：{@code pending}、{@code running}、{@code completed}、{@code failed}。</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SerialGenerationJobResponseData {
+
+    /** 工作 ID（查詢進度時使用） */
+    @JsonProperty("job_id")
+    private Integer jobId;
+
+    /** 序號所屬活動的資料庫主鍵 ID */
+    @JsonProperty("activity_id")
+    private Integer activityId;
+
+    /** 工作狀態 */
+    @JsonProperty("status")
+    private String status;
+
+    /** 本工作需要產生的序號總數 */
+    @JsonProperty("quota")
+    private Integer quota;
+
+    /** 已產生（已 commit）的序號數量 */
+    @JsonProperty("generated")
+    private Integer generated;
+
+    /** 完成百分比（0～100，小數一位） */
+    @JsonProperty("progress")
+    private Double progress;
+
+    /** 失敗原因（僅失敗時輸出） */
+    @JsonProperty("error_message")
+    private String errorMessage;
+
+    /** 工作建立時間（格式：yyyy-MM-dd HH:mm:ss） */
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    /** 工作結束時間（尚未結束時不輸出） */
+    @JsonProperty("finished_at")
+    private String finishedAt;
+
+    public SerialGenerationJobResponseData() {}
+
+    public SerialGenerationJobResponseData(Integer jobId, Integer activityId, String status, Integer quota,
+                                           Integer generated, Double progress, String errorMessage,
+                                           String createdAt, String finishedAt) {
+        this.jobId = jobId;
+        this.activityId = activityId;
+        this.status = status;
+        this.quota = quota;
+        this.generated = generated;
+        this.progress = progress;
+        this.errorMessage = errorMessage;
+        this.createdAt = createdAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public Integer getJobId() { return jobId; }
+    public void setJobId(Integer jobId) { this.jobId = jobId; }
+
+    public Integer getActivityId() { return activityId; }
+    public void setActivityId(Integer activityId) { this.activityId = activityId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getQuota() { return quota; }
+    public void setQuota(Integer quota) { this.quota = quota; }
+
+    public Integer getGenerated() { return generated; }
+    public void setGenerated(Integer generated) { this.generated = generated; }
+
+    public Double getProgress() { return progress; }
+    public void setProgress(Double progress) { this.progress = progress; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public String getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(String finishedAt) { this.finishedAt = finishedAt; }
+}
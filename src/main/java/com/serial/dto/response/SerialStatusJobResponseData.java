@@ -0,0 +1,118 @@
+package com.serial.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 大量序號狀態變更工作的狀態回應 DTO。
+ *
+ * <p>用於 POST /api/serials_cancel_jobs 與 GET /api/serials_cancel_jobs/{id} 的回應。</p>
+ *
+ * <p>回應 JSON 結構（包在 ApiResponse.data 內）：</p>
+ * <pre>{@code
+ * {
+ *   "job_id": 5,
+ *   "job_type": "cancel",
+ *   "activity_id": 3,
+ *   "status": "running",
+ *   "total": 480000,
+ *   "affected": 120000,
+ *   "progress": 25.0,
+ *   "created_at": "2025-06-01 12:00:00",
+ *   "finished_at": null
+ * }
+ * }</pre>
+ *
+ * <p>{@code total} 是開始執行時符合條件的序號數，執行期間被核銷的序號不會被註銷，
+ * 因此完成時 {@code affected} 可能略小於 {@code total}。</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SerialStatusJobResponseData {
+
+    /** 工作 ID（查詢進度時使用） */
+    @JsonProperty("job_id")
+    private Integer jobId;
+
+    /** 工作類型（目前為 {@code cancel}） */
+    @JsonProperty("job_type")
+    private String jobType;
+
+    /** 篩選的活動 ID（未指定活動時不輸出） */
+    @JsonProperty("activity_id")
+    private Integer activityId;
+
+    /** 工作狀態：{@code pending}、{@code running}、{@code completed}、{@code failed} */
+    @JsonProperty("status")
+    private String status;
+
+    /** 開始執行時符合條件的序號數（尚未開始時不輸出） */
+    @JsonProperty("total")
+    private Integer total;
+
+    /** 已變更（已 commit）的序號數量 */
+    @JsonProperty("affected")
+    private Integer affected;
+
+    /** 完成百分比（0～100，小數一位） */
+    @JsonProperty("progress")
+    private Double progress;
+
+    /** 失敗原因（僅失敗時輸出） */
+    @JsonProperty("error_message")
+    private String errorMessage;
+
+    /** 工作建立時間（格式：yyyy-MM-dd HH:mm:ss） */
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    /** 工作結束時間（尚未結束時不輸出） */
+    @JsonProperty("finished_at")
+    private String finishedAt;
+
+    public SerialStatusJobResponseData() {}
+
+    public SerialStatusJobResponseData(Integer jobId, String jobType, Integer activityId, String status,
+                                       Integer total, Integer affected, Double progress, String errorMessage,
+                                       String createdAt, String finishedAt) {
+        this.jobId = jobId;
+        this.jobType = jobType;
+        this.activityId = activityId;
+        this.status = status;
+        this.total = total;
+        this.affected = affected;
+        this.progress = progress;
+        this.errorMessage = errorMessage;
+        this.createdAt = createdAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public Integer getJobId() { return jobId; }
+    public void setJobId(Integer jobId) { this.jobId = jobId; }
+
+    public String getJobType() { return jobType; }
+    public void setJobType(String jobType) { this.jobType = jobType; }
+
+    public Integer getActivityId() { return activityId; }
+    public void setActivityId(Integer activityId) { this.activityId = activityId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getTotal() { return total; }
+    public void setTotal(Integer total) { this.total = total; }
+
+    public Integer getAffected() { return affected; }
+    public void setAffected(Integer affected) { this.affected = affected; }
+
+    public Double getProgress() { return progress; }
+    public void setProgress(Double progress) { this.progress = progress; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public String getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(String finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,141 @@
+package com.serial.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link SerialLog} 請求/回應 Body 的壓縮格式（{@code request_z} / {@code response_z}，{@code VARBINARY(MAX)}）。
+ *
+ * <p>{@code NVARCHAR} 以 UTF-16 儲存，ASCII 為主的 JSON 每個字元佔 2 bytes。壓縮格式為：</p>
+ * <pre>
+ * [字典編號 1 byte][raw deflate（UTF-8 Body）]
+ * </pre>
+ *
+ * <p>日誌 Body 短且結構重複（欄位名稱、固定訊息），單筆直接 deflate 幾乎沒有可重用的前文；
+ * 以 API 回應常見片段組成的預設字典（{@code log-dictionaries/<編號>.txt}）作為前文，短 Body 也能壓縮。
+ * 字典編號寫在每筆資料的開頭：更新字典時新增編號，舊資料仍以原本的字典解壓；編號 0 代表不使用字典。</p>
+ */
+public final class LogBodyCodec {
+
+    /** 不使用字典 */
+    public static final int NO_DICTIONARY = 0;
+
+    private static final String DICTIONARY_PATH = "log-dictionaries/%d.txt";
+
+    /** 已載入的字典（依編號） */
+    private static final Map<Integer, byte[]> DICTIONARIES = new ConcurrentHashMap<>();
+
+    private LogBodyCodec() {}
+
+    /**
+     * 解壓縮。
+     *
+     * @param data 壓縮格式的 Body；null 時回傳 null
+     * @return 原始 Body
+     */
+    public static String decode(byte[] data) {
+        if (data == null) return null;
+        if (data.length == 0) throw new IllegalArgumentException("壓縮資料為空");
+
+        Inflater inflater = new Inflater(true);
+        try {
+            int dictionaryId = data[0] & 0xFF;
+            if (dictionaryId != NO_DICTIONARY) inflater.setDictionary(dictionary(dictionaryId));
+            inflater.setInput(data, 1, data.length - 1);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                // 空 Body 的壓縮資料只有結束區塊：第一次呼叫就結束，同時也已讀完輸入
+                if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("壓縮資料不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("壓縮資料格式錯誤: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 建立壓縮器。壓縮器持有原生記憶體，批次壓縮時重複使用同一個，用完須關閉。
+     *
+     * @param dictionaryId 字典編號（{@link #NO_DICTIONARY} 為不使用字典）
+     */
+    public static Encoder encoder(int dictionaryId) {
+        return new Encoder(dictionaryId);
+    }
+
+    /** 載入字典（classpath 的 {@code log-dictionaries/<編號>.txt}） */
+    static byte[] dictionary(int id) {
+        return DICTIONARIES.computeIfAbsent(id, key -> {
+            String path = DICTIONARY_PATH.formatted(key);
+            try (InputStream in = LogBodyCodec.class.getClassLoader().getResourceAsStream(path)) {
+                if (in == null) throw new IllegalStateException("找不到日誌壓縮字典: " + path);
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException("日誌壓縮字典讀取失敗: " + path, e);
+            }
+        });
+    }
+
+    /**
+     * 可重複使用的壓縮器（非執行緒安全）。
+     */
+    public static final class Encoder implements AutoCloseable {
+
+        private final int dictionaryId;
+        private final byte[] dictionary;
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final byte[] buffer = new byte[8192];
+
+        private Encoder(int dictionaryId) {
+            if (dictionaryId < 0 || dictionaryId > 0xFF) {
+                throw new IllegalArgumentException("字典編號必須介於 0～255: " + dictionaryId);
+            }
+            this.dictionaryId = dictionaryId;
+            this.dictionary = dictionaryId != NO_DICTIONARY ? dictionary(dictionaryId) : null;
+        }
+
+        /**
+         * 壓縮一個 Body。
+         *
+         * @param body 原始 Body；null 時回傳 null
+         * @return 壓縮格式的 Body
+         */
+        public byte[] encode(String body) {
+            if (body == null) return null;
+            byte[] input = body.getBytes(StandardCharsets.UTF_8);
+
+            deflater.reset();
+            if (dictionary != null) deflater.setDictionary(dictionary);
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+            out.write(dictionaryId);
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+        }
+    }
+}
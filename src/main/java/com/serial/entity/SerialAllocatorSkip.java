@@ -0,0 +1,67 @@
+package com.serial.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Objects;
+
+/**
+ * 置換配發器的「略過位置」Entity，對應資料庫表 {@code serial_allocator_skip}。
+ *
+ * <p>從隨機配發切換到置換配發（{@link com.serial.service.allocator.PermutationSerialCodeAllocator}）之前，
+ * 資料庫中已存在的舊序號可能剛好是某個計數器位置的置換結果。
+ * 遷移程序會將每個舊序號反解（decrypt）回它的計數器位置並寫入此表，
+ * 配發時遇到這些位置直接略過，確保不會與舊序號衝突。</p>
+ */
+@Entity
+@Table(name = "serial_allocator_skip")
+public class SerialAllocatorSkip implements Persistable<Long> {
+
+    /** 需要略過的計數器位置（主鍵，叢集索引，配發時以範圍查詢） */
+    @Id
+    @Column(name = "position")
+    private Long position;
+
+    /**
+     * 是否為尚未寫入的新實體。
+     * 主鍵由程式指定（非 IDENTITY），若不覆寫 {@link #isNew()}，
+     * Spring Data 會把每一筆都當成既有資料而先 SELECT 再 merge。
+     */
+    @Transient
+    private boolean newEntity = true;
+
+    // 無參建構函式（JPA 規範要求）
+    public SerialAllocatorSkip() {}
+
+    public SerialAllocatorSkip(Long position) {
+        this.position = position;
+    }
+
+    // Getters and Setters
+    public Long getPosition() { return position; }
+    public void setPosition(Long position) { this.position = position; }
+
+    @Override
+    public Long getId() { return position; }
+
+    @Override
+    public boolean isNew() { return newEntity; }
+
+    /** 從資料庫載入或寫入完成後，即不再是新實體 */
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.newEntity = false; }
+
+    /** 以 position 作為實體相等性的依據。 */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SerialAllocatorSkip that)) return false;
+        return Objects.equals(position, that.position);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(position);
+    }
+}
@@ -0,0 +1,187 @@
+package com.serial.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 後台 CSV 匯出工作 Entity，對應資料庫表 {@code serial_export_job}。
+ *
+ * <p>工作狀態存在資料庫，任何一台機器都能查詢進度；檔案寫在所有機器共用的匯出目錄，
+ * 檔名為 {@code <id>.csv}。{@code host} 是執行工作的機器，該機器重新啟動後接續自己未完成的工作。</p>
+ *
+ * <p>{@code filterKey}、{@code maxId}、{@code dataVersion} 是沿用工作的判斷依據：
+ * 正規化後的條件相同、提交當下的資料也相同時，直接沿用同一個工作與檔案。</p>
+ */
+@Entity
+@Table(
+    name = "serial_export_job",
+    indexes = {
+        @Index(name = "IX_serial_export_job_filter_key", columnList = "filter_key"),
+        @Index(name = "IX_serial_export_job_status", columnList = "status")
+    }
+)
+public class SerialExportJob {
+
+    /** 狀態：等待執行 */
+    public static final int STATUS_PENDING = 0;
+
+    /** 狀態：執行中 */
+    public static final int STATUS_RUNNING = 1;
+
+    /** 狀態：已完成 */
+    public static final int STATUS_COMPLETED = 2;
+
+    /** 狀態：失敗 */
+    public static final int STATUS_FAILED = 3;
+
+    /** 工作 ID（UUID，同時作為下載網址與檔名，不可猜測） */
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    /** 正規化後搜尋條件的 SHA-256（十六進位），沿用工作時比對 */
+    @Column(name = "filter_key", nullable = false, length = 64)
+    private String filterKey;
+
+    /** 搜尋條件：關鍵字 */
+    @Column(name = "keyword", columnDefinition = "NVARCHAR(MAX)")
+    private String keyword;
+
+    /** 搜尋條件：序號 */
+    @Column(name = "content", columnDefinition = "NVARCHAR(MAX)")
+    private String content;
+
+    /** 搜尋條件：序號狀態 */
+    @Column(name = "filter_status")
+    private Integer filterStatus;
+
+    /** 搜尋條件：發行日期下限 */
+    @Column(name = "date_start", columnDefinition = "NVARCHAR(MAX)")
+    private String dateStart;
+
+    /** 搜尋條件：發行日期上限 */
+    @Column(name = "date_end", columnDefinition = "NVARCHAR(MAX)")
+    private String dateEnd;
+
+    /** 提交時 {@code serial_detail} 的最大 id */
+    @Column(name = "max_id", nullable = false)
+    private Integer maxId;
+
+    /** 提交時的資料版本（{@code MIN_ACTIVE_ROWVERSION()}，序號新增或狀態變更都會使其增加） */
+    @Column(name = "data_version", nullable = false)
+    private Long dataVersion;
+
+    /** 執行工作的機器 */
+    @Column(name = "host", nullable = false, length = 100)
+    private String host;
+
+    /**
+     * 工作狀態。
+     * 可用值參考類別常數：{@link #STATUS_PENDING}、{@link #STATUS_RUNNING}、{@link #STATUS_COMPLETED}、{@link #STATUS_FAILED}。
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status;
+
+    /** 匯出的筆數（完成後填入） */
+    @Column(name = "row_count")
+    private Long rowCount;
+
+    /** 檔案大小（位元組，完成後填入） */
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    /** 失敗原因（僅在失敗時填入） */
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    /** 工作建立時間，由 Hibernate 自動設定 */
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    /** 最後一次心跳時間（執行中的機器定期更新，逾時未更新視為機器已停止） */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /** 最後一次被沿用或下載的時間（移除的依據） */
+    @Column(name = "touched_at")
+    private LocalDateTime touchedAt;
+
+    /** 工作結束時間（完成或失敗） */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // 無參建構函式（JPA 規範要求）
+    public SerialExportJob() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFilterKey() { return filterKey; }
+    public void setFilterKey(String filterKey) { this.filterKey = filterKey; }
+
+    public String getKeyword() { return keyword; }
+    public void setKeyword(String keyword) { this.keyword = keyword; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public Integer getFilterStatus() { return filterStatus; }
+    public void setFilterStatus(Integer filterStatus) { this.filterStatus = filterStatus; }
+
+    public String getDateStart() { return dateStart; }
+    public void setDateStart(String dateStart) { this.dateStart = dateStart; }
+
+    public String getDateEnd() { return dateEnd; }
+    public void setDateEnd(String dateEnd) { this.dateEnd = dateEnd; }
+
+    public Integer getMaxId() { return maxId; }
+    public void setMaxId(Integer maxId) { this.maxId = maxId; }
+
+    public Long getDataVersion() { return dataVersion; }
+    public void setDataVersion(Long dataVersion) { this.dataVersion = dataVersion; }
+
+    public String getHost() { return host; }
+    public void setHost(String host) { this.host = host; }
+
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+
+    public Long getRowCount() { return rowCount; }
+    public void setRowCount(Long rowCount) { this.rowCount = rowCount; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getTouchedAt() { return touchedAt; }
+    public void setTouchedAt(LocalDateTime touchedAt) { this.touchedAt = touchedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    /** 以 id 作為實體相等性的依據（JPA 最佳實踐）。 */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SerialExportJob that)) return false;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
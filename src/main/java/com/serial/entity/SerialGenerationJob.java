@@ -0,0 +1,164 @@
+package com.serial.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 非同步序號產生工作 Entity，對應資料庫表 {@code serial_generation_job}。
+ *
+ * <p>大量序號（數十萬到數百萬筆）不適合在單一 HTTP 請求、單一交易內完成。
+ * 提交工作後，背景以「分段」（chunk）方式產生序號：每一段是一個獨立交易，
+ * 寫入序號的同時累加 {@code generated}，兩者一起 commit。</p>
+ *
+ * <p>因此 {@code generated} 永遠等於已 commit 的序號數量，應用程式重啟或某一段失敗後，
+ * 只要從 {@code generated} 繼續即可，不會重複或遺漏。</p>
+ */
+@Entity
+@Table(
+    name = "serial_generation_job",
+    indexes = @Index(name = "IX_serial_generation_job_status", columnList = "status")
+)
+public class SerialGenerationJob {
+
+    /** 工作類型：建立新活動並產生序號 */
+    public static final String TYPE_INSERT = "insert";
+
+    /** 工作類型：對既有活動追加序號 */
+    public static final String TYPE_ADDITIONAL_INSERT = "additional_insert";
+
+    /** 狀態：等待執行 */
+    public static final int STATUS_PENDING = 0;
+
+    /** 狀態：執行中 */
+    public static final int STATUS_RUNNING = 1;
+
+    /** 狀態：已完成 */
+    public static final int STATUS_COMPLETED = 2;
+
+    /** 狀態：失敗（重試次數用盡） */
+    public static final int STATUS_FAILED = 3;
+
+    /** 自動遞增主鍵（即對外的工作 ID） */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    /** 工作類型：{@link #TYPE_INSERT} 或 {@link #TYPE_ADDITIONAL_INSERT} */
+    @Column(name = "job_type", nullable = false, length = 20)
+    private String jobType;
+
+    /** 序號所屬活動（提交工作時即已建立或更新） */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "serial_activity_id", nullable = false, foreignKey = @ForeignKey(name = "FK_serial_generation_job_activity"))
+    private SerialActivity serialActivity;
+
+    /** 本工作需要產生的序號總數 */
+    @Column(name = "quota", nullable = false)
+    private Integer quota;
+
+    /** 已產生（且已 commit）的序號數量 */
+    @Column(name = "generated", nullable = false)
+    private Integer generated;
+
+    /** 每一段（每個交易）產生的序號數量 */
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    /** 序號備註（追加時的原因），可為 null */
+    @Column(name = "note", columnDefinition = "NVARCHAR(MAX)")
+    private String note;
+
+    /** 序號生效開始時間 */
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime startDate;
+
+    /** 序號生效結束時間 */
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime endDate;
+
+    /**
+     * 工作狀態。
+     * 可用值參考類別常數：{@link #STATUS_PENDING}、{@link #STATUS_RUNNING}、{@link #STATUS_COMPLETED}、{@link #STATUS_FAILED}。
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status;
+
+    /** 失敗原因（僅在失敗時填入） */
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    /** 工作建立時間，由 Hibernate 自動設定 */
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    /** 最後一次進度更新時間 */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /** 工作結束時間（完成或失敗） */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // 無參建構函式（JPA 規範要求）
+    public SerialGenerationJob() {}
+
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getJobType() { return jobType; }
+    public void setJobType(String jobType) { this.jobType = jobType; }
+
+    public SerialActivity getSerialActivity() { return serialActivity; }
+    public void setSerialActivity(SerialActivity serialActivity) { this.serialActivity = serialActivity; }
+
+    public Integer getQuota() { return quota; }
+    public void setQuota(Integer quota) { this.quota = quota; }
+
+    public Integer getGenerated() { return generated; }
+    public void setGenerated(Integer generated) { this.generated = generated; }
+
+    public Integer getChunkSize() { return chunkSize; }
+    public void setChunkSize(Integer chunkSize) { this.chunkSize = chunkSize; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+
+    public LocalDateTime getStartDate() { return startDate; }
+    public void setStartDate(LocalDateTime startDate) { this.startDate = startDate; }
+
+    public LocalDateTime getEndDate() { return endDate; }
+    public void setEndDate(LocalDateTime endDate) { this.endDate = endDate; }
+
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    /** 以 id 作為實體相等性的依據（JPA 最佳實踐）。 */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SerialGenerationJob that)) return false;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -1,5 +1,6 @@
 package com.serial.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -45,15 +46,15 @@ public class SerialLog {
     @Column(name = "api", nullable = false, length = 255)
     private String api;
 
-    /** 請求 Body 的 JSON 內容（壓縮格式，移除多餘空白） */
-    @Column(name = "request", nullable = false, columnDefinition = "NVARCHAR(MAX)")
+    /** 請求 Body 的 JSON 內容（壓縮格式，移除多餘空白）；以壓縮格式儲存時為 null，讀取請用 {@link #getRequest()} */
+    @Column(name = "request", columnDefinition = "NVARCHAR(MAX)")
     private String request;
 
     /** 收到請求的時間點（進入 Filter 時記錄） */
     @Column(name = "request_at", nullable = false)
     private LocalDateTime requestAt;
 
-    /** 回應 Body 的 JSON 內容（壓縮格式）；若回應為空則儲存 {@code {}} */
+    /** 回應 Body 的 JSON 內容（壓縮格式）；若回應為空則儲存 {@code {}}；以壓縮格式儲存時為 null */
     @Column(name = "response", columnDefinition = "NVARCHAR(MAX)")
     private String response;
 
@@ -66,6 +67,16 @@ public class SerialLog {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    /** 以 deflate 壓縮儲存的請求 Body（{@code serial.log.body-storage=deflate}，格式見 {@link LogBodyCodec}） */
+    @JsonIgnore
+    @Column(name = "request_z", columnDefinition = "VARBINARY(MAX)")
+    private byte[] requestCompressed;
+
+    /** 以 deflate 壓縮儲存的回應 Body */
+    @JsonIgnore
+    @Column(name = "response_z", columnDefinition = "VARBINARY(MAX)")
+    private byte[] responseCompressed;
+
     // 無參建構函式（JPA 規範要求）
     public SerialLog() {}
 
@@ -82,13 +93,15 @@ public class SerialLog {
     public String getApi() { return api; }
     public void setApi(String api) { this.api = api; }
 
-    public String getRequest() { return request; }
+    /** 請求 Body（以壓縮格式儲存時自動解壓） */
+    public String getRequest() { return request != null ? request : LogBodyCodec.decode(requestCompressed); }
     public void setRequest(String request) { this.request = request; }
 
     public LocalDateTime getRequestAt() { return requestAt; }
     public void setRequestAt(LocalDateTime requestAt) { this.requestAt = requestAt; }
 
-    public String getResponse() { return response; }
+    /** 回應 Body（以壓縮格式儲存時自動解壓） */
+    public String getResponse() { return response != null ? response : LogBodyCodec.decode(responseCompressed); }
     public void setResponse(String response) { this.response = response; }
 
     public LocalDateTime getResponseAt() { return responseAt; }
@@ -97,6 +110,12 @@ public class SerialLog {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public byte[] getRequestCompressed() { return requestCompressed; }
+    public void setRequestCompressed(byte[] requestCompressed) { this.requestCompressed = requestCompressed; }
+
+    public byte[] getResponseCompressed() { return responseCompressed; }
+    public void setResponseCompressed(byte[] responseCompressed) { this.responseCompressed = responseCompressed; }
+
     /** 以 id 作為實體相等性的依據（JPA 最佳實踐）。 */
     @Override
     public boolean equals(Object o) {
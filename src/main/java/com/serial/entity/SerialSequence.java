@@ -0,0 +1,52 @@
+package com.serial.entity;
+
+import jakarta.persistence.*;
+
+import java.util.Objects;
+
+/**
+ * 持久化計數器 Entity，對應資料庫表 {@code serial_sequence}。
+ *
+ * <p>每一筆記錄代表一個具名的單調遞增計數器。目前用於
+ * {@link com.serial.service.allocator.PermutationSerialCodeAllocator}：
+ * 計數器的每一個值都是序號空間中的一個「位置」，經過金鑰置換後即為序號。</p>
+ *
+ * <p>計數器只增不減，即使預留的位置因交易失敗而沒有被使用，也不會重新發出，
+ * 因此可以保證同一個位置永遠只會被配發一次。</p>
+ */
+@Entity
+@Table(name = "serial_sequence")
+public class SerialSequence {
+
+    /** 計數器名稱（主鍵），例如：{@code serial_code} */
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    /** 下一個尚未配發的值 */
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    // 無參建構函式（JPA 規範要求）
+    public SerialSequence() {}
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Long getNextValue() { return nextValue; }
+    public void setNextValue(Long nextValue) { this.nextValue = nextValue; }
+
+    /** 以 name 作為實體相等性的依據。 */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SerialSequence that)) return false;
+        return Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name);
+    }
+}
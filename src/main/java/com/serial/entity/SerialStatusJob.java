@@ -0,0 +1,175 @@
+package com.serial.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 大量序號狀態變更工作 Entity，對應資料庫表 {@code serial_status_job}。
+ *
+ * <p>依條件（活動、發行時間區間）批次變更序號狀態，例如活動下架時註銷所有未使用序號。
+ * 背景以主鍵範圍（key range）分段處理：每一段是一個獨立交易，更新序號的同時推進
+ * {@code lastId} 並累加 {@code affected}，三者一起 commit。</p>
+ *
+ * <p>因此 {@code lastId} 永遠是最後一個已 commit 段落的上界，重啟或段落失敗後從該處繼續即可。
+ * {@code maxId} 是提交工作時 {@code serial_detail} 的最大主鍵，之後新增的序號不在本工作範圍內。</p>
+ */
+@Entity
+@Table(
+    name = "serial_status_job",
+    indexes = @Index(name = "IX_serial_status_job_status", columnList = "status")
+)
+public class SerialStatusJob {
+
+    /** 工作類型：註銷符合條件的未使用序號 */
+    public static final String TYPE_CANCEL = "cancel";
+
+    /** 狀態：等待執行 */
+    public static final int STATUS_PENDING = 0;
+
+    /** 狀態：執行中 */
+    public static final int STATUS_RUNNING = 1;
+
+    /** 狀態：已完成 */
+    public static final int STATUS_COMPLETED = 2;
+
+    /** 狀態：失敗（重試次數用盡） */
+    public static final int STATUS_FAILED = 3;
+
+    /** 自動遞增主鍵（即對外的工作 ID） */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    /** 工作類型：目前僅有 {@link #TYPE_CANCEL} */
+    @Column(name = "job_type", nullable = false, length = 20)
+    private String jobType;
+
+    /** 篩選條件：所屬活動（null 表示不限活動） */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "serial_activity_id", foreignKey = @ForeignKey(name = "FK_serial_status_job_activity"))
+    private SerialActivity serialActivity;
+
+    /** 篩選條件：發行時間下限（含），null 表示不限 */
+    @Column(name = "created_from")
+    private LocalDateTime createdFrom;
+
+    /** 篩選條件：發行時間上限（不含），null 表示不限 */
+    @Column(name = "created_to")
+    private LocalDateTime createdTo;
+
+    /** 註銷原因（寫入每一筆被註銷序號的 note 欄位） */
+    @Column(name = "note", columnDefinition = "NVARCHAR(MAX)")
+    private String note;
+
+    /** 每一段（每個交易）最多更新的序號數量 */
+    @Column(name = "batch_size", nullable = false)
+    private Integer batchSize;
+
+    /** 工作範圍的主鍵上界（提交時的最大序號 ID） */
+    @Column(name = "max_id", nullable = false)
+    private Integer maxId;
+
+    /** 已處理到的主鍵（最後一個已 commit 段落的上界） */
+    @Column(name = "last_id", nullable = false)
+    private Integer lastId;
+
+    /** 開始執行時符合條件的序號數（估計值，執行期間被核銷的序號不會被註銷） */
+    @Column(name = "total")
+    private Integer total;
+
+    /** 已變更（且已 commit）的序號數量 */
+    @Column(name = "affected", nullable = false)
+    private Integer affected;
+
+    /**
+     * 工作狀態。
+     * 可用值參考類別常數：{@link #STATUS_PENDING}、{@link #STATUS_RUNNING}、{@link #STATUS_COMPLETED}、{@link #STATUS_FAILED}。
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status;
+
+    /** 失敗原因（僅在失敗時填入） */
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    /** 工作建立時間，由 Hibernate 自動設定 */
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    /** 最後一次進度更新時間 */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /** 工作結束時間（完成或失敗） */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // 無參建構函式（JPA 規範要求）
+    public SerialStatusJob() {}
+
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getJobType() { return jobType; }
+    public void setJobType(String jobType) { this.jobType = jobType; }
+
+    public SerialActivity getSerialActivity() { return serialActivity; }
+    public void setSerialActivity(SerialActivity serialActivity) { this.serialActivity = serialActivity; }
+
+    public LocalDateTime getCreatedFrom() { return createdFrom; }
+    public void setCreatedFrom(LocalDateTime createdFrom) { this.createdFrom = createdFrom; }
+
+    public LocalDateTime getCreatedTo() { return createdTo; }
+    public void setCreatedTo(LocalDateTime createdTo) { this.createdTo = createdTo; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+
+    public Integer getBatchSize() { return batchSize; }
+    public void setBatchSize(Integer batchSize) { this.batchSize = batchSize; }
+
+    public Integer getMaxId() { return maxId; }
+    public void setMaxId(Integer maxId) { this.maxId = maxId; }
+
+    public Integer getLastId() { return lastId; }
+    public void setLastId(Integer lastId) { this.lastId = lastId; }
+
+    public Integer getTotal() { return total; }
+    public void setTotal(Integer total) { this.total = total; }
+
+    public Integer getAffected() { return affected; }
+    public void setAffected(Integer affected) { this.affected = affected; }
+
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    /** 以 id 作為實體相等性的依據（JPA 最佳實踐）。 */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SerialStatusJob that)) return false;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
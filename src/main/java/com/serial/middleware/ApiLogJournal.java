@@ -0,0 +1,352 @@
+package com.serial.middleware;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serial.entity.SerialLog;
+import com.serial.repository.SerialLogJdbcRepository;
+import com.serial.repository.SerialLogJdbcRepository.JournalCheckpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * API 日誌的本機附加式日誌檔（journal）。
+ *
+ * <p>寫入 {@code serial_log} 與線上核銷共用同一個 SQL Server 的 I/O 與連線。
+ * 此實作只把日誌附加到本機磁碟上的分段檔（segment），不接觸資料庫：</p>
+ * <ul>
+ *   <li>每個分段檔固定 {@code segment-size} 大小，以 {@code FileChannel.map} 映射到記憶體，
+ *       附加一筆只是一次記憶體複製，不需要系統呼叫</li>
+ *   <li>記錄格式：{@code [長度 int][CRC32 int][SerialLog JSON]}，長度 0 代表分段結束；
+ *       長度最後寫入，作為該筆記錄的提交標記</li>
+ *   <li>分段寫滿、或使用超過 {@code roll-interval} 時關閉並換新的分段檔（檔名為遞增的分段序號）</li>
+ *   <li>每 {@code force-interval-ms} 把映射記憶體寫回磁碟：程序當掉時已附加的記錄仍在作業系統的
+ *       page cache 中不會遺失；主機斷電時最多遺失最後一個間隔的記錄</li>
+ * </ul>
+ *
+ * <p>啟動時一律開新的分段檔，上次未正常關閉的分段視為已關閉；讀取時遇到長度為 0、超出檔案或 CRC
+ * 不符的記錄（寫到一半當掉）即視為該分段結束。已關閉的分段由 {@link ApiLogJournalShipper}
+ * 載入 {@code serial_log} 並負責刪除。</p>
+ *
+ * <p>新分段的序號取「目錄中最後一個分段 + 1」與「資料庫中此日誌檔的載入進度」兩者較大者：
+ * 目錄被清空或換了位置（例如容器重建、相對路徑的工作目錄不同）時，序號不會從 1 重新開始，
+ * 否則新的分段會小於載入進度而被 {@link ApiLogJournalShipper} 視為已載入、之後被清除。</p>
+ *
+ * <p>指標（Micrometer）：{@code serial.log.journal.appended}、{@code serial.log.dropped}
+ * （{@code reason} 為 oversize：單筆超過分段大小；error：序列化或檔案錯誤）。</p>
+ *
+ * <p>設定 {@code serial.log.sink=journal} 啟用。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.log.sink", havingValue = "journal")
+public class ApiLogJournal implements ApiLogSink {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiLogJournal.class);
+
+    /** 記錄標頭：長度 + CRC32 */
+    static final int HEADER_BYTES = 8;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+    private final int segmentSize;
+    private final long rollIntervalNanos;
+
+    private final Counter appended;
+    private final Counter oversizeDropped;
+    private final Counter errorDropped;
+
+    /** 附加與換檔互斥 */
+    private final Object lock = new Object();
+
+    /** 目前寫入中的分段序號；小於此序號的分段都已關閉 */
+    private volatile long activeSegment;
+
+    /** 目前寫入中的分段映射；開檔失敗時為 null，下次附加時重試 */
+    private volatile MappedByteBuffer active;
+
+    /** 目前分段開啟的時間（System.nanoTime） */
+    private long activeOpenedAt;
+
+    private boolean running = true;
+
+    @Autowired
+    public ApiLogJournal(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         SerialLogJdbcRepository logRepo,
+                         @Value("${serial.log-journal.name:${HOSTNAME:default}}") String name,
+                         @Value("${serial.log-journal.ship:true}") boolean ship,
+                         @Value("${serial.log-journal.dir:serial-log-journal}") String dir,
+                         @Value("${serial.log-journal.segment-size:64MB}") DataSize segmentSize,
+                         @Value("${serial.log-journal.roll-interval:PT1M}") Duration rollInterval) throws IOException {
+        this(objectMapper, meterRegistry, dir, segmentSize, rollInterval,
+                ship ? firstUnshippedSegment(logRepo.findCheckpoint(name)) : 1);
+    }
+
+    /**
+     * @param minSegment 新分段序號的下限（載入進度之後第一個未使用的序號）
+     */
+    ApiLogJournal(ObjectMapper objectMapper,
+                  MeterRegistry meterRegistry,
+                  String dir,
+                  DataSize segmentSize,
+                  Duration rollInterval,
+                  long minSegment) throws IOException {
+        if (segmentSize.toBytes() < 1024 || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("serial.log-journal.segment-size 必須介於 1KB 與 2GB 之間: " + segmentSize);
+        }
+        this.objectMapper = objectMapper;
+        this.dir = Path.of(dir);
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.rollIntervalNanos = rollInterval.toNanos();
+
+        this.appended = Counter.builder("serial.log.journal.appended")
+                .description("附加到日誌檔的日誌筆數")
+                .register(meterRegistry);
+        this.oversizeDropped = Counter.builder("serial.log.dropped")
+                .tag("reason", "oversize")
+                .description("被捨棄的日誌筆數")
+                .register(meterRegistry);
+        this.errorDropped = Counter.builder("serial.log.dropped")
+                .tag("reason", "error")
+                .description("被捨棄的日誌筆數")
+                .register(meterRegistry);
+
+        Files.createDirectories(this.dir);
+        List<Long> existing = segments();
+        long next = existing.isEmpty() ? 1 : existing.getLast() + 1;
+        if (minSegment > next) {
+            log.warn("[ApiLogJournal] 日誌檔目錄 {} 的分段序號（{}）落後於載入進度，新分段改從 {} 開始",
+                    this.dir.toAbsolutePath(), next, minSegment);
+            next = minSegment;
+        }
+        this.activeSegment = next;
+        openActive();
+        log.info("[ApiLogJournal] 日誌檔目錄 {}，{} 個待處理分段，新分段 {}", this.dir.toAbsolutePath(),
+                existing.size(), activeSegment);
+    }
+
+    /**
+     * 載入進度之後第一個可以使用的分段序號：進度停在分段中間時，該分段的前段已載入，
+     * 新分段不能沿用同一個序號（否則會從中間位置開始讀）。
+     */
+    static long firstUnshippedSegment(Optional<JournalCheckpoint> checkpoint) {
+        return checkpoint.map(c -> c.position() > 0 ? c.segment() + 1 : c.segment())
+                .map(segment -> Math.max(segment, 1))
+                .orElse(1L);
+    }
+
+    /**
+     * 附加一筆日誌到目前的分段；寫滿時先換新的分段。
+     *
+     * @param entry 日誌記錄
+     */
+    @Override
+    public void submit(SerialLog entry) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            log.error("[ApiLogJournal] 日誌序列化失敗: {}", e.getMessage());
+            errorDropped.increment();
+            return;
+        }
+        int recordSize = HEADER_BYTES + payload.length;
+        if (recordSize > segmentSize) {
+            oversizeDropped.increment();
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        synchronized (lock) {
+            if (!running) {
+                errorDropped.increment();
+                return;
+            }
+            if (active != null && active.remaining() < recordSize) roll();
+            if (active == null && !openActive()) {
+                errorDropped.increment();
+                return;
+            }
+
+            int position = active.position();
+            active.put(position + HEADER_BYTES, payload);
+            active.putInt(position + 4, (int) crc.getValue());
+            active.putInt(position, payload.length);  // 長度最後寫入：讀取端看到長度才會讀這筆
+            active.position(position + recordSize);
+        }
+        appended.increment();
+    }
+
+    /**
+     * 定期把映射記憶體寫回磁碟，並關閉使用超過 {@code roll-interval} 的分段（讓日誌能及時載入資料庫）。
+     */
+    @Scheduled(fixedDelayString = "${serial.log-journal.force-interval-ms:1000}")
+    public void maintain() {
+        MappedByteBuffer current = active;
+        if (current != null) current.force();
+
+        synchronized (lock) {
+            if (running && active != null && active.position() > 0
+                    && System.nanoTime() - activeOpenedAt >= rollIntervalNanos) {
+                roll();
+            }
+        }
+    }
+
+    /** 停止附加並把目前的分段寫回磁碟（下次啟動時視為已關閉的分段） */
+    @PreDestroy
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            if (active != null) active.force();
+        }
+    }
+
+    /** 目前寫入中的分段序號 */
+    public long activeSegment() {
+        return activeSegment;
+    }
+
+    /**
+     * 已關閉的分段序號（由小到大）。
+     */
+    public List<Long> closedSegments() throws IOException {
+        long current = activeSegment;
+        return segments().stream().filter(segment -> segment < current).toList();
+    }
+
+    /**
+     * 從分段的指定位置讀取最多 {@code maxRecords} 筆記錄。
+     *
+     * @param segment    分段序號（必須已關閉）
+     * @param position   起始位置（上一批的 {@link Batch#nextPosition()}，從頭讀取為 0）
+     * @param maxRecords 最多讀取筆數
+     * @return 讀到的日誌、下一筆的位置，以及是否已讀到分段結尾
+     */
+    public Batch read(long segment, int position, int maxRecords) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        List<SerialLog> entries = new ArrayList<>(maxRecords);
+        CRC32 crc = new CRC32();
+        while (entries.size() < maxRecords) {
+            if (position + HEADER_BYTES > buffer.limit()) return new Batch(entries, position, true);
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.limit()) {
+                return new Batch(entries, position, true);
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                // 寫到一半當掉的記錄：之後的內容都不可信
+                log.warn("[ApiLogJournal] 分段 {} 位置 {} 的記錄不完整，視為分段結尾", segment, position);
+                return new Batch(entries, position, true);
+            }
+            position += HEADER_BYTES + length;
+
+            try {
+                entries.add(objectMapper.readValue(payload, SerialLog.class));
+            } catch (IOException e) {
+                log.warn("[ApiLogJournal] 略過無法解析的日誌記錄（分段 {}）: {}", segment, e.getMessage());
+            }
+        }
+        return new Batch(entries, position, false);
+    }
+
+    /**
+     * 刪除分段檔。
+     *
+     * @param segment 分段序號（必須已關閉）
+     */
+    public void delete(long segment) throws IOException {
+        Files.deleteIfExists(segmentPath(segment));
+    }
+
+    /**
+     * 分段檔最後修改時間（關閉時間）。
+     *
+     * @param segment 分段序號
+     */
+    public Instant closedAt(long segment) throws IOException {
+        return Files.getLastModifiedTime(segmentPath(segment)).toInstant();
+    }
+
+    /** 關閉目前的分段並開新的分段（呼叫端持有 lock） */
+    private void roll() {
+        active.force();
+        active = null;
+        activeSegment++;
+        openActive();
+    }
+
+    /** 建立並映射 {@link #activeSegment} 分段檔（呼叫端持有 lock 或在建構中）；失敗時回傳 false */
+    private boolean openActive() {
+        Path path = segmentPath(activeSegment);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射會把檔案延伸到 segment-size，內容為 0（多數檔案系統為稀疏檔，不會立即佔用空間）
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            activeOpenedAt = System.nanoTime();
+            return true;
+        } catch (IOException e) {
+            log.error("[ApiLogJournal] 無法建立分段檔 {}: {}", path, e.getMessage());
+            if (Files.exists(path)) activeSegment++;  // 殘留的同名檔案（例如建立到一半）不覆寫，下次改用下一個序號
+            return false;
+        }
+    }
+
+    /** 目錄中所有分段的序號（由小到大） */
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SEGMENT_SUFFIX.length()))
+                    .filter(name -> !name.isEmpty() && name.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%016d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 一批讀取結果。
+     *
+     * @param entries      讀到的日誌
+     * @param nextPosition 下一筆記錄的位置
+     * @param end          是否已讀到分段結尾
+     */
+    public record Batch(List<SerialLog> entries, int nextPosition, boolean end) {}
+}
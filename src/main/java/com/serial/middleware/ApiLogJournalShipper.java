@@ -0,0 +1,142 @@
+package com.serial.middleware;
+
+import com.serial.repository.SerialLogJdbcRepository;
+import com.serial.repository.SerialLogJdbcRepository.JournalCheckpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把 {@link ApiLogJournal} 已關閉的分段載入 {@code serial_log}，並清除過期的分段檔。
+ *
+ * <p>載入（{@code serial.log-journal.ship=true}，預設）：</p>
+ * <ol>
+ *   <li>從資料庫讀取此日誌檔（{@code serial.log-journal.name}）的進度：分段序號 + 分段內位置</li>
+ *   <li>依序讀取已關閉的分段，每 {@code batch-size} 筆以一個 JDBC batch 寫入，
+ *       並在同一個交易中把進度更新到下一筆的位置</li>
+ *   <li>讀到分段結尾時，進度移到下一個分段的開頭</li>
+ * </ol>
+ * <p>日誌與進度一起 commit：任何時候當掉，重啟後都從最後 commit 的進度繼續，不會重複寫入也不會遺漏。</p>
+ *
+ * <p>清除：分段關閉超過 {@code retention} 且已載入（或 {@code ship=false}，分段檔本身即為日誌的保存處）時刪除。</p>
+ *
+ * <p>多台機器各自有本機日誌檔、共用同一個資料庫時，每台的 {@code serial.log-journal.name} 必須不同。</p>
+ *
+ * <p>指標（Micrometer）：{@code serial.log.journal.shipped}（已載入筆數）、
+ * {@code serial.log.journal.pending}（已關閉但尚未載入的分段數）。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.log.sink", havingValue = "journal")
+public class ApiLogJournalShipper {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiLogJournalShipper.class);
+
+    private final ApiLogJournal journal;
+    private final SerialLogJdbcRepository logRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String name;
+    private final boolean ship;
+    private final int batchSize;
+    private final Duration retention;
+
+    private final Counter shipped;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public ApiLogJournalShipper(ApiLogJournal journal,
+                                SerialLogJdbcRepository logRepo,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${serial.log-journal.name:${HOSTNAME:default}}") String name,
+                                @Value("${serial.log-journal.ship:true}") boolean ship,
+                                @Value("${serial.log-journal.batch-size:500}") int batchSize,
+                                @Value("${serial.log-journal.retention:P1D}") Duration retention) {
+        this.journal = journal;
+        this.logRepo = logRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.name = name;
+        this.ship = ship;
+        this.batchSize = batchSize;
+        this.retention = retention;
+
+        this.shipped = Counter.builder("serial.log.journal.shipped")
+                .description("從日誌檔載入資料庫的日誌筆數")
+                .register(meterRegistry);
+        Gauge.builder("serial.log.journal.pending", pending, AtomicInteger::get)
+                .description("已關閉但尚未載入資料庫的分段數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定期載入已關閉的分段並清除過期的分段檔。
+     */
+    @Scheduled(fixedDelayString = "${serial.log-journal.ship-interval-ms:5000}")
+    public void run() {
+        try {
+            List<Long> closed = journal.closedSegments();
+            JournalCheckpoint checkpoint = ship ? shipAll(closed) : null;
+            purge(closed, checkpoint);
+        } catch (Exception e) {
+            // 進度只在成功 commit 時前進，下次從同一個位置重試
+            log.error("[ApiLogJournalShipper] 日誌檔載入失敗: {}", e.getMessage());
+        }
+    }
+
+    /** 依序載入已關閉的分段，回傳最新的進度 */
+    private JournalCheckpoint shipAll(List<Long> closed) throws IOException {
+        JournalCheckpoint checkpoint = logRepo.findCheckpoint(name).orElse(new JournalCheckpoint(0, 0));
+        if (checkpoint.segment() > journal.activeSegment()) {
+            // 啟動時已把分段序號推到進度之後；進度仍超前代表另一台機器使用相同的 name
+            log.warn("[ApiLogJournalShipper] 載入進度（分段 {}）超前目前的分段 {}，請確認 serial.log-journal.name（{}）未與其他機器重複",
+                    checkpoint.segment(), journal.activeSegment(), name);
+        }
+        pending.set((int) closed.stream().filter(segment -> segment >= checkpoint.segment()).count());
+
+        JournalCheckpoint current = checkpoint;
+        for (long segment : closed) {
+            if (segment < current.segment()) continue;  // 已載入，等待清除
+            int position = segment == current.segment() ? current.position() : 0;
+
+            while (true) {
+                ApiLogJournal.Batch batch = journal.read(segment, position, batchSize);
+                JournalCheckpoint next = batch.end()
+                        ? new JournalCheckpoint(segment + 1, 0)
+                        : new JournalCheckpoint(segment, batch.nextPosition());
+                transactionTemplate.executeWithoutResult(status -> {
+                    logRepo.insertAll(batch.entries());
+                    logRepo.saveCheckpoint(name, next);
+                });
+                shipped.increment(batch.entries().size());
+                current = next;
+                if (batch.end()) break;
+                position = batch.nextPosition();
+            }
+            pending.decrementAndGet();
+        }
+        return current;
+    }
+
+    /** 刪除關閉超過保留期間、且已載入（或不需載入）的分段檔 */
+    private void purge(List<Long> closed, JournalCheckpoint checkpoint) throws IOException {
+        Instant cutoff = Instant.now().minus(retention);
+        for (long segment : closed) {
+            if (checkpoint != null && segment >= checkpoint.segment()) break;
+            if (journal.closedAt(segment).isAfter(cutoff)) continue;
+            journal.delete(segment);
+            log.debug("[ApiLogJournalShipper] 已刪除分段 {}", segment);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.serial.middleware;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 各 API 的日誌策略。
+ *
+ * <p>以 {@code /api/} 之後的第一段路徑（底線改為連字號）為鍵設定，未設定的 API 全部記錄：</p>
+ * <pre>
+ * serial.log.policy.serials-cancel.sample-rate=0.05
+ * serial.log.policy.serials-cancel.max-body-bytes=4096
+ * serial.log.policy.serials-jobs.headers-only=true
+ * </pre>
+ *
+ * <p>鍵不使用 {@code resolveApiName} 的中文名稱：中文無法作為屬性的鍵；
+ * 路徑與中文名稱一一對應（查詢工作的 {@code /api/serials_jobs/{id}} 鍵為 {@code serials-jobs}）。</p>
+ */
+@Component
+public class ApiLogPolicies {
+
+    private static final String API_PREFIX = "/api/";
+
+    private final Map<String, ApiLogPolicy> policies;
+
+    public ApiLogPolicies(Environment environment) {
+        this.policies = Binder.get(environment)
+                .bind("serial.log.policy", Bindable.mapOf(String.class, ApiLogPolicy.class))
+                .orElse(Map.of());
+    }
+
+    /**
+     * 取得請求路徑對應的策略。
+     *
+     * @param uri 請求路徑（{@code /api/} 開頭）
+     * @return 設定的策略；未設定時為全部記錄
+     */
+    public ApiLogPolicy resolve(String uri) {
+        if (policies.isEmpty()) return ApiLogPolicy.DEFAULT;
+        int end = uri.indexOf('/', API_PREFIX.length());
+        String key = uri.substring(API_PREFIX.length(), end < 0 ? uri.length() : end).replace('_', '-');
+        return policies.getOrDefault(key, ApiLogPolicy.DEFAULT);
+    }
+}
@@ -0,0 +1,27 @@
+package com.serial.middleware;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 單一 API 的日誌策略（設定方式見 {@link ApiLogPolicies}）。
+ *
+ * @param sampleRate        成功請求的抽樣比例（0～1，1 為全部記錄）
+ * @param alwaysLogFailures 失敗的請求（HTTP 狀態碼 400 以上）是否不論抽樣一律記錄
+ * @param maxBodyBytes      每個 Body 記錄的最大位元組數；0 代表使用 {@code serial.log.max-body-bytes}
+ * @param headersOnly       只記錄請求標頭與回應狀態碼，不讀取、不快取 Body
+ */
+public record ApiLogPolicy(@DefaultValue("1.0") double sampleRate,
+                           @DefaultValue("true") boolean alwaysLogFailures,
+                           @DefaultValue("0") int maxBodyBytes,
+                           @DefaultValue("false") boolean headersOnly) {
+
+    /** 未設定策略的 API：全部記錄 */
+    static final ApiLogPolicy DEFAULT = new ApiLogPolicy(1.0, true, 0, false);
+
+    /** 此請求是否抽中（不論成敗都記錄） */
+    boolean sample() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
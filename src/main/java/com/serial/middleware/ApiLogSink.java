@@ -0,0 +1,23 @@
+package com.serial.middleware;
+
+import com.serial.entity.SerialLog;
+
+/**
+ * API 日誌的去向：{@link ApiLoggerFilter} 建立日誌後交給此介面，不等待寫入完成。
+ *
+ * <p>透過設定 {@code serial.log.sink} 選擇實作：</p>
+ * <ul>
+ *   <li>{@code database}（預設）：{@link ApiLogWriter}，記憶體佇列 + 批次寫入 {@code serial_log}</li>
+ *   <li>{@code journal}：{@link ApiLogJournal}，附加到本機的記憶體映射日誌檔，
+ *       由 {@link ApiLogJournalShipper} 在背景載入 {@code serial_log}（或只保留檔案）</li>
+ * </ul>
+ */
+public interface ApiLogSink {
+
+    /**
+     * 提交一筆日誌（不等待寫入資料庫）。
+     *
+     * @param entry 日誌記錄
+     */
+    void submit(SerialLog entry);
+}
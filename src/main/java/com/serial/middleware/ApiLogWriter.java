@@ -0,0 +1,301 @@
+package com.serial.middleware;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serial.entity.SerialLog;
+import com.serial.repository.SerialLogJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API 日誌的非同步批次寫入器。
+ *
+ * <p>{@link ApiLoggerFilter} 原本在每個請求結束前同步 {@code save()} 一筆日誌：
+ * 每次核銷都要多付一個資料庫交易，且佔用一條連線池連線。改為：</p>
+ * <ol>
+ *   <li>請求執行緒只把日誌放進有容量上限的記憶體佇列（{@code capacity}），立即返回</li>
+ *   <li>專屬的寫入執行緒取出第一筆後，湊滿 {@code batch-size} 筆或等待 {@code flush-interval-ms}，
+ *       以一個 JDBC batch、一個交易寫入 {@code serial_log}</li>
+ * </ol>
+ *
+ * <p>佇列已滿時依 {@code overflow-policy} 處理：</p>
+ * <ul>
+ *   <li>{@code drop}（預設）：直接捨棄，計入 {@code serial.log.dropped}</li>
+ *   <li>{@code block}：請求執行緒最多等待 {@code block-timeout-ms}，仍無空間才捨棄</li>
+ *   <li>{@code spill}：以 JSON Lines 附加到 {@code spill-path} 檔案；寫入器閒置時再讀回寫入資料庫
+ *       （重播中途失敗會從頭重試，可能產生少量重複日誌）</li>
+ * </ul>
+ *
+ * <p>寫入資料庫失敗時，{@code spill} 模式將該批寫入檔案，其他模式捨棄並計入
+ * {@code serial.log.dropped{reason=error}}。應用程式關閉時停止接收並寫完佇列中的日誌
+ * （最多等待 {@code shutdown-timeout}）。</p>
+ *
+ * <p>指標（Micrometer）：{@code serial.log.queue.depth}（佇列中的筆數）、{@code serial.log.dropped}
+ * （以 {@code reason} 標籤區分 overflow / error）、{@code serial.log.spilled}、{@code serial.log.written}、
+ * {@code serial.log.flush}（每批寫入時間）。</p>
+ *
+ * <p>{@code serial.log.sink=database}（預設）時啟用。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.log.sink", havingValue = "database", matchIfMissing = true)
+public class ApiLogWriter implements ApiLogSink {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiLogWriter.class);
+
+    /** 佇列已滿時的處理方式 */
+    enum OverflowPolicy { DROP, BLOCK, SPILL }
+
+    private final SerialLogJdbcRepository logRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<SerialLog> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final Path spillPath;
+    private final Path replayPath;
+    private final Duration shutdownTimeout;
+
+    /** 溢出檔的附加與搬移互斥 */
+    private final Object spillLock = new Object();
+
+    private final Counter overflowDropped;
+    private final Counter errorDropped;
+    private final Counter spilled;
+    private final Counter written;
+    private final Timer flushTimer;
+
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public ApiLogWriter(SerialLogJdbcRepository logRepo,
+                        TransactionTemplate transactionTemplate,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${serial.log-writer.capacity:10000}") int capacity,
+                        @Value("${serial.log-writer.batch-size:200}") int batchSize,
+                        @Value("${serial.log-writer.flush-interval-ms:200}") long flushIntervalMs,
+                        @Value("${serial.log-writer.overflow-policy:drop}") String overflowPolicy,
+                        @Value("${serial.log-writer.block-timeout-ms:100}") long blockTimeoutMs,
+                        @Value("${serial.log-writer.spill-path:serial-log-spill.jsonl}") String spillPath,
+                        @Value("${serial.log-writer.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        this.logRepo = logRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spillPath = Path.of(spillPath);
+        this.replayPath = Path.of(spillPath + ".replay");
+        this.shutdownTimeout = shutdownTimeout;
+
+        Gauge.builder("serial.log.queue.depth", queue, BlockingQueue::size)
+                .description("等待寫入的日誌筆數")
+                .register(meterRegistry);
+        this.overflowDropped = Counter.builder("serial.log.dropped")
+                .tag("reason", "overflow")
+                .description("被捨棄的日誌筆數")
+                .register(meterRegistry);
+        this.errorDropped = Counter.builder("serial.log.dropped")
+                .tag("reason", "error")
+                .description("被捨棄的日誌筆數")
+                .register(meterRegistry);
+        this.spilled = Counter.builder("serial.log.spilled")
+                .description("寫入溢出檔的日誌筆數")
+                .register(meterRegistry);
+        this.written = Counter.builder("serial.log.written")
+                .description("已寫入資料庫的日誌筆數")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("serial.log.flush")
+                .description("每批日誌寫入資料庫的時間")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = Thread.ofPlatform().name("api-log-writer").daemon(true).start(this::drain);
+    }
+
+    /**
+     * 停止接收並寫完佇列中的日誌；逾時仍未寫完時，{@code spill} 模式把剩餘日誌寫入溢出檔。
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            List<SerialLog> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            log.warn("[ApiLogWriter] 關閉逾時，尚有 {} 筆日誌未寫入", remaining.size());
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(remaining);
+            } else {
+                errorDropped.increment(remaining.size());
+            }
+        }
+    }
+
+    /**
+     * 提交一筆日誌（不等待寫入）。
+     *
+     * @param entry 日誌記錄
+     */
+    @Override
+    public void submit(SerialLog entry) {
+        if (running && queue.offer(entry)) return;
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (running && queue.offer(entry, blockTimeoutMs, TimeUnit.MILLISECONDS)) return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                overflowDropped.increment();
+            }
+            case SPILL -> spill(List.of(entry));
+            case DROP -> overflowDropped.increment();
+        }
+    }
+
+    /** 寫入迴圈：湊批後寫入資料庫；閒置時重播溢出檔；關閉時寫完佇列才結束 */
+    private void drain() {
+        List<SerialLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                SerialLog first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (running && overflowPolicy == OverflowPolicy.SPILL) replaySpill();
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    SerialLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                if (!flush(batch)) {
+                    if (overflowPolicy == OverflowPolicy.SPILL) {
+                        spill(batch);
+                    } else {
+                        errorDropped.increment(batch.size());
+                    }
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** 以一個交易寫入一批日誌；失敗時回傳 false */
+    private boolean flush(List<SerialLog> batch) {
+        long begin = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> logRepo.insertAll(batch));
+            written.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            log.error("[ApiLogWriter] 日誌寫入失敗（{} 筆）: {}", batch.size(), e.getMessage());
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** 以 JSON Lines 附加到溢出檔 */
+    private void spill(List<SerialLog> entries) {
+        if (entries.isEmpty()) return;
+        synchronized (spillLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (SerialLog entry : entries) {
+                    out.write(objectMapper.writeValueAsString(entry));
+                    out.newLine();
+                }
+                spilled.increment(entries.size());
+            } catch (IOException e) {
+                log.error("[ApiLogWriter] 溢出檔寫入失敗，捨棄 {} 筆日誌: {}", entries.size(), e.getMessage());
+                errorDropped.increment(entries.size());
+            }
+        }
+    }
+
+    /**
+     * 重播溢出檔：先搬移成重播檔（之後的溢出寫入新檔），再分批寫入資料庫，全部成功才刪除。
+     * 上次重播中斷留下的重播檔會優先處理。
+     */
+    private void replaySpill() {
+        try {
+            if (!Files.exists(replayPath)) {
+                synchronized (spillLock) {
+                    if (!Files.exists(spillPath)) return;
+                    Files.move(spillPath, replayPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            List<SerialLog> batch = new ArrayList<>(batchSize);
+            long replayed = 0;
+            try (BufferedReader in = Files.newBufferedReader(replayPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        batch.add(objectMapper.readValue(line, SerialLog.class));
+                    } catch (IOException e) {
+                        log.warn("[ApiLogWriter] 略過無法解析的溢出記錄: {}", e.getMessage());
+                        continue;
+                    }
+                    if (batch.size() == batchSize) {
+                        if (!flush(batch)) return;  // 保留重播檔，下次從頭重試
+                        replayed += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty() && !flush(batch)) return;
+            replayed += batch.size();
+            Files.delete(replayPath);
+            log.info("[ApiLogWriter] 溢出檔重播完成：{} 筆", replayed);
+        } catch (IOException e) {
+            log.warn("[ApiLogWriter] 溢出檔重播失敗: {}", e.getMessage());
+        }
+    }
+}
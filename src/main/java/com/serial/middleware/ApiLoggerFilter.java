@@ -1,14 +1,13 @@
 package com.serial.middleware;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.serial.entity.SerialLog;
-import com.serial.repository.SerialLogRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -16,14 +15,20 @@ import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * API 請求/回應日誌過濾器。
  *
  * <p>攔截所有 {@code /api/*} 路徑的 HTTP 請求，在業務處理完成後，
- * 將完整的請求與回應資訊寫入 {@link SerialLog} 資料庫表。</p>
+ * 將完整的請求與回應資訊交給 {@link ApiLogSink}（預設為 {@link ApiLogWriter} 非同步批次寫入 {@link SerialLog} 資料庫表）。</p>
  *
  * <p>設計重點：</p>
  * <ul>
@@ -31,11 +36,16 @@ import java.time.LocalDateTime;
  *   <li>{@code @Order(1)}：設為最高優先權的 Filter，最先攔截請求</li>
  *   <li>使用 {@code ContentCachingRequestWrapper} 與 {@code ContentCachingResponseWrapper}
  *       讀取 Body 內容，避免 InputStream 只能讀取一次的問題</li>
- *   <li>JSON 自動壓縮：移除多餘空白，節省資料庫儲存空間</li>
- *   <li>日誌寫入失敗時只 log error，不影響主要 API 回應</li>
+ *   <li>JSON 自動壓縮：由 {@link JsonLogCompactor} 以串流方式移除多餘空白、遮罩敏感欄位並限制長度，
+ *       節省資料庫儲存空間</li>
+ *   <li>日誌只放入記憶體佇列，不在請求執行緒中開交易、不佔用連線；寫入失敗不影響主要 API 回應</li>
+ *   <li>各 API 可設定日誌策略（{@link ApiLogPolicies}）：成功請求抽樣、失敗一律記錄、Body 上限、只記錄標頭</li>
  * </ul>
  *
  * <p>只對 {@code /api/*} 路徑生效，後台 {@code /admin/*} 頁面不記錄。</p>
+ *
+ * <p>串流回應的 API（例如批次核銷）不包裝回應：{@code ContentCachingResponseWrapper}
+ * 會把整份回應留在記憶體直到結束，抵銷串流的效果，因此只記錄請求與狀態碼。</p>
  */
 @Component
 @Order(1)
@@ -43,15 +53,31 @@ public class ApiLoggerFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(ApiLoggerFilter.class);
 
-    /** 日誌資料存取層，用於將日誌記錄寫入資料庫 */
-    private final SerialLogRepository serialLogRepository;
+    /** 以串流方式輸出回應的 API，不快取回應內容 */
+    private static final Set<String> STREAMING_URIS = Set.of("/api/serials_redeem_batch");
+
+    /** 日誌去向（依 serial.log.sink 選擇） */
+    private final ApiLogSink logSink;
+
+    /** 請求/回應 Body 的 JSON 壓縮器 */
+    private final JsonLogCompactor compactor;
+
+    /** 各 API 的日誌策略（抽樣、Body 上限、只記錄標頭） */
+    private final ApiLogPolicies policies;
 
-    /** JSON 工具，用於壓縮請求/回應的 JSON 字串 */
-    private final ObjectMapper objectMapper;
+    /** 只記錄標頭時允許記錄的標頭名稱（小寫） */
+    private final Set<String> headerAllowlist;
 
-    public ApiLoggerFilter(SerialLogRepository serialLogRepository, ObjectMapper objectMapper) {
-        this.serialLogRepository = serialLogRepository;
-        this.objectMapper = objectMapper;
+    public ApiLoggerFilter(ApiLogSink logSink, JsonLogCompactor compactor, ApiLogPolicies policies,
+                           @Value("${serial.log.header-allowlist:content-type,content-length,accept,user-agent,idempotency-key,x-request-id}")
+                           String headerAllowlist) {
+        this.logSink = logSink;
+        this.compactor = compactor;
+        this.policies = policies;
+        this.headerAllowlist = Arrays.stream(headerAllowlist.split(","))
+                .map(h -> h.trim().toLowerCase(Locale.ROOT))
+                .filter(h -> !h.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     /**
@@ -59,12 +85,14 @@ public class ApiLoggerFilter extends OncePerRequestFilter {
      *
      * <p>執行順序：</p>
      * <ol>
-     *   <li>用 Wrapper 包裝請求/回應（使 Body 可多次讀取）</li>
+     *   <li>依 API 的日誌策略（{@link ApiLogPolicies}）決定是否抽中；未抽中且不需記錄失敗時直接放行，不做任何包裝</li>
+     *   <li>用 Wrapper 包裝請求/回應（使 Body 可多次讀取）；只記錄標頭時不包裝，
+     *       未抽中時回應只在失敗時快取（{@link FailureCachingResponseWrapper}）</li>
      *   <li>記錄請求進入時間</li>
      *   <li>繼續執行後續 Filter 與 Controller（{@code filterChain.doFilter}）</li>
      *   <li>業務處理完成後，記錄回應時間</li>
-     *   <li>讀取請求/回應 Body 並寫入資料庫日誌</li>
      *   <li>將回應 Body 複製回真實的 Response Stream（必要步驟，否則客戶端收不到回應）</li>
+     *   <li>抽中或失敗的請求：讀取請求/回應 Body，將日誌交給日誌去向（非同步寫入）</li>
      * </ol>
      */
     @Override
@@ -72,40 +100,65 @@ public class ApiLoggerFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
+        ApiLogPolicy policy = policies.resolve(request.getRequestURI());
+        boolean sampled = policy.sample();
+        if (!sampled && !policy.alwaysLogFailures()) {
+            // 不記錄：不包裝請求/回應，不產生任何額外成本
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         // 包裝請求與回應，使 Body 可以被多次讀取（原始 Stream 只能讀一次）
         // 請求 Body 上限設 10,000 bytes，防止超大請求佔用記憶體
-        ContentCachingRequestWrapper wrappedReq = new ContentCachingRequestWrapper(request, 10_000);
-        ContentCachingResponseWrapper wrappedRes = new ContentCachingResponseWrapper(response);
+        boolean bodies = !policy.headersOnly();
+        boolean streaming = STREAMING_URIS.contains(request.getRequestURI());
+        ContentCachingRequestWrapper wrappedReq = bodies ? new ContentCachingRequestWrapper(request, 10_000) : null;
+        HttpServletResponse wrappedRes = !bodies || streaming ? response
+                : sampled ? new ContentCachingResponseWrapper(response)
+                : new FailureCachingResponseWrapper(response);
 
         // 記錄請求進入時間（在業務處理之前）
         LocalDateTime requestAt = LocalDateTime.now();
 
         // 繼續執行 Filter Chain（包含 Controller 業務邏輯）
-        filterChain.doFilter(wrappedReq, wrappedRes);
+        filterChain.doFilter(wrappedReq != null ? wrappedReq : request, wrappedRes);
 
         // 記錄回應產生時間（在業務處理之後）
         LocalDateTime responseAt = LocalDateTime.now();
 
-        // 從 Wrapper 讀取請求/回應 Body（此時 Controller 已執行完畢）
-        String reqBody = new String(wrappedReq.getContentAsByteArray(), StandardCharsets.UTF_8);
-        String resBody = new String(wrappedRes.getContentAsByteArray(), StandardCharsets.UTF_8);
+        // 從 Wrapper 讀取回應 Body（此時 Controller 已執行完畢），保留原始位元組不先解碼成字串
+        byte[] resBody = null;
+        if (wrappedRes instanceof ContentCachingResponseWrapper caching) {
+            resBody = caching.getContentAsByteArray();
+            // 關鍵：將回應 Body 寫回真實的 Response，否則客戶端收不到資料
+            caching.copyBodyToResponse();
+        } else if (wrappedRes instanceof FailureCachingResponseWrapper failureCaching) {
+            resBody = failureCaching.getContentAsByteArray();
+            failureCaching.copyBodyToResponse();
+        }
 
-        // 關鍵：將回應 Body 寫回真實的 Response，否則客戶端收不到資料
-        wrappedRes.copyBodyToResponse();
+        // 未抽中的成功請求不記錄
+        int status = response.getStatus();
+        if (!sampled && status < 400) return;
 
-        // 非同步寫入日誌（寫入失敗不影響主要 API 回應）
+        // 交給日誌去向非同步寫入（只放入佇列或附加到日誌檔，不影響主要 API 回應）
         try {
             SerialLog logEntry = new SerialLog();
             logEntry.setApiName(resolveApiName(request.getRequestURI()));  // URI 轉中文名稱
             logEntry.setHost(resolveClientIp(request));                     // 解析真實客戶端 IP
             logEntry.setApi(buildFullUrl(request));                         // 建立完整 URL 字串
-            logEntry.setRequest(compactJson(reqBody));                      // 壓縮 JSON 格式
+            logEntry.setRequest(bodies
+                    ? compactor.compact(wrappedReq.getContentAsByteArray(), policy.maxBodyBytes())  // 壓縮 JSON 格式
+                    : compactor.object(requestHeaders(request)));                   // 只記錄標頭
             logEntry.setRequestAt(requestAt);
-            logEntry.setResponse(compactJson(resBody));                     // 壓縮 JSON 格式
+            logEntry.setResponse(resBody == null
+                    // 串流回應已直接寫給客戶端（或只記錄標頭），只記錄狀態碼
+                    ? "{\"" + (streaming && bodies ? "streamed\":true,\"" : "") + "http_status\":" + status + "}"
+                    : compactor.compact(resBody, policy.maxBodyBytes()));    // 壓縮 JSON 格式
             logEntry.setResponseAt(responseAt);
-            serialLogRepository.save(logEntry);
+            logSink.submit(logEntry);
         } catch (Exception e) {
-            log.error("[ApiLoggerFilter] 日誌寫入失敗: {}", e.getMessage());
+            log.error("[ApiLoggerFilter] 日誌建立失敗: {}", e.getMessage());
         }
     }
 
@@ -147,6 +200,26 @@ public class ApiLoggerFilter extends OncePerRequestFilter {
         return remoteAddr;
     }
 
+    /**
+     * 請求標頭（只記錄標頭的 API 以此取代請求 Body）。
+     *
+     * <p>只記錄 {@code serial.log.header-allowlist} 列出的標頭：{@code Authorization}、{@code Cookie}
+     * 等帶有憑證的標頭不會寫入 {@code serial_log}，不依賴 {@code serial.log.mask-fields} 的設定。</p>
+     *
+     * @param request HTTP 請求
+     * @return 標頭名稱（小寫）與值，同名的多個值以逗號連接
+     */
+    private Map<String, String> requestHeaders(HttpServletRequest request) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            String key = name.toLowerCase(Locale.ROOT);
+            if (headerAllowlist.contains(key)) {
+                headers.put(key, String.join(",", Collections.list(request.getHeaders(name))));
+            }
+        }
+        return headers;
+    }
+
     /**
      * 組合完整的請求 URL（含協定、主機名稱、Port、路徑）。
      *
@@ -175,31 +248,6 @@ public class ApiLoggerFilter extends OncePerRequestFilter {
         return url.toString();
     }
 
-    /**
-     * 將 JSON 字串壓縮為單行格式（移除換行與多餘空白）。
-     *
-     * <p>做法：解析 JSON → 重新序列化為緊湊格式。
-     * 若輸入不是合法 JSON，直接回傳 trim 後的原始字串。
-     * 空字串或 null 回傳 {@code {}}。</p>
-     *
-     * @param json 原始 JSON 字串
-     * @return 壓縮後的 JSON 字串
-     */
-    private String compactJson(String json) {
-        if (json == null || json.isBlank()) {
-            return "{}";
-        }
-
-        try {
-            // 解析 JSON 再重新序列化為緊湊格式（移除換行與縮排）
-            Object obj = objectMapper.readValue(json, Object.class);
-            return objectMapper.writeValueAsString(obj);
-        } catch (Exception e) {
-            // 若不是合法 JSON（例如純文字錯誤訊息），直接返回 trim 後的原始內容
-            return json.trim();
-        }
-    }
-
     /**
      * 將 API 路徑（URI）轉換為中文名稱，方便日誌查閱。
      *
@@ -211,8 +259,14 @@ public class ApiLoggerFilter extends OncePerRequestFilter {
             case "/api/serials_insert" -> "批次新增序號";
             case "/api/serials_additional_insert" -> "批次追加序號";
             case "/api/serials_redeem" -> "核銷序號";
+            case "/api/serials_redeem_batch" -> "批次核銷序號";
             case "/api/serials_cancel" -> "批次註銷序號";
-            default -> uri;
+            case "/api/serials_insert_jobs" -> "建立序號產生工作";
+            case "/api/serials_additional_insert_jobs" -> "建立序號追加工作";
+            case "/api/serials_cancel_jobs" -> "建立序號註銷工作";
+            default -> uri.startsWith("/api/serials_jobs/") ? "查詢序號產生工作"
+                    : uri.startsWith("/api/serials_cancel_jobs/") ? "查詢序號註銷工作"
+                    : uri;
         };
     }
 }
@@ -0,0 +1,81 @@
+package com.serial.middleware;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * 只快取失敗回應的包裝：未抽中的請求在開始寫 Body 時才看狀態碼，
+ * 400 以上才改用 {@link ContentCachingResponseWrapper}，成功的回應直接寫給客戶端、不佔用記憶體。
+ *
+ * <p>Spring MVC（包含 {@code @ExceptionHandler}）都在寫 Body 前設定狀態碼，因此開始寫入時的狀態碼即為最終結果。</p>
+ */
+final class FailureCachingResponseWrapper extends HttpServletResponseWrapper {
+
+    /** 失敗回應的快取；成功（或尚未寫入）時為 null */
+    private ContentCachingResponseWrapper caching;
+
+    private boolean decided;
+
+    FailureCachingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        return target().getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        return target().getWriter();
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        target().setContentLength(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        target().setContentLengthLong(len);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        target().flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        target().resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        target().reset();
+    }
+
+    /** 快取的失敗回應 Body；沒有快取時為 null */
+    byte[] getContentAsByteArray() {
+        return caching != null ? caching.getContentAsByteArray() : null;
+    }
+
+    /** 將快取的 Body 寫回真實的 Response（沒有快取時不需要） */
+    void copyBodyToResponse() throws IOException {
+        if (caching != null) caching.copyBodyToResponse();
+    }
+
+    /** 第一次存取 Body 相關方法時依狀態碼決定是否快取 */
+    private HttpServletResponse target() {
+        if (!decided) {
+            decided = true;
+            if (getStatus() >= 400) caching = new ContentCachingResponseWrapper((HttpServletResponse) getResponse());
+        }
+        return caching != null ? caching : (HttpServletResponse) getResponse();
+    }
+}
@@ -0,0 +1,268 @@
+package com.serial.middleware;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code Idempotency-Key} 的回應快取（有項目數與位元組上限、依 TTL 淘汰）。
+ *
+ * <p>每個鍵對應一個 {@link CompletableFuture}：第一個請求取得執行權（owner），
+ * 同時到達的重複請求直接等待同一個 future，不會再去競爭資料庫的列鎖；
+ * 執行完成後回應保留到 TTL 到期，期間的重試直接重播原始回應。</p>
+ *
+ * <p>淘汰：</p>
+ * <ul>
+ *   <li>過期：定期清除已超過 TTL 的項目</li>
+ *   <li>容量：項目數超過 {@code max-entries}、或已保留回應 Body 的總大小超過 {@code max-bytes} 時，
+ *       依建立順序淘汰最舊的已完成項目（執行中的項目不淘汰）</li>
+ *   <li>單筆過大：回應 Body 超過 {@code max-entry-bytes} 時不保留，只交給當下等待中的重複請求
+ *       （例如一次註銷數萬筆的回應），之後的重試會重新執行</li>
+ * </ul>
+ *
+ * <p>指標（Micrometer）：{@code serial.idempotency.hit}（重播）、{@code serial.idempotency.miss}（首次執行）、
+ * {@code serial.idempotency.wait}（等待執行中的同鍵請求）、{@code serial.idempotency.eviction}（以 {@code reason}
+ * 標籤區分 expired / size / oversize）、{@code serial.idempotency.size}（目前項目數）、
+ * {@code serial.idempotency.bytes}（已保留的回應 Body 總大小）。</p>
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 依建立順序排列的鍵，容量淘汰時從最舊的開始 */
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    /** 已保留的回應 Body 總大小 */
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter waitCounter;
+    private final Counter expiredCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter oversizeCounter;
+
+    public IdempotencyCache(MeterRegistry meterRegistry,
+                            @Value("${serial.idempotency.ttl:PT1H}") Duration ttl,
+                            @Value("${serial.idempotency.max-entries:50000}") int maxEntries,
+                            @Value("${serial.idempotency.max-bytes:64MB}") DataSize maxBytes,
+                            @Value("${serial.idempotency.max-entry-bytes:64KB}") DataSize maxEntryBytes) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes.toBytes();
+        this.maxEntryBytes = Math.min(maxEntryBytes.toBytes(), this.maxBytes);
+
+        this.hitCounter = Counter.builder("serial.idempotency.hit")
+                .description("以快取回應重播的請求數")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("serial.idempotency.miss")
+                .description("首次執行的請求數")
+                .register(meterRegistry);
+        this.waitCounter = Counter.builder("serial.idempotency.wait")
+                .description("等待執行中同鍵請求的重複請求數")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("serial.idempotency.eviction")
+                .tag("reason", "expired")
+                .description("被淘汰的快取項目數")
+                .register(meterRegistry);
+        this.sizeEvictionCounter = Counter.builder("serial.idempotency.eviction")
+                .tag("reason", "size")
+                .description("被淘汰的快取項目數")
+                .register(meterRegistry);
+        this.oversizeCounter = Counter.builder("serial.idempotency.eviction")
+                .tag("reason", "oversize")
+                .description("被淘汰的快取項目數")
+                .register(meterRegistry);
+        Gauge.builder("serial.idempotency.size", entries, Map::size)
+                .description("目前的快取項目數")
+                .register(meterRegistry);
+        Gauge.builder("serial.idempotency.bytes", totalBytes, AtomicLong::get)
+                .description("已保留的回應 Body 總大小（bytes）")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取得鍵的執行權，或取得既有（執行中或已完成）的項目。
+     *
+     * @param key         快取鍵（路徑 + Idempotency-Key）
+     * @param fingerprint 請求內容的雜湊，用於偵測同一個鍵被用在不同的請求上
+     * @return {@link Claim#owner()} 為 true 時，呼叫端必須執行請求並呼叫 {@link #complete} 或 {@link #abandon}
+     */
+    public Claim claim(String key, String fingerprint) {
+        long now = System.nanoTime();
+        Entry fresh = new Entry(fingerprint);
+        Entry[] replaced = new Entry[1];
+        Entry existing = entries.compute(key, (k, current) -> {
+            if (current != null && !current.isExpired(now, ttlNanos)) return current;
+            replaced[0] = current;
+            return fresh;
+        });
+        if (replaced[0] != null) release(replaced[0]);
+
+        if (existing == fresh) {
+            missCounter.increment();
+            insertionOrder.add(key);
+            evictOverflow();
+            return new Claim(true, fresh);
+        }
+        if (existing.result.isDone()) {
+            hitCounter.increment();
+        } else {
+            waitCounter.increment();
+        }
+        return new Claim(false, existing);
+    }
+
+    /**
+     * 完成執行：喚醒等待中的重複請求。
+     *
+     * @param key       快取鍵
+     * @param claim     {@link #claim} 取得的執行權
+     * @param response  執行結果
+     * @param cacheable false 時（例如 5xx）結果只交給目前等待中的請求，之後的重試會重新執行；
+     *                  Body 超過 {@code max-entry-bytes} 時同樣不保留
+     */
+    public void complete(String key, Claim claim, CachedResponse response, boolean cacheable) {
+        Entry entry = claim.entry;
+        if (cacheable && response.body().length > maxEntryBytes) {
+            oversizeCounter.increment();
+            cacheable = false;
+        }
+        if (!cacheable) {
+            entries.remove(key, entry);
+            entry.result.complete(response);
+            return;
+        }
+
+        // 先計入大小再完成：淘汰與過期只處理已完成的項目，移出時一定看得到 bytes
+        entry.bytes = response.body().length;
+        totalBytes.addAndGet(entry.bytes);
+        entry.completedAt = System.nanoTime();
+        entry.result.complete(response);
+        evictOverflow();
+    }
+
+    /**
+     * 放棄執行（執行過程拋出例外）：移除項目，等待中的請求收到同一個例外。
+     */
+    public void abandon(String key, Claim claim, Throwable cause) {
+        entries.remove(key, claim.entry);
+        claim.entry.result.completeExceptionally(cause);
+    }
+
+    /**
+     * 定期清除已過期的項目。
+     */
+    @Scheduled(fixedDelayString = "${serial.idempotency.purge-interval-ms:30000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        entries.forEach((key, entry) -> {
+            if (entry.isExpired(now, ttlNanos) && entries.remove(key, entry)) {
+                release(entry);
+                expiredCounter.increment();
+            }
+        });
+        insertionOrder.removeIf(key -> !entries.containsKey(key));
+    }
+
+    /** 超過項目數或位元組上限時，從最舊的已完成項目開始淘汰 */
+    private void evictOverflow() {
+        int attempts = insertionOrder.size();
+        while ((entries.size() > maxEntries || totalBytes.get() > maxBytes) && attempts-- > 0) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) return;
+            Entry entry = entries.get(oldest);
+            if (entry == null) continue;
+            if (!entry.result.isDone()) {
+                insertionOrder.add(oldest);  // 執行中的項目不淘汰，放回隊尾
+                continue;
+            }
+            if (entries.remove(oldest, entry)) {
+                release(entry);
+                sizeEvictionCounter.increment();
+            }
+        }
+    }
+
+    /** 從總大小扣除已移出快取的項目（呼叫端已成功把項目移出 map，每個項目只會扣一次） */
+    private void release(Entry entry) {
+        totalBytes.addAndGet(-entry.bytes);
+    }
+
+    /**
+     * 快取的回應內容。
+     *
+     * @param status      HTTP 狀態碼
+     * @param contentType Content-Type
+     * @param body        回應 Body
+     */
+    public record CachedResponse(int status, String contentType, byte[] body) {}
+
+    /**
+     * {@link #claim} 的結果。
+     *
+     * @param owner 是否取得執行權
+     * @param entry 對應的快取項目
+     */
+    public record Claim(boolean owner, Entry entry) {
+
+        /** 請求內容的雜湊 */
+        public String fingerprint() {
+            return entry.fingerprint;
+        }
+
+        /**
+         * 等待執行結果（已完成時立即回傳）。
+         *
+         * @param timeout 最長等待時間
+         */
+        public CachedResponse await(Duration timeout) throws Exception {
+            try {
+                return entry.result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("等待相同 Idempotency-Key 的請求逾時", e);
+            }
+        }
+    }
+
+    /** 快取項目：執行中時 {@code completedAt} 為 0，TTL 從完成時開始計算 */
+    public static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<CachedResponse> result = new CompletableFuture<>();
+        private volatile long completedAt;
+        /** 保留的回應 Body 大小；未保留時為 0 */
+        private volatile long bytes;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return completedAt != 0 && now - completedAt > ttlNanos;
+        }
+    }
+}
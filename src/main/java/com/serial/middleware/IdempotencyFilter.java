@@ -0,0 +1,224 @@
+package com.serial.middleware;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serial.dto.response.ApiResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * {@code Idempotency-Key} 重播過濾器。
+ *
+ * <p>行動裝置在逾時後會重試核銷；第一次其實已成功時，重試會再走一次悲觀鎖流程並回覆
+ * 「此序號已經被核銷使用」。帶有 {@code Idempotency-Key} Header 的 {@code POST /api/*} 請求：</p>
+ * <ul>
+ *   <li>首次：正常執行，回應（狀態碼、Content-Type、Body）存入 {@link IdempotencyCache}</li>
+ *   <li>重試：直接重播原始回應（加上 {@code Idempotent-Replayed: true}），完全不進資料庫</li>
+ *   <li>執行中的重複請求：等待第一次執行完成後重播同一個回應，不去競爭列鎖</li>
+ *   <li>同一個鍵搭配不同的請求內容：422 拒絕</li>
+ *   <li>請求 Body 超過 {@code max-request-bytes}：413 拒絕（整個 Body 必須先讀進記憶體才能計算雜湊）</li>
+ * </ul>
+ *
+ * <p>5xx 回應與超過 {@code max-entry-bytes} 的回應不保留（只交給當下等待中的重複請求），之後的重試會重新執行。
+ * 沒有帶 Header 的請求不受影響。</p>
+ *
+ * <p>{@code @Order(2)}：在 {@link ApiLoggerFilter} 之後，重播的請求同樣會寫入日誌。
+ * 串流回應的 API 不適用（整份回應必須留在記憶體中才能重播）。</p>
+ */
+@Component
+@Order(2)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /** Idempotency-Key 的長度上限 */
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /** 串流回應的 API，不套用重播 */
+    private static final Set<String> STREAMING_URIS = Set.of("/api/serials_redeem_batch");
+
+    private final IdempotencyCache cache;
+    private final ObjectMapper objectMapper;
+
+    /** 等待執行中同鍵請求的最長時間 */
+    private final Duration waitTimeout;
+
+    /** 帶 Idempotency-Key 的請求 Body 上限 */
+    private final int maxRequestBytes;
+
+    public IdempotencyFilter(IdempotencyCache cache, ObjectMapper objectMapper,
+                             @Value("${serial.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                             @Value("${serial.idempotency.max-request-bytes:2MB}") DataSize maxRequestBytes) {
+        this.cache = cache;
+        this.objectMapper = objectMapper;
+        this.waitTimeout = waitTimeout;
+        this.maxRequestBytes = (int) Math.min(maxRequestBytes.toBytes(), Integer.MAX_VALUE - 1);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !request.getRequestURI().startsWith("/api/")
+                || STREAMING_URIS.contains(request.getRequestURI())
+                || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key 不可為空且長度不可超過 " + MAX_KEY_LENGTH + " 個字元。");
+            return;
+        }
+
+        // 先讀出整個 Body 計算雜湊，再交給後續處理重新讀取；超過上限即拒絕，不讀完整個 Body
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            writeTooLarge(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxRequestBytes + 1);
+        if (body.length > maxRequestBytes) {
+            writeTooLarge(response);
+            return;
+        }
+        String fingerprint = sha256(body);
+        String cacheKey = request.getRequestURI() + " " + idempotencyKey;
+
+        IdempotencyCache.Claim claim = cache.claim(cacheKey, fingerprint);
+        if (!claim.owner()) {
+            if (!claim.fingerprint().equals(fingerprint)) {
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "此 Idempotency-Key 已用於不同的請求內容。");
+                return;
+            }
+            replay(awaitResult(claim), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrappedRes = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), wrappedRes);
+        } catch (IOException | ServletException | RuntimeException e) {
+            cache.abandon(cacheKey, claim, e);
+            throw e;
+        }
+
+        int status = wrappedRes.getStatus();
+        cache.complete(cacheKey, claim,
+                new IdempotencyCache.CachedResponse(status, wrappedRes.getContentType(), wrappedRes.getContentAsByteArray()),
+                status < 500);
+        wrappedRes.copyBodyToResponse();
+    }
+
+    private IdempotencyCache.CachedResponse awaitResult(IdempotencyCache.Claim claim) throws ServletException, IOException {
+        try {
+            return claim.await(waitTimeout);
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private void replay(IdempotencyCache.CachedResponse cached, HttpServletResponse response) throws IOException {
+        response.setStatus(cached.status());
+        if (cached.contentType() != null) response.setContentType(cached.contentType());
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    private void writeTooLarge(HttpServletResponse response) throws IOException {
+        writeError(response, HttpStatus.CONTENT_TOO_LARGE,
+                "帶 Idempotency-Key 的請求 Body 不可超過 " + maxRequestBytes + " bytes。");
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+
+    /**
+     * 以已讀出的 Body 重新提供 InputStream 的請求包裝。
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.serial.middleware;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 日誌 Body 的串流式 JSON 壓縮器（bytes → bytes）。
+ *
+ * <p>原本的做法是先把快取的 Body 解碼成 {@code String}，以 {@code readValue(json, Object.class)}
+ * 建出整棵物件樹再序列化回字串；大型的註銷回應每個請求要配置好幾倍 Body 大小的記憶體。
+ * 此壓縮器以 {@link JsonParser} 逐一讀取 token、{@link JsonGenerator} 直接寫出緊湊格式，
+ * 不建立物件樹，記憶體只有輸出緩衝區本身。</p>
+ *
+ * <p>附加功能：</p>
+ * <ul>
+ *   <li>遮罩：{@code serial.log.mask-fields} 列出的欄位（不分大小寫、任何層級）的值以 {@code "***"} 取代</li>
+ *   <li>截斷：輸出超過 {@code serial.log.max-body-bytes}（或個別 API 的上限，見 {@link ApiLogPolicies}）時截斷並加上 {@code ...(truncated)}
+ *       （截斷後不再是合法 JSON，只供閱讀）</li>
+ *   <li>非 JSON 的 Body（例如純文字錯誤訊息）維持原始文字（去除前後空白），同樣套用截斷</li>
+ * </ul>
+ *
+ * <p>數值以原始文字複製（{@code copyCurrentEventExact}），不會因轉成 double 而改變。</p>
+ */
+@Component
+public class JsonLogCompactor {
+
+    /** 空 Body 的記錄內容 */
+    static final String EMPTY = "{}";
+
+    private static final String MASK = "***";
+    private static final byte[] TRUNCATED_MARKER = "...(truncated)".getBytes(StandardCharsets.UTF_8);
+
+    private final JsonFactory jsonFactory;
+
+    /** 需要遮罩的欄位名稱（小寫） */
+    private final Set<String> maskFields;
+
+    /** 每個 Body 記錄的最大位元組數 */
+    private final int maxBytes;
+
+    public JsonLogCompactor(ObjectMapper objectMapper,
+                            @Value("${serial.log.mask-fields:}") String maskFields,
+                            @Value("${serial.log.max-body-bytes:65536}") int maxBytes) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.maskFields = Arrays.stream(maskFields.split(","))
+                .map(f -> f.trim().toLowerCase(Locale.ROOT))
+                .filter(f -> !f.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 壓縮一個 Body。
+     *
+     * @param body  原始 Body（UTF-8）
+     * @param limit 記錄的最大位元組數；0 代表使用 {@code serial.log.max-body-bytes}
+     * @return 緊湊格式的 JSON；空 Body 為 {@code {}}；非 JSON 時為去除前後空白的原始文字
+     */
+    public String compact(byte[] body, int limit) {
+        int maxBytes = limit > 0 ? limit : this.maxBytes;
+        int start = 0;
+        int end = body.length;
+        while (start < end && isWhitespace(body[start])) start++;
+        while (end > start && isWhitespace(body[end - 1])) end--;
+        if (start == end) return EMPTY;
+
+        BoundedOutput out = new BoundedOutput(Math.min(end - start, maxBytes), maxBytes);
+        try (JsonParser parser = jsonFactory.createParser(body, start, end - start);
+             JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && !maskFields.isEmpty()
+                        && maskFields.contains(parser.currentName().toLowerCase(Locale.ROOT))) {
+                    generator.writeFieldName(parser.currentName());
+                    parser.nextToken();
+                    parser.skipChildren();
+                    generator.writeString(MASK);
+                } else {
+                    generator.copyCurrentEventExact(parser);
+                }
+            }
+        } catch (LimitReachedException e) {
+            return out.truncated();
+        } catch (IOException e) {
+            // 不是合法 JSON：維持原始文字
+            return raw(body, start, end, maxBytes);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把一組欄位寫成單層 JSON 物件（例如只記錄標頭時的請求標頭），同樣套用遮罩。
+     *
+     * @param fields 欄位名稱與值（值以字串寫出）
+     * @return 緊湊格式的 JSON 物件
+     */
+    public String object(Map<String, ?> fields) {
+        BoundedOutput out = new BoundedOutput(256, maxBytes);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, ?> field : fields.entrySet()) {
+                generator.writeStringField(field.getKey(),
+                        maskFields.contains(field.getKey().toLowerCase(Locale.ROOT)) ? MASK : String.valueOf(field.getValue()));
+            }
+            generator.writeEndObject();
+        } catch (LimitReachedException e) {
+            return out.truncated();
+        } catch (IOException e) {
+            return EMPTY;
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /** 原始文字（超過上限時截斷） */
+    private static String raw(byte[] body, int start, int end, int maxBytes) {
+        if (end - start <= maxBytes) {
+            return new String(body, start, end - start, StandardCharsets.UTF_8);
+        }
+        int cut = completeUtf8End(body, start, start + maxBytes);
+        return new String(body, start, cut - start, StandardCharsets.UTF_8) + "...(truncated)";
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * 截斷位置：{@code [start, end)} 最後一個字元不完整時（多位元組字元被切斷），退到該字元的開頭。
+     */
+    private static int completeUtf8End(byte[] bytes, int start, int end) {
+        int lead = end - 1;
+        while (lead > start && (bytes[lead] & 0xC0) == 0x80) lead--;
+        if (lead < start) return end;
+        int b = bytes[lead] & 0xFF;
+        int length = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+        return lead + length <= end ? end : lead;
+    }
+
+    /** 寫滿上限即拋出 {@link LimitReachedException} 的輸出緩衝區 */
+    private static final class BoundedOutput extends ByteArrayOutputStream {
+
+        private final int maxBytes;
+
+        BoundedOutput(int initialSize, int maxBytes) {
+            super(Math.max(32, initialSize));
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(int b) {
+            if (count >= maxBytes) throw new LimitReachedException();
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int room = maxBytes - count;
+            if (len > room) {
+                super.write(b, off, room);
+                throw new LimitReachedException();
+            }
+            super.write(b, off, len);
+        }
+
+        /** 已寫入的內容（退到 UTF-8 字元邊界）加上截斷標記 */
+        String truncated() {
+            int cut = completeUtf8End(buf, 0, count);
+            byte[] result = Arrays.copyOf(buf, cut + TRUNCATED_MARKER.length);
+            System.arraycopy(TRUNCATED_MARKER, 0, result, cut, TRUNCATED_MARKER.length);
+            return new String(result, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** 輸出已達上限（非錯誤，用來提早結束解析） */
+    private static final class LimitReachedException extends RuntimeException {
+        LimitReachedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.serial.repository;
+
+import com.serial.entity.SerialAllocatorSkip;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 置換配發器略過位置的資料存取層（Repository）。
+ */
+@Repository
+public interface SerialAllocatorSkipRepository extends JpaRepository<SerialAllocatorSkip, Long> {
+
+    /**
+     * 查詢區間內需要略過的位置。
+     *
+     * <p>以主鍵範圍查詢（{@code BETWEEN}），SQL 文字固定，不受配發數量影響，
+     * 也不會隨資料量成長而產生大型 {@code IN} 清單。</p>
+     *
+     * @param from 區間起點（含）
+     * @param to   區間終點（含）
+     * @return 區間內需要略過的位置
+     */
+    @Query("SELECT k.position FROM SerialAllocatorSkip k WHERE k.position BETWEEN :from AND :to")
+    Set<Long> findPositionsBetween(@Param("from") long from, @Param("to") long to);
+
+    /**
+     * 查詢候選位置中哪些已登記為略過位置（遷移程序用來避免重複寫入）。
+     *
+     * @param positions 候選位置
+     * @return 已存在的位置
+     */
+    @Query("SELECT k.position FROM SerialAllocatorSkip k WHERE k.position IN :positions")
+    Set<Long> findExistingPositions(@Param("positions") List<Long> positions);
+}
@@ -0,0 +1,58 @@
+package com.serial.repository;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerPreparedStatement;
+import com.microsoft.sqlserver.jdbc.SQLServerDataTable;
+import org.springframework.jdbc.core.SqlTypeValue;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 以資料表值參數（Table-Valued Parameter，型別 {@code dbo.SerialContentList}）傳入一組序號。
+ *
+ * <p>{@code IN (?, ?, ...)} 每個序號佔用一個參數：受 SQL Server 的 2100 個參數上限限制，
+ * 而且每一種集合大小都是不同的 SQL 文字，各自編譯並佔用一份執行計畫快取。
+ * 改為整組序號作為一個參數，SQL 文字固定、執行計畫可重用，集合大小也不再受參數數量限制。</p>
+ *
+ * <p>直接作為 {@link org.springframework.jdbc.core.JdbcTemplate} 的參數使用，SQL 中以
+ * {@code SELECT content FROM ?} 讀取。序號會先去重（型別的主鍵不允許重複）。</p>
+ */
+public final class SerialContentList implements SqlTypeValue {
+
+    /** 資料庫中的資料表型別名稱（見 schema.sql） */
+    public static final String TYPE_NAME = "dbo.SerialContentList";
+
+    private final Set<String> contents;
+
+    private SerialContentList(Set<String> contents) {
+        this.contents = contents;
+    }
+
+    /**
+     * 建立序號清單參數。
+     *
+     * @param contents 序號（重複的序號只保留一個）
+     */
+    public static SerialContentList of(Collection<String> contents) {
+        return new SerialContentList(contents instanceof Set<String> set ? set : new LinkedHashSet<>(contents));
+    }
+
+    /** 序號數量 */
+    public int size() {
+        return contents.size();
+    }
+
+    @Override
+    public void setTypeValue(PreparedStatement ps, int paramIndex, int sqlType, String typeName) throws SQLException {
+        SQLServerDataTable table = new SQLServerDataTable();
+        table.addColumnMetadata("content", Types.NVARCHAR);
+        for (String content : contents) {
+            table.addRow(content);
+        }
+        ps.unwrap(ISQLServerPreparedStatement.class).setStructured(paramIndex, TYPE_NAME, table);
+    }
+}
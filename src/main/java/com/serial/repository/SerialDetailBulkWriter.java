@@ -0,0 +1,260 @@
+package com.serial.repository;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 序號明細大量寫入器。
+ *
+ * <p>{@code SerialDetail} 使用 {@code GenerationType.IDENTITY}，Hibernate 無法批次化 IDENTITY 的 INSERT，
+ * {@code saveAll} 會變成一筆序號一次來回。此類別直接以 JDBC 寫入 {@code serial_detail}：</p>
+ * <ul>
+ *   <li>{@code bulk-copy}（預設）：mssql-jdbc Bulk Copy API，以串流方式一次送出所有資料列</li>
+ *   <li>{@code multi-row}：多列 {@code INSERT ... VALUES (...), (...)}，再以 JDBC batch 送出；
+ *       Bulk Copy 無法使用時（例如連線無法 unwrap 成 {@code SQLServerConnection}）也會自動改用此方式</li>
+ * </ul>
+ *
+ * <p>交易：透過 {@code DataSourceUtils.getConnection} 取得目前 Spring 交易所綁定的同一條連線，
+ * 寫入結果與呼叫端（例如 {@code insertSerials}）的交易一起 commit 或 rollback。</p>
+ *
+ * <p>設定 {@code serial.bulk-insert.mode} 選擇寫入方式。</p>
+ */
+@Repository
+public class SerialDetailBulkWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialDetailBulkWriter.class);
+
+    /** 每列的欄位數（serial_activity_id, content, status, note, start_date, end_date, created_at） */
+    private static final int COLUMNS = 7;
+
+    /** 多列 INSERT 每個敘述的列數（7 欄 × 250 列 = 1750 個參數，低於 SQL Server 的 2100 上限） */
+    private static final int ROWS_PER_STATEMENT = 250;
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO serial_detail (serial_activity_id, content, status, note, start_date, end_date, created_at) VALUES ";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String mode;
+
+    public SerialDetailBulkWriter(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                  @Value("${serial.bulk-insert.mode:bulk-copy}") String mode) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mode = mode;
+    }
+
+    /**
+     * 寫入一批同活動、同有效期間的未核銷序號。
+     *
+     * @param activityId 所屬活動 ID
+     * @param contents   序號內容（呼叫端保證不重複）
+     * @param note       備註（可為 null）
+     * @param startDate  序號生效日
+     * @param endDate    序號失效日
+     * @return 寫入筆數
+     */
+    public int write(int activityId, List<String> contents, String note,
+                     LocalDateTime startDate, LocalDateTime endDate) {
+        if (contents.isEmpty()) return 0;
+        SerialRows rows = new SerialRows(activityId, contents, note, startDate, endDate, LocalDateTime.now());
+
+        if ("bulk-copy".equals(mode)) {
+            try {
+                return writeWithBulkCopy(rows);
+            } catch (BulkCopyUnavailableException e) {
+                log.warn("[SerialDetailBulkWriter] Bulk Copy 無法使用，改用多列 INSERT: {}", e.getMessage());
+            }
+        }
+        return writeWithMultiRowInsert(rows);
+    }
+
+    /**
+     * 以 Bulk Copy API 寫入。
+     * 使用交易中的同一條連線；{@code SQLServerBulkCopy} 不擁有此連線，關閉時不會關閉連線。
+     */
+    private int writeWithBulkCopy(SerialRows rows) {
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            SQLServerConnection sqlCon;
+            try {
+                sqlCon = con.unwrap(SQLServerConnection.class);
+            } catch (SQLException e) {
+                throw new BulkCopyUnavailableException(e.getMessage());
+            }
+
+            SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+            options.setBatchSize(10_000);
+            options.setBulkCopyTimeout(0);
+            // Bulk Copy 預設不檢查 CHECK / FOREIGN KEY，會讓約束變成 untrusted，必須明確開啟
+            options.setCheckConstraints(true);
+
+            try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(sqlCon)) {
+                bulkCopy.setBulkCopyOptions(options);
+                bulkCopy.setDestinationTableName("serial_detail");
+                for (int i = 1; i <= COLUMNS; i++) {
+                    bulkCopy.addColumnMapping(i, SerialRows.COLUMN_NAMES[i - 1]);
+                }
+                bulkCopy.writeToServer(rows);
+            }
+            return rows.size();
+        } catch (SQLException e) {
+            throw new IllegalStateException("序號大量寫入失敗: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    /** 以多列 INSERT + JDBC batch 寫入（JdbcTemplate 同樣會參與目前的交易） */
+    private int writeWithMultiRowInsert(SerialRows rows) {
+        List<String> contents = rows.contents;
+        int fullChunks = contents.size() / ROWS_PER_STATEMENT;
+
+        // 完整大小的區塊共用同一個 SQL 文字，一次 batch 送出
+        if (fullChunks > 0) {
+            List<Object[]> batchArgs = new ArrayList<>(fullChunks);
+            for (int chunk = 0; chunk < fullChunks; chunk++) {
+                int from = chunk * ROWS_PER_STATEMENT;
+                batchArgs.add(rows.args(from, from + ROWS_PER_STATEMENT));
+            }
+            jdbcTemplate.batchUpdate(multiRowInsertSql(ROWS_PER_STATEMENT), batchArgs);
+        }
+
+        // 剩餘不足一個區塊的部分
+        int remainderFrom = fullChunks * ROWS_PER_STATEMENT;
+        if (remainderFrom < contents.size()) {
+            jdbcTemplate.update(multiRowInsertSql(contents.size() - remainderFrom),
+                    rows.args(remainderFrom, contents.size()));
+        }
+        return contents.size();
+    }
+
+    private static String multiRowInsertSql(int rowCount) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rowCount * 24).append(INSERT_PREFIX);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) sql.append(',');
+            sql.append("(?,?,?,?,?,?,?)");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 以串流方式提供給 Bulk Copy 的資料來源：逐列產生欄位值，不預先建立整份資料列。
+     */
+    private static final class SerialRows implements ISQLServerBulkData {
+
+        private static final String[] COLUMN_NAMES =
+                {"serial_activity_id", "content", "status", "note", "start_date", "end_date", "created_at"};
+        private static final int[] COLUMN_TYPES =
+                {Types.INTEGER, Types.NVARCHAR, Types.INTEGER, Types.NVARCHAR, Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP};
+
+        private final Integer activityId;
+        private final List<String> contents;
+        private final String note;
+        private final Timestamp startDate;
+        private final Timestamp endDate;
+        private final Timestamp createdAt;
+
+        private transient Iterator<String> cursor;
+        private transient String current;
+
+        SerialRows(int activityId, List<String> contents, String note,
+                   LocalDateTime startDate, LocalDateTime endDate, LocalDateTime createdAt) {
+            this.activityId = activityId;
+            this.contents = contents;
+            this.note = note;
+            this.startDate = Timestamp.valueOf(startDate);
+            this.endDate = Timestamp.valueOf(endDate);
+            this.createdAt = Timestamp.valueOf(createdAt);
+        }
+
+        int size() {
+            return contents.size();
+        }
+
+        /** 多列 INSERT 用：攤平 [from, to) 之間資料列的參數 */
+        Object[] args(int from, int to) {
+            Object[] args = new Object[(to - from) * COLUMNS];
+            int i = 0;
+            for (int row = from; row < to; row++) {
+                args[i++] = activityId;
+                args[i++] = contents.get(row);
+                args[i++] = 0;
+                args[i++] = note;
+                args[i++] = startDate;
+                args[i++] = endDate;
+                args[i++] = createdAt;
+            }
+            return args;
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            return Set.of(1, 2, 3, 4, 5, 6, 7);
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column - 1];
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return COLUMN_TYPES[column - 1];
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return switch (column) {
+                case 2 -> 8;                   // content NVARCHAR(8)
+                case 4 -> Integer.MAX_VALUE;   // note NVARCHAR(MAX)
+                case 5, 6, 7 -> 23;            // DATETIME
+                default -> 10;                 // INT
+            };
+        }
+
+        @Override
+        public int getScale(int column) {
+            return column >= 5 ? 3 : 0;
+        }
+
+        @Override
+        public boolean next() {
+            if (cursor == null) cursor = contents.iterator();
+            if (!cursor.hasNext()) return false;
+            current = cursor.next();
+            return true;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            return new Object[]{activityId, current, 0, note, startDate, endDate, createdAt};
+        }
+    }
+
+    /** 目前的連線不支援 Bulk Copy（例如非 SQL Server 驅動），應改用多列 INSERT */
+    private static final class BulkCopyUnavailableException extends RuntimeException {
+        BulkCopyUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.serial.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 序號明細的集合式（set-based）SQL 操作。
+ *
+ * <p>JPA 適合「讀出 Entity → 修改 → 寫回」的流程；需要把檢查與更新合併成一個敘述、
+ * 或一次處理大量序號時，直接使用 {@link JdbcTemplate}。JdbcTemplate 會參與目前的 Spring 交易。</p>
+ */
+@Repository
+public class SerialDetailJdbcRepository {
+
+    /**
+     * 條件式核銷（一次來回）。
+     *
+     * <p>{@code UPDATE} 的 {@code WHERE} 同時檢查狀態與有效期間，{@code OUTPUT} 記下實際更新的列；
+     * 接著在同一批次中查詢序號目前的狀態，讓呼叫端在更新失敗時判斷原因。
+     * 序號不存在時查詢結果為空。</p>
+     */
+    private static final String REDEEM_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @now DATETIME = ?;
+            DECLARE @content NVARCHAR(8) = ?;
+            DECLARE @redeemed TABLE (id INT NOT NULL);
+            UPDATE serial_detail SET status = 1, updated_at = @now
+                OUTPUT inserted.id INTO @redeemed
+                WHERE content = @content AND status = 0 AND @now BETWEEN start_date AND end_date;
+            SELECT d.content, d.status, d.start_date, d.end_date, CASE WHEN r.id IS NULL THEN 0 ELSE 1 END AS redeemed
+                FROM serial_detail d LEFT JOIN @redeemed r ON r.id = d.id
+                WHERE d.content = @content;
+            """;
+
+    /**
+     * 多筆條件式核銷：與 {@link #REDEEM_SQL} 相同，但以資料表值參數（{@link SerialContentList}）
+     * 一次帶入多個序號，一個 {@code UPDATE ... FROM ... JOIN} 完成整批（單一敘述即單一交易）。
+     * SQL 文字與序號數量無關，執行計畫只需編譯一次。
+     *
+     * <p>鎖定順序：{@code @codes}（{@code dbo.SerialContentList}）以序號為叢集主鍵，{@code LOOP JOIN} + {@code FORCE ORDER}
+     * 讓資料庫依序號排序逐一 seek {@code serial_detail} 並取得列鎖，
+     * 內容重疊的兩批同時執行時，鎖的取得順序一致，不會形成循環等待（死結）。</p>
+     */
+    private static final String REDEEM_ALL_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @now DATETIME = ?;
+            DECLARE @codes dbo.SerialContentList;
+            INSERT INTO @codes (content) SELECT content FROM ?;
+            DECLARE @redeemed TABLE (id INT NOT NULL);
+            UPDATE d SET status = 1, updated_at = @now
+                OUTPUT inserted.id INTO @redeemed
+                FROM @codes c INNER LOOP JOIN serial_detail d WITH (ROWLOCK) ON d.content = c.content
+                WHERE d.status = 0 AND @now BETWEEN d.start_date AND d.end_date
+                OPTION (FORCE ORDER);
+            SELECT d.content, d.status, d.start_date, d.end_date, CASE WHEN r.id IS NULL THEN 0 ELSE 1 END AS redeemed
+                FROM serial_detail d JOIN @codes c ON c.content = d.content
+                LEFT JOIN @redeemed r ON r.id = d.id;
+            """;
+
+    /**
+     * 多筆註銷：只有未核銷（status = 0）的序號會被註銷，鎖定順序與 {@link #REDEEM_ALL_SQL} 相同。
+     * 結果列的 {@code status} 為執行後的狀態，搭配 {@code cancelled} 判斷是否由本次註銷。
+     */
+    private static final String CANCEL_ALL_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @now DATETIME = ?;
+            DECLARE @note NVARCHAR(MAX) = ?;
+            DECLARE @codes dbo.SerialContentList;
+            INSERT INTO @codes (content) SELECT content FROM ?;
+            DECLARE @cancelled TABLE (id INT NOT NULL);
+            UPDATE d SET status = 2, note = @note, updated_at = @now
+                OUTPUT inserted.id INTO @cancelled
+                FROM @codes c INNER LOOP JOIN serial_detail d WITH (ROWLOCK) ON d.content = c.content
+                WHERE d.status = 0
+                OPTION (FORCE ORDER);
+            SELECT d.content, d.status, CASE WHEN x.id IS NULL THEN 0 ELSE 1 END AS cancelled
+                FROM serial_detail d JOIN @codes c ON c.content = d.content
+                LEFT JOIN @cancelled x ON x.id = d.id;
+            """;
+
+    /**
+     * 依條件分段註銷（主鍵範圍）：先以 {@code TOP (n) ... ORDER BY id} 找出下一段的主鍵上界，
+     * 再以 {@code id} 範圍 seek 叢集索引更新，每段最多 n 列。
+     * {@code %s} 為篩選條件（只引用已宣告的變數，條件組合固定，執行計畫可重用）。
+     *
+     * <p>{@code ROWLOCK} 搭配每段列數低於 SQL Server 的鎖定擴大門檻（單一敘述約 5000 個鎖），
+     * 不會升級成資料表鎖，同時進行的核銷只會在同一列上等待。
+     * 找上界與更新之間被核銷的序號，會因 {@code status = 0} 條件而略過。</p>
+     */
+    private static final String CANCEL_RANGE_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @last INT = ?;
+            DECLARE @max INT = ?;
+            DECLARE @activity INT = ?;
+            DECLARE @from DATETIME = ?;
+            DECLARE @to DATETIME = ?;
+            DECLARE @now DATETIME = ?;
+            DECLARE @note NVARCHAR(MAX) = ?;
+            DECLARE @upper INT;
+            DECLARE @affected INT = 0;
+            SELECT @upper = MAX(k.id) FROM (
+                SELECT TOP (?) id FROM serial_detail
+                    WHERE id > @last AND id <= @max AND status = 0%1$s
+                    ORDER BY id) k;
+            IF @upper IS NOT NULL
+            BEGIN
+                UPDATE serial_detail WITH (ROWLOCK) SET status = 2, note = @note, updated_at = @now
+                    WHERE id > @last AND id <= @upper AND status = 0%1$s;
+                SET @affected = @@ROWCOUNT;
+            END
+            SELECT @upper AS upper_id, @affected AS affected;
+            """;
+
+    /** 依條件計算未使用序號數（{@code %s} 同 {@link #CANCEL_RANGE_SQL}） */
+    private static final String COUNT_UNUSED_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @max INT = ?;
+            DECLARE @activity INT = ?;
+            DECLARE @from DATETIME = ?;
+            DECLARE @to DATETIME = ?;
+            SELECT COUNT(*) FROM serial_detail WHERE id <= @max AND status = 0%s;
+            """;
+
+    /** 查詢哪些序號已存在（資料表值參數，SQL 文字固定） */
+    private static final String EXISTING_CONTENTS_SQL = """
+            SELECT d.content FROM ? c INNER JOIN serial_detail d ON d.content = c.content;
+            """;
+
+    /**
+     * 依 {@code row_version} 分批讀取序號（已發行序號索引的增量同步）。
+     * 參數轉成 {@code BINARY(8)} 後與欄位比較，才能以 {@code IX_serial_detail_row_version} seek。
+     */
+    private static final String CONTENTS_BY_VERSION_SQL = """
+            SELECT TOP (?) CAST(row_version AS BIGINT) AS version, content FROM serial_detail
+                WHERE row_version >= CAST(CAST(? AS BIGINT) AS BINARY(8))
+                  AND row_version < CAST(CAST(? AS BIGINT) AS BINARY(8))
+                ORDER BY row_version;
+            """;
+
+    /**
+     * 多筆核銷 / 註銷每次最多帶入的序號數。
+     * 序號以資料表值參數傳入，不受參數數量限制；此上限讓單一敘述的列鎖數低於鎖定擴大門檻（約 5000 個）。
+     */
+    public static final int MAX_REDEEM_BATCH = 2000;
+
+    private static final RowMapper<RedeemRow> REDEEM_ROW_MAPPER = (rs, rowNum) -> new RedeemRow(
+            rs.getString("content"),
+            rs.getInt("status"),
+            rs.getTimestamp("start_date").toLocalDateTime(),
+            rs.getTimestamp("end_date").toLocalDateTime(),
+            rs.getInt("redeemed") == 1);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SerialDetailJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 序號可核銷時將其標記為已核銷。
+     *
+     * @param content 8 碼大寫序號
+     * @param now     核銷時間（同時作為有效期間的判斷基準）
+     * @return 序號目前的狀態與是否由本次核銷；序號不存在時為 empty
+     */
+    public Optional<RedeemRow> redeemIfRedeemable(String content, LocalDateTime now) {
+        List<RedeemRow> rows = jdbcTemplate.query(REDEEM_SQL, REDEEM_ROW_MAPPER, Timestamp.valueOf(now), content);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * 將一批序號中可核銷者標記為已核銷（單一敘述、單一交易）。
+     *
+     * @param contents 不重複的 8 碼大寫序號（最多 {@value #MAX_REDEEM_BATCH} 個）
+     * @param now      核銷時間（同時作為有效期間的判斷基準）
+     * @return 序號 → 目前狀態與是否由本次核銷；不存在的序號不會出現在結果中
+     */
+    public Map<String, RedeemRow> redeemAll(Collection<String> contents, LocalDateTime now) {
+        if (contents.isEmpty()) return new HashMap<>();
+        if (contents.size() > MAX_REDEEM_BATCH) {
+            throw new IllegalArgumentException("單次核銷序號數超過上限: " + contents.size());
+        }
+
+        Map<String, RedeemRow> result = new HashMap<>(contents.size() * 2);
+        for (RedeemRow row : jdbcTemplate.query(REDEEM_ALL_SQL, REDEEM_ROW_MAPPER,
+                Timestamp.valueOf(now), SerialContentList.of(contents))) {
+            result.put(row.content(), row);
+        }
+        return result;
+    }
+
+    /**
+     * 將一批序號中未核銷者標記為已註銷（單一敘述）。
+     *
+     * @param contents 不重複的 8 碼大寫序號（最多 {@value #MAX_REDEEM_BATCH} 個）
+     * @param note     註銷原因（寫入 note 欄位）
+     * @param now      註銷時間
+     * @return 序號 → 目前狀態與是否由本次註銷；不存在的序號不會出現在結果中
+     */
+    public Map<String, CancelRow> cancelAll(Collection<String> contents, String note, LocalDateTime now) {
+        if (contents.isEmpty()) return new HashMap<>();
+        if (contents.size() > MAX_REDEEM_BATCH) {
+            throw new IllegalArgumentException("單次註銷序號數超過上限: " + contents.size());
+        }
+
+        Map<String, CancelRow> result = new HashMap<>(contents.size() * 2);
+        jdbcTemplate.query(CANCEL_ALL_SQL, rs -> {
+            String content = rs.getString("content");
+            result.put(content, new CancelRow(content, rs.getInt("status"), rs.getInt("cancelled") == 1));
+        }, Timestamp.valueOf(now), note, SerialContentList.of(contents));
+        return result;
+    }
+
+    /**
+     * 查詢候選序號中哪些已存在於資料庫中（產生序號時的排重）。
+     *
+     * <p>候選序號以資料表值參數傳入，不論數量多少都是同一段 SQL 文字與同一份執行計畫，
+     * 也不受 SQL Server 2100 個參數的限制。</p>
+     *
+     * @param contents 候選序號
+     * @return 已存在於資料庫中的序號內容
+     */
+    public Set<String> findExistingContents(Collection<String> contents) {
+        if (contents.isEmpty()) return new HashSet<>();
+        return new HashSet<>(jdbcTemplate.queryForList(EXISTING_CONTENTS_SQL, String.class,
+                SerialContentList.of(contents)));
+    }
+
+    /**
+     * 資料庫中尚未 commit 的交易所使用的最小 rowversion（{@code MIN_ACTIVE_ROWVERSION()}）。
+     *
+     * <p>rowversion 在寫入時配發、commit 時才看得見，與 IDENTITY 相同不依 commit 順序；
+     * 但小於此值的資料列都已 commit（或已 rollback），以此作為同步上界不會漏掉之後才 commit 的資料列。</p>
+     *
+     * @return 最小的進行中 rowversion；沒有進行中的交易時為下一個要配發的 rowversion
+     */
+    public long minActiveRowVersion() {
+        Long version = jdbcTemplate.queryForObject("SELECT CAST(MIN_ACTIVE_ROWVERSION() AS BIGINT)", Long.class);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * 讀取 rowversion 介於 [{@code fromVersion}, {@code toVersion}) 的序號（依 rowversion 遞增，最多 {@code limit} 筆）。
+     *
+     * <p>rowversion 在新增與每次更新時都會改變，已掃描過的序號被核銷 / 註銷後會再次出現，呼叫端需可重複處理。</p>
+     *
+     * @param fromVersion 下界（含）
+     * @param toVersion   上界（不含），通常為 {@link #minActiveRowVersion()}
+     * @param limit       本批最多筆數
+     * @return 本批的 rowversion 與序號內容
+     */
+    public List<VersionedContent> findContentsByVersion(long fromVersion, long toVersion, int limit) {
+        return jdbcTemplate.query(CONTENTS_BY_VERSION_SQL,
+                (rs, rowNum) -> new VersionedContent(rs.getLong("version"), rs.getString("content")),
+                limit, fromVersion, toVersion);
+    }
+
+    /**
+     * 目前序號明細的最大主鍵（背景工作以此作為處理範圍的上界）。
+     *
+     * @return 最大主鍵；沒有任何序號時為 0
+     */
+    public int maxId() {
+        Integer max = jdbcTemplate.queryForObject("SELECT ISNULL(MAX(id), 0) FROM serial_detail", Integer.class);
+        return max != null ? max : 0;
+    }
+
+    /**
+     * 計算主鍵上界內符合條件的未使用序號數。
+     *
+     * @param filter 篩選條件
+     * @param maxId  主鍵上界（含）
+     * @return 未使用序號數
+     */
+    public int countUnused(UnusedFilter filter, int maxId) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_UNUSED_SQL.formatted(filter.predicate()), Integer.class,
+                maxId, filter.activityIdParam(), filter.createdFromParam(), filter.createdToParam());
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 註銷 {@code afterId} 之後、下一段最多 {@code batchSize} 筆符合條件的未使用序號（單一批次、單一交易）。
+     *
+     * @param filter    篩選條件
+     * @param afterId   上一段的主鍵上界（不含）
+     * @param maxId     工作範圍的主鍵上界（含）
+     * @param batchSize 每段最多更新的列數
+     * @param note      註銷原因（寫入 note 欄位）
+     * @param now       註銷時間
+     * @return 本段的主鍵上界與實際註銷數；{@code upperId} 為 null 表示範圍內已沒有符合條件的序號
+     */
+    public RangeResult cancelRange(UnusedFilter filter, int afterId, int maxId, int batchSize,
+                                   String note, LocalDateTime now) {
+        return jdbcTemplate.queryForObject(CANCEL_RANGE_SQL.formatted(filter.predicate()),
+                (rs, rowNum) -> new RangeResult((Integer) rs.getObject("upper_id"), rs.getInt("affected")),
+                afterId, maxId, filter.activityIdParam(), filter.createdFromParam(), filter.createdToParam(),
+                Timestamp.valueOf(now), note, batchSize);
+    }
+
+    /**
+     * 大量狀態變更的篩選條件（未使用的序號，再依下列條件縮小範圍；null 表示不限）。
+     *
+     * @param activityId  所屬活動 ID
+     * @param createdFrom 發行時間下限（含）
+     * @param createdTo   發行時間上限（不含）
+     */
+    public record UnusedFilter(Integer activityId, LocalDateTime createdFrom, LocalDateTime createdTo) {
+
+        /** 對應的 SQL 條件（只包含有值的欄位） */
+        String predicate() {
+            StringBuilder sql = new StringBuilder();
+            if (activityId != null) sql.append(" AND serial_activity_id = @activity");
+            if (createdFrom != null) sql.append(" AND created_at >= @from");
+            if (createdTo != null) sql.append(" AND created_at < @to");
+            return sql.toString();
+        }
+
+        // 可能為 null 的參數明確指定型別，避免驅動程式查詢參數中繼資料
+        SqlParameterValue activityIdParam() {
+            return new SqlParameterValue(Types.INTEGER, activityId);
+        }
+
+        SqlParameterValue createdFromParam() {
+            return new SqlParameterValue(Types.TIMESTAMP, createdFrom != null ? Timestamp.valueOf(createdFrom) : null);
+        }
+
+        SqlParameterValue createdToParam() {
+            return new SqlParameterValue(Types.TIMESTAMP, createdTo != null ? Timestamp.valueOf(createdTo) : null);
+        }
+    }
+
+    /**
+     * 一段主鍵範圍更新的結果。
+     *
+     * @param upperId  本段的主鍵上界（含），範圍內已無符合條件的序號時為 null
+     * @param affected 本段實際更新的列數
+     */
+    public record RangeResult(Integer upperId, int affected) {}
+
+    /**
+     * 多筆註銷的結果列。
+     *
+     * @param content   序號內容
+     * @param status    序號目前的狀態（註銷成功時為已註銷）
+     * @param cancelled 是否由本次敘述註銷
+     */
+    public record CancelRow(String content, int status, boolean cancelled) {}
+
+    /**
+     * 序號內容與其資料列目前的 rowversion。
+     *
+     * @param version rowversion（轉為 BIGINT）
+     * @param content 序號內容
+     */
+    public record VersionedContent(long version, String content) {}
+
+    /**
+     * 條件式核銷的結果列。
+     *
+     * @param content   序號內容
+     * @param status    序號目前的狀態（核銷成功時為已核銷）
+     * @param startDate 序號生效日
+     * @param endDate   序號失效日
+     * @param redeemed  是否由本次敘述核銷
+     */
+    public record RedeemRow(String content, int status, LocalDateTime startDate, LocalDateTime endDate, boolean redeemed) {}
+}
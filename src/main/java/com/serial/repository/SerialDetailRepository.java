@@ -2,6 +2,7 @@ package com.serial.repository;
 
 import com.serial.entity.SerialDetail;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
@@ -10,13 +11,15 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * 序號明細資料存取層（Repository）。
  *
  * <p>提供序號相關的資料庫操作，特別針對核銷與批次處理的高併發場景
  * 使用悲觀鎖（Pessimistic Lock）防止 Race Condition。</p>
+ *
+ * <p>以一組序號為條件的查詢（排重、批次核銷 / 註銷）在 {@link SerialDetailJdbcRepository}，
+ * 以資料表值參數傳入序號，不使用 {@code IN} 清單。</p>
  */
 @Repository
 public interface SerialDetailRepository extends JpaRepository<SerialDetail, Integer> {
@@ -35,27 +38,23 @@ public interface SerialDetailRepository extends JpaRepository<SerialDetail, Inte
     Optional<SerialDetail> findByContentWithLock(@Param("content") String content);
 
     /**
-     * 批次依序號內容查詢多筆序號，並加上悲觀寫鎖。
+     * 以主鍵 keyset 方式分批讀取序號內容（依 id 遞增）。
      *
-     * <p>用於批次註銷（cancel）操作，一次鎖定所有目標序號，
-     * 避免逐筆查詢造成效能問題。</p>
+     * <p>用於需要掃描全部序號的背景程序（例如配發器遷移），
+     * 以 {@code id > :afterId} 取代 OFFSET，每一批的成本不會隨掃描深度增加。</p>
      *
-     * @param contents 序號內容 Set（自動去重，最多 1000 筆）
-     * @return 符合條件的序號明細清單（含鎖）
+     * @param afterId  上一批最後一筆的 id（第一批傳 0）
+     * @param pageable 只使用其中的筆數限制（{@code PageRequest.of(0, size)}）
+     * @return 本批的 id 與序號內容
      */
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT s FROM SerialDetail s WHERE s.content IN :contents")
-    List<SerialDetail> findByContentInWithLock(@Param("contents") Set<String> contents);
+    @Query("SELECT s.id AS id, s.content AS content FROM SerialDetail s WHERE s.id > :afterId ORDER BY s.id")
+    List<IdContent> findIdContentAfter(@Param("afterId") int afterId, Pageable pageable);
 
     /**
-     * 查詢候選序號中哪些已存在於資料庫中。
-     *
-     * <p>用於產生序號時的重複檢查：先批次查詢再排除已存在的，
-     * 比逐筆檢查效率高得多。只回傳 content 欄位（不需要完整實體）。</p>
-     *
-     * @param contents 候選序號 Set
-     * @return 已存在於資料庫中的序號內容 Set
+     * 只包含 id 與序號內容的投影（Projection），避免載入完整 Entity。
      */
-    @Query("SELECT s.content FROM SerialDetail s WHERE s.content IN :contents")
-    Set<String> findExistingContents(@Param("contents") Set<String> contents);
+    interface IdContent {
+        Integer getId();
+        String getContent();
+    }
 }
@@ -0,0 +1,196 @@
+package com.serial.repository;
+
+import com.serial.entity.SerialActivity;
+import com.serial.entity.SerialDetail;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 後台序號列表的條件查詢（依 id 由新到舊）。
+ *
+ * <p>分頁以主鍵 keyset（seek）方式進行：下一頁為 {@code id < 本頁最後一筆}、上一頁為 {@code id > 本頁第一筆}，
+ * 資料庫直接在叢集索引上定位，不像 {@code OFFSET} 需要掃過並捨棄前面所有的資料列，
+ * 每一頁的成本與頁數深淺無關。</p>
+ */
+@Repository
+public class SerialDetailSearchRepository {
+
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String ESTIMATE_ROWS_SQL = """
+            SELECT ISNULL(SUM(p.rows), 0) FROM sys.partitions p
+                WHERE p.object_id = OBJECT_ID('serial_detail') AND p.index_id IN (0, 1)
+            """;
+
+    private static final String COUNT_BY_STATUS_SQL = "SELECT status, COUNT_BIG(*) FROM serial_detail GROUP BY status";
+
+    private final EntityManager entityManager;
+
+    public SerialDetailSearchRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * 由新到舊讀取 id 小於 {@code beforeId} 的序號（較舊的一頁）。
+     *
+     * @param beforeId 上一頁最後一筆的 id；null 時從最新的一筆開始
+     * @param limit    最多筆數
+     */
+    public List<SerialDetail> findOlder(SerialSearchFilter filter, Integer beforeId, int limit) {
+        return find(filter, beforeId, false, limit);
+    }
+
+    /**
+     * 讀取 id 大於 {@code afterId} 中最舊的 {@code limit} 筆（較新的一頁），結果仍依 id 由新到舊排列。
+     *
+     * @param afterId 下一頁第一筆的 id；0 時為最舊的一頁
+     * @param limit   最多筆數
+     */
+    public List<SerialDetail> findNewer(SerialSearchFilter filter, int afterId, int limit) {
+        return find(filter, afterId, true, limit).reversed();
+    }
+
+    /**
+     * 符合條件的總筆數。
+     */
+    public long count(SerialSearchFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<SerialDetail> countRoot = countQuery.from(SerialDetail.class);
+        countQuery.select(cb.count(countRoot)).where(buildPredicates(cb, countRoot, filter).toArray(new Predicate[0]));
+        return entityManager.createQuery(countQuery).getSingleResult();
+    }
+
+    /**
+     * 由中繼資料（{@code sys.partitions}）讀取的資料表筆數估計值，不掃描資料表。
+     */
+    public long estimateRows() {
+        Number rows = (Number) entityManager.createNativeQuery(ESTIMATE_ROWS_SQL).getSingleResult();
+        return rows != null ? rows.longValue() : 0;
+    }
+
+    /**
+     * 各狀態的筆數（掃描 {@code IX_serial_detail_status}）。
+     *
+     * @return 狀態 → 筆數
+     */
+    public Map<Integer, Long> countByStatus() {
+        Map<Integer, Long> counts = new HashMap<>();
+        List<?> rows = entityManager.createNativeQuery(COUNT_BY_STATUS_SQL).getResultList();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            counts.put(((Number) columns[0]).intValue(), ((Number) columns[1]).longValue());
+        }
+        return counts;
+    }
+
+    private List<SerialDetail> find(SerialSearchFilter filter, Integer boundaryId, boolean newer, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SerialDetail> query = cb.createQuery(SerialDetail.class);
+        Root<SerialDetail> root = query.from(SerialDetail.class);
+        root.fetch("serialActivity", JoinType.INNER);
+
+        List<Predicate> predicates = buildPredicates(cb, root, filter);
+        if (boundaryId != null) {
+            predicates.add(newer
+                    ? cb.greaterThan(root.get("id"), boundaryId)
+                    : cb.lessThan(root.get("id"), boundaryId));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(newer ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 建立查詢條件
+     * 完全對應 Laravel 的查詢邏輯
+     */
+    private List<Predicate> buildPredicates(CriteriaBuilder cb, Root<SerialDetail> root, SerialSearchFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        Join<SerialDetail, SerialActivity> activityJoin = root.join("serialActivity", JoinType.INNER);
+
+        // keyword：活動名稱 OR 活動唯一ID（模糊搜尋）
+        String keyword = filter.keyword();
+        if (keyword != null && !keyword.isBlank()) {
+            Predicate namePredicate = cb.like(activityJoin.get("activityName"), "%" + keyword + "%");
+            Predicate idPredicate = cb.like(activityJoin.get("activityUniqueId"), "%" + keyword + "%");
+            predicates.add(cb.or(namePredicate, idPredicate));
+        }
+
+        // content：序號內容（精確搜尋，轉大寫）
+        String content = filter.content();
+        if (content != null && !content.isBlank()) {
+            predicates.add(cb.equal(root.get("content"), content.trim().toUpperCase()));
+        }
+
+        // status：核銷狀況
+        if (filter.status() != null) {
+            predicates.add(cb.equal(root.get("status"), filter.status()));
+        }
+
+        // date_start / date_end：序號生效日/失效日範圍（對應 Laravel: where('start_date', '>=', ...) 和 where('end_date', '<=', ...)）
+        String dateStart = filter.dateStart();
+        if (dateStart != null && !dateStart.isBlank()) {
+            LocalDateTime start = LocalDateTime.parse(dateStart + " 00:00:00", DTF);
+            predicates.add(cb.greaterThanOrEqualTo(root.get("startDate"), start));
+        }
+        String dateEnd = filter.dateEnd();
+        if (dateEnd != null && !dateEnd.isBlank()) {
+            LocalDateTime end = LocalDateTime.parse(dateEnd + " 23:59:59", DTF);
+            predicates.add(cb.lessThanOrEqualTo(root.get("endDate"), end));
+        }
+
+        return predicates;
+    }
+
+    /**
+     * 後台列表的搜尋條件（皆可為 null）。
+     *
+     * @param keyword   活動名稱或活動唯一 ID（模糊搜尋）
+     * @param content   序號內容（精確搜尋）
+     * @param status    核銷狀況
+     * @param dateStart 生效日下限（yyyy-MM-dd）
+     * @param dateEnd   失效日上限（yyyy-MM-dd）
+     */
+    public record SerialSearchFilter(String keyword, String content, Integer status, String dateStart, String dateEnd) {
+
+        /** 沒有任何條件 */
+        public static final SerialSearchFilter NONE = new SerialSearchFilter(null, null, null, null, null);
+
+        /**
+         * 與查詢相同的正規化（空白字串視為未設定、序號去除空白並轉大寫），查詢結果相同的條件會得到相等的物件。
+         */
+        public SerialSearchFilter normalized() {
+            String normalizedContent = blankToNull(content);
+            return new SerialSearchFilter(blankToNull(keyword),
+                    normalizedContent != null ? normalizedContent.trim().toUpperCase() : null,
+                    status, blankToNull(dateStart), blankToNull(dateEnd));
+        }
+
+        /** 是否只有狀態條件（或完全沒有條件） */
+        public boolean onlyStatus() {
+            SerialSearchFilter n = normalized();
+            return n.keyword == null && n.content == null && n.dateStart == null && n.dateEnd == null;
+        }
+
+        private static String blankToNull(String value) {
+            return value != null && !value.isBlank() ? value : null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.serial.repository;
+
+import com.serial.entity.SerialExportJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 後台 CSV 匯出工作的資料存取層（Repository）。
+ */
+@Repository
+public interface SerialExportJobRepository extends JpaRepository<SerialExportJob, String> {
+
+    /**
+     * 依 ID 查詢工作並加上悲觀寫鎖（更新狀態、移除工作前使用，避免多台機器同時處理同一個工作）。
+     *
+     * @param id 工作 ID
+     * @return Optional 包裝的工作（含鎖）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM SerialExportJob j WHERE j.id = :id")
+    Optional<SerialExportJob> findByIdWithLock(@Param("id") String id);
+
+    /**
+     * 查詢可沿用的工作：條件與提交當下的資料都相同、在指定時間之後建立（新的在前）。
+     *
+     * @param filterKey   正規化後搜尋條件的 SHA-256
+     * @param maxId       {@code serial_detail} 的最大 id
+     * @param dataVersion 資料版本
+     * @param statuses    可沿用的狀態
+     * @param since       建立時間下限（不含）
+     * @return 工作清單
+     */
+    @Query("SELECT j FROM SerialExportJob j WHERE j.filterKey = :filterKey AND j.maxId = :maxId"
+            + " AND j.dataVersion = :dataVersion AND j.status IN :statuses AND j.createdAt > :since"
+            + " ORDER BY j.createdAt DESC")
+    List<SerialExportJob> findReusable(@Param("filterKey") String filterKey,
+                                       @Param("maxId") Integer maxId,
+                                       @Param("dataVersion") Long dataVersion,
+                                       @Param("statuses") Collection<Integer> statuses,
+                                       @Param("since") LocalDateTime since);
+
+    /**
+     * 依機器與狀態查詢工作 ID（啟動時找出本機需要接續執行的工作）。
+     *
+     * @param host     機器名稱
+     * @param statuses 狀態清單
+     * @return 工作 ID 清單（依建立時間遞增）
+     */
+    @Query("SELECT j.id FROM SerialExportJob j WHERE j.host = :host AND j.status IN :statuses ORDER BY j.createdAt")
+    List<String> findIdsByHostAndStatusIn(@Param("host") String host,
+                                          @Param("statuses") Collection<Integer> statuses);
+
+    /**
+     * 查詢心跳逾時的未結束工作 ID（執行的機器已停止）。
+     *
+     * @param statuses 狀態清單
+     * @param before   心跳時間上限（不含）
+     * @return 工作 ID 清單
+     */
+    @Query("SELECT j.id FROM SerialExportJob j WHERE j.status IN :statuses AND j.updatedAt < :before")
+    List<String> findStaleIds(@Param("statuses") Collection<Integer> statuses,
+                              @Param("before") LocalDateTime before);
+
+    /**
+     * 查詢已結束的工作（依最後使用時間遞增，移除時從最久未使用的開始）。
+     *
+     * @return 工作清單
+     */
+    @Query("SELECT j FROM SerialExportJob j WHERE j.finishedAt IS NOT NULL ORDER BY j.touchedAt")
+    List<SerialExportJob> findFinishedOrderByTouchedAt();
+}
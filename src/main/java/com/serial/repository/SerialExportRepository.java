@@ -0,0 +1,166 @@
+package com.serial.repository;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+/**
+ * 後台 CSV 匯出的讀取：只選取匯出的欄位，逐列轉成 {@link SerialExportRow} 交給呼叫端，不建立 Entity。
+ *
+ * <p>每一段以 {@code id < 上一段最後一筆} 定位（keyset，依 id 由新到舊），不計算總筆數也不使用 {@code OFFSET}；
+ * 結果以唯讀、只能向前的 {@link ResultSet} 讀取，fetch size 與每段筆數相同，
+ * 資料列讀一筆交出一筆，記憶體用量與匯出筆數無關。</p>
+ *
+ * <p>平行匯出時以 {@link #idRange()} 取得 id 範圍後切成多個區間，各區間以
+ * {@link #readChunk(SerialSearchFilter, int, int, int, Consumer)} 分別讀取（{@code id} 主鍵範圍搜尋）。</p>
+ *
+ * <p>搜尋條件與 {@link SerialDetailSearchRepository} 相同。參數一律以變數宣告（沒有的條件傳 null），
+ * SQL 文字只隨「有哪些條件」變化，不隨條件值變化。變數不可比欄位窄：宣告長度較短時 SQL Server 會靜默截斷，
+ * 查出與列表頁不同的資料；關鍵字以 {@code NVARCHAR(MAX)} 宣告，超過欄位長度的序號直接視為查無資料（與列表頁相同）。</p>
+ */
+@Repository
+public class SerialExportRepository {
+
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** {@code serial_detail.content} 的欄位長度（{@code @content} 的宣告長度） */
+    private static final int CONTENT_LENGTH = 8;
+
+    /** {@code %s} 為依條件組合的 WHERE 子句 */
+    private static final String CHUNK_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @after INT = ?;
+            DECLARE @before INT = ?;
+            DECLARE @keyword NVARCHAR(MAX) = ?;
+            DECLARE @content NVARCHAR(8) = ?;
+            DECLARE @status INT = ?;
+            DECLARE @start DATETIME = ?;
+            DECLARE @end DATETIME = ?;
+            SELECT TOP (?) d.id, a.activity_name, a.activity_unique_id, d.content, d.status,
+                   d.updated_at, d.start_date, d.end_date, d.note, d.created_at
+                FROM serial_detail d
+                INNER JOIN serial_activity a ON a.id = d.serial_activity_id
+                WHERE d.id > @after AND d.id < @before%s
+                ORDER BY d.id DESC;
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SerialExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 讀取一段（id 小於 {@code beforeId} 的最新 {@code limit} 筆），逐列交給 {@code sink}。
+     *
+     * @param filter   搜尋條件
+     * @param beforeId 上一段最後一筆的 id（不含）；第一段傳 null
+     * @param limit    本段最多筆數（同時作為 fetch size）
+     * @param sink     逐列接收（依 id 由新到舊）
+     * @return 本段的筆數；小於 {@code limit} 表示已讀完
+     */
+    public int readChunk(SerialSearchFilter filter, Integer beforeId, int limit, Consumer<SerialExportRow> sink) {
+        return readChunk(filter, 0, beforeId != null ? beforeId : Integer.MAX_VALUE, limit, sink);
+    }
+
+    /**
+     * 讀取 id 區間 ({@code afterId}, {@code beforeId}) 內的最新 {@code limit} 筆（兩端皆不含），逐列交給 {@code sink}。
+     *
+     * @param filter   搜尋條件
+     * @param afterId  區間下界（不含）
+     * @param beforeId 區間上界（不含）
+     * @param limit    最多筆數（同時作為 fetch size）
+     * @param sink     逐列接收（依 id 由新到舊）
+     * @return 讀取的筆數
+     */
+    public int readChunk(SerialSearchFilter filter, int afterId, int beforeId, int limit,
+                         Consumer<SerialExportRow> sink) {
+        SerialSearchFilter f = filter.normalized();
+        if (f.content() != null && f.content().length() > CONTENT_LENGTH) {
+            return 0;  // 不可能等於任何序號；不送出查詢，避免 @content 截斷後查到其他序號
+        }
+        String sql = CHUNK_SQL.formatted(predicate(f));
+        Object[] args = {
+                new SqlParameterValue(Types.INTEGER, afterId),
+                new SqlParameterValue(Types.INTEGER, beforeId),
+                new SqlParameterValue(Types.NVARCHAR, f.keyword() != null ? "%" + f.keyword() + "%" : null),
+                new SqlParameterValue(Types.NVARCHAR, f.content()),
+                new SqlParameterValue(Types.INTEGER, f.status()),
+                new SqlParameterValue(Types.TIMESTAMP, f.dateStart() != null ? parse(f.dateStart() + " 00:00:00") : null),
+                new SqlParameterValue(Types.TIMESTAMP, f.dateEnd() != null ? parse(f.dateEnd() + " 23:59:59") : null),
+                limit
+        };
+
+        int[] rows = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(limit);
+            new ArgumentPreparedStatementSetter(args).setValues(ps);
+            return ps;
+        }, rs -> {
+            sink.accept(new SerialExportRow(
+                    rs.getInt(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getString(4),
+                    rs.getInt(5),
+                    toLocalDateTime(rs.getTimestamp(6)),
+                    toLocalDateTime(rs.getTimestamp(7)),
+                    toLocalDateTime(rs.getTimestamp(8)),
+                    rs.getString(9),
+                    toLocalDateTime(rs.getTimestamp(10))));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    /**
+     * 序號 id 的範圍（主鍵兩端，不套用搜尋條件）；沒有資料時為 [0, 0]。
+     */
+    public IdRange idRange() {
+        return jdbcTemplate.queryForObject(
+                "SELECT ISNULL(MIN(id), 0), ISNULL(MAX(id), 0) FROM serial_detail",
+                (rs, rowNum) -> new IdRange(rs.getInt(1), rs.getInt(2)));
+    }
+
+    /** 只包含有值的條件（對應 {@link SerialDetailSearchRepository} 的查詢條件） */
+    private static String predicate(SerialSearchFilter f) {
+        StringBuilder sql = new StringBuilder();
+        if (f.keyword() != null) sql.append(" AND (a.activity_name LIKE @keyword OR a.activity_unique_id LIKE @keyword)");
+        if (f.content() != null) sql.append(" AND d.content = @content");
+        if (f.status() != null) sql.append(" AND d.status = @status");
+        if (f.dateStart() != null) sql.append(" AND d.start_date >= @start");
+        if (f.dateEnd() != null) sql.append(" AND d.end_date <= @end");
+        return sql.toString();
+    }
+
+    private static Timestamp parse(String value) {
+        return Timestamp.valueOf(LocalDateTime.parse(value, DTF));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * 匯出的一列（只包含匯出的欄位）。
+     */
+    public record SerialExportRow(int id, String activityName, String activityUniqueId, String content, int status,
+                                  LocalDateTime updatedAt, LocalDateTime startDate, LocalDateTime endDate,
+                                  String note, LocalDateTime createdAt) {}
+
+    /**
+     * 序號 id 的範圍（兩端皆包含）。
+     */
+    public record IdRange(int min, int max) {}
+}
@@ -0,0 +1,207 @@
+package com.serial.repository;
+
+import com.serial.entity.LogBodyCodec;
+import com.serial.entity.SerialLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API 日誌的批次寫入。
+ *
+ * <p>{@code serial_log} 的主鍵為 {@code IDENTITY}，Hibernate 無法批次化 INSERT；
+ * 日誌寫入器一次累積多筆，改以 JDBC batch 送出（JdbcTemplate 會參與目前的 Spring 交易）。</p>
+ *
+ * <p>本機日誌檔（{@code serial.log.sink=journal}）的載入進度也記錄在此，與日誌在同一個交易中更新。</p>
+ *
+ * <p>{@code serial.log.body-storage=deflate} 時，請求/回應 Body 以 {@link LogBodyCodec} 壓縮後寫入
+ * {@code request_z} / {@code response_z}（字典編號 {@code serial.log.body-dictionary}），文字欄位為 null；
+ * 每批的壓縮時間記錄在 {@code serial.log.compress} 指標。</p>
+ */
+@Repository
+public class SerialLogJdbcRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO serial_log (api_name, host, api, request, request_at, response, response_at, request_z, response_z)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String FIND_UNCOMPRESSED_SQL = """
+            SELECT TOP (?) id, request_at, request, response FROM serial_log
+                WHERE id > ? AND (request IS NOT NULL OR response IS NOT NULL)
+                ORDER BY id
+            """;
+
+    private static final String REPLACE_WITH_COMPRESSED_SQL = """
+            UPDATE serial_log SET request = NULL, response = NULL, request_z = ?, response_z = ?
+                WHERE id = ? AND request_at = ?
+            """;
+
+    private static final String FIND_CHECKPOINT_SQL = """
+            SELECT segment, position FROM serial_log_journal_checkpoint WHERE journal = ?
+            """;
+
+    private static final String UPDATE_CHECKPOINT_SQL = """
+            UPDATE serial_log_journal_checkpoint SET segment = ?, position = ?, updated_at = GETDATE()
+                WHERE journal = ?
+            """;
+
+    private static final String INSERT_CHECKPOINT_SQL = """
+            INSERT INTO serial_log_journal_checkpoint (journal, segment, position) VALUES (?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 是否以壓縮格式寫入 Body */
+    private final boolean compress;
+
+    /** 壓縮使用的字典編號 */
+    private final int dictionaryId;
+
+    private final Timer compressTimer;
+
+    public SerialLogJdbcRepository(JdbcTemplate jdbcTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${serial.log.body-storage:text}") String bodyStorage,
+                                   @Value("${serial.log.body-dictionary:1}") int dictionaryId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compress = "deflate".equals(bodyStorage.trim().toLowerCase(Locale.ROOT));
+        this.dictionaryId = dictionaryId;
+        this.compressTimer = Timer.builder("serial.log.compress")
+                .description("每批日誌 Body 的壓縮時間")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 以一個 JDBC batch 寫入多筆日誌（{@code created_at} 由資料庫預設值填入）。
+     *
+     * @param entries 日誌記錄
+     */
+    public void insertAll(List<SerialLog> entries) {
+        if (entries.isEmpty()) return;
+        if (!compress) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+                setColumns(ps, entry, entry.getRequest(), entry.getResponse());
+                ps.setNull(8, Types.VARBINARY);
+                ps.setNull(9, Types.VARBINARY);
+            });
+            return;
+        }
+
+        // 先壓縮整批（同一個壓縮器重複使用），再送出 batch
+        long begin = System.nanoTime();
+        byte[][] requests = new byte[entries.size()][];
+        byte[][] responses = new byte[entries.size()][];
+        try (LogBodyCodec.Encoder encoder = LogBodyCodec.encoder(dictionaryId)) {
+            for (int i = 0; i < entries.size(); i++) {
+                requests[i] = encoder.encode(entries.get(i).getRequest());
+                responses[i] = encoder.encode(entries.get(i).getResponse());
+            }
+        }
+        compressTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+
+        int[] index = {0};
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            int i = index[0]++;
+            setColumns(ps, entry, null, null);
+            setBytes(ps, 8, requests[i]);
+            setBytes(ps, 9, responses[i]);
+        });
+    }
+
+    /**
+     * 依主鍵順序讀取仍以文字儲存 Body 的日誌（壓縮既有日誌的遷移程序使用）。
+     *
+     * @param afterId 上一批的最大 id
+     * @param limit   最多筆數
+     */
+    public List<UncompressedBody> findUncompressedAfter(int afterId, int limit) {
+        return jdbcTemplate.query(FIND_UNCOMPRESSED_SQL, (rs, rowNum) -> new UncompressedBody(
+                rs.getInt("id"),
+                rs.getTimestamp("request_at").toLocalDateTime(),
+                rs.getString("request"),
+                rs.getString("response")), limit, afterId);
+    }
+
+    /**
+     * 以壓縮格式取代文字 Body（一個 JDBC batch）。
+     *
+     * @param rows 已壓縮的 Body
+     */
+    public void replaceWithCompressed(List<CompressedBody> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(REPLACE_WITH_COMPRESSED_SQL, rows, rows.size(), (ps, row) -> {
+            setBytes(ps, 1, row.request());
+            setBytes(ps, 2, row.response());
+            ps.setInt(3, row.id());
+            ps.setTimestamp(4, Timestamp.valueOf(row.requestAt()));
+        });
+    }
+
+    private static void setColumns(PreparedStatement ps, SerialLog entry, String request, String response) throws SQLException {
+        ps.setString(1, entry.getApiName());
+        ps.setString(2, entry.getHost());
+        ps.setString(3, entry.getApi());
+        ps.setString(4, request);
+        ps.setTimestamp(5, Timestamp.valueOf(entry.getRequestAt()));
+        ps.setString(6, response);
+        ps.setTimestamp(7, entry.getResponseAt() != null ? Timestamp.valueOf(entry.getResponseAt()) : null);
+    }
+
+    private static void setBytes(PreparedStatement ps, int index, byte[] value) throws SQLException {
+        if (value != null) {
+            ps.setBytes(index, value);
+        } else {
+            ps.setNull(index, Types.VARBINARY);
+        }
+    }
+
+    /**
+     * 讀取本機日誌檔的載入進度。
+     *
+     * @param journal 日誌檔名稱（每台機器一個）
+     * @return 下一筆待載入記錄的位置；從未載入過時為 empty
+     */
+    public Optional<JournalCheckpoint> findCheckpoint(String journal) {
+        return jdbcTemplate.query(FIND_CHECKPOINT_SQL,
+                (rs, rowNum) -> new JournalCheckpoint(rs.getLong("segment"), rs.getInt("position")),
+                journal).stream().findFirst();
+    }
+
+    /**
+     * 更新本機日誌檔的載入進度。須與 {@link #insertAll(List)} 在同一個交易中呼叫，
+     * 日誌與進度一起 commit，重新載入時才不會重複寫入。
+     *
+     * @param journal    日誌檔名稱
+     * @param checkpoint 下一筆待載入記錄的位置
+     */
+    public void saveCheckpoint(String journal, JournalCheckpoint checkpoint) {
+        int updated = jdbcTemplate.update(UPDATE_CHECKPOINT_SQL, checkpoint.segment(), checkpoint.position(), journal);
+        if (updated == 0) {
+            jdbcTemplate.update(INSERT_CHECKPOINT_SQL, journal, checkpoint.segment(), checkpoint.position());
+        }
+    }
+
+    /**
+     * 日誌檔的載入進度：小於 {@code segment} 的分段已全部載入，{@code segment} 從 {@code position} 開始尚未載入。
+     */
+    public record JournalCheckpoint(long segment, int position) {}
+
+    /** 以文字儲存的日誌 Body（主鍵為 id + request_at） */
+    public record UncompressedBody(int id, LocalDateTime requestAt, String request, String response) {}
+
+    /** 壓縮後的日誌 Body */
+    public record CompressedBody(int id, LocalDateTime requestAt, byte[] request, byte[] response) {}
+}
@@ -0,0 +1,189 @@
+package com.serial.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * {@code serial_log} 分割區的維護操作（分割函數 {@code PF_serial_log_month}，見 schema.sql）。
+ *
+ * <p>分割、合併與 SWITCH 都是中繼資料操作，不搬移資料列（分割與合併的分割區必須是空的）。
+ * DDL 無法使用參數，邊界值一律由 {@link LocalDate} 格式化成 {@code 'yyyyMMdd'} 字面值：
+ * 分割函數的型別是 {@code DATETIME}，{@code 'yyyy-MM-dd'} 會依連線的 {@code DATEFORMAT} / {@code LANGUAGE}
+ * 解讀（dmy 時 {@code 2026-11-01} 會變成 1 月 11 日），不帶分隔符號的格式在任何設定下都相同。</p>
+ *
+ * <p>所有方法須在交易中、且先以 {@link #tryLock()} 取得維護鎖後呼叫，避免多台機器同時維護。</p>
+ */
+@Repository
+public class SerialLogPartitionRepository {
+
+    /** 與 DATEFORMAT / LANGUAGE 設定無關的日期字面值格式 */
+    private static final DateTimeFormatter BOUNDARY_LITERAL = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String LOCK_SQL = """
+            DECLARE @result INT;
+            EXEC @result = sp_getapplock @Resource = 'serial_log_partition', @LockMode = 'Exclusive',
+                @LockOwner = 'Transaction', @LockTimeout = 0;
+            SELECT @result;
+            """;
+
+    private static final String BOUNDARIES_SQL = """
+            SELECT CAST(v.value AS DATETIME) AS boundary
+                FROM sys.partition_range_values v
+                INNER JOIN sys.partition_functions f ON f.function_id = v.function_id
+                WHERE f.name = 'PF_serial_log_month'
+                ORDER BY v.boundary_id
+            """;
+
+    private static final String SPLIT_SQL = """
+            ALTER PARTITION SCHEME PS_serial_log_month NEXT USED [PRIMARY];
+            ALTER PARTITION FUNCTION PF_serial_log_month() SPLIT RANGE ('%s');
+            """;
+
+    private static final String MERGE_SQL = "ALTER PARTITION FUNCTION PF_serial_log_month() MERGE RANGE ('%s')";
+
+    /** 以 {@code IX_serial_log_request_at} seek，不掃描分割區 */
+    private static final String ROWS_FROM_EXISTS_SQL = """
+            SELECT CASE WHEN EXISTS (SELECT 1 FROM serial_log WHERE request_at >= ?) THEN 1 ELSE 0 END
+            """;
+
+    private static final String FIRST_PARTITION_EXISTS_SQL = """
+            SELECT CASE WHEN EXISTS (
+                SELECT 1 FROM serial_log WHERE $PARTITION.PF_serial_log_month(request_at) = 1
+            ) THEN 1 ELSE 0 END
+            """;
+
+    /** 等待低優先權鎖：最多一分鐘，逾時放棄自己，不阻擋線上寫入 */
+    private static final String SWITCH_FIRST_SQL = """
+            ALTER TABLE serial_log SWITCH PARTITION 1 TO serial_log_archive_stage
+                WITH (WAIT_AT_LOW_PRIORITY (MAX_DURATION = 1 MINUTES, ABORT_AFTER_WAIT = SELF))
+            """;
+
+    private static final String STAGE_RANGE_SQL = """
+            SELECT COUNT_BIG(*) AS row_count, MIN(request_at) AS min_at, MAX(request_at) AS max_at
+                FROM serial_log_archive_stage
+            """;
+
+    private static final String STAGE_ROWS_SQL = """
+            SELECT id, api_name, host, api, request, request_at, response, response_at, created_at, request_z, response_z
+                FROM serial_log_archive_stage ORDER BY id
+            """;
+
+    private static final String TRUNCATE_STAGE_SQL = "TRUNCATE TABLE serial_log_archive_stage";
+
+    private static final String LIVE_PARTITION_SQL = """
+            SELECT ISNULL(SUM(CASE WHEN s.index_id IN (0, 1) THEN s.row_count END), 0) AS row_count,
+                   ISNULL(SUM(s.used_page_count), 0) * 8192 AS bytes
+                FROM sys.dm_db_partition_stats s
+                WHERE s.object_id = OBJECT_ID('serial_log')
+                  AND s.partition_number = $PARTITION.PF_serial_log_month(GETDATE())
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SerialLogPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 取得維護鎖（交易結束時釋放）；其他機器正在維護時立即回傳 false。
+     */
+    public boolean tryLock() {
+        Integer result = jdbcTemplate.queryForObject(LOCK_SQL, Integer.class);
+        return result != null && result >= 0;
+    }
+
+    /**
+     * 目前的分割邊界（由小到大）；分割函數不存在時為空清單。
+     */
+    public List<LocalDate> boundaries() {
+        return jdbcTemplate.query(BOUNDARIES_SQL,
+                (rs, rowNum) -> rs.getTimestamp("boundary").toLocalDateTime().toLocalDate());
+    }
+
+    /**
+     * 新增一個邊界（切開最後一個分割區；該分割區應為空的，否則會搬移資料）。
+     */
+    public void split(LocalDate boundary) {
+        jdbcTemplate.execute(SPLIT_SQL.formatted(boundary.format(BOUNDARY_LITERAL)));
+    }
+
+    /**
+     * 是否有 {@code request_at} 不早於指定日期的日誌（在該日期切開最後一個分割區時需要搬移的資料列）。
+     */
+    public boolean hasRowsFrom(LocalDate boundary) {
+        Integer exists = jdbcTemplate.queryForObject(ROWS_FROM_EXISTS_SQL, Integer.class,
+                Timestamp.valueOf(boundary.atStartOfDay()));
+        return exists != null && exists == 1;
+    }
+
+    /**
+     * 移除一個邊界（合併兩側的分割區；其中一側應為空的）。
+     */
+    public void merge(LocalDate boundary) {
+        jdbcTemplate.execute(MERGE_SQL.formatted(boundary.format(BOUNDARY_LITERAL)));
+    }
+
+    /**
+     * 第一個分割區（小於最小邊界）是否還有資料列。
+     */
+    public boolean firstPartitionHasRows() {
+        Integer exists = jdbcTemplate.queryForObject(FIRST_PARTITION_EXISTS_SQL, Integer.class);
+        return exists != null && exists == 1;
+    }
+
+    /**
+     * 把第一個分割區 SWITCH 到 {@code serial_log_archive_stage}（目標必須是空的）。
+     */
+    public void switchFirstToStage() {
+        jdbcTemplate.execute(SWITCH_FIRST_SQL);
+    }
+
+    /**
+     * 暫存表的筆數與時間範圍。
+     */
+    public StageRange stageRange() {
+        return jdbcTemplate.queryForObject(STAGE_RANGE_SQL, (rs, rowNum) -> new StageRange(
+                rs.getLong("row_count"),
+                toLocalDateTime(rs.getTimestamp("min_at")),
+                toLocalDateTime(rs.getTimestamp("max_at"))));
+    }
+
+    /**
+     * 依序逐列讀取暫存表（不一次載入記憶體）。
+     */
+    public void streamStage(RowCallbackHandler handler) {
+        jdbcTemplate.query(STAGE_ROWS_SQL, handler);
+    }
+
+    /**
+     * 清空暫存表（封存完成後）。
+     */
+    public void truncateStage() {
+        jdbcTemplate.execute(TRUNCATE_STAGE_SQL);
+    }
+
+    /**
+     * 目前月份分割區的筆數與佔用空間（需要 {@code VIEW DATABASE STATE} 權限）。
+     */
+    public PartitionSize livePartition() {
+        return jdbcTemplate.queryForObject(LIVE_PARTITION_SQL,
+                (rs, rowNum) -> new PartitionSize(rs.getLong("row_count"), rs.getLong("bytes")));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /** 暫存表的筆數與 {@code request_at} 範圍（沒有資料時範圍為 null） */
+    public record StageRange(long rows, LocalDateTime from, LocalDateTime to) {}
+
+    /** 分割區的筆數與佔用位元組數 */
+    public record PartitionSize(long rows, long bytes) {}
+}
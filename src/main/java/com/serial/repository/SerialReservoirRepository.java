@@ -0,0 +1,112 @@
+package com.serial.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 預先產生序號庫存（{@code serial_reservoir}）的資料存取層。
+ *
+ * <p>庫存表只有序號內容一個欄位，所有操作都是集合式（set-based）SQL，
+ * 因此直接使用 {@link JdbcTemplate}，不經過 JPA Entity。
+ * JdbcTemplate 會參與目前的 Spring 交易。</p>
+ */
+@Repository
+public class SerialReservoirRepository {
+
+    /**
+     * 從庫存取出 N 個序號並寫入 {@code serial_detail}（一次來回）。
+     *
+     * <p>{@code DELETE TOP (n) ... OUTPUT} 取出序號，{@code READPAST} 讓同時進行的多個領取
+     * 互相跳過已被鎖定的列，不會彼此等待；取出的序號暫存在表變數中，再以一個
+     * {@code INSERT ... SELECT} 寫入明細表。{@code serial_detail} 有外鍵，
+     * 不能直接作為 {@code OUTPUT INTO} 的目標，因此需要表變數中轉。
+     * 最後帶回領取的序號，讓呼叫端登記到已發行序號索引。</p>
+     */
+    private static final String CLAIM_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @claimed TABLE (content NVARCHAR(8) NOT NULL);
+            DELETE TOP (?) FROM serial_reservoir WITH (ROWLOCK, READPAST)
+                OUTPUT deleted.content INTO @claimed;
+            INSERT INTO serial_detail (serial_activity_id, content, status, note, start_date, end_date, created_at)
+                SELECT ?, content, 0, ?, ?, ?, ? FROM @claimed;
+            SELECT content FROM @claimed;
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SerialReservoirRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 領取最多 {@code quota} 個庫存序號，直接寫成指定活動的未核銷序號。
+     *
+     * @return 實際領取的序號（庫存不足時少於 quota 個）
+     */
+    public List<String> claimInto(int activityId, int quota, String note, LocalDateTime startDate, LocalDateTime endDate) {
+        return jdbcTemplate.queryForList(CLAIM_SQL, String.class,
+                quota, activityId, note, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * 將序號放入庫存。
+     *
+     * @param contents 已確認不重複的序號
+     */
+    public void fill(List<String> contents) {
+        if (contents.isEmpty()) return;
+        // 整批以一個資料表值參數送出，一個敘述寫入，不需依參數上限切段
+        jdbcTemplate.update("INSERT INTO serial_reservoir (content) SELECT content FROM ?",
+                SerialContentList.of(contents));
+    }
+
+    /** 庫存中的序號數量 */
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT_BIG(*) FROM serial_reservoir", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 以主鍵 keyset 方式分批讀取庫存中的序號（依 id 遞增）。
+     * 已發行序號點陣圖重建時使用：庫存中的序號已配發，不可再被配發器選中。
+     *
+     * @param afterId 上一批最後一筆的 id（第一批傳 0）
+     * @param limit   本批最多筆數
+     * @return 本批的 id 與序號內容
+     */
+    public List<ReservoirEntry> findEntriesAfter(long afterId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT TOP (?) id, content FROM serial_reservoir WHERE id > ? ORDER BY id",
+                (rs, rowNum) -> new ReservoirEntry(rs.getLong("id"), rs.getString("content")),
+                limit, afterId);
+    }
+
+    /**
+     * 查詢候選序號中哪些已在庫存內（隨機配發器排重用）。
+     *
+     * @param contents 候選序號（以資料表值參數傳入，數量不受參數上限限制）
+     * @return 已在庫存中的序號
+     */
+    public Set<String> findExistingContents(Collection<String> contents) {
+        if (contents.isEmpty()) return new HashSet<>();
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT r.content FROM ? c INNER JOIN serial_reservoir r ON r.content = c.content",
+                String.class, SerialContentList.of(contents)));
+    }
+
+    /**
+     * 庫存中的一個序號。
+     *
+     * @param id      庫存主鍵
+     * @param content 序號內容
+     */
+    public record ReservoirEntry(long id, String content) {}
+}
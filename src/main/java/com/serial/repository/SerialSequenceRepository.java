@@ -0,0 +1,30 @@
+package com.serial.repository;
+
+import com.serial.entity.SerialSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * 持久化計數器資料存取層（Repository）。
+ */
+@Repository
+public interface SerialSequenceRepository extends JpaRepository<SerialSequence, String> {
+
+    /**
+     * 依名稱查詢計數器，並加上悲觀寫鎖。
+     *
+     * <p>預留計數區間時使用，確保多個交易（或多台機器）不會拿到重疊的區間。</p>
+     *
+     * @param name 計數器名稱
+     * @return Optional 包裝的計數器（含鎖）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT q FROM SerialSequence q WHERE q.name = :name")
+    Optional<SerialSequence> findByNameWithLock(@Param("name") String name);
+}
@@ -0,0 +1,42 @@
+package com.serial.repository;
+
+import com.serial.entity.SerialStatusJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 大量序號狀態變更工作的資料存取層（Repository）。
+ */
+@Repository
+public interface SerialStatusJobRepository extends JpaRepository<SerialStatusJob, Integer> {
+
+    /**
+     * 依 ID 查詢工作並加上悲觀寫鎖。
+     *
+     * <p>每一段執行前先鎖定工作列，確保即使多台機器同時接手同一個工作，
+     * 進度（{@code lastId}、{@code affected}）也不會被重複推進。</p>
+     *
+     * @param id 工作 ID
+     * @return Optional 包裝的工作（含鎖）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM SerialStatusJob j WHERE j.id = :id")
+    Optional<SerialStatusJob> findByIdWithLock(@Param("id") Integer id);
+
+    /**
+     * 依狀態查詢工作 ID（啟動時找出需要接續執行的工作）。
+     *
+     * @param statuses 狀態清單
+     * @return 工作 ID 清單（依 ID 遞增）
+     */
+    @Query("SELECT j.id FROM SerialStatusJob j WHERE j.status IN :statuses ORDER BY j.id")
+    List<Integer> findIdsByStatusIn(@Param("statuses") Collection<Integer> statuses);
+}
@@ -0,0 +1,482 @@
+package com.serial.service;
+
+import com.serial.dto.response.SerialExportJobResponseData;
+import com.serial.entity.SerialExportJob;
+import com.serial.exception.BusinessException;
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import com.serial.repository.SerialExportJobRepository;
+import com.serial.repository.SerialExportRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 後台 CSV 匯出工作服務。
+ *
+ * <p>同步匯出（{@code GET /admin/serials/export}）在整個匯出期間佔用一個 HTTP 請求與一條資料庫連線，
+ * 代理伺服器逾時中斷連線時整個匯出就白做了。改用此服務：</p>
+ * <ol>
+ *   <li>提交：將搜尋條件寫入 {@code serial_export_job}，立即回傳工作 ID</li>
+ *   <li>執行：提交的機器在背景虛擬執行緒以 {@link SerialExportService#export(SerialSearchFilter, Writer)}
+ *       寫入匯出目錄（先寫 {@code .part}，完成後才更名），同時執行的工作最多 {@code max-running} 個</li>
+ *   <li>查詢：前端以工作 ID 輪詢狀態（任何一台機器都能回應）</li>
+ *   <li>下載：完成的檔案支援 HTTP Range，下載中斷可以續傳</li>
+ * </ol>
+ *
+ * <p>多台機器時 {@code dir} 必須是所有機器共用的目錄（NFS / SMB 等），下載請求才能由任何一台機器回應；
+ * 讀不到檔案時回應錯誤並記錄警告，不會回傳空檔案。</p>
+ *
+ * <p>條件（正規化後）相同、資料也沒有變化時沿用同一個工作與檔案。「資料沒有變化」以
+ * {@code serial_detail} 的最大 id 與 {@code MIN_ACTIVE_ROWVERSION()} 判斷：資料庫內只有 {@code serial_detail}
+ * 有 rowversion 欄位，任何一台機器新增序號或變更狀態都會使其增加。刪除不會改變 rowversion，
+ * 因此只在建立後 {@code reuse-ttl} 內沿用。</p>
+ *
+ * <p>執行中的機器每次清理時更新工作的心跳；重新啟動後接續本機未完成的工作，
+ * 心跳超過 {@code stale-after} 未更新的工作（機器已停止且未再啟動）標記為失敗。
+ * 已結束的工作超過 {@code max-age} 未被使用，或檔案總大小超過 {@code disk-budget-mb} 時
+ * （從最久未使用的開始）連同檔案一起移除。{@code dir} 必須是匯出專用的目錄。</p>
+ */
+@Service
+public class SerialExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialExportJobService.class);
+
+    /** 失敗原因的最大長度（與欄位長度相同） */
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final List<Integer> UNFINISHED =
+            List.of(SerialExportJob.STATUS_PENDING, SerialExportJob.STATUS_RUNNING);
+
+    private static final List<Integer> REUSABLE =
+            List.of(SerialExportJob.STATUS_PENDING, SerialExportJob.STATUS_RUNNING, SerialExportJob.STATUS_COMPLETED);
+
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter FILE_FMT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final SerialExportService exportService;
+    private final SerialExportRepository exportRepo;
+    private final SerialExportJobRepository jobRepo;
+    private final SerialDetailJdbcRepository detailJdbcRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    /** 匯出檔案的目錄（多台機器時必須共用） */
+    private final Path dir;
+
+    /** 本機名稱（記錄在工作上，重新啟動後接續自己的工作） */
+    private final String host;
+
+    /** 相同條件沿用既有工作的期限 */
+    private final Duration reuseTtl;
+
+    /** 已結束的工作未被使用多久後移除 */
+    private final Duration maxAge;
+
+    /** 未結束的工作心跳多久未更新後視為機器已停止 */
+    private final Duration staleAfter;
+
+    /** 已完成檔案的總大小上限（位元組） */
+    private final long diskBudgetBytes;
+
+    /** 同時執行的工作數 */
+    private final Semaphore running;
+
+    /** 本機排入執行的工作（含等待中），用於心跳與關閉時中斷 */
+    private final Map<String, Future<?>> activeJobs = new ConcurrentHashMap<>();
+
+    /** 應用程式關閉中：被中斷的工作保留未完成狀態，重新啟動後接續 */
+    private volatile boolean stopping = false;
+
+    public SerialExportJobService(SerialExportService exportService,
+                                  SerialExportRepository exportRepo,
+                                  SerialExportJobRepository jobRepo,
+                                  SerialDetailJdbcRepository detailJdbcRepo,
+                                  TransactionTemplate transactionTemplate,
+                                  @Qualifier("serialJobExecutor") ExecutorService executor,
+                                  @Value("${serial.admin.export.job.dir:${java.io.tmpdir}/serial-exports}") Path dir,
+                                  @Value("${serial.admin.export.job.host:${HOSTNAME:default}}") String host,
+                                  @Value("${serial.admin.export.job.max-running:2}") int maxRunning,
+                                  @Value("${serial.admin.export.job.reuse-ttl:PT10M}") Duration reuseTtl,
+                                  @Value("${serial.admin.export.job.max-age:PT1H}") Duration maxAge,
+                                  @Value("${serial.admin.export.job.stale-after:PT10M}") Duration staleAfter,
+                                  @Value("${serial.admin.export.job.disk-budget-mb:2048}") long diskBudgetMb) {
+        this.exportService = exportService;
+        this.exportRepo = exportRepo;
+        this.jobRepo = jobRepo;
+        this.detailJdbcRepo = detailJdbcRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.dir = dir;
+        this.host = host;
+        this.reuseTtl = reuseTtl;
+        this.maxAge = maxAge;
+        this.staleAfter = staleAfter;
+        this.diskBudgetBytes = diskBudgetMb * 1024 * 1024;
+        this.running = new Semaphore(Math.max(1, maxRunning));
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法建立匯出目錄 " + dir, e);
+        }
+    }
+
+    /**
+     * 提交匯出工作；條件與資料都沒有變化時沿用既有的工作。
+     *
+     * @param filter 搜尋條件
+     * @return 工作狀態
+     */
+    public synchronized SerialExportJobResponseData submit(SerialSearchFilter filter) {
+        SerialSearchFilter normalized = filter.normalized();
+        String filterKey = filterKey(normalized);
+        int maxId = exportRepo.idRange().max();
+        long dataVersion = detailJdbcRepo.minActiveRowVersion();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<SerialExportJob> reusable = jobRepo.findReusable(
+                filterKey, maxId, dataVersion, REUSABLE, now.minus(reuseTtl));
+        if (!reusable.isEmpty()) {
+            SerialExportJob job = reusable.getFirst();
+            touch(job.getId());
+            return toResponse(job, true);
+        }
+
+        SerialExportJob job = new SerialExportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setFilterKey(filterKey);
+        job.setKeyword(normalized.keyword());
+        job.setContent(normalized.content());
+        job.setFilterStatus(normalized.status());
+        job.setDateStart(normalized.dateStart());
+        job.setDateEnd(normalized.dateEnd());
+        job.setMaxId(maxId);
+        job.setDataVersion(dataVersion);
+        job.setHost(host);
+        job.setStatus(SerialExportJob.STATUS_PENDING);
+        job.setUpdatedAt(now);
+        job.setTouchedAt(now);
+        job = jobRepo.save(job);
+
+        schedule(job.getId());
+        return toResponse(job, false);
+    }
+
+    /**
+     * 查詢工作狀態。
+     *
+     * @param jobId 工作 ID
+     * @return 工作狀態
+     */
+    public SerialExportJobResponseData getJob(String jobId) {
+        return toResponse(find(jobId), false);
+    }
+
+    /**
+     * 取得已完成的匯出檔案（下載時使用）。
+     *
+     * @param jobId 工作 ID
+     * @return 檔案位置與建議檔名
+     */
+    public ExportFile getFile(String jobId) {
+        SerialExportJob job = find(jobId);
+        if (job.getStatus() != SerialExportJob.STATUS_COMPLETED) {
+            throw new BusinessException("匯出檔案尚未完成");
+        }
+        Path file = dir.resolve(job.getId() + ".csv");
+        if (!Files.isReadable(file)) {
+            log.warn("[SerialExportJobService] 工作 {} 的檔案 {} 不存在（由 {} 產生），請確認匯出目錄為所有機器共用",
+                    jobId, file, job.getHost());
+            throw new BusinessException("匯出檔案不存在，請重新匯出");
+        }
+        touch(job.getId());
+        return new ExportFile(file, "serial_export_" + job.getCreatedAt().format(FILE_FMT) + ".csv");
+    }
+
+    /**
+     * 應用程式就緒後，接續本機尚未完成的工作（上次關機或當機時中斷的工作，從頭重新匯出）。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<String> jobIds = jobRepo.findIdsByHostAndStatusIn(host, UNFINISHED);
+        if (!jobIds.isEmpty()) {
+            log.info("[SerialExportJobService] 接續 {} 個未完成的匯出工作: {}", jobIds.size(), jobIds);
+        }
+        jobIds.forEach(this::schedule);
+    }
+
+    /**
+     * 定期清理：
+     * <ol>
+     *   <li>更新本機工作的心跳，並將心跳超過 {@code stale-after} 的未結束工作標記為失敗</li>
+     *   <li>移除超過 {@code max-age} 未被使用的工作，檔案總大小仍超過 {@code disk-budget-mb}
+     *       時再從最久未使用的開始移除</li>
+     *   <li>刪除沒有對應工作、超過 {@code max-age} 的檔案（移除工作後刪檔前當機留下的）</li>
+     * </ol>
+     * 每台機器都會執行；移除工作時先鎖定工作列，只有刪除成功的機器會刪除檔案。
+     */
+    @Scheduled(fixedDelayString = "${serial.admin.export.job.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        activeJobs.keySet().forEach(this::heartbeat);
+        for (String jobId : jobRepo.findStaleIds(UNFINISHED, now.minus(staleAfter))) {
+            if (!activeJobs.containsKey(jobId)) {
+                log.warn("[SerialExportJobService] 工作 {} 心跳逾時，標記為失敗", jobId);
+                markFailed(jobId, "執行匯出的機器已停止，請重新匯出");
+            }
+        }
+
+        LocalDateTime expireBefore = now.minus(maxAge);
+        List<SerialExportJob> finished = jobRepo.findFinishedOrderByTouchedAt();
+        long total = finished.stream().mapToLong(job -> job.getFileSize() != null ? job.getFileSize() : 0).sum();
+        for (SerialExportJob job : finished) {
+            if (!job.getTouchedAt().isBefore(expireBefore) && total <= diskBudgetBytes) break;
+            total -= job.getFileSize() != null ? job.getFileSize() : 0;
+            if (remove(job.getId())) {
+                deleteQuietly(dir.resolve(job.getId() + ".csv"));
+            }
+        }
+
+        deleteOrphanFiles(expireBefore);
+    }
+
+    /** 應用程式關閉時中斷執行中的工作（寫入檔案的通道被中斷後，匯出即停止；重新啟動後接續） */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        activeJobs.values().forEach(future -> future.cancel(true));
+    }
+
+    private SerialExportJob find(String jobId) {
+        return jobRepo.findById(jobId)
+                .orElseThrow(() -> new BusinessException("此匯出工作不存在或已過期"));
+    }
+
+    /** 排入背景執行（同一工作在本機只會有一條執行緒） */
+    private void schedule(String jobId) {
+        activeJobs.computeIfAbsent(jobId, id -> executor.submit(() -> run(id)));
+    }
+
+    /** 寫入 {@code .part} 檔，完成後更名；失敗時刪除 {@code .part} 檔 */
+    private void run(String jobId) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            activeJobs.remove(jobId);
+            return;
+        }
+
+        Path part = dir.resolve(jobId + ".csv.part");
+        Path file = dir.resolve(jobId + ".csv");
+        try {
+            SerialSearchFilter filter = transactionTemplate.execute(status -> start(jobId));
+            if (filter == null) return;
+
+            long rows;
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(Files.newOutputStream(part), StandardCharsets.UTF_8), 64 * 1024)) {
+                writer.write('\ufeff'); // UTF-8 BOM
+                rows = exportService.export(filter, writer);
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(file);
+
+            markCompleted(jobId, rows, size);
+            log.info("[SerialExportJobService] 工作 {} 完成：{} 筆，{} bytes", jobId, rows, size);
+        } catch (Exception e) {
+            deleteQuietly(part);
+            if (stopping) {
+                log.info("[SerialExportJobService] 工作 {} 因應用程式關閉中斷，重新啟動後接續", jobId);
+            } else {
+                log.error("[SerialExportJobService] 工作 {} 失敗", jobId, e);
+                markFailed(jobId, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        } finally {
+            running.release();
+            activeJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * 開始執行（在呼叫端的交易中）：鎖定工作列並標記為執行中。
+     *
+     * @return 工作的搜尋條件；工作已不存在或已結束時為 null
+     */
+    private SerialSearchFilter start(String jobId) {
+        SerialExportJob job = jobRepo.findByIdWithLock(jobId).orElse(null);
+        if (job == null || !UNFINISHED.contains(job.getStatus())) {
+            return null;
+        }
+        job.setStatus(SerialExportJob.STATUS_RUNNING);
+        job.setUpdatedAt(LocalDateTime.now());
+        jobRepo.save(job);
+        return new SerialSearchFilter(job.getKeyword(), job.getContent(), job.getFilterStatus(),
+                job.getDateStart(), job.getDateEnd());
+    }
+
+    /** 在獨立交易中將工作標記為完成 */
+    private void markCompleted(String jobId, long rows, long size) {
+        transactionTemplate.executeWithoutResult(status -> jobRepo.findByIdWithLock(jobId).ifPresent(job -> {
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(SerialExportJob.STATUS_COMPLETED);
+            job.setRowCount(rows);
+            job.setFileSize(size);
+            job.setUpdatedAt(now);
+            job.setTouchedAt(now);
+            job.setFinishedAt(now);
+            jobRepo.save(job);
+        }));
+    }
+
+    /** 在獨立交易中將未結束的工作標記為失敗 */
+    private void markFailed(String jobId, String message) {
+        transactionTemplate.executeWithoutResult(status -> jobRepo.findByIdWithLock(jobId).ifPresent(job -> {
+            if (!UNFINISHED.contains(job.getStatus())) return;
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(SerialExportJob.STATUS_FAILED);
+            job.setErrorMessage(message != null && message.length() > MAX_ERROR_LENGTH
+                    ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            job.setUpdatedAt(now);
+            job.setTouchedAt(now);
+            job.setFinishedAt(now);
+            jobRepo.save(job);
+        }));
+    }
+
+    /** 更新本機未結束工作的心跳 */
+    private void heartbeat(String jobId) {
+        transactionTemplate.executeWithoutResult(status -> jobRepo.findByIdWithLock(jobId).ifPresent(job -> {
+            if (!UNFINISHED.contains(job.getStatus())) return;
+            job.setUpdatedAt(LocalDateTime.now());
+            jobRepo.save(job);
+        }));
+    }
+
+    /** 更新最後使用時間（沿用或下載時） */
+    private void touch(String jobId) {
+        transactionTemplate.executeWithoutResult(status -> jobRepo.findByIdWithLock(jobId).ifPresent(job -> {
+            job.setTouchedAt(LocalDateTime.now());
+            jobRepo.save(job);
+        }));
+    }
+
+    /**
+     * 移除工作列。
+     *
+     * @return true 表示由本次呼叫刪除（呼叫端負責刪除檔案）
+     */
+    private boolean remove(String jobId) {
+        Boolean removed = transactionTemplate.execute(status -> jobRepo.findByIdWithLock(jobId)
+                .map(job -> {
+                    jobRepo.delete(job);
+                    return true;
+                })
+                .orElse(false));
+        return Boolean.TRUE.equals(removed);
+    }
+
+    /** 刪除沒有對應工作、最後修改時間早於 {@code before} 的檔案 */
+    private void deleteOrphanFiles(LocalDateTime before) {
+        FileTime threshold = FileTime.from(before.atZone(ZoneId.systemDefault()).toInstant());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{csv,csv.part}")) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                String jobId = name.substring(0, name.indexOf('.'));
+                if (Files.getLastModifiedTime(path).compareTo(threshold) < 0 && !jobRepo.existsById(jobId)) {
+                    deleteQuietly(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("[SerialExportJobService] 無法清理匯出目錄 {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[SerialExportJobService] 無法刪除 {}: {}", path, e.getMessage());
+        }
+    }
+
+    /** 正規化後搜尋條件的 SHA-256（十六進位）；null 與空字串以不同的前綴區分 */
+    private static String filterKey(SerialSearchFilter filter) {
+        StringBuilder sb = new StringBuilder();
+        for (Object value : new Object[]{filter.keyword(), filter.content(), filter.status(),
+                filter.dateStart(), filter.dateEnd()}) {
+            sb.append(value == null ? "-" : "+" + value).append('\u0000');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SerialExportJobResponseData toResponse(SerialExportJob job, boolean reused) {
+        boolean completed = job.getStatus() == SerialExportJob.STATUS_COMPLETED;
+        return new SerialExportJobResponseData(
+                job.getId(),
+                statusText(job.getStatus()),
+                reused,
+                completed ? job.getRowCount() : null,
+                completed ? job.getFileSize() : null,
+                completed ? "/admin/serials/export_jobs/" + job.getId() + "/download" : null,
+                job.getErrorMessage(),
+                job.getCreatedAt() != null ? job.getCreatedAt().format(FMT) : null,
+                job.getFinishedAt() != null ? job.getFinishedAt().format(FMT) : null);
+    }
+
+    private static String statusText(int status) {
+        return switch (status) {
+            case SerialExportJob.STATUS_PENDING -> "pending";
+            case SerialExportJob.STATUS_RUNNING -> "running";
+            case SerialExportJob.STATUS_COMPLETED -> "completed";
+            case SerialExportJob.STATUS_FAILED -> "failed";
+            default -> "unknown";
+        };
+    }
+
+    /**
+     * 已完成的匯出檔案。
+     *
+     * @param path     檔案位置
+     * @param filename 建議的下載檔名
+     */
+    public record ExportFile(Path path, String filename) {}
+}
@@ -0,0 +1,283 @@
+package com.serial.service;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import com.serial.repository.SerialExportRepository;
+import com.serial.repository.SerialExportRepository.IdRange;
+import com.serial.repository.SerialExportRepository.SerialExportRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.QuoteMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 後台序號 CSV 匯出。
+ *
+ * <p>以 {@link SerialExportRepository} 分段讀取（keyset，每段 {@code serial.admin.export.chunk-size} 筆），
+ * 每讀到一列就直接寫入 {@link CSVPrinter}，每段結束時 flush 給客戶端；不建立 Entity、不累積持久化內容、
+ * 不計算總筆數，記憶體用量固定，與匯出筆數無關。</p>
+ *
+ * <p>{@link #exportGzip(SerialSearchFilter, OutputStream)} 為平行模式：將 id 範圍切成每段
+ * {@code serial.admin.export.slice-size} 個 id 的區間，在 virtual thread 上同時讀取並編碼成 CSV，
+ * 每個區間各自壓縮成一個 gzip member，再依 id 由新到舊的順序寫出（多個 gzip member 串接仍是合法的 gzip 資料）。
+ * 同一次匯出最多 {@code parallelism} 個區間同時讀取或等待寫出（記憶體中只有這些區間的壓縮結果）；
+ * 所有匯出共用 {@code max-connections} 個連線許可，上限為連線池大小的一半，其餘連線留給 API。</p>
+ *
+ * <p>匯出筆數與耗時以 {@code serial.admin.export.rows}、{@code serial.admin.export} 指標提供。</p>
+ */
+@Service
+public class SerialExportService {
+
+    /** CSV 標題列 */
+    public static final String[] HEADER = {
+            "活動名稱", "活動唯一ID", "序號", "狀態", "更新時間", "有效期限（起）", "有效期限（迄）", "備註說明", "新增時間"
+    };
+
+    /** 資料列格式（所有欄位加上引號） */
+    private static final CSVFormat ROW_FORMAT = CSVFormat.DEFAULT.builder()
+            .setQuoteMode(QuoteMode.ALL)
+            .build();
+
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SerialExportRepository exportRepo;
+
+    /** 每段讀取的筆數 */
+    private final int chunkSize;
+
+    /** 平行模式每個區間的 id 數 */
+    private final int sliceSize;
+
+    /** 平行模式同一次匯出同時讀取的區間數 */
+    private final int parallelism;
+
+    /** 平行模式所有匯出共用的連線許可 */
+    private final Semaphore connectionPermits;
+    private final int connectionLimit;
+
+    private final Timer exportTimer;
+    private final Counter exportedRows;
+
+    public SerialExportService(SerialExportRepository exportRepo,
+                               MeterRegistry meterRegistry,
+                               @Value("${serial.admin.export.chunk-size:5000}") int chunkSize,
+                               @Value("${serial.admin.export.slice-size:20000}") int sliceSize,
+                               @Value("${serial.admin.export.parallelism:4}") int parallelism,
+                               @Value("${serial.admin.export.max-connections:4}") int maxConnections,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.exportRepo = exportRepo;
+        this.chunkSize = chunkSize;
+        this.sliceSize = sliceSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.connectionLimit = Math.max(1, Math.min(maxConnections, poolSize / 2));
+        this.connectionPermits = new Semaphore(connectionLimit);
+        this.exportTimer = Timer.builder("serial.admin.export")
+                .description("後台 CSV 匯出的耗時")
+                .register(meterRegistry);
+        this.exportedRows = Counter.builder("serial.admin.export.rows")
+                .description("後台 CSV 匯出的筆數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 將符合條件的序號依 id 由新到舊寫成 CSV（含標題列，不含 BOM）。
+     *
+     * @param filter 搜尋條件
+     * @param out    輸出（呼叫端負責關閉）
+     * @return 匯出的筆數
+     */
+    public long export(SerialSearchFilter filter, Writer out) throws IOException {
+        Timer.Sample sample = Timer.start();
+        CSVPrinter printer = new CSVPrinter(out, ROW_FORMAT.builder().setHeader(HEADER).build());
+
+        long total = 0;
+        Integer lastId = null;
+        int[] lastSeen = {0};
+        try {
+            while (true) {
+                int rows = exportRepo.readChunk(filter, lastId, chunkSize, row -> {
+                    print(printer, row);
+                    lastSeen[0] = row.id();
+                });
+                total += rows;
+                printer.flush();  // 每段送出一次，客戶端持續收到資料
+                if (rows < chunkSize) break;
+                lastId = lastSeen[0];
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();  // 客戶端中斷連線等寫入錯誤
+        } finally {
+            exportedRows.increment(total);
+            sample.stop(exportTimer);
+        }
+        return total;
+    }
+
+    /** 平行模式所有匯出共用的連線許可數 */
+    public int connectionLimit() {
+        return connectionLimit;
+    }
+
+    /**
+     * 平行模式：將符合條件的序號依 id 由新到舊寫成 gzip 壓縮的 CSV（含 UTF-8 BOM 與標題列）。
+     *
+     * @param filter 搜尋條件
+     * @param out    輸出（呼叫端負責關閉）
+     * @return 匯出的筆數
+     */
+    public long exportGzip(SerialSearchFilter filter, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start();
+        IdRange range = exportRepo.idRange();
+        int floor = range.min() - 1;  // 區間下界（不含）
+
+        out.write(gzip(printer -> {
+            printer.getOut().append('\ufeff');  // UTF-8 BOM
+            printer.printRecord((Object[]) HEADER);
+        }));
+
+        long total = 0;
+        Deque<Future<Slice>> window = new ArrayDeque<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (long before = (long) range.max() + 1; before > floor + 1; before -= sliceSize) {
+                    int upper = (int) before;
+                    int lower = (int) Math.max(floor, before - sliceSize - 1);
+                    if (window.size() >= parallelism) {
+                        total += write(window.removeFirst(), out);
+                    }
+                    window.addLast(executor.submit(() -> readSlice(filter, lower, upper)));
+                }
+                while (!window.isEmpty()) {
+                    total += write(window.removeFirst(), out);
+                }
+                out.flush();
+            } finally {
+                window.forEach(slice -> slice.cancel(true));  // 發生錯誤或客戶端中斷時不再讀取其餘區間
+            }
+        } finally {
+            exportedRows.increment(total);
+            sample.stop(exportTimer);
+        }
+        return total;
+    }
+
+    /** 讀取一個區間（區間內再以 keyset 分段）並壓縮成一個 gzip member；讀取期間佔用一個連線許可 */
+    private Slice readSlice(SerialSearchFilter filter, int afterId, int beforeId) throws Exception {
+        int[] rows = {0};
+        connectionPermits.acquire();
+        try {
+            byte[] data = gzip(printer -> {
+                int before = beforeId;
+                int[] lastSeen = {0};
+                while (true) {
+                    int read = exportRepo.readChunk(filter, afterId, before, chunkSize, row -> {
+                        print(printer, row);
+                        lastSeen[0] = row.id();
+                    });
+                    rows[0] += read;
+                    if (read < chunkSize) break;
+                    before = lastSeen[0];
+                }
+            });
+            return new Slice(rows[0], data);
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
+    /** 依序寫出一個區間（沒有資料的區間不寫出） */
+    private static long write(Future<Slice> future, OutputStream out) throws IOException {
+        Slice slice;
+        try {
+            slice = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("匯出中斷");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(e.getCause());
+        }
+        if (slice.rows() > 0) out.write(slice.data());
+        return slice.rows();
+    }
+
+    /** 以一個 gzip member 寫出 CSV 內容 */
+    private static byte[] gzip(CsvBody body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        try (CSVPrinter printer = new CSVPrinter(
+                new OutputStreamWriter(new GZIPOutputStream(buffer, 8192), StandardCharsets.UTF_8), ROW_FORMAT)) {
+            body.write(printer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return buffer.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface CsvBody {
+        void write(CSVPrinter printer) throws IOException;
+    }
+
+    /**
+     * 一個區間的結果。
+     *
+     * @param rows 筆數
+     * @param data 壓縮後的 CSV（一個 gzip member）
+     */
+    private record Slice(int rows, byte[] data) {}
+
+    private static void print(CSVPrinter printer, SerialExportRow row) {
+        try {
+            printer.printRecord(
+                    row.activityName(),
+                    row.activityUniqueId(),
+                    row.content(),
+                    statusText(row.status()),
+                    format(row.updatedAt(), "--"),
+                    format(row.startDate(), ""),
+                    format(row.endDate(), ""),
+                    row.note() != null ? row.note() : "-",
+                    format(row.createdAt(), ""));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String format(LocalDateTime value, String empty) {
+        return value != null ? value.format(DTF) : empty;
+    }
+
+    /**
+     * 狀態文字轉換
+     */
+    private static String statusText(int status) {
+        return switch (status) {
+            case 0 -> "未核銷";
+            case 1 -> "已核銷";
+            case 2 -> "已註銷";
+            default -> "未設定";
+        };
+    }
+}
@@ -0,0 +1,279 @@
+package com.serial.service;
+
+import com.serial.dto.request.SerialAdditionalInsertJobRequest;
+import com.serial.dto.request.SerialInsertJobRequest;
+import com.serial.dto.response.SerialGenerationJobResponseData;
+import com.serial.entity.SerialActivity;
+import com.serial.entity.SerialGenerationJob;
+import com.serial.exception.BusinessException;
+import com.serial.repository.SerialGenerationJobRepository;
+import com.serial.service.allocator.SerialCodeAllocator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 非同步大量序號產生工作服務。
+ *
+ * <p>同步 API（{@code /api/serials_insert}）限制每次 100 筆且整批在單一交易內完成；
+ * 活動需要數十萬到數百萬筆序號時，改用此服務：</p>
+ * <ol>
+ *   <li>提交：在一個短交易內驗證並建立（或更新）活動、建立工作記錄，立即回傳工作 ID</li>
+ *   <li>執行：背景虛擬執行緒以「分段」方式產生序號，每一段是獨立交易，
+ *       寫入序號與累加進度一起 commit，HTTP 執行緒與資料庫鎖都不會被整個工作佔住；
+ *       每段在整個大量寫入期間佔用一條連線，同時執行的工作最多 {@code max-running} 個，其餘維持等待中</li>
+ *   <li>查詢：以工作 ID 查詢進度與最終結果</li>
+ *   <li>接續：應用程式重啟後，自動接續尚未完成的工作，從最後一個已 commit 的段落繼續</li>
+ * </ol>
+ *
+ * <p>單一段落失敗會重試（最多 {@value #MAX_ATTEMPTS} 次），用盡後工作標記為失敗；
+ * 已 commit 的序號保留，失敗訊息可由查詢 API 取得。</p>
+ */
+@Service
+public class SerialGenerationJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialGenerationJobService.class);
+
+    /** 單一段落的最大嘗試次數 */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SerialService serialService;
+    private final SerialCodeAllocator codeAllocator;
+    private final SerialGenerationJobRepository jobRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    /** 每一段（每個交易）產生的序號數量 */
+    private final int chunkSize;
+
+    /** 同時執行的工作數上限 */
+    private final Semaphore running;
+
+    /** 目前在本機執行中的工作 ID，避免同一工作被重複排程 */
+    private final Set<Integer> activeJobs = ConcurrentHashMap.newKeySet();
+
+    /** 應用程式關閉中：執行中的工作在目前段落結束後停止，下次啟動再接續 */
+    private volatile boolean stopping = false;
+
+    public SerialGenerationJobService(SerialService serialService,
+                                      SerialCodeAllocator codeAllocator,
+                                      SerialGenerationJobRepository jobRepo,
+                                      TransactionTemplate transactionTemplate,
+                                      @Qualifier("serialJobExecutor") ExecutorService executor,
+                                      @Value("${serial.generation-job.chunk-size:10000}") int chunkSize,
+                                      @Value("${serial.generation-job.max-running:2}") int maxRunning) {
+        this.serialService = serialService;
+        this.codeAllocator = codeAllocator;
+        this.jobRepo = jobRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.running = new Semaphore(Math.max(1, maxRunning));
+    }
+
+    /**
+     * 提交「建立新活動並產生序號」工作。
+     *
+     * @param req 請求參數（活動名稱、唯一 ID、有效期間、產生數量）
+     * @return 剛建立的工作狀態
+     */
+    public SerialGenerationJobResponseData submitInsert(SerialInsertJobRequest req) {
+        SerialGenerationJob job = transactionTemplate.execute(status -> {
+            SerialActivity activity = serialService.createActivity(req.getActivityName(), req.getActivityUniqueId(),
+                    req.getStartDate(), req.getEndDate(), req.getQuota());
+            return createJob(SerialGenerationJob.TYPE_INSERT, activity, req.getQuota(), null,
+                    req.getStartDate(), req.getEndDate());
+        });
+        schedule(job.getId());
+        return toResponse(job);
+    }
+
+    /**
+     * 提交「對既有活動追加序號」工作。
+     *
+     * @param req 請求參數（活動唯一 ID、新有效期間、追加數量、備註）
+     * @return 剛建立的工作狀態
+     */
+    public SerialGenerationJobResponseData submitAdditionalInsert(SerialAdditionalInsertJobRequest req) {
+        SerialGenerationJob job = transactionTemplate.execute(status -> {
+            SerialActivity activity = serialService.extendActivity(req.getActivityUniqueId(),
+                    req.getStartDate(), req.getEndDate(), req.getQuota());
+            return createJob(SerialGenerationJob.TYPE_ADDITIONAL_INSERT, activity, req.getQuota(), req.getNote(),
+                    req.getStartDate(), req.getEndDate());
+        });
+        schedule(job.getId());
+        return toResponse(job);
+    }
+
+    /**
+     * 查詢工作進度。
+     *
+     * @param jobId 工作 ID
+     * @return 工作狀態
+     */
+    public SerialGenerationJobResponseData getJob(int jobId) {
+        SerialGenerationJob job = jobRepo.findById(jobId)
+                .orElseThrow(() -> new BusinessException("此工作不存在"));
+        return toResponse(job);
+    }
+
+    /**
+     * 應用程式就緒後，接續所有尚未完成的工作（上次關機或當機時中斷的工作）。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<Integer> jobIds = jobRepo.findIdsByStatusIn(
+                List.of(SerialGenerationJob.STATUS_PENDING, SerialGenerationJob.STATUS_RUNNING));
+        if (!jobIds.isEmpty()) {
+            log.info("[SerialGenerationJobService] 接續 {} 個未完成的工作: {}", jobIds.size(), jobIds);
+        }
+        jobIds.forEach(this::schedule);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private SerialGenerationJob createJob(String type, SerialActivity activity, int quota, String note,
+                                          LocalDateTime startDate, LocalDateTime endDate) {
+        SerialGenerationJob job = new SerialGenerationJob();
+        job.setJobType(type);
+        job.setSerialActivity(activity);
+        job.setQuota(quota);
+        job.setGenerated(0);
+        job.setChunkSize(chunkSize);
+        job.setNote(note);
+        job.setStartDate(startDate);
+        job.setEndDate(endDate);
+        job.setStatus(SerialGenerationJob.STATUS_PENDING);
+        job.setUpdatedAt(LocalDateTime.now());
+        return jobRepo.save(job);
+    }
+
+    /** 排入背景執行（同一工作在本機只會有一條執行緒） */
+    private void schedule(int jobId) {
+        if (activeJobs.add(jobId)) {
+            executor.execute(() -> run(jobId));
+        }
+    }
+
+    /** 逐段執行工作，直到完成、失敗或應用程式關閉 */
+    private void run(int jobId) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            activeJobs.remove(jobId);
+            return;
+        }
+
+        int failures = 0;
+        try {
+            while (!stopping) {
+                try {
+                    // 先取得配發名額再開交易（配發可能需要第二條連線，見 SerialCodeAllocator#limitConcurrency）
+                    Boolean hasMore = codeAllocator.limitConcurrency(
+                            () -> transactionTemplate.execute(status -> runChunk(jobId)));
+                    failures = 0;
+                    if (!Boolean.TRUE.equals(hasMore)) return;
+                } catch (Exception e) {
+                    failures++;
+                    log.warn("[SerialGenerationJobService] 工作 {} 段落失敗（第 {} 次）: {}", jobId, failures, e.getMessage());
+                    if (failures >= MAX_ATTEMPTS) {
+                        markFailed(jobId, e.getMessage());
+                        return;
+                    }
+                    Thread.sleep(1000L * failures);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.release();
+            activeJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * 執行一個段落（在呼叫端的交易中）：鎖定工作列 → 產生序號 → 累加進度。
+     *
+     * @return true 表示還有剩餘數量需要產生
+     */
+    private boolean runChunk(int jobId) {
+        SerialGenerationJob job = jobRepo.findByIdWithLock(jobId).orElse(null);
+        if (job == null
+                || job.getStatus() == SerialGenerationJob.STATUS_COMPLETED
+                || job.getStatus() == SerialGenerationJob.STATUS_FAILED) {
+            return false;
+        }
+
+        int remaining = job.getQuota() - job.getGenerated();
+        if (remaining > 0) {
+            int count = Math.min(job.getChunkSize(), remaining);
+            serialService.generateAndSave(job.getSerialActivity(), job.getStartDate(), job.getEndDate(), count, job.getNote());
+            job.setGenerated(job.getGenerated() + count);
+            remaining -= count;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(remaining > 0 ? SerialGenerationJob.STATUS_RUNNING : SerialGenerationJob.STATUS_COMPLETED);
+        job.setUpdatedAt(now);
+        if (remaining == 0) job.setFinishedAt(now);
+        jobRepo.save(job);
+        return remaining > 0;
+    }
+
+    /** 在獨立交易中將工作標記為失敗 */
+    private void markFailed(int jobId, String message) {
+        transactionTemplate.executeWithoutResult(status -> jobRepo.findByIdWithLock(jobId).ifPresent(job -> {
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(SerialGenerationJob.STATUS_FAILED);
+            job.setErrorMessage(message != null && message.length() > 1000 ? message.substring(0, 1000) : message);
+            job.setUpdatedAt(now);
+            job.setFinishedAt(now);
+            jobRepo.save(job);
+        }));
+    }
+
+    private SerialGenerationJobResponseData toResponse(SerialGenerationJob job) {
+        double progress = job.getQuota() == 0 ? 100.0
+                : Math.round(job.getGenerated() * 1000.0 / job.getQuota()) / 10.0;
+        return new SerialGenerationJobResponseData(
+                job.getId(),
+                job.getSerialActivity().getId(),
+                statusText(job.getStatus()),
+                job.getQuota(),
+                job.getGenerated(),
+                progress,
+                job.getErrorMessage(),
+                job.getCreatedAt() != null ? job.getCreatedAt().format(FMT) : null,
+                job.getFinishedAt() != null ? job.getFinishedAt().format(FMT) : null);
+    }
+
+    private String statusText(int status) {
+        return switch (status) {
+            case SerialGenerationJob.STATUS_PENDING -> "pending";
+            case SerialGenerationJob.STATUS_RUNNING -> "running";
+            case SerialGenerationJob.STATUS_COMPLETED -> "completed";
+            case SerialGenerationJob.STATUS_FAILED -> "failed";
+            default -> "unknown";
+        };
+    }
+}
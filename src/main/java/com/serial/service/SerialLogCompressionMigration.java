@@ -0,0 +1,102 @@
+package com.serial.service;
+
+import com.serial.entity.LogBodyCodec;
+import com.serial.repository.SerialLogJdbcRepository;
+import com.serial.repository.SerialLogJdbcRepository.CompressedBody;
+import com.serial.repository.SerialLogJdbcRepository.UncompressedBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 日誌 Body 壓縮遷移程序：把既有日誌的 {@code request} / {@code response} 文字改存成壓縮格式。
+ *
+ * <p>啟動時（{@code serial.log.body-storage-migrate-on-startup=true}）以主鍵 keyset 分批讀取仍以文字儲存的日誌，
+ * 以 {@link LogBodyCodec}（字典 {@code serial.log.body-dictionary}）壓縮後寫回 {@code request_z} / {@code response_z}，
+ * 並清空文字欄位。每批在獨立交易中完成；已壓縮的日誌不會再被讀取，中斷後可以安全地重新執行。</p>
+ *
+ * <p>完成時輸出節省的空間：文字以 {@code NVARCHAR} 的 UTF-16 大小（每字元 2 bytes）計算，壓縮後以實際位元組數計算。
+ * SQL Server 不會立即釋放 LOB 頁面，遷移後需執行
+ * {@code ALTER INDEX PK_serial_log ON serial_log REORGANIZE WITH (LOB_COMPACTION = ON)} 才會回收空間。</p>
+ *
+ * <p>建議流程：設定 {@code serial.log.body-storage=deflate} 與 {@code body-storage-migrate-on-startup=true} 啟動一次
+ * → 完成後將 {@code body-storage-migrate-on-startup} 改回 false。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.log.body-storage-migrate-on-startup", havingValue = "true")
+public class SerialLogCompressionMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialLogCompressionMigration.class);
+
+    private final SerialLogJdbcRepository logRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final int dictionaryId;
+    private final int batchSize;
+
+    public SerialLogCompressionMigration(SerialLogJdbcRepository logRepo,
+                                         TransactionTemplate transactionTemplate,
+                                         @Value("${serial.log.body-dictionary:1}") int dictionaryId,
+                                         @Value("${serial.log.body-storage-migrate.batch-size:500}") int batchSize) {
+        this.logRepo = logRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.dictionaryId = dictionaryId;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("[SerialLogCompressionMigration] 開始壓縮既有日誌 Body（字典 {}）", dictionaryId);
+        int afterId = 0;
+        long rows = 0;
+        long textBytes = 0;
+        long compressedBytes = 0;
+        long compressNanos = 0;
+
+        try (LogBodyCodec.Encoder encoder = LogBodyCodec.encoder(dictionaryId)) {
+            while (true) {
+                List<UncompressedBody> batch = logRepo.findUncompressedAfter(afterId, batchSize);
+                if (batch.isEmpty()) break;
+
+                long begin = System.nanoTime();
+                List<CompressedBody> compressed = new ArrayList<>(batch.size());
+                for (UncompressedBody row : batch) {
+                    CompressedBody body = new CompressedBody(row.id(), row.requestAt(),
+                            encoder.encode(row.request()), encoder.encode(row.response()));
+                    compressed.add(body);
+                    textBytes += utf16Bytes(row.request()) + utf16Bytes(row.response());
+                    compressedBytes += length(body.request()) + length(body.response());
+                }
+                compressNanos += System.nanoTime() - begin;
+
+                transactionTemplate.executeWithoutResult(status -> logRepo.replaceWithCompressed(compressed));
+                rows += batch.size();
+                afterId = batch.getLast().id();
+            }
+        }
+
+        if (rows == 0) {
+            log.info("[SerialLogCompressionMigration] 沒有需要壓縮的日誌");
+            return;
+        }
+        log.info("[SerialLogCompressionMigration] 完成：{} 筆日誌，Body {} KB → {} KB（{}%），平均壓縮時間 {} µs/筆",
+                rows, textBytes / 1024, compressedBytes / 1024,
+                String.format("%.1f", compressedBytes * 100.0 / Math.max(1, textBytes)),
+                compressNanos / rows / 1000);
+    }
+
+    private static long utf16Bytes(String text) {
+        return text != null ? 2L * text.length() : 0;
+    }
+
+    private static long length(byte[] data) {
+        return data != null ? data.length : 0;
+    }
+}
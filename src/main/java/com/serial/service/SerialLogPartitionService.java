@@ -0,0 +1,298 @@
+package com.serial.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serial.entity.LogBodyCodec;
+import com.serial.repository.SerialLogPartitionRepository;
+import com.serial.repository.SerialLogPartitionRepository.PartitionSize;
+import com.serial.repository.SerialLogPartitionRepository.StageRange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@code serial_log} 月分割區的維護：預先建立之後月份的分割區、以分割區為單位封存並移除過期日誌。
+ *
+ * <p>{@code serial_log} 只會增長，逐列 {@code DELETE} 舊日誌會長時間鎖住資料表並寫入大量交易紀錄。
+ * 改為每月一個分割區（見 schema.sql），每天（{@code cron}）與啟動時執行：</p>
+ * <ol>
+ *   <li>預先建立：依序補上最後一個邊界之後、到目前月份之後 {@code months-ahead} 個月為止的每月邊界。
+ *       只在切開後的新分割區沒有資料時才切開（不搬移資料列）；已經有資料的月份（首次部署、長時間停機後）
+ *       不在線上切開，改為記錄警告，需在維護時段手動處理</li>
+ *   <li>移出：最小邊界早於保留期限（{@code retention-months}）時，把第一個分割區
+ *       {@code SWITCH} 到 {@code serial_log_archive_stage}（中繼資料操作，以低優先權等待鎖）</li>
+ *   <li>封存：暫存表逐列以 JSON Lines 寫入 {@code archive-dir} 下的 gzip 檔，寫回磁碟並核對筆數後才 {@code TRUNCATE}</li>
+ *   <li>合併：第一個分割區清空後 {@code MERGE} 掉最小邊界，重複直到最小邊界在保留期限內</li>
+ * </ol>
+ *
+ * <p>移出與封存分別在各自的交易中進行，封存期間不持有 {@code serial_log} 的結構描述鎖，線上寫入不受影響。
+ * 封存中途失敗時資料留在暫存表，下次執行先完成封存。每個交易都先取得 {@code sp_getapplock}，
+ * 多台機器同時執行時只有一台會維護。</p>
+ *
+ * <p>目前月份的分割區（線上寫入的分割區）大小以 {@code serial.log.partition.live.rows}、
+ * {@code serial.log.partition.live.bytes} 指標提供，筆數超過 {@code live-max-rows} 時記錄警告。</p>
+ *
+ * <p>設定 {@code serial.log-partition.enabled=false} 停用（例如資料庫尚未改為分割資料表）。</p>
+ */
+@Service
+@ConditionalOnProperty(name = "serial.log-partition.enabled", havingValue = "true", matchIfMissing = true)
+public class SerialLogPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialLogPartitionService.class);
+
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final SerialLogPartitionRepository partitionRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    /** 保留的月數（不含目前月份） */
+    private final int retentionMonths;
+
+    /** 預先建立的未來月份數 */
+    private final int monthsAhead;
+
+    private final Path archiveDir;
+
+    /** 目前月份分割區的筆數警告門檻 */
+    private final long liveMaxRows;
+
+    private final AtomicLong liveRows = new AtomicLong();
+    private final AtomicLong liveBytes = new AtomicLong();
+    private final Counter archived;
+
+    public SerialLogPartitionService(SerialLogPartitionRepository partitionRepo,
+                                     TransactionTemplate transactionTemplate,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${serial.log-partition.retention-months:6}") int retentionMonths,
+                                     @Value("${serial.log-partition.months-ahead:2}") int monthsAhead,
+                                     @Value("${serial.log-partition.archive-dir:serial-log-archive}") String archiveDir,
+                                     @Value("${serial.log-partition.live-max-rows:5000000}") long liveMaxRows) {
+        this.partitionRepo = partitionRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+        this.archiveDir = Path.of(archiveDir);
+        this.liveMaxRows = liveMaxRows;
+
+        Gauge.builder("serial.log.partition.live.rows", liveRows, AtomicLong::get)
+                .description("目前月份 serial_log 分割區的筆數")
+                .register(meterRegistry);
+        Gauge.builder("serial.log.partition.live.bytes", liveBytes, AtomicLong::get)
+                .description("目前月份 serial_log 分割區佔用的位元組數")
+                .register(meterRegistry);
+        this.archived = Counter.builder("serial.log.partition.archived")
+                .description("封存並移出 serial_log 的日誌筆數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 應用程式就緒後在背景執行一次，之後依排程執行。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        Thread.ofVirtual().name("serial-log-partition").start(this::maintain);
+    }
+
+    /**
+     * 執行一次完整的維護。
+     */
+    @Scheduled(cron = "${serial.log-partition.cron:0 30 3 * * *}")
+    public void maintain() {
+        try {
+            LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+            ensureFuturePartitions(currentMonth);
+
+            LocalDate cutoff = currentMonth.minusMonths(retentionMonths);
+            while (retireFirstPartition(cutoff)) {
+                // 每次移除一個月份，直到最小邊界在保留期限內
+            }
+        } catch (Exception e) {
+            log.error("[SerialLogPartitionService] 分割區維護失敗: {}", e.getMessage());
+        }
+        checkLivePartition();
+    }
+
+    /**
+     * 補上最後一個邊界之後、到目前月份之後 {@code months-ahead} 個月的每月邊界。
+     *
+     * <p>在 RANGE RIGHT 的最後一個分割區中切開邊界 B，{@code request_at >= B} 的資料列會搬到新分割區，
+     * 搬移期間持有 {@code serial_log} 的結構描述修改鎖。因此只切開沒有資料的範圍；有資料的邊界略過並記錄警告，
+     * 之後較晚、仍是空的月份照常建立，避免所有新日誌繼續累積在同一個分割區。</p>
+     */
+    private void ensureFuturePartitions(LocalDate currentMonth) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!partitionRepo.tryLock()) return;
+            List<LocalDate> boundaries = partitionRepo.boundaries();
+            if (boundaries.isEmpty()) {
+                log.warn("[SerialLogPartitionService] 找不到分割函數 PF_serial_log_month，略過維護");
+                return;
+            }
+            LocalDate last = boundaries.getLast().withDayOfMonth(1);
+            LocalDate until = currentMonth.plusMonths(monthsAhead);
+            for (LocalDate boundary = last.plusMonths(1); !boundary.isAfter(until); boundary = boundary.plusMonths(1)) {
+                if (partitionRepo.hasRowsFrom(boundary)) {
+                    log.warn("[SerialLogPartitionService] {} 之後已有日誌，切開分割區需要搬移資料，略過；"
+                            + "請在維護時段手動 SPLIT RANGE", boundary);
+                    continue;
+                }
+                partitionRepo.split(boundary);
+                log.info("[SerialLogPartitionService] 已建立分割區 {}", boundary);
+            }
+        });
+    }
+
+    /**
+     * 移除一個過期的月份：第一個分割區有資料時先移出並封存，清空後合併最小邊界。
+     *
+     * @return true 表示已移除一個邊界，需要再檢查下一個
+     */
+    private boolean retireFirstPartition(LocalDate cutoff) {
+        // 交易 1：移出（SWITCH 只持有結構描述鎖到 commit 為止）
+        Boolean eligible = transactionTemplate.execute(status -> {
+            if (!partitionRepo.tryLock()) return false;
+            List<LocalDate> boundaries = partitionRepo.boundaries();
+            // 保留至少一個邊界，分割函數才存在
+            if (boundaries.size() < 2 || boundaries.getFirst().isAfter(cutoff)) return false;
+            if (partitionRepo.stageRange().rows() == 0 && partitionRepo.firstPartitionHasRows()) {
+                partitionRepo.switchFirstToStage();
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(eligible)) return false;
+
+        // 交易 2：封存暫存表（包含上次中斷留下的資料）並合併邊界
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!partitionRepo.tryLock()) return false;
+            StageRange stage = partitionRepo.stageRange();
+            if (stage.rows() > 0) {
+                long written = archiveStage(stage);
+                if (written != stage.rows()) {
+                    throw new IllegalStateException("封存筆數不符: 暫存表 " + stage.rows() + " 筆，寫出 " + written + " 筆");
+                }
+                partitionRepo.truncateStage();
+                archived.increment(written);
+            }
+            if (partitionRepo.firstPartitionHasRows()) return false;  // 移出後又寫入了舊日期的日誌，下次再處理
+
+            LocalDate boundary = partitionRepo.boundaries().getFirst();
+            partitionRepo.merge(boundary);
+            log.info("[SerialLogPartitionService] 已移除 {} 之前的日誌分割區（封存 {} 筆）", boundary, stage.rows());
+            return true;
+        }));
+    }
+
+    /**
+     * 暫存表逐列寫成 gzip 壓縮的 JSON Lines：先寫暫存檔並寫回磁碟，再原子地改名。
+     *
+     * @return 寫出的筆數
+     */
+    private long archiveStage(StageRange stage) {
+        String name = "serial_log_" + stage.from().format(FILE_DATE) + "_" + stage.to().format(FILE_DATE);
+        Path target = archiveDir.resolve(name + ".jsonl.gz");
+        Path temp = archiveDir.resolve(name + ".jsonl.gz.tmp");
+        long[] written = {0};
+
+        try {
+            Files.createDirectories(archiveDir);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator((OutputStream) gzip)) {
+                    generator.setRootValueSeparator(null);
+                    partitionRepo.streamStage(rs -> {
+                        try {
+                            writeRow(generator, rs);
+                            gzip.write('\n');
+                            written[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    generator.flush();
+                    gzip.finish();
+                    channel.force(true);  // 關閉 generator 會一併關閉檔案，先寫回磁碟
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("封存檔寫入失敗: " + target, e);
+        }
+        log.info("[SerialLogPartitionService] 已封存 {} 筆日誌到 {}", written[0], target);
+        return written[0];
+    }
+
+    private static void writeRow(JsonGenerator generator, ResultSet rs) throws IOException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getInt("id"));
+            generator.writeStringField("api_name", rs.getString("api_name"));
+            generator.writeStringField("host", rs.getString("host"));
+            generator.writeStringField("api", rs.getString("api"));
+            // 以壓縮格式儲存的 Body 解壓後封存，封存檔與儲存格式無關
+            generator.writeStringField("request", body(rs, "request"));
+            generator.writeStringField("request_at", format(rs.getTimestamp("request_at")));
+            generator.writeStringField("response", body(rs, "response"));
+            generator.writeStringField("response_at", format(rs.getTimestamp("response_at")));
+            generator.writeStringField("created_at", format(rs.getTimestamp("created_at")));
+            generator.writeEndObject();
+            generator.flush();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String body(ResultSet rs, String column) throws SQLException {
+        String text = rs.getString(column);
+        return text != null ? text : LogBodyCodec.decode(rs.getBytes(column + "_z"));
+    }
+
+    private static String format(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+
+    /** 更新目前月份分割區的大小指標，超過門檻時記錄警告 */
+    private void checkLivePartition() {
+        try {
+            PartitionSize live = partitionRepo.livePartition();
+            liveRows.set(live.rows());
+            liveBytes.set(live.bytes());
+            if (live.rows() > liveMaxRows) {
+                log.warn("[SerialLogPartitionService] 目前月份的日誌分割區已有 {} 筆（{} MB），超過 {} 筆；"
+                                + "請考慮縮短保留期限或調整日誌抽樣策略",
+                        live.rows(), live.bytes() / 1024 / 1024, liveMaxRows);
+            }
+        } catch (Exception e) {
+            log.debug("[SerialLogPartitionService] 無法讀取分割區大小: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.serial.service;
+
+import com.serial.dto.request.SerialRedeemRequest;
+import com.serial.dto.response.SerialBatchRedeemResult;
+import com.serial.dto.response.SerialRedeemResponseData;
+import com.serial.entity.SerialDetail;
+import com.serial.exception.BusinessException;
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.service.count.SerialDetailChanges;
+import com.serial.service.index.IssuedCodeIndex;
+import com.serial.service.redeem.RedeemRules;
+import com.serial.service.redeem.RedeemSingleFlight;
+import com.serial.service.redeem.RedeemStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * 核銷流程的入口服務（不開啟交易）。
+ *
+ * <p>在交給 {@link RedeemStrategy}（依 {@code serial.redeem.strategy} 選擇）進入資料庫之前，
+ * 先做不需要資料庫的快速判斷，把「一定會失敗」的請求擋在交易之外，
+ * 不佔用連線池，也不觸發 UPDLOCK。</p>
+ *
+ * <p>目前的前置判斷：</p>
+ * <ul>
+ *   <li>任一已重建完成的已發行序號索引（{@link IssuedCodeIndex}：點陣圖或 Bloom Filter）
+ *       查無此序號 → 直接回覆「此序號不存在」，並累加 {@code serial.redeem.prefilter.rejected}</li>
+ * </ul>
+ *
+ * <p>前置判斷預設關閉（{@code serial.redeem.prefilter.enabled=false}），查無此序號時仍交給資料庫確認：
+ * 其他機器發行的序號要等下一次增量同步才會登記到本機索引，期間在本機核銷會被誤判為不存在。
+ * 只有單一機器發行序號、或接受這個假陰性窗口時才應啟用。</p>
+ *
+ * <p>通過前置判斷後，同一序號同時只有一個請求進入資料庫（{@link RedeemSingleFlight}），
+ * 其餘請求等待並取得該請求的結果，熱門序號不會耗盡連線池。</p>
+ *
+ * <p>每次核銷的耗時記錄在 {@code serial.redeem} 計時器，
+ * 以 {@code strategy} 與 {@code outcome}（success / rejected / error）標籤區分，
+ * 用來比較不同策略在大量核銷時的延遲與吞吐量。</p>
+ *
+ * <p>批次核銷（{@link #redeemBatch}）不經過核銷策略，一律以集合式 SQL 處理，
+ * 套用相同的前置判斷與 {@link RedeemRules}。</p>
+ */
+@Service
+public class SerialRedeemService {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialRedeemService.class);
+
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final RedeemStrategy redeemStrategy;
+    private final RedeemSingleFlight singleFlight;
+    private final SerialDetailJdbcRepository detailJdbcRepo;
+    private final MeterRegistry meterRegistry;
+    private final SerialDetailChanges changes;
+
+    /** 已發行序號索引（點陣圖 / Bloom Filter，未啟用時為空） */
+    private final List<IssuedCodeIndex> issuedCodes;
+
+    /** 是否以索引查無此序號作為拒絕依據 */
+    private final boolean prefilterEnabled;
+
+    private final Counter prefilterRejected;
+
+    public SerialRedeemService(RedeemStrategy redeemStrategy, RedeemSingleFlight singleFlight,
+                               SerialDetailJdbcRepository detailJdbcRepo,
+                               ObjectProvider<IssuedCodeIndex> issuedCodes, MeterRegistry meterRegistry,
+                               SerialDetailChanges changes,
+                               @Value("${serial.redeem.prefilter.enabled:false}") boolean prefilterEnabled) {
+        this.redeemStrategy = redeemStrategy;
+        this.singleFlight = singleFlight;
+        this.detailJdbcRepo = detailJdbcRepo;
+        this.meterRegistry = meterRegistry;
+        this.changes = changes;
+        this.issuedCodes = issuedCodes.orderedStream().toList();
+        this.prefilterEnabled = prefilterEnabled;
+        this.prefilterRejected = Counter.builder("serial.redeem.prefilter.rejected")
+                .description("未進資料庫即判定不存在的核銷請求數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 核銷指定序號。
+     *
+     * @param req 請求參數（8 碼序號內容）
+     * @return 序號內容與核銷時間
+     */
+    public SerialRedeemResponseData redeem(SerialRedeemRequest req) {
+        String content = req.getContent().trim().toUpperCase();
+
+        if (isNeverIssued(content)) {
+            prefilterRejected.increment();
+            throw new BusinessException(RedeemRules.NOT_FOUND);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            SerialRedeemResponseData data = singleFlight.redeem(content, () -> redeemStrategy.redeem(req));
+            outcome = "success";
+            changes.statusChanged(SerialDetail.STATUS_UNUSED, SerialDetail.STATUS_USED, 1);
+            return data;
+        } catch (BusinessException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("serial.redeem")
+                    .description("核銷請求在資料庫中的處理時間")
+                    .tag("strategy", redeemStrategy.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 驗證批次核銷的序號格式（每個序號必須恰好 8 個字元）。
+     * 需在開始輸出串流回應之前呼叫，格式錯誤時整批以 422 拒絕。
+     *
+     * @param contents 序號清單
+     */
+    public void validateBatch(List<String> contents) {
+        Map<String, Object> errors = new LinkedHashMap<>();
+        for (int i = 0; i < contents.size(); i++) {
+            String c = contents.get(i);
+            if (c == null || c.trim().length() != 8) {
+                errors.put("content." + i, List.of("序號項目 [" + c + "] 必須是 8 個字元。"));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new SerialService.ValidationException(errors);
+        }
+    }
+
+    /**
+     * 批次核銷。
+     *
+     * <p>依輸入順序每 {@value SerialDetailJdbcRepository#MAX_REDEEM_BATCH} 筆為一段，每段：</p>
+     * <ol>
+     *   <li>前置判斷排除一定不存在的序號</li>
+     *   <li>其餘序號以一個條件式 {@code UPDATE ... JOIN} 核銷（單一敘述、單一交易），
+     *       列鎖依序號排序取得，重疊的批次不會互相死結</li>
+     *   <li>依輸入順序產生每個序號的結果，交給 {@code sink}（呼叫端可立即寫出，不必累積整份回應）</li>
+     * </ol>
+     *
+     * <p>同一序號重複出現時，只有第一次成功，其餘視為「已經被核銷使用」。
+     * 某一段執行失敗時，該段序號回報系統錯誤，其餘段落照常處理。</p>
+     *
+     * @param contents 序號清單（已通過 {@link #validateBatch}）
+     * @param sink     每段的結果（依輸入順序）
+     */
+    public void redeemBatch(List<String> contents, Consumer<List<SerialBatchRedeemResult>> sink) {
+        Set<String> granted = new HashSet<>();
+        for (int from = 0; from < contents.size(); from += SerialDetailJdbcRepository.MAX_REDEEM_BATCH) {
+            List<String> chunk = contents.subList(from,
+                    Math.min(from + SerialDetailJdbcRepository.MAX_REDEEM_BATCH, contents.size()));
+            sink.accept(redeemChunk(chunk, granted));
+        }
+    }
+
+    private List<SerialBatchRedeemResult> redeemChunk(List<String> chunk, Set<String> granted) {
+        List<String> normalized = new ArrayList<>(chunk.size());
+        Set<String> candidates = new TreeSet<>();
+        for (String c : chunk) {
+            String content = c.trim().toUpperCase();
+            normalized.add(content);
+            if (isNeverIssued(content)) {
+                prefilterRejected.increment();
+            } else {
+                candidates.add(content);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, SerialDetailJdbcRepository.RedeemRow> rows;
+        try {
+            rows = detailJdbcRepo.redeemAll(candidates, now);
+        } catch (Exception e) {
+            log.error("[SerialRedeemService] 批次核銷失敗（{} 筆）: {}", chunk.size(), e.getMessage());
+            List<SerialBatchRedeemResult> failed = new ArrayList<>(normalized.size());
+            for (String content : normalized) {
+                failed.add(SerialBatchRedeemResult.fail(content, "系統發生非預期錯誤，請稍後再試。"));
+            }
+            return failed;
+        }
+        changes.statusChanged(SerialDetail.STATUS_UNUSED, SerialDetail.STATUS_USED,
+                (int) rows.values().stream().filter(SerialDetailJdbcRepository.RedeemRow::redeemed).count());
+
+        List<SerialBatchRedeemResult> results = new ArrayList<>(normalized.size());
+        for (String content : normalized) {
+            SerialDetailJdbcRepository.RedeemRow row = rows.get(content);
+            if (row == null) {
+                results.add(SerialBatchRedeemResult.fail(content, RedeemRules.NOT_FOUND));
+            } else if (row.redeemed() && granted.add(content)) {
+                results.add(SerialBatchRedeemResult.success(content, now.format(FMT)));
+            } else {
+                String reason = row.redeemed() ? null
+                        : RedeemRules.failureReason(row.status(), row.startDate(), row.endDate(), now);
+                results.add(SerialBatchRedeemResult.fail(content, reason != null ? reason : "此序號已經被核銷使用"));
+            }
+        }
+        return results;
+    }
+
+    /** 啟用前置判斷時，任一已重建完成的索引回報不存在，即視為此序號從未發行過 */
+    private boolean isNeverIssued(String content) {
+        if (!prefilterEnabled) return false;
+        for (IssuedCodeIndex index : issuedCodes) {
+            if (index.isReady() && !index.mightContain(content)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+package com.serial.service;
+
+import com.serial.repository.SerialReservoirRepository;
+import com.serial.service.allocator.SerialCodeAllocator;
+import com.serial.service.index.IssuedCodeIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 預先產生序號庫存（Reservoir）服務。
+ *
+ * <p>即使寫入已經改為 Bulk Copy，建立活動時仍需要「配發 + 寫入」整批序號，
+ * 呼叫端的等待時間隨配額成長。此服務在背景預先配發序號放入 {@code serial_reservoir}：</p>
+ * <ul>
+ *   <li>領取：{@code insertSerials} / {@code additionalInsertSerials} 以一個集合式 SQL
+ *       從庫存搬移 N 筆到 {@code serial_detail}，建立延遲幾乎與配額無關</li>
+ *   <li>補貨：定期檢查庫存量，低於低水位（low-water）時補到高水位（high-water），
+ *       每批在獨立交易中完成</li>
+ * </ul>
+ *
+ * <p>庫存中的序號由 {@link SerialCodeAllocator} 配發，已完成排重，領取後不需要再檢查。
+ * 補貨時登記到本機的已發行序號索引；領取時也會再登記一次：庫存可能由其他機器補貨，或本機重啟後才領取，
+ * 只靠同步登記時，剛領取的序號在下一次同步前會被核銷前置判斷誤擋。庫存不足時，不足的部分由呼叫端改走原本的即時配發。</p>
+ *
+ * <p>指標（Micrometer）：</p>
+ * <ul>
+ *   <li>{@code serial.reservoir.size}：目前庫存量（Gauge）</li>
+ *   <li>{@code serial.reservoir.claim}：每次領取的延遲（Timer）</li>
+ *   <li>{@code serial.reservoir.claimed}：累計領取的序號數（Counter）</li>
+ *   <li>{@code serial.reservoir.refilled}：累計補貨的序號數（Counter，取其變化率即為補貨速率）</li>
+ * </ul>
+ *
+ * <p>設定 {@code serial.reservoir.enabled=true} 啟用。</p>
+ */
+@Service
+@ConditionalOnProperty(name = "serial.reservoir.enabled", havingValue = "true")
+public class SerialReservoirService {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialReservoirService.class);
+
+    private final SerialReservoirRepository reservoirRepo;
+    private final SerialCodeAllocator codeAllocator;
+    private final TransactionTemplate transactionTemplate;
+
+    /** 已發行序號索引（點陣圖 / Bloom Filter，未啟用時為空） */
+    private final List<IssuedCodeIndex> issuedCodes;
+
+    /** 低水位：庫存低於此數量時開始補貨 */
+    private final long lowWater;
+
+    /** 高水位：補貨補到此數量為止 */
+    private final long highWater;
+
+    /** 每一批補貨（每個交易）的數量 */
+    private final int refillBatchSize;
+
+    /** 目前庫存量（每次補貨檢查時以 COUNT 校正，領取時即時扣減） */
+    private final AtomicLong size = new AtomicLong();
+
+    private final Timer claimTimer;
+    private final Counter claimedCounter;
+    private final Counter refilledCounter;
+
+    public SerialReservoirService(SerialReservoirRepository reservoirRepo,
+                                  SerialCodeAllocator codeAllocator,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectProvider<IssuedCodeIndex> issuedCodes,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${serial.reservoir.low-water:200000}") long lowWater,
+                                  @Value("${serial.reservoir.high-water:1000000}") long highWater,
+                                  @Value("${serial.reservoir.refill-batch-size:20000}") int refillBatchSize) {
+        if (lowWater > highWater) {
+            throw new IllegalArgumentException("serial.reservoir.low-water 不可大於 high-water");
+        }
+        this.reservoirRepo = reservoirRepo;
+        this.codeAllocator = codeAllocator;
+        this.transactionTemplate = transactionTemplate;
+        this.issuedCodes = issuedCodes.orderedStream().toList();
+        this.lowWater = lowWater;
+        this.highWater = highWater;
+        this.refillBatchSize = refillBatchSize;
+
+        Gauge.builder("serial.reservoir.size", size, AtomicLong::get)
+                .description("預先產生序號的庫存量")
+                .register(meterRegistry);
+        this.claimTimer = Timer.builder("serial.reservoir.claim")
+                .description("從庫存領取序號的延遲")
+                .register(meterRegistry);
+        this.claimedCounter = Counter.builder("serial.reservoir.claimed")
+                .description("累計從庫存領取的序號數")
+                .register(meterRegistry);
+        this.refilledCounter = Counter.builder("serial.reservoir.refilled")
+                .description("累計補入庫存的序號數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 從庫存領取序號，直接寫成指定活動的未核銷序號（在呼叫端的交易中執行），
+     * 並登記到已發行序號索引。
+     *
+     * @return 實際領取的數量；庫存不足時小於 quota，不足部分由呼叫端自行配發
+     */
+    public int claim(int activityId, int quota, String note, LocalDateTime startDate, LocalDateTime endDate) {
+        long begin = System.nanoTime();
+        List<String> claimed = reservoirRepo.claimInto(activityId, quota, note, startDate, endDate);
+        claimTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+        issuedCodes.forEach(index -> index.markAll(claimed));
+        claimedCounter.increment(claimed.size());
+        size.addAndGet(-claimed.size());
+        return claimed.size();
+    }
+
+    /**
+     * 定期補貨：庫存低於低水位時，分批補到高水位。
+     */
+    @Scheduled(fixedDelayString = "${serial.reservoir.refill-interval-ms:2000}")
+    public void refill() {
+        try {
+            long current = reservoirRepo.count();
+            size.set(current);
+            if (current >= lowWater) return;
+
+            long begin = System.currentTimeMillis();
+            long added = 0;
+            while (current < highWater) {
+                int batch = (int) Math.min(refillBatchSize, highWater - current);
+                List<String> codes = codeAllocator.allocate(batch);
+                transactionTemplate.executeWithoutResult(status -> reservoirRepo.fill(codes));
+                issuedCodes.forEach(index -> index.markAll(codes));
+                current += batch;
+                added += batch;
+                size.addAndGet(batch);
+                refilledCounter.increment(batch);
+            }
+            log.info("[SerialReservoirService] 補貨 {} 筆，庫存 {} 筆，耗時 {} ms",
+                    added, current, System.currentTimeMillis() - begin);
+        } catch (Exception e) {
+            log.warn("[SerialReservoirService] 補貨失敗: {}", e.getMessage());
+        }
+    }
+}
@@ -6,7 +6,14 @@ import com.serial.entity.SerialActivity;
 import com.serial.entity.SerialDetail;
 import com.serial.exception.BusinessException;
 import com.serial.repository.SerialActivityRepository;
+import com.serial.repository.SerialDetailBulkWriter;
+import com.serial.repository.SerialDetailJdbcRepository;
 import com.serial.repository.SerialDetailRepository;
+import com.serial.service.allocator.SerialCodeAllocator;
+import com.serial.service.count.SerialDetailChanges;
+import com.serial.service.index.IssuedCodeIndex;
+import com.serial.service.redeem.RedeemRules;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,40 +37,50 @@ import java.util.stream.Collectors;
 @Service
 public class SerialService {
 
-    // 依賴注入：Spring 自動注入這兩個 Repository
+    // 依賴注入：Spring 自動注入 Repository 與序號配發器
     private final SerialActivityRepository activityRepo;  // 活動資料存取
     private final SerialDetailRepository detailRepo;      // 序號資料存取
+    private final SerialDetailBulkWriter bulkWriter;      // 序號大量寫入（Bulk Copy）
+    private final SerialDetailJdbcRepository detailJdbcRepo; // 序號集合式 SQL（批次註銷）
+    private final SerialCodeAllocator codeAllocator;      // 序號配發器（依 serial.allocator.type 決定實作）
+    private final List<IssuedCodeIndex> issuedCodes;      // 已發行序號索引（點陣圖 / Bloom Filter，未啟用時為空）
+    private final SerialReservoirService reservoir;       // 預先產生序號庫存（未啟用時為 null）
+    private final SerialDetailChanges changes;            // 寫入通知（後台總筆數快取失效）
     
     // 日期時間格式化工具：統一格式為 "yyyy-MM-dd HH:mm:ss"
     private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public SerialService(SerialActivityRepository activityRepo, SerialDetailRepository detailRepo) {
+    public SerialService(SerialActivityRepository activityRepo, SerialDetailRepository detailRepo,
+                         SerialDetailBulkWriter bulkWriter, SerialDetailJdbcRepository detailJdbcRepo,
+                         SerialCodeAllocator codeAllocator,
+                         ObjectProvider<IssuedCodeIndex> issuedCodes,
+                         ObjectProvider<SerialReservoirService> reservoir,
+                         SerialDetailChanges changes) {
         this.activityRepo = activityRepo;
         this.detailRepo = detailRepo;
+        this.bulkWriter = bulkWriter;
+        this.detailJdbcRepo = detailJdbcRepo;
+        this.codeAllocator = codeAllocator;
+        this.issuedCodes = issuedCodes.orderedStream().toList();
+        this.reservoir = reservoir.getIfAvailable();
+        this.changes = changes;
     }
 
     /**
      * 建立新活動並批次產生序號。
      *
      * <p>{@code @Transactional}：整個方法在同一個資料庫交易中執行，
-     * 任何例外都會自動 rollback，確保資料一致性。</p>
+     * 任何例外都會自動 rollback，確保資料一致性。呼叫端須經由
+     * {@link SerialCodeAllocator#limitConcurrency} 呼叫（見 {@code SerialController}）。</p>
      *
      * @param req 請求參數（活動名稱、唯一 ID、有效期間、產生數量）
      * @return 活動 ID 與實際產生序號數量
      */
     @Transactional
     public SerialInsertResponseData insertSerials(SerialInsertRequest req) {
-        // 驗證：唯一 ID 不能重複、日期邏輯正確
-        validateInsert(req);
-
-        // 建立活動主表記錄
-        SerialActivity activity = new SerialActivity();
-        activity.setActivityName(req.getActivityName());
-        activity.setActivityUniqueId(req.getActivityUniqueId());
-        activity.setStartDate(req.getStartDate());
-        activity.setEndDate(req.getEndDate());
-        activity.setQuota(req.getQuota());
-        activity = activityRepo.save(activity);
+        // 驗證並建立活動主表記錄
+        SerialActivity activity = createActivity(req.getActivityName(), req.getActivityUniqueId(),
+                req.getStartDate(), req.getEndDate(), req.getQuota());
 
         // 產生指定數量的不重複序號並儲存
         int generated = generateAndSave(activity, req.getStartDate(), req.getEndDate(), req.getQuota(), null);
@@ -80,22 +97,56 @@ public class SerialService {
      */
     @Transactional
     public SerialInsertResponseData additionalInsertSerials(SerialAdditionalInsertRequest req) {
+        // 驗證並更新活動的有效期間與累積配額
+        SerialActivity activity = extendActivity(req.getActivityUniqueId(), req.getStartDate(), req.getEndDate(), req.getQuota());
+
+        // 產生新序號並附上追加備註
+        int generated = generateAndSave(activity, req.getStartDate(), req.getEndDate(), req.getQuota(), req.getNote());
+        return new SerialInsertResponseData(activity.getId(), generated);
+    }
+
+    /**
+     * 驗證並建立新活動（不產生序號）。
+     *
+     * <p>同步新增（{@link #insertSerials}）與非同步產生工作（{@link SerialGenerationJobService}）共用，
+     * 需在呼叫端的交易中執行。</p>
+     *
+     * @return 已儲存的活動
+     */
+    SerialActivity createActivity(String activityName, String activityUniqueId,
+                                  LocalDateTime startDate, LocalDateTime endDate, int quota) {
+        // 驗證：唯一 ID 不能重複、日期邏輯正確
+        validateInsert(activityUniqueId, startDate, endDate);
+
+        SerialActivity activity = new SerialActivity();
+        activity.setActivityName(activityName);
+        activity.setActivityUniqueId(activityUniqueId);
+        activity.setStartDate(startDate);
+        activity.setEndDate(endDate);
+        activity.setQuota(quota);
+        return activityRepo.save(activity);
+    }
+
+    /**
+     * 驗證並更新既有活動的有效期間，累加配額（不產生序號）。
+     *
+     * <p>同步追加（{@link #additionalInsertSerials}）與非同步產生工作共用，需在呼叫端的交易中執行。</p>
+     *
+     * @return 已更新的活動
+     */
+    SerialActivity extendActivity(String activityUniqueId, LocalDateTime startDate, LocalDateTime endDate, int quota) {
         // 驗證：活動必須已存在、日期邏輯正確
-        validateAdditionalInsert(req);
+        validateAdditionalInsert(activityUniqueId, startDate, endDate);
 
         // 查詢現有活動（不存在則拋出業務例外）
-        SerialActivity activity = activityRepo.findByActivityUniqueId(req.getActivityUniqueId())
+        SerialActivity activity = activityRepo.findByActivityUniqueId(activityUniqueId)
                 .orElseThrow(() -> new BusinessException("所選擇的 活動唯一 ID 無效（該活動不存在）。"));
 
         // 更新活動的有效期間與累積配額（原有配額 + 追加數量）
-        activity.setStartDate(req.getStartDate());
-        activity.setEndDate(req.getEndDate());
-        activity.setQuota(activity.getQuota() + req.getQuota());
-        activityRepo.save(activity);
-
-        // 產生新序號並附上追加備註
-        int generated = generateAndSave(activity, req.getStartDate(), req.getEndDate(), req.getQuota(), req.getNote());
-        return new SerialInsertResponseData(activity.getId(), generated);
+        activity.setStartDate(startDate);
+        activity.setEndDate(endDate);
+        activity.setQuota(activity.getQuota() + quota);
+        return activityRepo.save(activity);
     }
 
     /**
@@ -114,23 +165,13 @@ public class SerialService {
 
         // 查詢序號並加悲觀寫鎖，防止並發核銷同一序號
         SerialDetail serial = detailRepo.findByContentWithLock(content)
-                .orElseThrow(() -> new BusinessException("此序號不存在"));
+                .orElseThrow(() -> new BusinessException(RedeemRules.NOT_FOUND));
 
-        // 驗證序號狀態
-        if (serial.getStatus() == SerialDetail.STATUS_USED) {
-            throw new BusinessException("此序號已經被核銷使用");
-        }
-        if (serial.getStatus() == SerialDetail.STATUS_CANCELLED) {
-            throw new BusinessException("此序號已被註銷，無法核銷");
-        }
-
-        // 驗證有效期間
+        // 驗證序號狀態與有效期間（規則與其他核銷策略共用）
         LocalDateTime now = LocalDateTime.now();
-        if (now.isBefore(serial.getStartDate())) {
-            throw new BusinessException("此序號尚未生效");
-        }
-        if (now.isAfter(serial.getEndDate())) {
-            throw new BusinessException("此序號已過期");
+        String reason = RedeemRules.failureReason(serial.getStatus(), serial.getStartDate(), serial.getEndDate(), now);
+        if (reason != null) {
+            throw new BusinessException(reason);
         }
 
         // 更新狀態為已核銷
@@ -160,45 +201,34 @@ public class SerialService {
                 .map(c -> c.trim().toUpperCase())
                 .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        // 批次查詢並加悲觀寫鎖
-        List<SerialDetail> serials = detailRepo.findByContentInWithLock(contentSet);
-        // 轉為 Map 方便 O(1) 查找
-        Map<String, SerialDetail> serialMap = serials.stream()
-                .collect(Collectors.toMap(SerialDetail::getContent, s -> s));
-
         LocalDateTime now = LocalDateTime.now();
         List<String> successList = new ArrayList<>();  // 成功註銷的序號
         List<String> failList = new ArrayList<>();       // 失敗的序號（含原因）
 
-        // 逐一判斷每個序號是否可以註銷
-        for (String content : contentSet) {
-            SerialDetail serial = serialMap.get(content);
-            if (serial == null) {
-                failList.add(content + " (此序號不存在)");
-                continue;
-            }
-            if (serial.getStatus() == SerialDetail.STATUS_CANCELLED) {
-                failList.add(content + " (此序號已被註銷，請勿重複註銷)");
-                continue;
-            }
-            if (serial.getStatus() == SerialDetail.STATUS_USED) {
-                failList.add(content + " (此序號已被核銷，無法再註銷)");
-                continue;
+        // 每段最多 MAX_REDEEM_BATCH 筆，以一個集合式 UPDATE 註銷所有未核銷的序號，
+        // 同一段的結果列同時帶回其餘序號的狀態，用來分類失敗原因（全部在同一個交易中）
+        List<String> contents = new ArrayList<>(contentSet);
+        for (int from = 0; from < contents.size(); from += SerialDetailJdbcRepository.MAX_REDEEM_BATCH) {
+            List<String> chunk = contents.subList(from,
+                    Math.min(from + SerialDetailJdbcRepository.MAX_REDEEM_BATCH, contents.size()));
+            Map<String, SerialDetailJdbcRepository.CancelRow> rows = detailJdbcRepo.cancelAll(chunk, req.getNote(), now);
+
+            // 依輸入順序逐一分類
+            for (String content : chunk) {
+                SerialDetailJdbcRepository.CancelRow row = rows.get(content);
+                if (row == null) {
+                    failList.add(content + " (此序號不存在)");
+                } else if (row.cancelled()) {
+                    successList.add(content);
+                } else if (row.status() == SerialDetail.STATUS_CANCELLED) {
+                    failList.add(content + " (此序號已被註銷，請勿重複註銷)");
+                } else {
+                    failList.add(content + " (此序號已被核銷，無法再註銷)");
+                }
             }
-            // 可以註銷：更新狀態、備註、時間
-            serial.setStatus(SerialDetail.STATUS_CANCELLED);
-            serial.setNote(req.getNote());
-            serial.setUpdatedAt(now);
-            successList.add(content);
         }
 
-        // 批次儲存所有成功註銷的序號
-        if (!successList.isEmpty()) {
-            List<SerialDetail> toUpdate = serials.stream()
-                    .filter(s -> successList.contains(s.getContent()))
-                    .collect(Collectors.toList());
-            detailRepo.saveAll(toUpdate);
-        }
+        changes.statusChanged(SerialDetail.STATUS_UNUSED, SerialDetail.STATUS_CANCELLED, successList.size());
 
         // 決定整體結果訊息
         String message = failList.isEmpty() ? "全部註銷成功"
@@ -215,13 +245,13 @@ public class SerialService {
      * 驗證新增活動請求。
      * 檢查：活動唯一 ID 是否已存在、日期邏輯是否合理。
      */
-    private void validateInsert(SerialInsertRequest req) {
+    private void validateInsert(String activityUniqueId, LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, List<String>> errors = new LinkedHashMap<>();
-        if (activityRepo.existsByActivityUniqueId(req.getActivityUniqueId())) {
+        if (activityRepo.existsByActivityUniqueId(activityUniqueId)) {
             errors.computeIfAbsent("activity_unique_id", k -> new ArrayList<>())
                     .add("活動唯一 ID 已存在，請勿重複新增。");
         }
-        validateDates(req.getStartDate(), req.getEndDate(), errors);
+        validateDates(startDate, endDate, errors);
         throwIfErrors(errors);
     }
 
@@ -229,13 +259,13 @@ public class SerialService {
      * 驗證追加序號請求。
      * 檢查：活動唯一 ID 必須存在、日期邏輯是否合理。
      */
-    private void validateAdditionalInsert(SerialAdditionalInsertRequest req) {
+    private void validateAdditionalInsert(String activityUniqueId, LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, List<String>> errors = new LinkedHashMap<>();
-        if (!activityRepo.existsByActivityUniqueId(req.getActivityUniqueId())) {
+        if (!activityRepo.existsByActivityUniqueId(activityUniqueId)) {
             errors.computeIfAbsent("activity_unique_id", k -> new ArrayList<>())
                     .add("所選擇的 活動唯一 ID 無效（該活動不存在）。");
         }
-        validateDates(req.getStartDate(), req.getEndDate(), errors);
+        validateDates(startDate, endDate, errors);
         throwIfErrors(errors);
     }
 
@@ -274,17 +304,17 @@ public class SerialService {
     }
 
     /**
-     * 隨機產生不重複序號並批次儲存。
+     * 配發不重複序號並批次儲存。
      *
      * <p>序號格式：1 個大寫英文字母 + 7 位數字，例如 {@code A0001234}。</p>
      *
-     * <p>產生流程：</p>
-     * <ol>
-     *   <li>先產生目標數量的候選序號（可能含重複）</li>
-     *   <li>查詢資料庫中已存在的序號並從候選集排除</li>
-     *   <li>不足時繼續補充，直到數量達標</li>
-     *   <li>批次寫入資料庫</li>
-     * </ol>
+     * <p>序號如何產生、如何保證不重複，交由 {@link SerialCodeAllocator} 負責
+     * （預設為隨機產生 + 資料庫排重；可切換為計數器 + 金鑰置換，免查詢即保證唯一）。</p>
+     *
+     * <p>寫入交由 {@link SerialDetailBulkWriter}：{@code IDENTITY} 主鍵讓 Hibernate 無法批次 INSERT，
+     * 改以 Bulk Copy 一次送出，且使用同一條交易連線。</p>
+     *
+     * <p>啟用序號庫存（{@link SerialReservoirService}）時，先從庫存領取，不足的部分才即時配發。</p>
      *
      * @param activity  所屬活動
      * @param startDate 序號生效日
@@ -293,46 +323,28 @@ public class SerialService {
      * @param note      備註（追加時填入原因，初次建立為 null）
      * @return 實際產生並儲存的序號數量
      */
-    private int generateAndSave(SerialActivity activity, LocalDateTime startDate, LocalDateTime endDate, int quota, String note) {
-        final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        Random random = new Random();
-        Set<String> candidates = new LinkedHashSet<>();  // 使用 LinkedHashSet 保持順序並自動去重
-
-        // 第一輪：產生候選序號
-        while (candidates.size() < quota) {
-            char letter = LETTERS.charAt(random.nextInt(26));
-            String digits = String.format("%07d", random.nextInt(10_000_000));
-            candidates.add(letter + digits);
+    int generateAndSave(SerialActivity activity, LocalDateTime startDate, LocalDateTime endDate, int quota, String note) {
+        // 優先從預先產生的庫存領取（一個集合式 SQL 完成搬移），不足的部分才即時配發
+        int claimed = 0;
+        if (reservoir != null) {
+            claimed = reservoir.claim(activity.getId(), quota, note, startDate, endDate);
+            if (claimed == quota) {
+                changes.inserted(claimed);
+                return claimed;
+            }
         }
 
-        // 查詢資料庫中已存在的序號，避免重複
-        Set<String> existing = detailRepo.findExistingContents(candidates);
-        candidates.removeAll(existing);
+        List<String> candidates = codeAllocator.allocate(quota - claimed);
 
-        // 第二輪：若有碰撞（序號已存在），補充缺少的數量
-        while (candidates.size() < quota) {
-            char letter = LETTERS.charAt(random.nextInt(26));
-            String digits = String.format("%07d", random.nextInt(10_000_000));
-            String c = letter + digits;
-            if (!existing.contains(c)) candidates.add(c);
-        }
+        // 以 Bulk Copy（或多列 INSERT）一次寫入，與目前交易一起 commit / rollback
+        int written = bulkWriter.write(activity.getId(), candidates, note, startDate, endDate);
 
-        // 建立 SerialDetail 實體清單並批次儲存
-        List<SerialDetail> details = new ArrayList<>();
-        for (String content : candidates) {
-            if (details.size() >= quota) break;
-            SerialDetail detail = new SerialDetail();
-            detail.setSerialActivity(activity);
-            detail.setContent(content);
-            detail.setStatus(SerialDetail.STATUS_UNUSED);  // 初始狀態：未核銷
-            detail.setNote(note);
-            detail.setStartDate(startDate);
-            detail.setEndDate(endDate);
-            details.add(detail);
+        // 同步登記到已發行序號索引（隨機配發器已在點陣圖中佔用，重複標記無副作用）
+        for (IssuedCodeIndex index : issuedCodes) {
+            index.markAll(candidates);
         }
-
-        detailRepo.saveAll(details);
-        return details.size();
+        changes.inserted(claimed + written);
+        return claimed + written;
     }
 
     /**
@@ -0,0 +1,316 @@
+package com.serial.service;
+
+import com.serial.dto.request.SerialCancelJobRequest;
+import com.serial.dto.response.SerialStatusJobResponseData;
+import com.serial.entity.SerialActivity;
+import com.serial.entity.SerialDetail;
+import com.serial.entity.SerialStatusJob;
+import com.serial.exception.BusinessException;
+import com.serial.repository.SerialActivityRepository;
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.repository.SerialStatusJobRepository;
+import com.serial.service.count.SerialDetailChanges;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 大量序號狀態變更工作服務（依活動或發行時間區間註銷所有未使用序號）。
+ *
+ * <p>{@code /api/serials_cancel} 需要列出每一個序號；活動下架時要註銷整個活動的數十萬筆序號，
+ * 改用此服務：</p>
+ * <ol>
+ *   <li>提交：驗證條件、記下目前 {@code serial_detail} 的最大主鍵作為範圍上界，立即回傳工作 ID</li>
+ *   <li>執行：背景虛擬執行緒依主鍵範圍分段，每段以一個 {@code UPDATE ... WITH (ROWLOCK)}
+ *       更新最多 {@code batch-size} 筆（見 {@link SerialDetailJdbcRepository#cancelRange}），
+ *       與進度一起 commit；段落之間暫停 {@code pause-ms}，讓出連線與鎖給線上核銷</li>
+ *   <li>查詢：以工作 ID 查詢進度與最終筆數</li>
+ *   <li>接續：應用程式重啟後，自動從最後一個已 commit 的段落接續</li>
+ * </ol>
+ *
+ * <p>每段列數低於 SQL Server 的鎖定擴大門檻，不會升級成資料表鎖；
+ * 執行期間被核銷的序號不會被註銷。單一段落失敗會重試（最多 {@value #MAX_ATTEMPTS} 次），
+ * 用盡後工作標記為失敗，已 commit 的段落保留。</p>
+ */
+@Service
+public class SerialStatusJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialStatusJobService.class);
+
+    /** 單一段落的最大嘗試次數 */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * 每段列數上限：SQL Server 單一敘述在同一個索引上取得約 5000 個鎖時會擴大為資料表鎖。
+     * 每更新一列，叢集索引加一個鍵鎖；{@code status} 與 {@code row_version} 改變，
+     * {@code IX_serial_detail_status}、{@code IX_serial_detail_row_version} 各刪除舊鍵、插入新鍵（各兩個鎖）。
+     * 2000 列時單一索引約 4000 個鎖，保留餘裕。
+     */
+    private static final int MAX_BATCH_SIZE = 2000;
+
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SerialStatusJobRepository jobRepo;
+    private final SerialActivityRepository activityRepo;
+    private final SerialDetailJdbcRepository detailJdbcRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final SerialDetailChanges changes;
+
+    /** 每一段（每個交易）最多更新的序號數量 */
+    private final int batchSize;
+
+    /** 段落之間的暫停時間（毫秒） */
+    private final long pauseMs;
+
+    /** 目前在本機執行中的工作 ID，避免同一工作被重複排程 */
+    private final Set<Integer> activeJobs = ConcurrentHashMap.newKeySet();
+
+    /** 應用程式關閉中：執行中的工作在目前段落結束後停止，下次啟動再接續 */
+    private volatile boolean stopping = false;
+
+    public SerialStatusJobService(SerialStatusJobRepository jobRepo,
+                                  SerialActivityRepository activityRepo,
+                                  SerialDetailJdbcRepository detailJdbcRepo,
+                                  TransactionTemplate transactionTemplate,
+                                  @Qualifier("serialJobExecutor") ExecutorService executor,
+                                  SerialDetailChanges changes,
+                                  @Value("${serial.status-job.batch-size:2000}") int batchSize,
+                                  @Value("${serial.status-job.pause-ms:50}") long pauseMs) {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("serial.status-job.batch-size 必須介於 1 與 " + MAX_BATCH_SIZE + " 之間");
+        }
+        this.jobRepo = jobRepo;
+        this.activityRepo = activityRepo;
+        this.detailJdbcRepo = detailJdbcRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.changes = changes;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+    }
+
+    /**
+     * 提交「註銷符合條件的未使用序號」工作。
+     *
+     * @param req 請求參數（活動唯一 ID、發行時間區間、備註）
+     * @return 剛建立的工作狀態
+     */
+    public SerialStatusJobResponseData submitCancel(SerialCancelJobRequest req) {
+        SerialActivity activity = validateCancel(req);
+
+        SerialStatusJob job = new SerialStatusJob();
+        job.setJobType(SerialStatusJob.TYPE_CANCEL);
+        job.setSerialActivity(activity);
+        job.setCreatedFrom(req.getCreatedFrom());
+        job.setCreatedTo(req.getCreatedTo());
+        job.setNote(req.getNote());
+        job.setBatchSize(batchSize);
+        job.setMaxId(detailJdbcRepo.maxId());
+        job.setLastId(0);
+        job.setAffected(0);
+        job.setStatus(SerialStatusJob.STATUS_PENDING);
+        job.setUpdatedAt(LocalDateTime.now());
+        job = jobRepo.save(job);
+
+        schedule(job.getId());
+        return toResponse(job);
+    }
+
+    /**
+     * 查詢工作進度。
+     *
+     * @param jobId 工作 ID
+     * @return 工作狀態
+     */
+    public SerialStatusJobResponseData getJob(int jobId) {
+        SerialStatusJob job = jobRepo.findById(jobId)
+                .orElseThrow(() -> new BusinessException("此工作不存在"));
+        return toResponse(job);
+    }
+
+    /**
+     * 應用程式就緒後，接續所有尚未完成的工作（上次關機或當機時中斷的工作）。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<Integer> jobIds = jobRepo.findIdsByStatusIn(
+                List.of(SerialStatusJob.STATUS_PENDING, SerialStatusJob.STATUS_RUNNING));
+        if (!jobIds.isEmpty()) {
+            log.info("[SerialStatusJobService] 接續 {} 個未完成的工作: {}", jobIds.size(), jobIds);
+        }
+        jobIds.forEach(this::schedule);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    /**
+     * 驗證註銷條件：至少一項條件、活動必須存在、時間區間合理。
+     *
+     * @return 篩選的活動（未指定活動時為 null）
+     */
+    private SerialActivity validateCancel(SerialCancelJobRequest req) {
+        Map<String, Object> errors = new LinkedHashMap<>();
+        SerialActivity activity = null;
+        boolean hasActivity = req.getActivityUniqueId() != null && !req.getActivityUniqueId().isBlank();
+
+        if (!hasActivity && req.getCreatedFrom() == null && req.getCreatedTo() == null) {
+            errors.put("activity_unique_id", List.of("活動唯一 ID 與 發行時間區間 至少需提供一項。"));
+        } else if (hasActivity) {
+            activity = activityRepo.findByActivityUniqueId(req.getActivityUniqueId()).orElse(null);
+            if (activity == null) {
+                errors.put("activity_unique_id", List.of("所選擇的 活動唯一 ID 無效（該活動不存在）。"));
+            }
+        }
+        if (req.getCreatedFrom() != null && req.getCreatedTo() != null
+                && !req.getCreatedTo().isAfter(req.getCreatedFrom())) {
+            errors.put("created_to", List.of("發行時間上限 必須晚於 發行時間下限。"));
+        }
+        if (!errors.isEmpty()) {
+            throw new SerialService.ValidationException(errors);
+        }
+        return activity;
+    }
+
+    /** 排入背景執行（同一工作在本機只會有一條執行緒） */
+    private void schedule(int jobId) {
+        if (activeJobs.add(jobId)) {
+            executor.execute(() -> run(jobId));
+        }
+    }
+
+    /** 逐段執行工作，直到完成、失敗或應用程式關閉；段落之間暫停以節流 */
+    private void run(int jobId) {
+        int failures = 0;
+        try {
+            while (!stopping) {
+                try {
+                    Boolean hasMore = transactionTemplate.execute(status -> runBatch(jobId));
+                    failures = 0;
+                    if (!Boolean.TRUE.equals(hasMore)) return;
+                    if (pauseMs > 0) Thread.sleep(pauseMs);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failures++;
+                    log.warn("[SerialStatusJobService] 工作 {} 段落失敗（第 {} 次）: {}", jobId, failures, e.getMessage());
+                    if (failures >= MAX_ATTEMPTS) {
+                        markFailed(jobId, e.getMessage());
+                        return;
+                    }
+                    Thread.sleep(1000L * failures);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * 執行一個段落（在呼叫端的交易中）：鎖定工作列 → 更新下一段主鍵範圍 → 推進進度。
+     *
+     * @return true 表示範圍內還有剩餘序號需要處理
+     */
+    private boolean runBatch(int jobId) {
+        SerialStatusJob job = jobRepo.findByIdWithLock(jobId).orElse(null);
+        if (job == null
+                || job.getStatus() == SerialStatusJob.STATUS_COMPLETED
+                || job.getStatus() == SerialStatusJob.STATUS_FAILED) {
+            return false;
+        }
+
+        SerialDetailJdbcRepository.UnusedFilter filter = new SerialDetailJdbcRepository.UnusedFilter(
+                job.getSerialActivity() != null ? job.getSerialActivity().getId() : null,
+                job.getCreatedFrom(), job.getCreatedTo());
+
+        // 第一段開始前先估計總數，作為進度的分母
+        if (job.getTotal() == null) {
+            job.setTotal(detailJdbcRepo.countUnused(filter, job.getMaxId()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SerialDetailJdbcRepository.RangeResult result = detailJdbcRepo.cancelRange(
+                filter, job.getLastId(), job.getMaxId(), job.getBatchSize(), job.getNote(), now);
+        boolean hasMore = result.upperId() != null;
+        changes.statusChanged(SerialDetail.STATUS_UNUSED, SerialDetail.STATUS_CANCELLED, result.affected());
+        if (hasMore) {
+            job.setLastId(result.upperId());
+            job.setAffected(job.getAffected() + result.affected());
+        }
+
+        job.setStatus(hasMore ? SerialStatusJob.STATUS_RUNNING : SerialStatusJob.STATUS_COMPLETED);
+        job.setUpdatedAt(now);
+        if (!hasMore) {
+            job.setFinishedAt(now);
+            log.info("[SerialStatusJobService] 工作 {} 完成：註銷 {} 筆（開始時符合條件 {} 筆）",
+                    jobId, job.getAffected(), job.getTotal());
+        }
+        jobRepo.save(job);
+        return hasMore;
+    }
+
+    /** 在獨立交易中將工作標記為失敗 */
+    private void markFailed(int jobId, String message) {
+        transactionTemplate.executeWithoutResult(status -> jobRepo.findByIdWithLock(jobId).ifPresent(job -> {
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(SerialStatusJob.STATUS_FAILED);
+            job.setErrorMessage(message != null && message.length() > 1000 ? message.substring(0, 1000) : message);
+            job.setUpdatedAt(now);
+            job.setFinishedAt(now);
+            jobRepo.save(job);
+        }));
+    }
+
+    private SerialStatusJobResponseData toResponse(SerialStatusJob job) {
+        Double progress;
+        if (job.getStatus() == SerialStatusJob.STATUS_COMPLETED) {
+            progress = 100.0;
+        } else if (job.getTotal() == null) {
+            progress = 0.0;
+        } else {
+            progress = job.getTotal() == 0 ? 100.0
+                    : Math.min(100.0, Math.round(job.getAffected() * 1000.0 / job.getTotal()) / 10.0);
+        }
+        return new SerialStatusJobResponseData(
+                job.getId(),
+                job.getJobType(),
+                job.getSerialActivity() != null ? job.getSerialActivity().getId() : null,
+                statusText(job.getStatus()),
+                job.getTotal(),
+                job.getAffected(),
+                progress,
+                job.getErrorMessage(),
+                job.getCreatedAt() != null ? job.getCreatedAt().format(FMT) : null,
+                job.getFinishedAt() != null ? job.getFinishedAt().format(FMT) : null);
+    }
+
+    private String statusText(int status) {
+        return switch (status) {
+            case SerialStatusJob.STATUS_PENDING -> "pending";
+            case SerialStatusJob.STATUS_RUNNING -> "running";
+            case SerialStatusJob.STATUS_COMPLETED -> "completed";
+            case SerialStatusJob.STATUS_FAILED -> "failed";
+            default -> "unknown";
+        };
+    }
+}
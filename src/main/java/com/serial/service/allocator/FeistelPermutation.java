@@ -0,0 +1,132 @@
+package com.serial.service.allocator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 以金鑰控制的格式保留置換（Format-Preserving Permutation）。
+ *
+ * <p>將 {@code [0, domain)} 內的整數一對一打散到同一個範圍內：
+ * 相同金鑰下，不同輸入必定得到不同輸出，且可由 {@link #decrypt(long)} 還原。</p>
+ *
+ * <p>實作方式：</p>
+ * <ol>
+ *   <li>取最小的偶數位元數 {@code 2h}，使 {@code 2^(2h) >= domain}</li>
+ *   <li>在 {@code 2h} 位元上執行平衡 Feistel 網路（左右各 {@code h} 位元，{@value #ROUNDS} 輪），
+ *       Feistel 結構本身保證是雙射</li>
+ *   <li>以 Cycle-Walking 處理超出 domain 的值：結果 {@code >= domain} 時繼續加密，
+ *       直到落回範圍內。因 {@code 2^(2h) < 4 × domain}，平均只需走少量幾步</li>
+ * </ol>
+ *
+ * <p>此類別不可變且執行緒安全。</p>
+ */
+public final class FeistelPermutation {
+
+    /** Feistel 輪數（4 輪即具備偽隨機置換性質，取 8 輪提高擴散程度） */
+    static final int ROUNDS = 8;
+
+    private final long domain;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    /**
+     * @param domain 置換範圍大小（例如 {@link SerialCodes#KEYSPACE}）
+     * @param key    金鑰字串；同一個金鑰必須永久固定，否則已發行的序號位置會失去意義
+     */
+    public FeistelPermutation(long domain, String key) {
+        if (domain < 4) throw new IllegalArgumentException("domain 太小: " + domain);
+        if (key == null || key.isBlank()) throw new IllegalArgumentException("置換金鑰不可為空");
+        this.domain = domain;
+
+        int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+        if ((bits & 1) == 1) bits++;
+        this.halfBits = bits / 2;
+        this.halfMask = (1L << halfBits) - 1;
+
+        // 由金鑰以 SHA-256 衍生出每一輪的子金鑰（兩次雜湊共 64 bytes = 8 個 long）
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] first = sha.digest(key.getBytes(StandardCharsets.UTF_8));
+            byte[] second = sha.digest(first);
+            ByteBuffer buf = ByteBuffer.allocate(64).put(first).put(second).flip();
+            for (int i = 0; i < ROUNDS; i++) {
+                roundKeys[i] = buf.getLong();
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+
+    /** 置換範圍大小 */
+    public long domain() {
+        return domain;
+    }
+
+    /**
+     * 將位置 {@code x} 置換為新的位置。
+     *
+     * @param x 0 ～ domain - 1
+     * @return 置換後的值（同樣落在 0 ～ domain - 1）
+     */
+    public long encrypt(long x) {
+        checkRange(x);
+        do {
+            x = encryptBlock(x);
+        } while (x >= domain);
+        return x;
+    }
+
+    /**
+     * {@link #encrypt(long)} 的反函數。
+     *
+     * @param y 0 ～ domain - 1
+     * @return 原始位置
+     */
+    public long decrypt(long y) {
+        checkRange(y);
+        do {
+            y = decryptBlock(y);
+        } while (y >= domain);
+        return y;
+    }
+
+    private long encryptBlock(long x) {
+        long left = (x >>> halfBits) & halfMask;
+        long right = x & halfMask;
+        for (int i = 0; i < ROUNDS; i++) {
+            long next = left ^ round(roundKeys[i], right);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long decryptBlock(long y) {
+        long left = (y >>> halfBits) & halfMask;
+        long right = y & halfMask;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            long prev = right ^ round(roundKeys[i], left);
+            right = left;
+            left = prev;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /** Feistel 輪函數：以 SplitMix64 的混合步驟將子金鑰與半區塊攪拌後取低位元 */
+    private long round(long roundKey, long half) {
+        long z = roundKey ^ (half * 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return z & halfMask;
+    }
+
+    private void checkRange(long v) {
+        if (v < 0 || v >= domain) {
+            throw new IllegalArgumentException("值超出置換範圍: " + v);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.serial.service.allocator;
+
+import com.serial.entity.SerialAllocatorSkip;
+import com.serial.repository.SerialAllocatorSkipRepository;
+import com.serial.repository.SerialDetailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 置換配發器遷移程序：把既有序號登記為「略過位置」。
+ *
+ * <p>啟動時（{@code serial.allocator.migrate-on-startup=true}）以主鍵 keyset 分批讀取
+ * {@code serial_detail.content}，將每個序號反解為計數器位置，寫入 {@code serial_allocator_skip}。
+ * 每批在獨立交易中完成；已登記過的位置會被略過，因此中斷後可以安全地重新執行。</p>
+ *
+ * <p>建議流程：停止發行 → 設定 {@code serial.allocator.type=permutation} 與
+ * {@code migrate-on-startup=true} 啟動一次 → 完成後將 {@code migrate-on-startup} 改回 false。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.allocator.migrate-on-startup", havingValue = "true")
+public class PermutationAllocatorMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PermutationAllocatorMigration.class);
+
+    /** 每批讀取的序號數量（同時也是 IN 查詢的參數個數，需低於 SQL Server 的 2100 上限） */
+    private static final int BATCH_SIZE = 1000;
+
+    private final SerialDetailRepository detailRepo;
+    private final SerialAllocatorSkipRepository skipRepo;
+    private final PermutationSerialCodeAllocator allocator;
+    private final TransactionTemplate transactionTemplate;
+
+    public PermutationAllocatorMigration(SerialDetailRepository detailRepo,
+                                         SerialAllocatorSkipRepository skipRepo,
+                                         PermutationSerialCodeAllocator allocator,
+                                         TransactionTemplate transactionTemplate) {
+        this.detailRepo = detailRepo;
+        this.skipRepo = skipRepo;
+        this.allocator = allocator;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("[PermutationAllocatorMigration] 開始登記既有序號的略過位置");
+        int afterId = 0;
+        long scanned = 0;
+        long registered = 0;
+
+        while (true) {
+            List<SerialDetailRepository.IdContent> batch =
+                    detailRepo.findIdContentAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) break;
+
+            List<Long> positions = new ArrayList<>(batch.size());
+            for (SerialDetailRepository.IdContent row : batch) {
+                long position = allocator.positionOf(row.getContent());
+                if (position >= 0) positions.add(position);
+            }
+            Integer inserted = transactionTemplate.execute(status -> register(positions));
+
+            scanned += batch.size();
+            registered += inserted == null ? 0 : inserted;
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+
+        log.info("[PermutationAllocatorMigration] 完成：掃描 {} 筆序號，新登記 {} 個略過位置", scanned, registered);
+    }
+
+    /** 寫入尚未登記的位置，回傳新寫入的數量 */
+    private int register(List<Long> positions) {
+        if (positions.isEmpty()) return 0;
+        Set<Long> existing = skipRepo.findExistingPositions(positions);
+        List<SerialAllocatorSkip> toInsert = new ArrayList<>();
+        for (Long position : positions) {
+            if (!existing.contains(position)) toInsert.add(new SerialAllocatorSkip(position));
+        }
+        skipRepo.saveAll(toInsert);
+        return toInsert.size();
+    }
+}
@@ -0,0 +1,110 @@
+package com.serial.service.allocator;
+
+import com.serial.exception.BusinessException;
+import com.serial.repository.SerialAllocatorSkipRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 計數器 + 金鑰置換的序號配發器。
+ *
+ * <p>做法：從持久化計數器 {@code serial_sequence} 預留一段連續位置
+ * {@code [start, start + n)}，每個位置經過 {@link FeistelPermutation} 置換後
+ * 轉為序號。置換是一對一的，計數器只增不減，因此配發出的序號
+ * <b>由構造保證不重複</b>，完全不需要查詢 {@code serial_detail} 做存在性檢查；
+ * 外觀上仍然是不可預測的隨機序號。</p>
+ *
+ * <p>從隨機配發切換過來時，需先執行一次遷移
+ * （{@code serial.allocator.migrate-on-startup=true}，見 {@link PermutationAllocatorMigration}），
+ * 將舊序號對應的位置登記到 {@code serial_allocator_skip}，配發時以範圍查詢略過。</p>
+ *
+ * <p>預留在獨立交易中進行，交易中配發的呼叫端會同時佔用兩條連線；
+ * 同時執行的呼叫端由 {@link #limitConcurrency} 限制在連線池大小以下。</p>
+ *
+ * <p>設定：</p>
+ * <ul>
+ *   <li>{@code serial.allocator.type=permutation}：啟用此配發器</li>
+ *   <li>{@code serial.allocator.key}：置換金鑰，<b>一經使用不可更改</b></li>
+ *   <li>{@code serial.allocator.max-concurrent}：同時在交易中配發的呼叫端上限（至多連線池大小 - 1）</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.allocator.type", havingValue = "permutation")
+public class PermutationSerialCodeAllocator implements SerialCodeAllocator {
+
+    /** 序號位置計數器的名稱（對應 serial_sequence.name） */
+    public static final String SEQUENCE_NAME = "serial_code";
+
+    private final SerialSequenceService sequenceService;
+    private final SerialAllocatorSkipRepository skipRepo;
+    private final FeistelPermutation permutation;
+
+    /** 同時在交易中配發的呼叫端（各佔一條外層連線，預留時再借一條） */
+    private final Semaphore callers;
+
+    public PermutationSerialCodeAllocator(SerialSequenceService sequenceService,
+                                          SerialAllocatorSkipRepository skipRepo,
+                                          @Value("${serial.allocator.key}") String key,
+                                          @Value("${serial.allocator.max-concurrent:4}") int maxConcurrent,
+                                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.sequenceService = sequenceService;
+        this.skipRepo = skipRepo;
+        this.permutation = new FeistelPermutation(SerialCodes.KEYSPACE, key);
+        this.callers = new Semaphore(Math.max(1, Math.min(maxConcurrent, poolSize - 1)), true);
+    }
+
+    @Override
+    public <T> T limitConcurrency(Supplier<T> work) {
+        try {
+            callers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待序號配發時被中斷", e);
+        }
+        try {
+            return work.get();
+        } finally {
+            callers.release();
+        }
+    }
+
+    @Override
+    public List<String> allocate(int quota) {
+        List<String> codes = new ArrayList<>(quota);
+
+        // 預留的區間內若有需略過的位置，數量會不足，再預留一段補齊
+        while (codes.size() < quota) {
+            int need = quota - codes.size();
+            long start = sequenceService.reserve(SEQUENCE_NAME, need);
+            long end = start + need;  // 不含
+            if (end > SerialCodes.KEYSPACE) {
+                throw new BusinessException("序號空間已用盡，無法再產生新序號。");
+            }
+
+            Set<Long> skipped = skipRepo.findPositionsBetween(start, end - 1);
+            for (long position = start; position < end; position++) {
+                if (skipped.contains(position)) continue;
+                codes.add(SerialCodes.fromIndex(permutation.encrypt(position)));
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * 將序號反解回它在計數器中的位置（遷移程序使用）。
+     *
+     * @param content 8 碼序號
+     * @return 計數器位置；格式不符時回傳 -1
+     */
+    long positionOf(String content) {
+        long index = SerialCodes.toIndex(content);
+        return index < 0 ? -1 : permutation.decrypt(index);
+    }
+}
@@ -0,0 +1,122 @@
+package com.serial.service.allocator;
+
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.repository.SerialReservoirRepository;
+import com.serial.service.index.IssuedCodeBitmap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 隨機序號配發器（預設實作）。
+ *
+ * <p>產生流程：</p>
+ * <ol>
+ *   <li>先產生一批候選序號（最多 {@value #QUERY_BATCH_SIZE} 個）</li>
+ *   <li>查詢資料庫中已存在的序號並從候選集排除</li>
+ *   <li>不足時繼續產生下一批並同樣檢查，直到數量達標</li>
+ * </ol>
+ *
+ * <p>已發行的序號越多，碰撞機率與排重查詢的成本都會上升；
+ * 大量發行時建議改用 {@link PermutationSerialCodeAllocator}。</p>
+ *
+ * <p>啟用 {@link IssuedCodeBitmap}（{@code serial.bitmap.enabled=true}）且重建完成後，
+ * 先以點陣圖原子佔用候選序號（排除本機已知的序號，同時進行的配發不會拿到同一個序號），
+ * 再以同樣的資料庫查詢排除其他機器已 commit、但本機尚未同步到的序號。
+ * 點陣圖是每台機器各自一份、每隔幾秒同步一次，不能單獨作為排重依據。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.allocator.type", havingValue = "random", matchIfMissing = true)
+public class RandomSerialCodeAllocator implements SerialCodeAllocator {
+
+    /** 每次存在性查詢的候選數量（以資料表值參數傳入，不受參數數量限制） */
+    static final int QUERY_BATCH_SIZE = 10000;
+
+    private final SerialDetailJdbcRepository detailJdbcRepo;
+    private final SerialReservoirRepository reservoirRepo;
+
+    /** 已發行序號點陣圖（未啟用時為 null） */
+    private final IssuedCodeBitmap issuedCodes;
+
+    /** 是否啟用序號庫存：啟用時，排重也需涵蓋庫存中尚未領取的序號 */
+    private final boolean reservoirEnabled;
+
+    public RandomSerialCodeAllocator(SerialDetailJdbcRepository detailJdbcRepo,
+                                     SerialReservoirRepository reservoirRepo,
+                                     ObjectProvider<IssuedCodeBitmap> issuedCodes,
+                                     @Value("${serial.reservoir.enabled:false}") boolean reservoirEnabled) {
+        this.detailJdbcRepo = detailJdbcRepo;
+        this.reservoirRepo = reservoirRepo;
+        this.issuedCodes = issuedCodes.getIfAvailable();
+        this.reservoirEnabled = reservoirEnabled;
+    }
+
+    @Override
+    public List<String> allocate(int quota) {
+        Random random = new Random();
+        if (issuedCodes != null && issuedCodes.isReady()) {
+            return allocateWithBitmap(random, quota);
+        }
+
+        Set<String> accepted = new LinkedHashSet<>(quota);  // 使用 LinkedHashSet 保持順序並自動去重
+
+        // 每輪最多查詢 QUERY_BATCH_SIZE 個候選，
+        // 已存在的序號排除後，不足的數量在下一輪補上並再次檢查
+        while (accepted.size() < quota) {
+            int need = Math.min(quota - accepted.size(), QUERY_BATCH_SIZE);
+            Set<String> candidates = new LinkedHashSet<>(need);
+            while (candidates.size() < need) {
+                String c = SerialCodes.fromIndex(randomIndex(random));
+                if (!accepted.contains(c)) candidates.add(c);
+            }
+
+            // 查詢資料庫中已存在的序號，避免重複
+            removeExisting(candidates);
+            accepted.addAll(candidates);
+        }
+
+        return new ArrayList<>(accepted);
+    }
+
+    /**
+     * 以點陣圖佔用候選序號：{@code markIfAbsent} 為原子操作，
+     * 同時進行的多個配發不會拿到同一個序號；佔用後仍查詢資料庫（與庫存）排除其他機器發行的序號。
+     * 被排除的序號確實已發行，在點陣圖中保持已標記。
+     */
+    private List<String> allocateWithBitmap(Random random, int quota) {
+        List<String> codes = new ArrayList<>(quota);
+        while (codes.size() < quota) {
+            int need = Math.min(quota - codes.size(), QUERY_BATCH_SIZE);
+            Set<String> candidates = new LinkedHashSet<>(need);
+            while (candidates.size() < need) {
+                long index = randomIndex(random);
+                if (issuedCodes.markIfAbsent(index)) {
+                    candidates.add(SerialCodes.fromIndex(index));
+                }
+            }
+            removeExisting(candidates);
+            codes.addAll(candidates);
+        }
+        return codes;
+    }
+
+    /** 排除資料庫中已存在（以及啟用庫存時已在庫存中）的序號 */
+    private void removeExisting(Set<String> candidates) {
+        candidates.removeAll(detailJdbcRepo.findExistingContents(candidates));
+        if (reservoirEnabled) {
+            candidates.removeAll(reservoirRepo.findExistingContents(candidates));
+        }
+    }
+
+    private long randomIndex(Random random) {
+        return (long) random.nextInt(SerialCodes.LETTERS.length()) * SerialCodes.DIGIT_SPACE
+                + random.nextInt(SerialCodes.DIGIT_SPACE);
+    }
+}
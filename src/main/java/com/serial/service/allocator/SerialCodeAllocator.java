@@ -0,0 +1,40 @@
+package com.serial.service.allocator;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 序號配發器：負責產生「尚未被使用過」的序號內容。
+ *
+ * <p>{@link com.serial.service.SerialService} 只負責把配發出的序號寫入資料庫，
+ * 序號如何產生、如何保證不重複，由實作類別決定。透過設定
+ * {@code serial.allocator.type} 選擇實作：</p>
+ * <ul>
+ *   <li>{@code random}（預設）：{@link RandomSerialCodeAllocator}，隨機產生後查詢資料庫排除重複</li>
+ *   <li>{@code permutation}：{@link PermutationSerialCodeAllocator}，計數器 + 金鑰置換，天生不重複</li>
+ * </ul>
+ */
+public interface SerialCodeAllocator {
+
+    /**
+     * 配發指定數量的序號。
+     *
+     * @param quota 需要的數量
+     * @return 不重複、且未出現在資料庫中的序號清單（數量恰好為 quota）
+     */
+    List<String> allocate(int quota);
+
+    /**
+     * 執行一段會在交易中呼叫 {@link #allocate} 的工作（必須在開啟外層交易「之前」呼叫）。
+     *
+     * <p>配發需要另一條資料庫連線的實作（{@link PermutationSerialCodeAllocator} 以 {@code REQUIRES_NEW}
+     * 預留計數區間）在此限制同時執行的數量低於連線池大小：否則連線全被外層交易佔住、
+     * 每個外層交易又在等第二條連線時，會一起等到連線池逾時。預設直接執行。</p>
+     *
+     * @param work 開啟交易並配發序號的工作
+     * @return 工作的結果
+     */
+    default <T> T limitConcurrency(Supplier<T> work) {
+        return work.get();
+    }
+}
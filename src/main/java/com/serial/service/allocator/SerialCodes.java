@@ -0,0 +1,77 @@
+package com.serial.service.allocator;
+
+/**
+ * 序號格式與「序號空間索引」之間的轉換工具。
+ *
+ * <p>序號格式固定為 1 個大寫英文字母 + 7 位數字（例如 {@code A0001234}），
+ * 整個序號空間共 26 × 10^7 = 260,000,000 個序號。將字母視為高位、數字視為低位，
+ * 每個序號都可以一對一對應到 {@code [0, 260,000,000)} 之間的整數索引：</p>
+ *
+ * <pre>{@code
+ * A0000000 → 0
+ * A9999999 → 9,999,999
+ * B0000000 → 10,000,000
+ * Z9999999 → 259,999,999
+ * }</pre>
+ *
+ * <p>配發器、已發行序號索引等元件都以此索引作為共同語言。</p>
+ */
+public final class SerialCodes {
+
+    /** 序號字母部分可用的字元（26 個大寫英文字母） */
+    public static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    /** 數字部分的組合數（7 位數字 = 10^7） */
+    public static final int DIGIT_SPACE = 10_000_000;
+
+    /** 整個序號空間的大小（26 × 10^7） */
+    public static final long KEYSPACE = 26L * DIGIT_SPACE;
+
+    /** 序號固定長度 */
+    public static final int LENGTH = 8;
+
+    private SerialCodes() {}
+
+    /**
+     * 將序號空間索引轉換為 8 碼序號字串。
+     *
+     * @param index 0 ～ {@link #KEYSPACE} - 1
+     * @return 8 碼序號，例如 {@code A0001234}
+     */
+    public static String fromIndex(long index) {
+        if (index < 0 || index >= KEYSPACE) {
+            throw new IllegalArgumentException("序號索引超出範圍: " + index);
+        }
+        char[] chars = new char[LENGTH];
+        chars[0] = LETTERS.charAt((int) (index / DIGIT_SPACE));
+        int digits = (int) (index % DIGIT_SPACE);
+        // 由右至左填入 7 位數字（不足補 0），避免 String.format 的解析成本
+        for (int i = LENGTH - 1; i >= 1; i--) {
+            chars[i] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 將 8 碼序號字串轉換為序號空間索引。
+     *
+     * <p>呼叫端需先完成 trim 與轉大寫。格式不符（長度不對、首字非大寫字母、
+     * 後 7 碼非數字）時回傳 {@code -1}，不拋出例外，方便在熱路徑上直接判斷。</p>
+     *
+     * @param content 8 碼序號
+     * @return 序號空間索引；格式不符時回傳 -1
+     */
+    public static long toIndex(String content) {
+        if (content == null || content.length() != LENGTH) return -1;
+        char letter = content.charAt(0);
+        if (letter < 'A' || letter > 'Z') return -1;
+        int digits = 0;
+        for (int i = 1; i < LENGTH; i++) {
+            char c = content.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            digits = digits * 10 + (c - '0');
+        }
+        return (long) (letter - 'A') * DIGIT_SPACE + digits;
+    }
+}
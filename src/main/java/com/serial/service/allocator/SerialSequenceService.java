@@ -0,0 +1,45 @@
+package com.serial.service.allocator;
+
+import com.serial.entity.SerialSequence;
+import com.serial.repository.SerialSequenceRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 持久化計數器服務：以悲觀鎖預留連續的計數區間。
+ *
+ * <p>{@code REQUIRES_NEW}：預留動作在獨立的短交易中完成並立即 commit，
+ * 計數器的列鎖只持有一個 UPDATE 的時間，不會被外層序號產生交易（可能寫入大量資料）拖長。
+ * 外層交易若 rollback，被預留的區間就此作廢（只是浪費一段序號空間），
+ * 但不會被重新配發，因此不影響唯一性。</p>
+ *
+ * <p>在外層交易中呼叫時，呼叫端同時佔用兩條連線；外層交易必須經由
+ * {@link SerialCodeAllocator#limitConcurrency} 開啟，避免連線池被互相等待的呼叫端佔滿。</p>
+ */
+@Service
+public class SerialSequenceService {
+
+    private final SerialSequenceRepository sequenceRepo;
+
+    public SerialSequenceService(SerialSequenceRepository sequenceRepo) {
+        this.sequenceRepo = sequenceRepo;
+    }
+
+    /**
+     * 預留 {@code count} 個連續的計數值。
+     *
+     * @param name  計數器名稱（需事先存在於 {@code serial_sequence}，見 schema.sql）
+     * @param count 預留數量
+     * @return 預留區間的起點（含），區間為 {@code [start, start + count)}
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserve(String name, int count) {
+        SerialSequence sequence = sequenceRepo.findByNameWithLock(name)
+                .orElseThrow(() -> new IllegalStateException("計數器不存在: " + name));
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + count);
+        sequenceRepo.save(sequence);
+        return start;
+    }
+}
@@ -0,0 +1,145 @@
+package com.serial.service.count;
+
+import com.serial.repository.SerialDetailSearchRepository;
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 快取與估計的總筆數（預設）。依搜尋條件選擇最便宜的來源：
+ * <ul>
+ *   <li>沒有條件：{@code sys.partitions} 的資料列數（中繼資料，不掃描資料表），標示為估計值</li>
+ *   <li>只有狀態條件：各狀態筆數的快照（一次 {@code GROUP BY status}）加上之後本機寫入的增減
+ *       （{@link SerialDetailChanges}），每隔 {@code reconcile-interval} 重新校正，標示為估計值</li>
+ *   <li>其他條件：精確的 {@code COUNT(*)}，依正規化後的條件快取 {@code ttl}。
+ *       有新增序號時全部失效；條件包含狀態時，狀態變更也會使其失效</li>
+ * </ul>
+ *
+ * <p>快取項目超過 {@code max-entries} 時整個清空。命中與未命中次數以 {@code serial.admin.count.cache}
+ * 指標（{@code result} 標籤）提供。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.admin.count.mode", havingValue = "cached", matchIfMissing = true)
+public class CachedCountStrategy implements SerialCountStrategy {
+
+    private final SerialDetailSearchRepository searchRepo;
+    private final SerialDetailChanges changes;
+
+    private final long ttlNanos;
+    private final long reconcileNanos;
+    private final int maxEntries;
+
+    private final Map<SerialSearchFilter, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 各狀態筆數的快照；尚未建立時為 null */
+    private volatile StatusSnapshot statusSnapshot;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public CachedCountStrategy(SerialDetailSearchRepository searchRepo,
+                               SerialDetailChanges changes,
+                               MeterRegistry meterRegistry,
+                               @Value("${serial.admin.count.ttl:PT30S}") Duration ttl,
+                               @Value("${serial.admin.count.reconcile-interval:PT10M}") Duration reconcileInterval,
+                               @Value("${serial.admin.count.max-entries:1000}") int maxEntries) {
+        this.searchRepo = searchRepo;
+        this.changes = changes;
+        this.ttlNanos = ttl.toNanos();
+        this.reconcileNanos = reconcileInterval.toNanos();
+        this.maxEntries = maxEntries;
+
+        this.hitCounter = Counter.builder("serial.admin.count.cache")
+                .tag("result", "hit")
+                .description("後台列表總筆數的快取查詢次數")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("serial.admin.count.cache")
+                .tag("result", "miss")
+                .description("後台列表總筆數的快取查詢次數")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "cached";
+    }
+
+    @Override
+    public SerialCount count(SerialSearchFilter filter) {
+        SerialSearchFilter key = filter.normalized();
+        if (key.onlyStatus()) {
+            return key.status() == null
+                    ? SerialCount.approximate(searchRepo.estimateRows())
+                    : SerialCount.approximate(statusCount(key.status()));
+        }
+        return SerialCount.exact(cachedCount(key));
+    }
+
+    /** 依條件快取的精確筆數 */
+    private long cachedCount(SerialSearchFilter key) {
+        long now = System.nanoTime();
+        long rowsVersion = changes.rowsVersion();
+        long statusVersion = key.status() != null ? changes.statusVersion() : 0;
+
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.createdAt < ttlNanos
+                && entry.rowsVersion == rowsVersion && entry.statusVersion == statusVersion) {
+            hitCounter.increment();
+            return entry.count;
+        }
+
+        missCounter.increment();
+        long count = searchRepo.count(key);
+        if (entries.size() >= maxEntries) entries.clear();
+        // 以查詢前讀取的版本號記錄：查詢期間若有寫入，下次讀取時版本號不符即重新計算
+        entries.put(key, new Entry(count, now, rowsVersion, statusVersion));
+        return count;
+    }
+
+    /** 快照中的狀態筆數加上快照之後的本機增減，快照過期時重新校正 */
+    private long statusCount(int status) {
+        StatusSnapshot snapshot = statusSnapshot;
+        if (snapshot == null || System.nanoTime() - snapshot.takenAt >= reconcileNanos) {
+            snapshot = reconcile();
+        }
+        long base = snapshot.counts.getOrDefault(status, 0L);
+        return base + changes.statusDelta(status) - snapshot.deltaAt(status);
+    }
+
+    private synchronized StatusSnapshot reconcile() {
+        StatusSnapshot current = statusSnapshot;
+        if (current != null && System.nanoTime() - current.takenAt < reconcileNanos) {
+            return current;  // 其他執行緒剛校正過
+        }
+        long[] deltas = new long[3];
+        for (int status = 0; status < deltas.length; status++) {
+            deltas[status] = changes.statusDelta(status);
+        }
+        StatusSnapshot snapshot = new StatusSnapshot(searchRepo.countByStatus(), deltas, System.nanoTime());
+        statusSnapshot = snapshot;
+        return snapshot;
+    }
+
+    private record Entry(long count, long createdAt, long rowsVersion, long statusVersion) {}
+
+    /**
+     * 各狀態筆數的快照。
+     *
+     * @param counts  狀態 → 筆數
+     * @param deltas  快照當下各狀態的累計增減（之後的增減 = 目前累計 - 快照當下累計）
+     * @param takenAt 建立時間（{@link System#nanoTime()}）
+     */
+    private record StatusSnapshot(Map<Integer, Long> counts, long[] deltas, long takenAt) {
+
+        long deltaAt(int status) {
+            return status >= 0 && status < deltas.length ? deltas[status] : 0;
+        }
+    }
+}
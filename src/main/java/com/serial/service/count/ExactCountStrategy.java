@@ -0,0 +1,30 @@
+package com.serial.service.count;
+
+import com.serial.repository.SerialDetailSearchRepository;
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 精確筆數：每次都以相同條件執行 {@code COUNT(*)}（原本的做法）。
+ */
+@Component
+@ConditionalOnProperty(name = "serial.admin.count.mode", havingValue = "exact")
+public class ExactCountStrategy implements SerialCountStrategy {
+
+    private final SerialDetailSearchRepository searchRepo;
+
+    public ExactCountStrategy(SerialDetailSearchRepository searchRepo) {
+        this.searchRepo = searchRepo;
+    }
+
+    @Override
+    public String name() {
+        return "exact";
+    }
+
+    @Override
+    public SerialCount count(SerialSearchFilter filter) {
+        return SerialCount.exact(searchRepo.count(filter));
+    }
+}
@@ -0,0 +1,23 @@
+package com.serial.service.count;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 不計算總筆數：列表只依「是否有下一頁」翻頁，完全省去 {@code COUNT(*)}。
+ */
+@Component
+@ConditionalOnProperty(name = "serial.admin.count.mode", havingValue = "none")
+public class NoCountStrategy implements SerialCountStrategy {
+
+    @Override
+    public String name() {
+        return "none";
+    }
+
+    @Override
+    public SerialCount count(SerialSearchFilter filter) {
+        return null;
+    }
+}
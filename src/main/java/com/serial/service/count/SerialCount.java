@@ -0,0 +1,18 @@
+package com.serial.service.count;
+
+/**
+ * 後台列表的總筆數。
+ *
+ * @param value       筆數
+ * @param approximate 是否為估計值（畫面上標示「約」）
+ */
+public record SerialCount(long value, boolean approximate) {
+
+    static SerialCount exact(long value) {
+        return new SerialCount(value, false);
+    }
+
+    static SerialCount approximate(long value) {
+        return new SerialCount(Math.max(0, value), true);
+    }
+}
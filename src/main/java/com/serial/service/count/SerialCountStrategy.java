@@ -0,0 +1,31 @@
+package com.serial.service.count;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+
+/**
+ * 後台列表總筆數的計算策略。
+ *
+ * <p>列表本身以 keyset 分頁，是否有下一頁由多讀一筆判斷，不需要總筆數；總筆數只用於顯示。
+ * 條件寬鬆時 {@code COUNT(*)} 比讀取一頁還貴，透過設定 {@code serial.admin.count.mode} 選擇實作：</p>
+ * <ul>
+ *   <li>{@code cached}（預設）：{@link CachedCountStrategy}，無條件時讀中繼資料、只有狀態條件時用維護中的各狀態筆數，
+ *       其他條件的精確筆數依條件快取</li>
+ *   <li>{@code exact}：{@link ExactCountStrategy}，每次都執行 {@code COUNT(*)}</li>
+ *   <li>{@code none}：{@link NoCountStrategy}，不計算總筆數，畫面只提供前後翻頁</li>
+ * </ul>
+ */
+public interface SerialCountStrategy {
+
+    /**
+     * 策略名稱。
+     */
+    String name();
+
+    /**
+     * 符合條件的總筆數。
+     *
+     * @param filter 搜尋條件
+     * @return 總筆數；不計算時為 null
+     */
+    SerialCount count(SerialSearchFilter filter);
+}
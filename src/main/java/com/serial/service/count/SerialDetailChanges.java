@@ -0,0 +1,83 @@
+package com.serial.service.count;
+
+import com.serial.entity.SerialDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code serial_detail} 的寫入通知：新增序號與狀態變更時由寫入端呼叫，供筆數快取判斷是否失效。
+ *
+ * <p>在交易中呼叫時，通知延到 commit 之後才生效（rollback 則不生效），
+ * 避免其他執行緒在 commit 前以舊的筆數、新的版本號寫入快取；不在交易中時立即生效。</p>
+ *
+ * <p>只記錄本機的寫入：其他機器的寫入要等快取到期（TTL）或下次重新校正才會反映。</p>
+ */
+@Component
+public class SerialDetailChanges {
+
+    /** 新增（或刪除）資料列的版本號 */
+    private final AtomicLong rowsVersion = new AtomicLong();
+
+    /** 狀態變更的版本號 */
+    private final AtomicLong statusVersion = new AtomicLong();
+
+    /** 各狀態累計的筆數增減（索引為狀態值） */
+    private final AtomicLongArray statusDelta = new AtomicLongArray(SerialDetail.STATUS_CANCELLED + 1);
+
+    /**
+     * 新增了 {@code count} 筆未核銷的序號。
+     */
+    public void inserted(int count) {
+        if (count <= 0) return;
+        afterCommit(() -> {
+            statusDelta.addAndGet(SerialDetail.STATUS_UNUSED, count);
+            rowsVersion.incrementAndGet();
+        });
+    }
+
+    /**
+     * {@code count} 筆序號的狀態由 {@code from} 變為 {@code to}。
+     */
+    public void statusChanged(int from, int to, int count) {
+        if (count <= 0) return;
+        afterCommit(() -> {
+            statusDelta.addAndGet(from, -count);
+            statusDelta.addAndGet(to, count);
+            statusVersion.incrementAndGet();
+        });
+    }
+
+    /** 新增資料列的版本號（每次新增都會遞增） */
+    public long rowsVersion() {
+        return rowsVersion.get();
+    }
+
+    /** 狀態變更的版本號（每次狀態變更都會遞增） */
+    public long statusVersion() {
+        return statusVersion.get();
+    }
+
+    /**
+     * 指定狀態累計的筆數增減（啟動後的本機寫入）。
+     */
+    public long statusDelta(int status) {
+        return status >= 0 && status < statusDelta.length() ? statusDelta.get(status) : 0;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.serial.service.index;
+
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.repository.SerialDetailRepository;
+import com.serial.repository.SerialReservoirRepository;
+import com.serial.service.allocator.SerialCodes;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * 已發行序號的記憶體映射點陣圖（Bitmap）。
+ *
+ * <p>整個序號空間只有 26 × 10^7 = 2.6 億個序號，每個序號用 1 個 bit 表示
+ * 「是否已發行」，整張點陣圖約 32.5 MB。檔案以 {@code FileChannel.map} 映射到
+ * 堆外記憶體（Off-Heap），不佔用 Java Heap，也不受 GC 影響。</p>
+ *
+ * <p>用途：</p>
+ * <ul>
+ *   <li>產生序號時：以 {@link #markIfAbsent(long)} 原子地「檢查並佔用」候選序號，
+ *       排除本機已知的序號；其他機器剛發行的序號仍由 {@code findExistingContents} 排除</li>
+ *   <li>核銷序號時：{@link #contains(String)} 為 false 代表本機已知的序號中沒有它，
+ *       啟用前置判斷時不需進資料庫即可直接拒絕（其他機器剛發行的序號見 {@link IssuedCodeIndex}）</li>
+ * </ul>
+ *
+ * <p>生命週期：</p>
+ * <ol>
+ *   <li>啟動時建立（並清空）映射檔，此時 {@link #isReady()} 為 false，呼叫端需走原本的資料庫路徑</li>
+ *   <li>應用程式就緒後，在背景以 keyset 分批掃描 {@code serial_detail.content} 重建點陣圖，完成後才標記為 ready</li>
+ *   <li>之後定期以 {@code row_version} 浮水印增量同步新寫入的序號（涵蓋其他機器發行的序號），
+ *       晚 commit 的資料列也不會漏掉（見 {@link IssuedCodeScanner}）</li>
+ * </ol>
+ *
+ * <p>bit 只會被設定、不會被清除：交易 rollback 造成的多餘 bit 只會讓配發器略過一個可用序號、
+ * 或讓核銷多查一次資料庫，不影響正確性。</p>
+ *
+ * <p>設定 {@code serial.bitmap.enabled=true} 啟用。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.bitmap.enabled", havingValue = "true")
+public class IssuedCodeBitmap implements IssuedCodeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(IssuedCodeBitmap.class);
+
+    /** 以 long（64 bits）為單位原子操作映射記憶體 */
+    private static final VarHandle WORDS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /** 點陣圖的位元組大小（向上取整到 8 bytes 的倍數） */
+    private static final int SIZE_BYTES = (int) (((SerialCodes.KEYSPACE + 63) / 64) * 8);
+
+    private final IssuedCodeScanner scanner;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    /** 是否已完成重建（未完成前查詢結果不可信） */
+    private volatile boolean ready = false;
+
+    public IssuedCodeBitmap(SerialDetailRepository detailRepo, SerialDetailJdbcRepository detailJdbcRepo,
+                            SerialReservoirRepository reservoirRepo,
+                            @Value("${serial.bitmap.path:${java.io.tmpdir}/serial-issued.bitmap}") String path) throws IOException {
+        this.scanner = new IssuedCodeScanner(detailRepo, detailJdbcRepo, reservoirRepo);
+        this.path = Path.of(path);
+        Files.createDirectories(this.path.toAbsolutePath().getParent());
+
+        // 每次啟動都從資料庫重建，TRUNCATE_EXISTING 確保沒有殘留的舊 bit
+        this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE_BYTES);
+        log.info("[IssuedCodeBitmap] 已映射 {} ({} MB)", this.path, SIZE_BYTES / 1024 / 1024);
+    }
+
+    /** 點陣圖是否已完成重建，可作為權威判斷依據 */
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** 點陣圖是精確的，等同 {@link #contains(String)} */
+    @Override
+    public boolean mightContain(String content) {
+        return contains(content);
+    }
+
+    /**
+     * 序號是否已發行。
+     *
+     * @param content 8 碼大寫序號
+     * @return true 表示已發行（或格式不符時回傳 false，代表不可能存在）
+     */
+    public boolean contains(String content) {
+        long index = SerialCodes.toIndex(content);
+        return index >= 0 && contains(index);
+    }
+
+    /**
+     * 序號空間索引是否已發行。
+     *
+     * @param index 序號空間索引
+     * @return true 表示已發行
+     */
+    public boolean contains(long index) {
+        long word = (long) WORDS.getAcquire(buffer, wordOffset(index));
+        return (word & bitMask(index)) != 0;
+    }
+
+    /**
+     * 原子地「檢查並標記」：序號尚未發行時標記為已發行並回傳 true。
+     *
+     * <p>多個執行緒同時搶同一個序號時，只有一個會得到 true，可直接作為配發的佔用手段。</p>
+     *
+     * @param index 序號空間索引
+     * @return true 表示本次成功佔用；false 表示早已發行
+     */
+    public boolean markIfAbsent(long index) {
+        long mask = bitMask(index);
+        long previous = (long) WORDS.getAndBitwiseOr(buffer, wordOffset(index), mask);
+        return (previous & mask) == 0;
+    }
+
+    /**
+     * 標記序號為已發行（重複標記無副作用）。
+     *
+     * @param content 8 碼大寫序號（格式不符時忽略）
+     */
+    public void mark(String content) {
+        long index = SerialCodes.toIndex(content);
+        if (index >= 0) markIfAbsent(index);
+    }
+
+    /**
+     * 批次標記序號為已發行。
+     *
+     * @param contents 8 碼大寫序號集合
+     */
+    @Override
+    public void markAll(Collection<String> contents) {
+        for (String content : contents) {
+            mark(content);
+        }
+    }
+
+    /**
+     * 應用程式就緒後，在背景虛擬執行緒中從資料庫重建點陣圖。
+     * 不阻塞啟動流程；重建期間呼叫端依 {@link #isReady()} 走原本的資料庫路徑。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("issued-code-bitmap-rebuild").start(() -> {
+            long begin = System.currentTimeMillis();
+            try {
+                long scanned = scanner.scanAll(this::mark);
+                ready = true;
+                log.info("[IssuedCodeBitmap] 重建完成：{} 筆序號，耗時 {} ms", scanned, System.currentTimeMillis() - begin);
+            } catch (Exception e) {
+                log.error("[IssuedCodeBitmap] 重建失敗，將維持資料庫查詢路徑: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 定期增量同步上次同步之後 commit 的序號（其他機器發行、或 rollback 後由他人重新發行的序號）。
+     */
+    @Scheduled(fixedDelayString = "${serial.bitmap.sync-interval-ms:5000}")
+    public void syncRecent() {
+        if (!ready) return;
+        try {
+            scanner.scanRecent(this::mark);
+        } catch (Exception e) {
+            log.warn("[IssuedCodeBitmap] 增量同步失敗: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private static int wordOffset(long index) {
+        return (int) (index >>> 6) << 3;
+    }
+
+    private static long bitMask(long index) {
+        return 1L << (index & 63);
+    }
+}
@@ -0,0 +1,222 @@
+package com.serial.service.index;
+
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.repository.SerialDetailRepository;
+import com.serial.repository.SerialReservoirRepository;
+import com.serial.service.allocator.SerialCodes;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已發行序號的 Bloom Filter（負向快取）。
+ *
+ * <p>促銷期間大量機器人以猜測的序號呼叫核銷 API，這些序號絕大多數從未發行，
+ * 卻仍會開啟交易並執行 {@code findByContentWithLock}。此過濾器放在核銷之前：
+ * {@link #mightContain(String)} 為 false 時序號不在本機已知的序號中，微秒等級即可拒絕
+ * （其他機器剛發行、尚未同步的序號見 {@link IssuedCodeIndex} 的假陰性窗口）。</p>
+ *
+ * <p>與 {@link IssuedCodeBitmap} 的差異：點陣圖精確但固定佔用約 32.5 MB 堆外記憶體；
+ * Bloom Filter 的大小依預期發行量與目標假陽性率計算（例如 1000 萬筆、0.1% 約 17 MB），
+ * 假陽性的請求只是照常進資料庫確認，不影響正確性。</p>
+ *
+ * <p>大小計算（n = 預期發行量，p = 目標假陽性率）：</p>
+ * <ul>
+ *   <li>位元數 m = -n · ln(p) / (ln 2)²</li>
+ *   <li>雜湊函數數量 k = (m / n) · ln 2</li>
+ *   <li>目前估計的假陽性率 = (已設定位元數 / m)^k，實際發行量超過 n 後會快速上升，需調大 n 後重新啟動</li>
+ * </ul>
+ *
+ * <p>生命週期與點陣圖相同：啟動後在背景從 {@code serial_detail} 重建，完成前 {@link #isReady()} 為 false；
+ * 產生序號時即時登記，並定期增量同步其他機器發行的序號。同步與點陣圖共用 {@link IssuedCodeScanner}
+ * 的 rowversion 浮水印，晚 commit 的序號也會被登記（最多延遲一個同步間隔）。</p>
+ *
+ * <p>指標（Micrometer）：</p>
+ * <ul>
+ *   <li>{@code serial.bloom.fpp}：依目前填充率估計的假陽性率（Gauge）</li>
+ *   <li>{@code serial.bloom.memory}：位元陣列佔用的記憶體位元組數（Gauge）</li>
+ *   <li>{@code serial.bloom.insertions}：已登記的序號數（Gauge，重複登記不計入）</li>
+ * </ul>
+ *
+ * <p>設定 {@code serial.bloom.enabled=true} 啟用。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.bloom.enabled", havingValue = "true")
+public class IssuedCodeBloomFilter implements IssuedCodeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(IssuedCodeBloomFilter.class);
+
+    /** 以 long（64 bits）為單位原子設定位元 */
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final IssuedCodeScanner scanner;
+    private final long[] words;
+    private final long bitSize;
+    private final int hashCount;
+    private final long expectedInsertions;
+
+    /** 已設定為 1 的位元數（估計假陽性率用） */
+    private final AtomicLong bitCount = new AtomicLong();
+
+    /** 已登記的序號數（至少設定了一個新位元才計入，重複登記不重複計算；與實際筆數差距即假陽性） */
+    private final AtomicLong insertions = new AtomicLong();
+
+    /** 是否已完成重建（未完成前查詢結果不可信） */
+    private volatile boolean ready = false;
+
+    /** 已提示過容量不足，避免重複輸出警告 */
+    private volatile boolean capacityWarned = false;
+
+    public IssuedCodeBloomFilter(SerialDetailRepository detailRepo, SerialDetailJdbcRepository detailJdbcRepo,
+                                 SerialReservoirRepository reservoirRepo,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${serial.bloom.expected-insertions:10000000}") long expectedInsertions,
+                                 @Value("${serial.bloom.fpp:0.001}") double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("serial.bloom.expected-insertions 必須大於 0");
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("serial.bloom.fpp 必須介於 0 與 1 之間");
+        }
+        this.scanner = new IssuedCodeScanner(detailRepo, detailJdbcRepo, reservoirRepo);
+        this.expectedInsertions = expectedInsertions;
+
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.words = new long[Math.toIntExact((bits + 63) / 64)];
+        this.bitSize = (long) words.length * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+
+        Gauge.builder("serial.bloom.fpp", this, IssuedCodeBloomFilter::estimatedFpp)
+                .description("依目前填充率估計的假陽性率")
+                .register(meterRegistry);
+        Gauge.builder("serial.bloom.memory", this, IssuedCodeBloomFilter::memoryBytes)
+                .description("Bloom Filter 位元陣列佔用的記憶體")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("serial.bloom.insertions", insertions, AtomicLong::get)
+                .description("已登記到 Bloom Filter 的序號數")
+                .register(meterRegistry);
+
+        log.info("[IssuedCodeBloomFilter] 預期 {} 筆、目標假陽性率 {}：{} bits（{} MB），{} 個雜湊函數",
+                expectedInsertions, fpp, bitSize, memoryBytes() / 1024 / 1024, hashCount);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public boolean mightContain(String content) {
+        long index = SerialCodes.toIndex(content);
+        if (index < 0) return false;
+
+        long h1 = mix(index);
+        long h2 = mix(h1) | 1;  // 奇數步長，避免退化成同一個位置
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitSize);
+            long word = (long) WORDS.getAcquire(words, (int) (bit >>> 6));
+            if ((word & (1L << (bit & 63))) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 登記序號為已發行（格式不符時忽略）。
+     *
+     * @param content 8 碼大寫序號
+     */
+    public void put(String content) {
+        long index = SerialCodes.toIndex(content);
+        if (index < 0) return;
+
+        long h1 = mix(index);
+        long h2 = mix(h1) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitSize);
+            long mask = 1L << (bit & 63);
+            long previous = (long) WORDS.getAndBitwiseOr(words, (int) (bit >>> 6), mask);
+            if ((previous & mask) == 0) {
+                bitCount.incrementAndGet();
+                changed = true;
+            }
+        }
+        if (!changed) return;
+
+        if (insertions.incrementAndGet() > expectedInsertions && !capacityWarned) {
+            capacityWarned = true;
+            log.warn("[IssuedCodeBloomFilter] 登記數已超過預期發行量 {}，假陽性率將上升，請調大 serial.bloom.expected-insertions",
+                    expectedInsertions);
+        }
+    }
+
+    @Override
+    public void markAll(Collection<String> contents) {
+        for (String content : contents) {
+            put(content);
+        }
+    }
+
+    /** 依目前填充率估計的假陽性率 */
+    public double estimatedFpp() {
+        return Math.pow((double) bitCount.get() / bitSize, hashCount);
+    }
+
+    /** 位元陣列佔用的記憶體位元組數 */
+    public long memoryBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * 應用程式就緒後，在背景虛擬執行緒中從資料庫重建。
+     * 不阻塞啟動流程；重建期間呼叫端依 {@link #isReady()} 走原本的資料庫路徑。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("issued-code-bloom-rebuild").start(() -> {
+            long begin = System.currentTimeMillis();
+            try {
+                long scanned = scanner.scanAll(this::put);
+                ready = true;
+                log.info("[IssuedCodeBloomFilter] 重建完成：{} 筆序號，估計假陽性率 {}，耗時 {} ms",
+                        scanned, estimatedFpp(), System.currentTimeMillis() - begin);
+            } catch (Exception e) {
+                log.error("[IssuedCodeBloomFilter] 重建失敗，將維持資料庫查詢路徑: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 定期增量同步上次同步之後 commit 的序號（其他機器發行的序號）。
+     */
+    @Scheduled(fixedDelayString = "${serial.bloom.sync-interval-ms:5000}")
+    public void syncRecent() {
+        if (!ready) return;
+        try {
+            scanner.scanRecent(this::put);
+        } catch (Exception e) {
+            log.warn("[IssuedCodeBloomFilter] 增量同步失敗: {}", e.getMessage());
+        }
+    }
+
+    /** SplitMix64 混合函數，將序號空間索引打散為 64 位元雜湊值 */
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
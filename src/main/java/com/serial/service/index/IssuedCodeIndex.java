@@ -0,0 +1,45 @@
+package com.serial.service.index;
+
+import java.util.Collection;
+
+/**
+ * 已發行序號的記憶體索引，用於在進入資料庫之前排除「一定不存在」的序號。
+ *
+ * <p>{@link #mightContain(String)} 回傳 false 代表「本機已知的序號中沒有它」：</p>
+ * <ul>
+ *   <li>本機發行的序號在寫入時即登記，不會有假陰性</li>
+ *   <li>其他機器發行的序號由定期同步登記（{@link IssuedCodeScanner}），同步以 rowversion 為浮水印，
+ *       不會因 commit 順序而永久漏掉，但會延遲：同步間隔（{@code sync-interval-ms}）內、
+ *       以及其他機器仍有未 commit 的交易壓住浮水印時，已發行的序號可能回報為不存在（<b>已知的假陰性窗口</b>）</li>
+ *   <li>假陽性（回報存在但實際不存在）交由資料庫確認，不影響正確性</li>
+ * </ul>
+ *
+ * <p>因此核銷只有在明確啟用（{@code serial.redeem.prefilter.enabled=true}，單一機器發行序號、
+ * 或接受上述窗口）時，才以 false 作為拒絕依據，見 {@code SerialRedeemService}。</p>
+ *
+ * <p>實作：</p>
+ * <ul>
+ *   <li>{@link IssuedCodeBitmap}：整個序號空間的點陣圖，精確（無假陽性），固定約 32.5 MB</li>
+ *   <li>{@link IssuedCodeBloomFilter}：Bloom Filter，大小隨預期發行量調整，有可設定的假陽性率</li>
+ * </ul>
+ */
+public interface IssuedCodeIndex {
+
+    /** 是否已完成重建；未完成前 {@link #mightContain(String)} 的結果不可作為拒絕依據 */
+    boolean isReady();
+
+    /**
+     * 序號是否可能已發行。
+     *
+     * @param content 8 碼大寫序號
+     * @return false 表示本機已知的序號中沒有它（格式不符也回傳 false）；其他機器剛發行的序號可能尚未同步
+     */
+    boolean mightContain(String content);
+
+    /**
+     * 批次登記新發行的序號（重複登記無副作用）。
+     *
+     * @param contents 8 碼大寫序號集合
+     */
+    void markAll(Collection<String> contents);
+}
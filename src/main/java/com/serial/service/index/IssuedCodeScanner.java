@@ -0,0 +1,93 @@
+package com.serial.service.index;
+
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.repository.SerialDetailRepository;
+import com.serial.repository.SerialReservoirRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分批掃描 {@code serial_detail.content}，供記憶體索引重建與增量同步使用。
+ *
+ * <p>增量同步以 {@code row_version}（rowversion）為浮水印，而不是 {@code id}：
+ * IDENTITY 與 rowversion 都在寫入時配發、commit 時才看得見，其他機器的大量寫入可能在
+ * 較大的 id 已被掃描之後才 commit。每次同步的上界取 {@code MIN_ACTIVE_ROWVERSION()}，
+ * 小於上界的資料列都已 commit，下次從上界繼續，不會漏掉晚 commit 的資料列。</p>
+ *
+ * <p>重建時也掃描 {@code serial_reservoir}：庫存中的序號已配發但尚未寫入 {@code serial_detail}，
+ * 重啟後的點陣圖必須涵蓋它們，配發器才不會再次選中。庫存序號被領取後會寫入 {@code serial_detail}，
+ * 由增量同步登記。</p>
+ */
+final class IssuedCodeScanner {
+
+    /** 每批讀取的序號數量 */
+    private static final int SCAN_BATCH_SIZE = 10_000;
+
+    private final SerialDetailRepository detailRepo;
+    private final SerialDetailJdbcRepository detailJdbcRepo;
+    private final SerialReservoirRepository reservoirRepo;
+
+    /** 已同步的 rowversion 上界（不含）：rowversion 小於此值的序號都已掃描過 */
+    private volatile long syncedVersion = 0;
+
+    IssuedCodeScanner(SerialDetailRepository detailRepo, SerialDetailJdbcRepository detailJdbcRepo,
+                      SerialReservoirRepository reservoirRepo) {
+        this.detailRepo = detailRepo;
+        this.detailJdbcRepo = detailJdbcRepo;
+        this.reservoirRepo = reservoirRepo;
+    }
+
+    /**
+     * 從頭掃描全部序號與庫存中的序號（依 id），回傳掃描筆數。
+     * 掃描前先取得上界：開始時已 commit 的資料列都會被掃描到，之後的由增量同步接手。
+     */
+    long scanAll(Consumer<String> sink) {
+        long upper = detailJdbcRepo.minActiveRowVersion();
+        long scanned = 0;
+        int afterId = 0;
+        while (true) {
+            List<SerialDetailRepository.IdContent> batch =
+                    detailRepo.findIdContentAfter(afterId, PageRequest.of(0, SCAN_BATCH_SIZE));
+            if (batch.isEmpty()) break;
+            for (SerialDetailRepository.IdContent row : batch) {
+                sink.accept(row.getContent());
+            }
+            scanned += batch.size();
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        long afterEntry = 0;
+        while (true) {
+            List<SerialReservoirRepository.ReservoirEntry> batch =
+                    reservoirRepo.findEntriesAfter(afterEntry, SCAN_BATCH_SIZE);
+            if (batch.isEmpty()) break;
+            for (SerialReservoirRepository.ReservoirEntry entry : batch) {
+                sink.accept(entry.content());
+            }
+            scanned += batch.size();
+            afterEntry = batch.get(batch.size() - 1).id();
+        }
+        syncedVersion = upper;
+        return scanned;
+    }
+
+    /** 掃描上次同步之後寫入或更新的序號，回傳掃描筆數 */
+    long scanRecent(Consumer<String> sink) {
+        long upper = detailJdbcRepo.minActiveRowVersion();
+        long from = syncedVersion;
+        long scanned = 0;
+        while (from < upper) {
+            List<SerialDetailJdbcRepository.VersionedContent> batch =
+                    detailJdbcRepo.findContentsByVersion(from, upper, SCAN_BATCH_SIZE);
+            for (SerialDetailJdbcRepository.VersionedContent row : batch) {
+                sink.accept(row.content());
+            }
+            scanned += batch.size();
+            if (batch.size() < SCAN_BATCH_SIZE) break;
+            from = batch.get(batch.size() - 1).version() + 1;
+        }
+        syncedVersion = upper;
+        return scanned;
+    }
+}
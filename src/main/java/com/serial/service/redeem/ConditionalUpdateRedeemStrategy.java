@@ -0,0 +1,55 @@
+package com.serial.service.redeem;
+
+import com.serial.dto.request.SerialRedeemRequest;
+import com.serial.dto.response.SerialRedeemResponseData;
+import com.serial.exception.BusinessException;
+import com.serial.repository.SerialDetailJdbcRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 條件式更新核銷策略：一個原子的 {@code UPDATE ... WHERE status = 0 AND now BETWEEN ...}。
+ *
+ * <p>狀態與有效期間的檢查直接寫在 {@code WHERE} 條件中，由資料庫在更新的同時判斷，
+ * 列鎖只在這一個敘述內持有，成功與失敗都只需一次資料庫來回、不需要外層交易。</p>
+ *
+ * <p>更新不到資料列時，同一批次 SQL 會回傳序號目前的狀態與有效期間，
+ * 再以 {@link RedeemRules} 判斷失敗原因，訊息與悲觀鎖策略一致。</p>
+ *
+ * <p>設定 {@code serial.redeem.strategy=conditional-update} 啟用。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.redeem.strategy", havingValue = "conditional-update")
+public class ConditionalUpdateRedeemStrategy implements RedeemStrategy {
+
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SerialDetailJdbcRepository detailJdbcRepo;
+
+    public ConditionalUpdateRedeemStrategy(SerialDetailJdbcRepository detailJdbcRepo) {
+        this.detailJdbcRepo = detailJdbcRepo;
+    }
+
+    @Override
+    public String name() {
+        return "conditional-update";
+    }
+
+    @Override
+    public SerialRedeemResponseData redeem(SerialRedeemRequest req) {
+        String content = req.getContent().trim().toUpperCase();
+        LocalDateTime now = LocalDateTime.now();
+
+        SerialDetailJdbcRepository.RedeemRow row = detailJdbcRepo.redeemIfRedeemable(content, now)
+                .orElseThrow(() -> new BusinessException(RedeemRules.NOT_FOUND));
+        if (!row.redeemed()) {
+            String reason = RedeemRules.failureReason(row.status(), row.startDate(), row.endDate(), now);
+            // 條件不成立卻找不到原因：判斷與更新之間狀態被他人改變（例如剛被核銷），以目前狀態為準
+            throw new BusinessException(reason != null ? reason : "此序號已經被核銷使用");
+        }
+        return new SerialRedeemResponseData(content, now.format(FMT));
+    }
+}
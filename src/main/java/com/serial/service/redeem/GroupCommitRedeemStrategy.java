@@ -0,0 +1,223 @@
+package com.serial.service.redeem;
+
+import com.serial.dto.request.SerialRedeemRequest;
+import com.serial.dto.response.SerialRedeemResponseData;
+import com.serial.exception.BusinessException;
+import com.serial.repository.SerialDetailJdbcRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 群組提交（Group Commit）核銷策略：把短時間內同時到達的核銷請求合併成一批處理。
+ *
+ * <p>限時搶兌時，數百個同時進行的核銷請求各自開交易、各自 commit，
+ * 交易與 log flush 的固定成本被重複支付。此策略：</p>
+ * <ol>
+ *   <li>請求執行緒把序號放入佇列後等待自己的結果</li>
+ *   <li>收集執行緒取出第一筆後，最多再等 {@code window-ms}，或湊滿 {@code max-batch-size} 筆</li>
+ *   <li>整批以一個條件式 {@code UPDATE ... JOIN} 核銷（單一敘述、單一交易，
+ *       見 {@link SerialDetailJdbcRepository#redeemAll}）</li>
+ *   <li>依每個序號的結果分別完成各請求：成功回傳核銷時間，失敗以 {@link RedeemRules} 判斷原因</li>
+ * </ol>
+ *
+ * <p>同一批中重複出現的序號，只有第一個請求成功，其餘視為「已經被核銷使用」，
+ * 與逐筆依序處理的結果相同。整批執行失敗（例如資料庫錯誤）時，該批所有請求都收到同一個例外。</p>
+ *
+ * <p>指標（Micrometer，搭配 {@code serial.redeem} 計時器的 {@code strategy=group-commit} 標籤比較逐筆處理）：</p>
+ * <ul>
+ *   <li>{@code serial.redeem.batch}：每批在資料庫中的執行時間（Timer）</li>
+ *   <li>{@code serial.redeem.batch.size}：每批的請求數（DistributionSummary）</li>
+ * </ul>
+ *
+ * <p>設定 {@code serial.redeem.strategy=group-commit} 啟用。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.redeem.strategy", havingValue = "group-commit")
+public class GroupCommitRedeemStrategy implements RedeemStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitRedeemStrategy.class);
+
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SerialDetailJdbcRepository detailJdbcRepo;
+
+    /** 收集視窗：取出第一筆後最多再等待的時間 */
+    private final long windowNanos;
+
+    /** 每批最多的請求數 */
+    private final int maxBatchSize;
+
+    /** 同時在資料庫中執行的批次數上限 */
+    private final Semaphore inFlight;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService batchExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("redeem-batch-", 0).factory());
+
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running = true;
+    private Thread collector;
+
+    public GroupCommitRedeemStrategy(SerialDetailJdbcRepository detailJdbcRepo,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${serial.redeem.group-commit.window-ms:2}") long windowMs,
+                                     @Value("${serial.redeem.group-commit.max-batch-size:100}") int maxBatchSize,
+                                     @Value("${serial.redeem.group-commit.max-in-flight:4}") int maxInFlight) {
+        if (maxBatchSize < 1 || maxBatchSize > SerialDetailJdbcRepository.MAX_REDEEM_BATCH) {
+            throw new IllegalArgumentException("serial.redeem.group-commit.max-batch-size 必須介於 1 與 "
+                    + SerialDetailJdbcRepository.MAX_REDEEM_BATCH + " 之間");
+        }
+        this.detailJdbcRepo = detailJdbcRepo;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatchSize = maxBatchSize;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.batchTimer = Timer.builder("serial.redeem.batch")
+                .description("群組提交每批在資料庫中的執行時間")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("serial.redeem.batch.size")
+                .description("群組提交每批的請求數")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        collector = Thread.ofVirtual().name("redeem-batch-collector").start(this::collect);
+    }
+
+    /**
+     * 停止收集並等待執行中的批次完成。收集執行緒結束後仍留在佇列中的請求
+     * （與 {@link #redeem} 的檢查同時發生，或收集執行緒被中斷）一律以「關閉中」結束，不會永遠等待。
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        collector.join();
+        batchExecutor.close();
+
+        List<Pending> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        leftover.forEach(p -> p.result.completeExceptionally(new IllegalStateException("核銷服務關閉中")));
+    }
+
+    @Override
+    public String name() {
+        return "group-commit";
+    }
+
+    @Override
+    public SerialRedeemResponseData redeem(SerialRedeemRequest req) {
+        if (!running) {
+            throw new IllegalStateException("核銷服務關閉中");
+        }
+        Pending pending = new Pending(req.getContent().trim().toUpperCase(), new CompletableFuture<>());
+        queue.add(pending);
+        // 放入佇列後再檢查一次：收集執行緒可能在上面的檢查之後才結束，此時由自己取回請求
+        if (!running && queue.remove(pending)) {
+            throw new IllegalStateException("核銷服務關閉中");
+        }
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /** 收集迴圈：湊批後交給虛擬執行緒執行；關閉時處理完佇列中剩餘的請求才結束 */
+    private void collect() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                inFlight.acquire();
+                batchExecutor.execute(() -> {
+                    try {
+                        execute(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** 以一個集合式敘述核銷整批，再分別完成每個請求 */
+    private void execute(List<Pending> batch) {
+        batchSize.record(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        // 排序後帶入，讓重疊的批次以相同順序取得列鎖
+        Set<String> contents = new TreeSet<>();
+        for (Pending p : batch) contents.add(p.content);
+
+        Map<String, SerialDetailJdbcRepository.RedeemRow> rows;
+        try {
+            rows = batchTimer.recordCallable(() -> detailJdbcRepo.redeemAll(contents, now));
+        } catch (Exception e) {
+            log.warn("[GroupCommitRedeemStrategy] 批次核銷失敗（{} 筆）: {}", batch.size(), e.getMessage());
+            RuntimeException failure = e instanceof RuntimeException re ? re : new IllegalStateException(e);
+            batch.forEach(p -> p.result.completeExceptionally(failure));
+            return;
+        }
+
+        Set<String> granted = new HashSet<>();
+        for (Pending p : batch) {
+            SerialDetailJdbcRepository.RedeemRow row = rows.get(p.content);
+            if (row == null) {
+                p.result.completeExceptionally(new BusinessException(RedeemRules.NOT_FOUND));
+            } else if (row.redeemed() && granted.add(p.content)) {
+                p.result.complete(new SerialRedeemResponseData(p.content, now.format(FMT)));
+            } else {
+                String reason = row.redeemed() ? null
+                        : RedeemRules.failureReason(row.status(), row.startDate(), row.endDate(), now);
+                p.result.completeExceptionally(new BusinessException(reason != null ? reason : "此序號已經被核銷使用"));
+            }
+        }
+    }
+
+    /** 等待中的核銷請求 */
+    private record Pending(String content, CompletableFuture<SerialRedeemResponseData> result) {}
+}
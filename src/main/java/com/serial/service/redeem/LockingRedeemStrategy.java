@@ -0,0 +1,34 @@
+package com.serial.service.redeem;
+
+import com.serial.dto.request.SerialRedeemRequest;
+import com.serial.dto.response.SerialRedeemResponseData;
+import com.serial.service.SerialService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 悲觀鎖核銷策略（預設）：委派給 {@link SerialService#redeemSerial}。
+ *
+ * <p>{@code SELECT ... WITH (UPDLOCK)} 鎖定序號列 → 在 Java 驗證狀態與有效期間 → {@code save}，
+ * 至少兩次資料庫來回，且兩次之間持有列鎖。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "serial.redeem.strategy", havingValue = "locking", matchIfMissing = true)
+public class LockingRedeemStrategy implements RedeemStrategy {
+
+    private final SerialService serialService;
+
+    public LockingRedeemStrategy(SerialService serialService) {
+        this.serialService = serialService;
+    }
+
+    @Override
+    public String name() {
+        return "locking";
+    }
+
+    @Override
+    public SerialRedeemResponseData redeem(SerialRedeemRequest req) {
+        return serialService.redeemSerial(req);
+    }
+}
@@ -0,0 +1,41 @@
+package com.serial.service.redeem;
+
+import com.serial.entity.SerialDetail;
+
+import java.time.LocalDateTime;
+
+/**
+ * 核銷規則：依序號目前的狀態與有效期間，判斷能否核銷以及失敗原因。
+ *
+ * <p>所有核銷路徑（單筆、條件式更新、批次）共用同一套判斷順序與訊息：</p>
+ * <ol>
+ *   <li>已核銷 → 「此序號已經被核銷使用」</li>
+ *   <li>已註銷 → 「此序號已被註銷，無法核銷」</li>
+ *   <li>早於生效日 → 「此序號尚未生效」</li>
+ *   <li>晚於失效日 → 「此序號已過期」</li>
+ * </ol>
+ */
+public final class RedeemRules {
+
+    /** 序號不存在時的訊息 */
+    public static final String NOT_FOUND = "此序號不存在";
+
+    private RedeemRules() {}
+
+    /**
+     * 取得核銷失敗原因。
+     *
+     * @param status    序號狀態
+     * @param startDate 序號生效日
+     * @param endDate   序號失效日
+     * @param now       核銷時間
+     * @return 失敗訊息；可核銷時回傳 null
+     */
+    public static String failureReason(int status, LocalDateTime startDate, LocalDateTime endDate, LocalDateTime now) {
+        if (status == SerialDetail.STATUS_USED) return "此序號已經被核銷使用";
+        if (status == SerialDetail.STATUS_CANCELLED) return "此序號已被註銷，無法核銷";
+        if (now.isBefore(startDate)) return "此序號尚未生效";
+        if (now.isAfter(endDate)) return "此序號已過期";
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.serial.service.redeem;
+
+import com.serial.dto.response.SerialRedeemResponseData;
+import com.serial.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 同一序號的核銷合併（Single-Flight）。
+ *
+ * <p>序號外流到社群時，數百個請求會同時核銷同一個 {@code content}：每個請求都拿著一條
+ * Hikari 連線排隊等同一個 UPDLOCK，熱門序號會把連線池耗盡，連帶拖垮其他序號的核銷。</p>
+ *
+ * <p>此元件讓同一時間、同一序號只有一個請求（leader）進入資料庫；
+ * 其餘請求（follower）在虛擬執行緒上等待 leader 的結果，不佔用連線：</p>
+ * <ul>
+ *   <li>leader 核銷成功 → follower 回覆「此序號已經被核銷使用」（序號只能被核銷一次）</li>
+ *   <li>leader 因業務規則失敗（不存在、已註銷、尚未生效、已過期，即 {@link BusinessException}）→
+ *       follower 收到相同訊息的業務例外（每個 follower 各自一個新的例外物件）</li>
+ *   <li>leader 因系統或暫時性錯誤失敗（鎖定逾時、死結犧牲者、連線池逾時等）→ 結果與序號無關，
+ *       follower 重新競爭：成為新的 leader 自行核銷，或加入下一輪進行中的核銷</li>
+ * </ul>
+ *
+ * <p>進行中的序號放在 {@link ConcurrentHashMap}，其以 bin 為單位加鎖，
+ * 不同序號之間不會互相阻塞；leader 結束後立即移除，不保留歷史結果。</p>
+ *
+ * <p>指標：{@code serial.redeem.singleflight.coalesced}（被合併、未進資料庫的請求數）。</p>
+ */
+@Component
+public class RedeemSingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<SerialRedeemResponseData>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter coalescedCounter;
+
+    public RedeemSingleFlight(MeterRegistry meterRegistry) {
+        this.coalescedCounter = Counter.builder("serial.redeem.singleflight.coalesced")
+                .description("與進行中的同序號核銷合併、未進資料庫的請求數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 核銷指定序號；同一序號已有進行中的核銷時，等待其結果。
+     *
+     * @param content 8 碼大寫序號
+     * @param action  實際進入資料庫的核銷動作（只有 leader 會執行）
+     * @return 核銷結果（只有 leader 會成功）
+     */
+    public SerialRedeemResponseData redeem(String content, Supplier<SerialRedeemResponseData> action) {
+        CompletableFuture<SerialRedeemResponseData> mine = new CompletableFuture<>();
+        CompletableFuture<SerialRedeemResponseData> leader;
+        while ((leader = inFlight.putIfAbsent(content, mine)) != null) {
+            coalescedCounter.increment();
+            try {
+                leader.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof BusinessException cause) throw new BusinessException(cause.getMessage());
+                // 系統錯誤不代表序號的狀態：重新競爭，leader 已從 inFlight 移除
+                continue;
+            }
+            // leader 已經核銷成功，同一序號不可能再核銷一次
+            throw new BusinessException("此序號已經被核銷使用");
+        }
+
+        // 先移除再通知 follower：重新競爭的 follower 不會再拿到這個已結束的 leader
+        SerialRedeemResponseData result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(content, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(content, mine);
+        mine.complete(result);
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package com.serial.service.redeem;
+
+import com.serial.dto.request.SerialRedeemRequest;
+import com.serial.dto.response.SerialRedeemResponseData;
+
+/**
+ * 核銷策略：負責在資料庫中把一個未核銷序號標記為已核銷。
+ *
+ * <p>{@link com.serial.service.SerialRedeemService} 只負責前置判斷，
+ * 如何鎖定與更新序號由實作類別決定。透過設定 {@code serial.redeem.strategy} 選擇實作：</p>
+ * <ul>
+ *   <li>{@code locking}（預設）：{@link LockingRedeemStrategy}，{@code SELECT ... WITH (UPDLOCK)} 後在 Java 驗證再更新</li>
+ *   <li>{@code conditional-update}：{@link ConditionalUpdateRedeemStrategy}，單一條件式 {@code UPDATE ... OUTPUT}</li>
+ *   <li>{@code group-commit}：{@link GroupCommitRedeemStrategy}，合併同時到達的請求，整批一個敘述核銷</li>
+ * </ul>
+ *
+ * <p>兩種實作的失敗原因與訊息必須一致（見 {@link RedeemRules}）。</p>
+ */
+public interface RedeemStrategy {
+
+    /**
+     * 策略名稱，作為指標的 {@code strategy} 標籤。
+     */
+    String name();
+
+    /**
+     * 核銷指定序號。
+     *
+     * @param req 請求參數（8 碼序號內容）
+     * @return 序號內容與核銷時間
+     * @throws com.serial.exception.BusinessException 序號不存在、已核銷、已註銷、尚未生效或已過期
+     */
+    SerialRedeemResponseData redeem(SerialRedeemRequest req);
+}
@@ -28,6 +28,7 @@ CREATE TABLE serial_detail (
     end_date           DATETIME NOT NULL,
     created_at         DATETIME DEFAULT GETDATE(),
     updated_at         DATETIME NULL,
+    row_version        ROWVERSION NOT NULL,
 
     CONSTRAINT UQ_SerialContent UNIQUE (content),
     CONSTRAINT FK_serial_detail_activity
@@ -39,18 +40,180 @@ CREATE INDEX IX_serial_detail_activity_id ON serial_detail(serial_activity_id);
 CREATE INDEX IX_serial_detail_status ON serial_detail(status);
 CREATE INDEX IX_serial_detail_dates ON serial_detail(start_date, end_date);
 CREATE INDEX IX_serial_detail_content ON serial_detail(content);
+-- 已發行序號索引的增量同步浮水印（新增與每次更新都會改變，見 IssuedCodeScanner）
+CREATE INDEX IX_serial_detail_row_version ON serial_detail(row_version) INCLUDE (content);
+
+-- 一組序號的資料表值參數型別（排重、批次核銷 / 註銷以單一參數傳入整組序號）
+CREATE TYPE dbo.SerialContentList AS TABLE (
+    content NVARCHAR(8) NOT NULL PRIMARY KEY
+);
+
+-- request / response 以文字儲存；serial.log.body-storage=deflate 時改存壓縮格式的 request_z / response_z
+-- （見 LogBodyCodec），文字欄位為 NULL。
+-- serial_log 依 request_at 每月一個分割區（RANGE RIGHT：每個邊界值是該月的第一天）。
+-- 之後月份的邊界由 SerialLogPartitionService 預先建立；過期的月份以 SWITCH 移到
+-- serial_log_archive_stage、封存成壓縮檔後 MERGE 掉，不逐列 DELETE。
+CREATE PARTITION FUNCTION PF_serial_log_month (DATETIME)
+    AS RANGE RIGHT FOR VALUES ('20260101');
+
+CREATE PARTITION SCHEME PS_serial_log_month
+    AS PARTITION PF_serial_log_month ALL TO ([PRIMARY]);
 
 CREATE TABLE serial_log (
-    id          INT IDENTITY(1,1) PRIMARY KEY,
+    id          INT IDENTITY(1,1) NOT NULL,
+    api_name    NVARCHAR(100) NOT NULL,
+    host        NVARCHAR(50) NOT NULL,
+    api         NVARCHAR(255) NOT NULL,
+    request     NVARCHAR(MAX) NULL,
+    request_at  DATETIME NOT NULL,
+    response    NVARCHAR(MAX) NULL,
+    response_at DATETIME NULL,
+    created_at  DATETIME DEFAULT GETDATE(),
+    request_z   VARBINARY(MAX) NULL,
+    response_z  VARBINARY(MAX) NULL,
+
+    -- 分割資料行必須是叢集索引鍵的一部分，所有索引都與分割區對齊才能 SWITCH
+    CONSTRAINT PK_serial_log PRIMARY KEY CLUSTERED (id, request_at)
+) ON PS_serial_log_month(request_at);
+
+CREATE INDEX IX_serial_log_request_at ON serial_log(request_at) ON PS_serial_log_month(request_at);
+CREATE INDEX IX_serial_log_api_name ON serial_log(api_name) ON PS_serial_log_month(request_at);
+
+-- SWITCH 的目標：結構與索引必須與 serial_log 相同、位於同一個檔案群組
+CREATE TABLE serial_log_archive_stage (
+    id          INT IDENTITY(1,1) NOT NULL,
     api_name    NVARCHAR(100) NOT NULL,
     host        NVARCHAR(50) NOT NULL,
     api         NVARCHAR(255) NOT NULL,
-    request     NVARCHAR(MAX) NOT NULL,
+    request     NVARCHAR(MAX) NULL,
     request_at  DATETIME NOT NULL,
     response    NVARCHAR(MAX) NULL,
     response_at DATETIME NULL,
-    created_at  DATETIME DEFAULT GETDATE()
+    created_at  DATETIME DEFAULT GETDATE(),
+    request_z   VARBINARY(MAX) NULL,
+    response_z  VARBINARY(MAX) NULL,
+
+    CONSTRAINT PK_serial_log_archive_stage PRIMARY KEY CLUSTERED (id, request_at)
+) ON [PRIMARY];
+
+CREATE INDEX IX_serial_log_archive_stage_request_at ON serial_log_archive_stage(request_at);
+CREATE INDEX IX_serial_log_archive_stage_api_name ON serial_log_archive_stage(api_name);
+
+-- 本機日誌檔（serial.log.sink=journal）載入 serial_log 的進度，與載入的日誌在同一個交易中更新
+CREATE TABLE serial_log_journal_checkpoint (
+    journal    NVARCHAR(100) NOT NULL PRIMARY KEY,
+    segment    BIGINT NOT NULL,
+    position   INT NOT NULL,
+    updated_at DATETIME DEFAULT GETDATE()
+);
+
+-- ============================================================
+-- 序號配發器（serial.allocator.type=permutation 時使用）
+-- ============================================================
+
+CREATE TABLE serial_sequence (
+    name       NVARCHAR(50) NOT NULL PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+INSERT INTO serial_sequence (name, next_value) VALUES ('serial_code', 0);
+
+CREATE TABLE serial_allocator_skip (
+    position BIGINT NOT NULL PRIMARY KEY
+);
+
+-- ============================================================
+-- 非同步序號產生工作
+-- ============================================================
+
+CREATE TABLE serial_generation_job (
+    id                 INT IDENTITY(1,1) PRIMARY KEY,
+    job_type           NVARCHAR(20) NOT NULL,
+    serial_activity_id INT NOT NULL,
+    quota              INT NOT NULL,
+    generated          INT NOT NULL DEFAULT 0,
+    chunk_size         INT NOT NULL,
+    note               NVARCHAR(MAX) NULL,
+    start_date         DATETIME NOT NULL,
+    end_date           DATETIME NOT NULL,
+    status             INT NOT NULL DEFAULT 0,
+    error_message      NVARCHAR(1000) NULL,
+    created_at         DATETIME DEFAULT GETDATE(),
+    updated_at         DATETIME NULL,
+    finished_at        DATETIME NULL,
+
+    CONSTRAINT FK_serial_generation_job_activity
+        FOREIGN KEY (serial_activity_id)
+        REFERENCES serial_activity(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IX_serial_generation_job_status ON serial_generation_job(status);
+
+-- ============================================================
+-- 預先產生序號庫存（serial.reservoir.enabled=true 時使用）
+-- ============================================================
+
+CREATE TABLE serial_reservoir (
+    id         BIGINT IDENTITY(1,1) PRIMARY KEY,
+    content    NVARCHAR(8) NOT NULL,
+    created_at DATETIME DEFAULT GETDATE(),
+
+    CONSTRAINT UQ_serial_reservoir_content UNIQUE (content)
+);
+
+-- ============================================================
+-- 大量序號狀態變更工作（依活動或發行時間區間註銷）
+-- ============================================================
+
+CREATE TABLE serial_status_job (
+    id                 INT IDENTITY(1,1) PRIMARY KEY,
+    job_type           NVARCHAR(20) NOT NULL,
+    serial_activity_id INT NULL,
+    created_from       DATETIME NULL,
+    created_to         DATETIME NULL,
+    note               NVARCHAR(MAX) NULL,
+    batch_size         INT NOT NULL,
+    max_id             INT NOT NULL,
+    last_id            INT NOT NULL DEFAULT 0,
+    total              INT NULL,
+    affected           INT NOT NULL DEFAULT 0,
+    status             INT NOT NULL DEFAULT 0,
+    error_message      NVARCHAR(1000) NULL,
+    created_at         DATETIME DEFAULT GETDATE(),
+    updated_at         DATETIME NULL,
+    finished_at        DATETIME NULL,
+
+    CONSTRAINT FK_serial_status_job_activity
+        FOREIGN KEY (serial_activity_id)
+        REFERENCES serial_activity(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IX_serial_status_job_status ON serial_status_job(status);
+
+-- ============================================================
+-- 後台 CSV 匯出工作（狀態存在資料庫，檔案寫在共用的匯出目錄）
+-- ============================================================
+
+CREATE TABLE serial_export_job (
+    id                 NVARCHAR(36) NOT NULL PRIMARY KEY,
+    filter_key         NVARCHAR(64) NOT NULL,
+    keyword            NVARCHAR(MAX) NULL,
+    content            NVARCHAR(MAX) NULL,
+    filter_status      INT NULL,
+    date_start         NVARCHAR(MAX) NULL,
+    date_end           NVARCHAR(MAX) NULL,
+    max_id             INT NOT NULL,
+    data_version       BIGINT NOT NULL,
+    host               NVARCHAR(100) NOT NULL,
+    status             INT NOT NULL DEFAULT 0,
+    row_count          BIGINT NULL,
+    file_size          BIGINT NULL,
+    error_message      NVARCHAR(1000) NULL,
+    created_at         DATETIME DEFAULT GETDATE(),
+    updated_at         DATETIME NULL,
+    touched_at         DATETIME NULL,
+    finished_at        DATETIME NULL
 );
 
-CREATE INDEX IX_serial_log_request_at ON serial_log(request_at);
-CREATE INDEX IX_serial_log_api_name ON serial_log(api_name);
+CREATE INDEX IX_serial_export_job_filter_key ON serial_export_job(filter_key);
+CREATE INDEX IX_serial_export_job_status ON serial_export_job(status);
@@ -0,0 +1,121 @@
+package com.serial.benchmark;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import com.serial.service.SerialExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 後台 CSV 匯出基準測試：匯出管線的吞吐量與記憶體用量。
+ *
+ * <p>對每個筆數（{@code serial.benchmark.admin-export.rows}，預設 1000000、10000000）
+ * 以無條件搜尋匯出 id 最新的該筆數（{@link NewestRowsExportRepository}）到只計算字元數的輸出
+ * （不含網路與磁碟），輸出：</p>
+ * <ul>
+ *   <li>耗時、每秒筆數、每秒 MB（以字元數計算）</li>
+ *   <li>匯出期間 heap 各區的峰值總和（{@link MemoryPoolMXBean#getPeakUsage()}，開始前重設）：
+ *       匯出筆數增加十倍時峰值應大致不變</li>
+ * </ul>
+ *
+ * <p>資料量不足時實際匯出的筆數會少於標稱筆數（輸出中會標示）。連線到 {@code application.properties}
+ * 設定的資料庫，只讀取資料；建議在測試環境執行：</p>
+ * <pre>{@code
+ * mvn test -Dtest=AdminExportBenchmark -Dserial.benchmark=true
+ * }</pre>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EnabledIfSystemProperty(named = "serial.benchmark", matches = "true")
+class AdminExportBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminExportBenchmark.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 標稱匯出筆數 */
+    @Value("${serial.benchmark.admin-export.rows:1000000,10000000}")
+    private long[] rows;
+
+    /** 每段讀取的筆數（與應用程式設定相同） */
+    @Value("${serial.admin.export.chunk-size:5000}")
+    private int chunkSize;
+
+    @Test
+    void measureThroughputAndPeakHeap() throws IOException {
+        log.info("[AdminExportBenchmark] 開始：筆數 {}", Arrays.toString(rows));
+
+        // 暖機（連線、執行計畫、JIT），不列入統計
+        exportService(50_000).export(SerialSearchFilter.NONE, new CountingWriter());
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+
+        for (long target : rows) {
+            System.gc();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            SerialExportService exportService = exportService(target);
+            CountingWriter out = new CountingWriter();
+            long begin = System.nanoTime();
+            long exported = exportService.export(SerialSearchFilter.NONE, out);
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            log.info("[AdminExportBenchmark] rows={}{} 耗時 {} s，{} 筆/s，{} MB/s，heap 峰值 {} MB",
+                    exported, exported < target ? "（資料不足 " + target + " 筆）" : "",
+                    String.format("%.1f", seconds),
+                    String.format("%.0f", exported / seconds),
+                    String.format("%.1f", out.chars / seconds / 1024 / 1024),
+                    peakHeap / 1024 / 1024);
+        }
+        log.info("[AdminExportBenchmark] 完成");
+    }
+
+    /** 只匯出 id 最新的 {@code rows} 筆的匯出服務 */
+    private SerialExportService exportService(long rows) {
+        return new SerialExportService(new NewestRowsExportRepository(jdbcTemplate, rows),
+                new SimpleMeterRegistry(), chunkSize, 20_000, 1, 1, 2);
+    }
+
+    /** 只計算字元數的輸出 */
+    private static final class CountingWriter extends Writer {
+
+        private long chars;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            chars += length;
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            chars += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
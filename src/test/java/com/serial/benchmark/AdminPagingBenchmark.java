@@ -0,0 +1,116 @@
+package com.serial.benchmark;
+
+import com.serial.entity.SerialDetail;
+import com.serial.repository.SerialDetailSearchRepository;
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 後台列表分頁基準測試：{@code OFFSET} 分頁與 keyset（{@code id < 游標}）分頁的比較。
+ *
+ * <p>對每個頁數（{@code serial.benchmark.admin-paging.pages}，預設第 1、1000、100000 頁，每頁 15 筆）
+ * 各執行數次，輸出兩種方式讀取該頁的平均、p50、p99 延遲（毫秒）。keyset 的游標（該頁前一筆的 id）
+ * 在計時前先查出，模擬使用者一路翻頁到該頁時手上的游標。資料量不足的頁數會略過。</p>
+ *
+ * <p>預期 {@code OFFSET} 的延遲隨頁數線性增加（需要掃過並捨棄前面所有的資料列），keyset 則大致持平。</p>
+ *
+ * <p>連線到 {@code application.properties} 設定的資料庫，只讀取資料，不修改任何資料；建議在測試環境執行：</p>
+ * <pre>{@code
+ * mvn test -Dtest=AdminPagingBenchmark -Dserial.benchmark=true
+ * }</pre>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EnabledIfSystemProperty(named = "serial.benchmark", matches = "true")
+class AdminPagingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminPagingBenchmark.class);
+
+    private static final int PAGE_SIZE = 15;
+
+    private static final String CURSOR_SQL = "SELECT id FROM serial_detail ORDER BY id DESC OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY";
+
+    /** 舊做法：與列表頁相同的查詢（含活動），以 {@code OFFSET} 跳過前面的頁數 */
+    private static final String OFFSET_JPQL =
+            "SELECT d FROM SerialDetail d JOIN FETCH d.serialActivity ORDER BY d.id DESC";
+
+    @Autowired
+    private SerialDetailSearchRepository searchRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /** 要比較的頁數（從 1 開始） */
+    @Value("${serial.benchmark.admin-paging.pages:1,1000,100000}")
+    private int[] pages;
+
+    /** 每個頁數、每種方式的執行次數 */
+    @Value("${serial.benchmark.admin-paging.iterations:10}")
+    private int iterations;
+
+    @Test
+    void compareOffsetWithKeyset() {
+        long total = searchRepo.count(SerialSearchFilter.NONE);
+        log.info("[AdminPagingBenchmark] 開始：共 {} 筆，頁數 {}，每種方式各 {} 次", total, Arrays.toString(pages), iterations);
+
+        for (int page : pages) {
+            long offset = (long) (page - 1) * PAGE_SIZE;
+            if (offset >= total || offset > Integer.MAX_VALUE) {
+                log.info("[AdminPagingBenchmark] page={} 超過資料量，略過", page);
+                continue;
+            }
+
+            // 第 1 頁沒有游標；其他頁的游標為前一頁最後一筆的 id
+            Integer cursor = page == 1 ? null : jdbcTemplate.queryForObject(CURSOR_SQL, Integer.class, offset - 1);
+
+            // 先各執行一次暖機（連線、執行計畫），不列入統計
+            findByOffset((int) offset);
+            searchRepo.findOlder(SerialSearchFilter.NONE, cursor, PAGE_SIZE);
+
+            report("offset", page, () -> findByOffset((int) offset));
+            report("keyset", page, () -> searchRepo.findOlder(SerialSearchFilter.NONE, cursor, PAGE_SIZE));
+        }
+        log.info("[AdminPagingBenchmark] 完成");
+    }
+
+    /** 以 {@code OFFSET} 方式讀取一頁 */
+    private List<SerialDetail> findByOffset(int offset) {
+        return entityManager.createQuery(OFFSET_JPQL, SerialDetail.class)
+                .setFirstResult(offset)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+
+    /** 執行一種方式並輸出延遲 */
+    private void report(String name, int page, Supplier<List<SerialDetail>> query) {
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long begin = System.nanoTime();
+            query.get();
+            nanos[i] = System.nanoTime() - begin;
+        }
+
+        Arrays.sort(nanos);
+        double avg = Arrays.stream(nanos).average().orElse(0) / 1_000_000;
+        double p50 = nanos[nanos.length / 2] / 1_000_000.0;
+        double p99 = nanos[Math.min(nanos.length - 1, (int) Math.ceil(nanos.length * 0.99) - 1)] / 1_000_000.0;
+        log.info("[AdminPagingBenchmark] {} page={} avg={} ms p50={} ms p99={} ms",
+                name, page, String.format("%.2f", avg), String.format("%.2f", p50), String.format("%.2f", p99));
+    }
+}
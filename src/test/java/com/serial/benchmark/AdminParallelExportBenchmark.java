@@ -0,0 +1,130 @@
+package com.serial.benchmark;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import com.serial.service.SerialExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 後台平行 gzip 匯出基準測試：同時讀取的區間數與加速比。
+ *
+ * <p>以無條件搜尋匯出 id 最新的 {@code rows} 筆（預設 1000000，{@link NewestRowsExportRepository}）
+ * 到只計算位元組數的輸出（不含網路與磁碟），
+ * 依序以每個 {@code parallelism}（預設 1,2,4,8,16）各執行 {@code iterations} 次，輸出：</p>
+ * <ul>
+ *   <li>CPU 核心數、連線池大小、平行匯出共用的連線許可數（超過許可數的 parallelism 會被許可數限制）</li>
+ *   <li>每個 parallelism 的平均耗時、每秒筆數、壓縮後大小，以及相對 parallelism=1 的加速比</li>
+ * </ul>
+ *
+ * <p>區間大小與連線許可使用應用程式的設定。連線到 {@code application.properties} 設定的資料庫，
+ * 只讀取資料；建議在測試環境執行：</p>
+ * <pre>{@code
+ * mvn test -Dtest=AdminParallelExportBenchmark -Dserial.benchmark=true
+ * }</pre>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EnabledIfSystemProperty(named = "serial.benchmark", matches = "true")
+class AdminParallelExportBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminParallelExportBenchmark.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 匯出範圍（最新的筆數） */
+    @Value("${serial.benchmark.admin-export-parallel.rows:1000000}")
+    private long rows;
+
+    /** 同時讀取的區間數 */
+    @Value("${serial.benchmark.admin-export-parallel.parallelism:1,2,4,8,16}")
+    private int[] parallelism;
+
+    /** 每個 parallelism 執行的次數 */
+    @Value("${serial.benchmark.admin-export-parallel.iterations:3}")
+    private int iterations;
+
+    @Value("${serial.admin.export.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${serial.admin.export.slice-size:20000}")
+    private int sliceSize;
+
+    @Value("${serial.admin.export.max-connections:4}")
+    private int maxConnections;
+
+    /** 連線池大小 */
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    @Test
+    void measureSpeedupPerParallelism() throws IOException {
+        int connectionLimit = exportService(1, rows).connectionLimit();
+        log.info("[AdminParallelExportBenchmark] 開始：筆數 {}，parallelism {}，各 {} 次；CPU 核心 {}，連線池 {}，匯出連線許可 {}",
+                rows, Arrays.toString(parallelism), iterations,
+                Runtime.getRuntime().availableProcessors(), poolSize, connectionLimit);
+
+        // 暖機（連線、執行計畫、JIT），不列入統計
+        exportService(2, 50_000).exportGzip(SerialSearchFilter.NONE, new CountingOutputStream());
+
+        double baseline = 0;
+        for (int threads : parallelism) {
+            SerialExportService exportService = exportService(threads, rows);
+            long exported = 0;
+            long bytes = 0;
+            long elapsed = 0;
+            for (int i = 0; i < iterations; i++) {
+                CountingOutputStream out = new CountingOutputStream();
+                long begin = System.nanoTime();
+                exported = exportService.exportGzip(SerialSearchFilter.NONE, out);
+                elapsed += System.nanoTime() - begin;
+                bytes = out.bytes;
+            }
+            double seconds = elapsed / 1_000_000_000.0 / iterations;
+            if (baseline == 0) baseline = seconds;
+
+            log.info("[AdminParallelExportBenchmark] parallelism={}{} rows={} 平均 {} s，{} 筆/s，gzip {} MB，加速比 {}x",
+                    threads, threads > connectionLimit ? "（受連線許可限制）" : "",
+                    exported,
+                    String.format("%.2f", seconds),
+                    String.format("%.0f", exported / seconds),
+                    String.format("%.1f", bytes / 1024.0 / 1024),
+                    String.format("%.2f", baseline / seconds));
+        }
+        log.info("[AdminParallelExportBenchmark] 完成");
+    }
+
+    /** 指定同時讀取的區間數、只匯出 id 最新的 {@code rows} 筆的匯出服務 */
+    private SerialExportService exportService(int threads, long rows) {
+        return new SerialExportService(new NewestRowsExportRepository(jdbcTemplate, rows),
+                new SimpleMeterRegistry(), chunkSize, sliceSize, threads, maxConnections, poolSize);
+    }
+
+    /** 只計算位元組數的輸出 */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+        }
+    }
+}
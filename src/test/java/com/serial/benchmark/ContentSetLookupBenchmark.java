@@ -0,0 +1,163 @@
+package com.serial.benchmark;
+
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.service.allocator.SerialCodes;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 序號集合查詢基準測試：{@code IN (?, ?, ...)} 清單與資料表值參數（TVP）的比較。
+ *
+ * <p>對每個集合大小（{@code serial.benchmark.set-lookup.sizes}，預設 100、1000、10000）
+ * 各執行數次排重查詢，輸出兩種方式的：</p>
+ * <ul>
+ *   <li>延遲：平均、p50、p99（毫秒）</li>
+ *   <li>執行計畫快取：執行前後 {@code sys.dm_exec_cached_plans} 中對應 SQL 的計畫數與佔用大小
+ *       （需要 {@code VIEW SERVER STATE} 權限，沒有權限時只輸出延遲）</li>
+ * </ul>
+ *
+ * <p>每次的實際集合大小在標稱大小的 90%～100% 之間變動，模擬真實請求的筆數差異：
+ * {@code IN} 清單每一種大小都是新的 SQL 文字（超過 2000 個時需切成多個敘述），TVP 只有一份計畫。
+ * 查詢的序號為隨機產生，絕大多數不存在，量測的是查詢本身的成本。</p>
+ *
+ * <p>連線到 {@code application.properties} 設定的資料庫，只讀取資料，不修改任何資料；建議在測試環境執行：</p>
+ * <pre>{@code
+ * mvn test -Dtest=ContentSetLookupBenchmark -Dserial.benchmark=true
+ * }</pre>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EnabledIfSystemProperty(named = "serial.benchmark", matches = "true")
+class ContentSetLookupBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentSetLookupBenchmark.class);
+
+    /** {@code IN} 清單每個敘述的參數上限（舊做法，低於 SQL Server 的 2100 個參數上限） */
+    private static final int IN_LIST_CHUNK = 2000;
+
+    /** 以 SQL 文字辨識兩種查詢在計畫快取中的項目 */
+    private static final String IN_LIST_MARKER = "/* set-lookup-benchmark */";
+    private static final String TVP_MARKER = "INNER JOIN serial_detail d ON d.content = c.content";
+
+    private static final String PLAN_CACHE_SQL = """
+            SELECT COUNT(*) AS plans, ISNULL(SUM(CAST(p.size_in_bytes AS BIGINT)), 0) AS bytes
+                FROM sys.dm_exec_cached_plans p
+                CROSS APPLY sys.dm_exec_sql_text(p.plan_handle) t
+                WHERE t.text LIKE ? AND t.text NOT LIKE '%dm_exec_cached_plans%'
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SerialDetailJdbcRepository detailJdbcRepo;
+
+    /** 標稱集合大小 */
+    @Value("${serial.benchmark.set-lookup.sizes:100,1000,10000}")
+    private int[] sizes;
+
+    /** 每個大小、每種方式的執行次數 */
+    @Value("${serial.benchmark.set-lookup.iterations:20}")
+    private int iterations;
+
+    @Test
+    void compareInListWithTableValuedParameter() {
+        log.info("[ContentSetLookupBenchmark] 開始：集合大小 {}，每種方式各 {} 次", Arrays.toString(sizes), iterations);
+        Random random = new Random(42);
+
+        for (int size : sizes) {
+            List<Set<String>> sets = new ArrayList<>(iterations);
+            for (int i = 0; i < iterations; i++) {
+                int actual = size - random.nextInt(Math.max(1, size / 10));
+                sets.add(randomCodes(random, actual));
+            }
+
+            // 先各執行一次暖機（連線、型別中繼資料），不列入統計
+            findWithInList(sets.getFirst());
+            detailJdbcRepo.findExistingContents(sets.getFirst());
+
+            report("in-list", size, IN_LIST_MARKER, sets, this::findWithInList);
+            report("tvp", size, TVP_MARKER, sets, detailJdbcRepo::findExistingContents);
+        }
+        log.info("[ContentSetLookupBenchmark] 完成");
+    }
+
+    /** 執行一種方式並輸出延遲與計畫快取的變化 */
+    private void report(String name, int size, String marker, List<Set<String>> sets,
+                        Function<Set<String>, Set<String>> lookup) {
+        PlanCache before = planCache(marker);
+        long[] nanos = new long[sets.size()];
+        for (int i = 0; i < sets.size(); i++) {
+            long begin = System.nanoTime();
+            lookup.apply(sets.get(i));
+            nanos[i] = System.nanoTime() - begin;
+        }
+        PlanCache after = planCache(marker);
+
+        Arrays.sort(nanos);
+        double avg = Arrays.stream(nanos).average().orElse(0) / 1_000_000;
+        double p50 = nanos[nanos.length / 2] / 1_000_000.0;
+        double p99 = nanos[Math.min(nanos.length - 1, (int) Math.ceil(nanos.length * 0.99) - 1)] / 1_000_000.0;
+
+        if (before != null && after != null) {
+            log.info("[ContentSetLookupBenchmark] {} size={} avg={} ms p50={} ms p99={} ms | 計畫數 {} → {}（{} KB → {} KB）",
+                    name, size, String.format("%.2f", avg), String.format("%.2f", p50), String.format("%.2f", p99),
+                    before.plans, after.plans, before.bytes / 1024, after.bytes / 1024);
+        } else {
+            log.info("[ContentSetLookupBenchmark] {} size={} avg={} ms p50={} ms p99={} ms | 計畫快取無法讀取",
+                    name, size, String.format("%.2f", avg), String.format("%.2f", p50), String.format("%.2f", p99));
+        }
+    }
+
+    /** 舊做法：每個序號一個參數，超過 {@value #IN_LIST_CHUNK} 個時切成多個敘述 */
+    private Set<String> findWithInList(Set<String> contents) {
+        List<String> all = new ArrayList<>(contents);
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < all.size(); from += IN_LIST_CHUNK) {
+            List<String> chunk = all.subList(from, Math.min(from + IN_LIST_CHUNK, all.size()));
+            String sql = "SELECT content FROM serial_detail WHERE content IN ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ") " + IN_LIST_MARKER;
+            existing.addAll(jdbcTemplate.queryForList(sql, String.class, chunk.toArray()));
+        }
+        return existing;
+    }
+
+    /** 目前計畫快取中含有指定 SQL 文字的計畫數與大小；沒有權限時為 null */
+    private PlanCache planCache(String marker) {
+        try {
+            Map<String, Object> row = jdbcTemplate.queryForMap(PLAN_CACHE_SQL, "%" + marker + "%");
+            return new PlanCache(((Number) row.get("plans")).longValue(), ((Number) row.get("bytes")).longValue());
+        } catch (Exception e) {
+            log.debug("[ContentSetLookupBenchmark] 無法讀取計畫快取: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Set<String> randomCodes(Random random, int count) {
+        Set<String> codes = new LinkedHashSet<>(count * 2);
+        while (codes.size() < count) {
+            codes.add(SerialCodes.fromIndex(Math.floorMod(random.nextLong(), SerialCodes.KEYSPACE)));
+        }
+        return codes;
+    }
+
+    private record PlanCache(long plans, long bytes) {}
+}
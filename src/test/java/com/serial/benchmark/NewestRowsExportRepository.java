@@ -0,0 +1,40 @@
+package com.serial.benchmark;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import com.serial.repository.SerialExportRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 只讀取 id 最新的 {@code rows} 筆範圍的 {@link SerialExportRepository}（匯出基準測試使用）。
+ *
+ * <p>匯出範圍的下界在建立時查出（由新到舊第 {@code rows + 1} 筆的 id），之後每段讀取都不會低於下界，
+ * 平行模式取得的 id 範圍也從下界之後開始；資料不足 {@code rows} 筆時不限制。</p>
+ */
+class NewestRowsExportRepository extends SerialExportRepository {
+
+    private static final String FLOOR_SQL = "SELECT id FROM serial_detail ORDER BY id DESC OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY";
+
+    /** 匯出範圍的下界（不含） */
+    private final int floorId;
+
+    NewestRowsExportRepository(JdbcTemplate jdbcTemplate, long rows) {
+        super(jdbcTemplate);
+        List<Integer> ids = jdbcTemplate.queryForList(FLOOR_SQL, Integer.class, rows);
+        this.floorId = ids.isEmpty() ? 0 : ids.getFirst();
+    }
+
+    @Override
+    public int readChunk(SerialSearchFilter filter, int afterId, int beforeId, int limit,
+                         Consumer<SerialExportRow> sink) {
+        return super.readChunk(filter, Math.max(afterId, floorId), beforeId, limit, sink);
+    }
+
+    @Override
+    public IdRange idRange() {
+        IdRange range = super.idRange();
+        return new IdRange(Math.max(range.min(), floorId + 1), range.max());
+    }
+}
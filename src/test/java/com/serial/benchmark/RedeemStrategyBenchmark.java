@@ -0,0 +1,210 @@
+package com.serial.benchmark;
+
+import com.serial.dto.request.SerialRedeemRequest;
+import com.serial.repository.SerialDetailBulkWriter;
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.service.SerialService;
+import com.serial.service.allocator.SerialCodes;
+import com.serial.service.redeem.ConditionalUpdateRedeemStrategy;
+import com.serial.service.redeem.GroupCommitRedeemStrategy;
+import com.serial.service.redeem.LockingRedeemStrategy;
+import com.serial.service.redeem.RedeemStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 核銷策略基準測試：悲觀鎖（locking）、條件式更新（conditional-update）與群組提交（group-commit）的比較。
+ *
+ * <p>每個策略各自核銷 {@code serial.benchmark.redeem.requests}（預設 10000）個不同的序號，
+ * 以虛擬執行緒同時送出，同時進行中的請求最多 {@code serial.benchmark.redeem.concurrency}（預設 200，
+ * 模擬同時處理中的 HTTP 請求）。輸出每個請求的 p50、p99、平均延遲（毫秒）與整體吞吐量（筆/s）。
+ * 三個策略直接建立，不經過 {@code serial.redeem.strategy}，群組提交的參數沿用
+ * {@code serial.redeem.group-commit.*}。</p>
+ *
+ * <p>測試前建立一個暫時活動並寫入所需的未使用序號（核銷需要真正 commit，無法 rollback），
+ * 結束後刪除暫時活動與其序號。連線到 {@code application.properties} 設定的資料庫，建議在測試環境執行：</p>
+ * <pre>{@code
+ * mvn test -Dtest=RedeemStrategyBenchmark -Dserial.benchmark=true
+ * }</pre>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EnabledIfSystemProperty(named = "serial.benchmark", matches = "true")
+class RedeemStrategyBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(RedeemStrategyBenchmark.class);
+
+    private static final String INSERT_ACTIVITY_SQL = """
+            INSERT INTO serial_activity (activity_name, activity_unique_id, start_date, end_date, quota)
+                OUTPUT INSERTED.id
+                VALUES (?, ?, ?, ?, ?)
+            """;
+
+    /** 排除既有序號時每次查詢的序號數 */
+    private static final int LOOKUP_BATCH = 10_000;
+
+    /** 每個策略暖機的核銷數（不列入統計） */
+    private static final int WARMUP_REQUESTS = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SerialDetailBulkWriter bulkWriter;
+
+    @Autowired
+    private SerialDetailJdbcRepository detailJdbcRepo;
+
+    @Autowired
+    private SerialService serialService;
+
+    /** 每個策略核銷的序號數 */
+    @Value("${serial.benchmark.redeem.requests:10000}")
+    private int requests;
+
+    /** 同時進行中的核銷請求數上限 */
+    @Value("${serial.benchmark.redeem.concurrency:200}")
+    private int concurrency;
+
+    @Value("${serial.redeem.group-commit.window-ms:2}")
+    private long windowMs;
+
+    @Value("${serial.redeem.group-commit.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${serial.redeem.group-commit.max-in-flight:4}")
+    private int maxInFlight;
+
+    @Test
+    void compareStrategies() throws Exception {
+        GroupCommitRedeemStrategy groupCommit = new GroupCommitRedeemStrategy(detailJdbcRepo, new SimpleMeterRegistry(),
+                windowMs, maxBatchSize, maxInFlight);
+        groupCommit.start();
+        List<RedeemStrategy> strategies = List.of(
+                new LockingRedeemStrategy(serialService),
+                new ConditionalUpdateRedeemStrategy(detailJdbcRepo),
+                groupCommit);
+        log.info("[RedeemStrategyBenchmark] 開始：每個策略 {} 筆，同時進行 {} 筆", requests, concurrency);
+
+        int perStrategy = WARMUP_REQUESTS + requests;
+        List<String> contents = codes(perStrategy * strategies.size());
+        int activityId = createActivity(contents);
+        try {
+            for (int i = 0; i < strategies.size(); i++) {
+                List<String> mine = contents.subList(i * perStrategy, (i + 1) * perStrategy);
+                RedeemStrategy strategy = strategies.get(i);
+                run(strategy, mine.subList(0, WARMUP_REQUESTS));
+                report(strategy.name(), run(strategy, mine.subList(WARMUP_REQUESTS, perStrategy)));
+            }
+        } finally {
+            groupCommit.stop();
+            jdbcTemplate.update("DELETE FROM serial_detail WHERE serial_activity_id = ?", activityId);
+            jdbcTemplate.update("DELETE FROM serial_activity WHERE id = ?", activityId);
+        }
+        log.info("[RedeemStrategyBenchmark] 完成");
+    }
+
+    /** 同時核銷所有序號，回傳每個請求的延遲與整體耗時 */
+    private Result run(RedeemStrategy strategy, List<String> contents) throws InterruptedException {
+        long[] nanos = new long[contents.size()];
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore slots = new Semaphore(concurrency);
+
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < contents.size(); i++) {
+                int index = i;
+                slots.acquire();
+                executor.execute(() -> {
+                    SerialRedeemRequest req = new SerialRedeemRequest();
+                    req.setContent(contents.get(index));
+                    long start = System.nanoTime();
+                    try {
+                        strategy.redeem(req);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        nanos[index] = System.nanoTime() - start;
+                        slots.release();
+                    }
+                });
+            }
+        }
+        return new Result(nanos, System.nanoTime() - begin, failures.get());
+    }
+
+    private void report(String name, Result result) {
+        long[] nanos = result.nanos().clone();
+        Arrays.sort(nanos);
+        double avg = Arrays.stream(nanos).average().orElse(0) / 1_000_000.0;
+        double p50 = nanos[nanos.length / 2] / 1_000_000.0;
+        double p99 = nanos[Math.min(nanos.length - 1, (int) Math.ceil(nanos.length * 0.99) - 1)] / 1_000_000.0;
+        double seconds = result.elapsedNanos() / 1_000_000_000.0;
+        log.info("[RedeemStrategyBenchmark] {} requests={} avg={} ms p50={} ms p99={} ms 吞吐量 {} 筆/s 失敗 {} 筆",
+                name, nanos.length, String.format("%.2f", avg), String.format("%.2f", p50), String.format("%.2f", p99),
+                String.format("%.0f", nanos.length / seconds), result.failures());
+    }
+
+    /** 建立暫時活動並寫入未使用的序號（commit，核銷需要看得到） */
+    private int createActivity(List<String> contents) {
+        Integer activityId = transactionTemplate.execute(status -> {
+            LocalDateTime start = LocalDateTime.now().withNano(0).minusMinutes(1);
+            LocalDateTime end = start.plusDays(30);
+            Integer id = jdbcTemplate.queryForObject(INSERT_ACTIVITY_SQL, Integer.class,
+                    "benchmark", "benchmark-" + UUID.randomUUID(), start, end, contents.size());
+            bulkWriter.write(id, contents, null, start, end);
+            return id;
+        });
+        return activityId != null ? activityId : 0;
+    }
+
+    /** 不重複、且資料庫中不存在的隨機序號（{@code content} 有唯一約束） */
+    private List<String> codes(int count) {
+        Random random = new Random(count);
+        Set<String> codes = new LinkedHashSet<>(count * 2);
+        while (codes.size() < count) {
+            Set<String> batch = new LinkedHashSet<>();
+            while (batch.size() < Math.min(LOOKUP_BATCH, count - codes.size())) {
+                String code = SerialCodes.fromIndex(Math.floorMod(random.nextLong(), SerialCodes.KEYSPACE));
+                if (!codes.contains(code)) batch.add(code);
+            }
+            batch.removeAll(detailJdbcRepo.findExistingContents(batch));
+            codes.addAll(batch);
+        }
+        return new ArrayList<>(codes);
+    }
+
+    /**
+     * 一個策略的執行結果。
+     *
+     * @param nanos        每個請求的延遲（奈秒）
+     * @param elapsedNanos 全部請求的整體耗時
+     * @param failures     失敗的請求數
+     */
+    private record Result(long[] nanos, long elapsedNanos, int failures) {}
+}
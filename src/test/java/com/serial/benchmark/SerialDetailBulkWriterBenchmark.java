@@ -0,0 +1,175 @@
+package com.serial.benchmark;
+
+import com.serial.entity.SerialActivity;
+import com.serial.entity.SerialDetail;
+import com.serial.repository.SerialDetailBulkWriter;
+import com.serial.repository.SerialDetailJdbcRepository;
+import com.serial.repository.SerialDetailRepository;
+import com.serial.service.allocator.SerialCodes;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 序號大量寫入基準測試：Bulk Copy、多列 INSERT 與 JPA {@code saveAll}（舊做法）的比較。
+ *
+ * <p>對每個筆數（{@code serial.benchmark.bulk-insert.rows}，預設 10000、100000、1000000）
+ * 依序以三種方式寫入同一個暫時活動，輸出耗時與每秒筆數。{@code saveAll} 每筆序號一次來回，
+ * 超過 {@code serial.benchmark.bulk-insert.jpa-max-rows}（預設 100000）的筆數略過。</p>
+ *
+ * <p>每次寫入（含暫時活動）都在一個交易中進行並在計時後 rollback，不會留下資料；
+ * rollback 的時間不列入統計。連線到 {@code application.properties} 設定的資料庫，建議在測試環境執行：</p>
+ * <pre>{@code
+ * mvn test -Dtest=SerialDetailBulkWriterBenchmark -Dserial.benchmark=true
+ * }</pre>
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EnabledIfSystemProperty(named = "serial.benchmark", matches = "true")
+class SerialDetailBulkWriterBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialDetailBulkWriterBenchmark.class);
+
+    private static final String INSERT_ACTIVITY_SQL = """
+            INSERT INTO serial_activity (activity_name, activity_unique_id, start_date, end_date, quota)
+                OUTPUT INSERTED.id
+                VALUES (?, ?, ?, ?, ?)
+            """;
+
+    /** 排除既有序號時每次查詢的序號數 */
+    private static final int LOOKUP_BATCH = 10_000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SerialDetailRepository detailRepo;
+
+    @Autowired
+    private SerialDetailJdbcRepository detailJdbcRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /** 寫入筆數 */
+    @Value("${serial.benchmark.bulk-insert.rows:10000,100000,1000000}")
+    private int[] rows;
+
+    /** JPA {@code saveAll} 執行的筆數上限 */
+    @Value("${serial.benchmark.bulk-insert.jpa-max-rows:100000}")
+    private int jpaMaxRows;
+
+    @Test
+    void compareWriteModes() {
+        SerialDetailBulkWriter bulkCopy = new SerialDetailBulkWriter(dataSource, jdbcTemplate, "bulk-copy");
+        SerialDetailBulkWriter multiRow = new SerialDetailBulkWriter(dataSource, jdbcTemplate, "multi-row");
+        log.info("[SerialDetailBulkWriterBenchmark] 開始：筆數 {}，saveAll 上限 {}", Arrays.toString(rows), jpaMaxRows);
+
+        // 暖機（連線、執行計畫、JIT），不列入統計
+        List<String> warmup = codes(1_000);
+        measure(warmup, (activity, contents, start, end) -> bulkCopy.write(activity.getId(), contents, null, start, end));
+        measure(warmup, (activity, contents, start, end) -> multiRow.write(activity.getId(), contents, null, start, end));
+
+        for (int size : rows) {
+            List<String> contents = codes(size);
+            report("bulk-copy", size, measure(contents,
+                    (activity, c, start, end) -> bulkCopy.write(activity.getId(), c, null, start, end)));
+            report("multi-row", size, measure(contents,
+                    (activity, c, start, end) -> multiRow.write(activity.getId(), c, null, start, end)));
+            if (size <= jpaMaxRows) {
+                report("jpa-save-all", size, measure(contents, this::saveAll));
+            } else {
+                log.info("[SerialDetailBulkWriterBenchmark] jpa-save-all rows={} 超過 saveAll 上限，略過", size);
+            }
+        }
+        log.info("[SerialDetailBulkWriterBenchmark] 完成");
+    }
+
+    /** 在交易中建立暫時活動並寫入，回傳寫入耗時（奈秒）；結束後 rollback */
+    private long measure(List<String> contents, Write write) {
+        Long elapsed = transactionTemplate.execute(status -> {
+            LocalDateTime start = LocalDateTime.now().withNano(0);
+            LocalDateTime end = start.plusDays(30);
+            Integer activityId = jdbcTemplate.queryForObject(INSERT_ACTIVITY_SQL, Integer.class,
+                    "benchmark", "benchmark-" + UUID.randomUUID(), start, end, contents.size());
+            SerialActivity activity = entityManager.getReference(SerialActivity.class, activityId);
+
+            long begin = System.nanoTime();
+            write.write(activity, contents, start, end);
+            long nanos = System.nanoTime() - begin;
+
+            status.setRollbackOnly();
+            return nanos;
+        });
+        return elapsed != null ? elapsed : 0;
+    }
+
+    /** 舊做法：逐筆建立 Entity 後 {@code saveAll}（IDENTITY 主鍵，每筆一次來回） */
+    private void saveAll(SerialActivity activity, List<String> contents, LocalDateTime start, LocalDateTime end) {
+        List<SerialDetail> details = new ArrayList<>(contents.size());
+        for (String content : contents) {
+            SerialDetail detail = new SerialDetail();
+            detail.setSerialActivity(activity);
+            detail.setContent(content);
+            detail.setStatus(SerialDetail.STATUS_UNUSED);
+            detail.setStartDate(start);
+            detail.setEndDate(end);
+            details.add(detail);
+        }
+        detailRepo.saveAll(details);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static void report(String name, int size, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        log.info("[SerialDetailBulkWriterBenchmark] {} rows={} 耗時 {} s，{} 筆/s",
+                name, size, String.format("%.2f", seconds), String.format("%.0f", size / seconds));
+    }
+
+    /** 不重複、且資料庫中不存在的隨機序號（{@code content} 有唯一約束） */
+    private List<String> codes(int count) {
+        Random random = new Random(count);
+        Set<String> codes = new LinkedHashSet<>(count * 2);
+        while (codes.size() < count) {
+            Set<String> batch = new LinkedHashSet<>();
+            while (batch.size() < Math.min(LOOKUP_BATCH, count - codes.size())) {
+                String code = SerialCodes.fromIndex(Math.floorMod(random.nextLong(), SerialCodes.KEYSPACE));
+                if (!codes.contains(code)) batch.add(code);
+            }
+            batch.removeAll(detailJdbcRepo.findExistingContents(batch));
+            codes.addAll(batch);
+        }
+        return new ArrayList<>(codes);
+    }
+
+    /** 一種寫入方式 */
+    @FunctionalInterface
+    private interface Write {
+        void write(SerialActivity activity, List<String> contents, LocalDateTime start, LocalDateTime end);
+    }
+}
@@ -0,0 +1,88 @@
+package com.serial.controller.admin;
+
+import com.serial.repository.SerialDetailSearchRepository.SerialSearchFilter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SerialListCursorTest {
+
+    private static final SerialSearchFilter FILTER =
+            new SerialSearchFilter("spring", "a0001234", 0, "2025-01-01", "2025-12-31");
+
+    @Test
+    void decodesItsOwnCursor() {
+        assertThat(SerialListCursor.decode(SerialListCursor.encode(12_345, FILTER), FILTER)).isEqualTo(12_345);
+        assertThat(SerialListCursor.decode(SerialListCursor.encode(0, SerialSearchFilter.NONE), SerialSearchFilter.NONE))
+                .isZero();
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        assertThat(SerialListCursor.encode(Integer.MAX_VALUE, FILTER)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void equivalentFiltersShareCursors() {
+        String cursor = SerialListCursor.encode(42, FILTER);
+        SerialSearchFilter sameAfterNormalization =
+                new SerialSearchFilter("spring", "  A0001234 ", 0, "2025-01-01", "2025-12-31");
+        assertThat(SerialListCursor.decode(cursor, sameAfterNormalization)).isEqualTo(42);
+
+        String noFilter = SerialListCursor.encode(7, new SerialSearchFilter(" ", "", null, null, ""));
+        assertThat(SerialListCursor.decode(noFilter, SerialSearchFilter.NONE)).isEqualTo(7);
+    }
+
+    @Test
+    void changedFilterInvalidatesCursor() {
+        String cursor = SerialListCursor.encode(42, FILTER);
+
+        assertThat(SerialListCursor.decode(cursor, SerialSearchFilter.NONE)).isNull();
+        assertThat(SerialListCursor.decode(cursor,
+                new SerialSearchFilter("summer", "a0001234", 0, "2025-01-01", "2025-12-31"))).isNull();
+        assertThat(SerialListCursor.decode(cursor,
+                new SerialSearchFilter("spring", "a0001235", 0, "2025-01-01", "2025-12-31"))).isNull();
+        assertThat(SerialListCursor.decode(cursor,
+                new SerialSearchFilter("spring", "a0001234", 1, "2025-01-01", "2025-12-31"))).isNull();
+        assertThat(SerialListCursor.decode(cursor,
+                new SerialSearchFilter("spring", "a0001234", 0, "2025-01-02", "2025-12-31"))).isNull();
+        assertThat(SerialListCursor.decode(cursor,
+                new SerialSearchFilter("spring", "a0001234", 0, "2025-01-01", null))).isNull();
+    }
+
+    @Test
+    void fieldsDoNotBleedIntoEachOther() {
+        // 同一段文字落在不同欄位時，指紋必須不同
+        SerialSearchFilter asKeyword = new SerialSearchFilter("A0001234", null, null, null, null);
+        SerialSearchFilter asContent = new SerialSearchFilter(null, "A0001234", null, null, null);
+
+        assertThat(SerialListCursor.decode(SerialListCursor.encode(1, asKeyword), asContent)).isNull();
+    }
+
+    @Test
+    void malformedCursorsAreIgnored() {
+        assertThat(SerialListCursor.decode(null, FILTER)).isNull();
+        assertThat(SerialListCursor.decode("  ", FILTER)).isNull();
+        assertThat(SerialListCursor.decode("not base64!", FILTER)).isNull();
+        assertThat(SerialListCursor.decode(encodeRaw("42"), FILTER)).isNull();
+        assertThat(SerialListCursor.decode(encodeRaw("abc:0"), FILTER)).isNull();
+        assertThat(SerialListCursor.decode(encodeRaw("42:zz"), FILTER)).isNull();
+    }
+
+    @Test
+    void tamperedCursorsAreIgnored() {
+        String value = new String(Base64.getUrlDecoder().decode(SerialListCursor.encode(42, FILTER)), StandardCharsets.US_ASCII);
+        String fingerprint = value.substring(value.indexOf(':') + 1);
+
+        assertThat(SerialListCursor.decode(encodeRaw("-5:" + fingerprint), FILTER)).isNull();
+        assertThat(SerialListCursor.decode(encodeRaw("99:" + fingerprint), FILTER)).isEqualTo(99);
+        assertThat(SerialListCursor.decode(encodeRaw("42:" + fingerprint + "0"), FILTER)).isNull();
+    }
+
+    private static String encodeRaw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
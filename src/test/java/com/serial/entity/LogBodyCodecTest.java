@@ -0,0 +1,82 @@
+package com.serial.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogBodyCodecTest {
+
+    private static final String RESPONSE =
+            "{\"status\":\"success\",\"message\":\"核銷成功\",\"data\":{\"content\":\"A0001234\",\"redeemed_at\":\"2025-06-01 12:00:00\"}}";
+
+    private static final List<String> BODIES = List.of(
+            "",
+            "{}",
+            RESPONSE,
+            "{\"status\":\"error\",\"message\":\"此序號已經被核銷使用\"}",
+            "emoji 🎟️ 與全形文字：序號",
+            "x".repeat(100_000));
+
+    @Test
+    void roundTripsWithAndWithoutDictionary() {
+        for (int dictionaryId : new int[]{LogBodyCodec.NO_DICTIONARY, 1}) {
+            try (LogBodyCodec.Encoder encoder = LogBodyCodec.encoder(dictionaryId)) {
+                for (String body : BODIES) {
+                    byte[] encoded = encoder.encode(body);
+                    assertThat(encoded[0] & 0xFF).isEqualTo(dictionaryId);
+                    assertThat(LogBodyCodec.decode(encoded)).isEqualTo(body);
+                }
+            }
+        }
+    }
+
+    @Test
+    void nullStaysNull() {
+        try (LogBodyCodec.Encoder encoder = LogBodyCodec.encoder(1)) {
+            assertThat(encoder.encode(null)).isNull();
+        }
+        assertThat(LogBodyCodec.decode(null)).isNull();
+    }
+
+    @Test
+    void dictionaryShrinksShortBodies() {
+        try (LogBodyCodec.Encoder plain = LogBodyCodec.encoder(LogBodyCodec.NO_DICTIONARY);
+             LogBodyCodec.Encoder withDictionary = LogBodyCodec.encoder(1)) {
+            int utf16 = RESPONSE.length() * 2;
+            int withoutDictionary = plain.encode(RESPONSE).length;
+            int compressed = withDictionary.encode(RESPONSE).length;
+
+            assertThat(compressed).isLessThan(withoutDictionary).isLessThan(utf16 / 2);
+        }
+    }
+
+    @Test
+    void rejectsCorruptOrTruncatedData() {
+        byte[] encoded;
+        try (LogBodyCodec.Encoder encoder = LogBodyCodec.encoder(1)) {
+            encoded = encoder.encode(RESPONSE);
+        }
+
+        assertThatThrownBy(() -> LogBodyCodec.decode(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LogBodyCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        byte[] wrongDictionary = encoded.clone();
+        wrongDictionary[0] = LogBodyCodec.NO_DICTIONARY;
+        assertThatThrownBy(() -> LogBodyCodec.decode(wrongDictionary)).isInstanceOf(IllegalArgumentException.class);
+
+        byte[] unknownDictionary = encoded.clone();
+        unknownDictionary[0] = (byte) 200;
+        assertThatThrownBy(() -> LogBodyCodec.decode(unknownDictionary)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsDictionaryIdsOutsideOneByte() {
+        assertThatThrownBy(() -> LogBodyCodec.encoder(256)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LogBodyCodec.encoder(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.serial.middleware;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.serial.entity.SerialLog;
+import com.serial.repository.SerialLogJdbcRepository.JournalCheckpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiLogJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private ApiLogJournal open(Path dir, long minSegment) throws IOException {
+        return new ApiLogJournal(new ObjectMapper(), new SimpleMeterRegistry(), dir.toString(),
+                DataSize.ofKilobytes(4), Duration.ofHours(1), minSegment);
+    }
+
+    private static SerialLog entry(String apiName) {
+        SerialLog entry = new SerialLog();
+        entry.setApiName(apiName);
+        entry.setHost("test");
+        entry.setApi("/api/" + apiName);
+        return entry;
+    }
+
+    @Test
+    void restartWithEmptyDirectoryContinuesAfterCheckpoint() throws IOException {
+        // 上次的程序已載入到分段 7，目錄被清空後重新啟動
+        long minSegment = ApiLogJournal.firstUnshippedSegment(Optional.of(new JournalCheckpoint(7, 0)));
+        ApiLogJournal journal = open(dir, minSegment);
+        assertThat(journal.activeSegment()).isEqualTo(7);
+
+        journal.submit(entry("serials_redeem"));
+        journal.stop();
+
+        ApiLogJournal restarted = open(dir, minSegment);
+        assertThat(restarted.activeSegment()).isEqualTo(8);
+        assertThat(restarted.closedSegments()).containsExactly(7L);
+        assertThat(restarted.read(7, 0, 10).entries())
+                .extracting(SerialLog::getApiName)
+                .containsExactly("serials_redeem");
+        restarted.stop();
+    }
+
+    @Test
+    void existingSegmentsAheadOfCheckpointWin() throws IOException {
+        open(dir, 1).stop();
+        open(dir, 1).stop();
+
+        ApiLogJournal journal = open(dir, 1);
+        assertThat(journal.activeSegment()).isEqualTo(3);
+        assertThat(journal.closedSegments()).containsExactly(1L, 2L);
+        journal.stop();
+    }
+
+    @Test
+    void checkpointInsideSegmentSkipsThatSegment() {
+        assertThat(ApiLogJournal.firstUnshippedSegment(Optional.empty())).isEqualTo(1);
+        assertThat(ApiLogJournal.firstUnshippedSegment(Optional.of(new JournalCheckpoint(0, 0)))).isEqualTo(1);
+        assertThat(ApiLogJournal.firstUnshippedSegment(Optional.of(new JournalCheckpoint(5, 0)))).isEqualTo(5);
+        assertThat(ApiLogJournal.firstUnshippedSegment(Optional.of(new JournalCheckpoint(5, 120)))).isEqualTo(6);
+    }
+}
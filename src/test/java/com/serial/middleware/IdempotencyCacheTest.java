@@ -0,0 +1,64 @@
+package com.serial.middleware;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyCache cache = new IdempotencyCache(meterRegistry, Duration.ofHours(1), 100,
+            DataSize.ofBytes(1000), DataSize.ofBytes(400));
+
+    private IdempotencyCache.Claim execute(String key, int bodyBytes) {
+        IdempotencyCache.Claim claim = cache.claim(key, "fingerprint");
+        assertThat(claim.owner()).isTrue();
+        cache.complete(key, claim, new IdempotencyCache.CachedResponse(200, "application/json", new byte[bodyBytes]), true);
+        return claim;
+    }
+
+    private double cachedBytes() {
+        return meterRegistry.get("serial.idempotency.bytes").gauge().value();
+    }
+
+    @Test
+    void replaysCachedResponse() throws Exception {
+        execute("a", 100);
+
+        IdempotencyCache.Claim retry = cache.claim("a", "fingerprint");
+        assertThat(retry.owner()).isFalse();
+        assertThat(retry.await(Duration.ofSeconds(1)).body()).hasSize(100);
+        assertThat(cachedBytes()).isEqualTo(100);
+    }
+
+    @Test
+    void evictsOldestWhenOverByteBudget() {
+        execute("a", 300);
+        execute("b", 300);
+        execute("c", 300);
+        execute("d", 300);
+
+        assertThat(cache.claim("a", "fingerprint").owner()).isTrue();
+        assertThat(cache.claim("d", "fingerprint").owner()).isFalse();
+        assertThat(cachedBytes()).isLessThanOrEqualTo(1000);
+        assertThat(meterRegistry.get("serial.idempotency.eviction").tag("reason", "size").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void oversizedResponseIsOnlyHandedToCurrentWaiters() throws Exception {
+        IdempotencyCache.Claim owner = cache.claim("big", "fingerprint");
+        IdempotencyCache.Claim waiter = cache.claim("big", "fingerprint");
+        cache.complete("big", owner, new IdempotencyCache.CachedResponse(200, "application/json", new byte[500]), true);
+
+        assertThat(waiter.await(Duration.ofSeconds(1)).body()).hasSize(500);
+        assertThat(cache.claim("big", "fingerprint").owner()).isTrue();
+        assertThat(cachedBytes()).isZero();
+        assertThat(meterRegistry.get("serial.idempotency.eviction").tag("reason", "oversize").counter().count())
+                .isEqualTo(1);
+    }
+}
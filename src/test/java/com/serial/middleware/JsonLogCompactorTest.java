@@ -0,0 +1,95 @@
+package com.serial.middleware;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonLogCompactorTest {
+
+    private static final String TRUNCATED = "...(truncated)";
+
+    private final JsonLogCompactor compactor = new JsonLogCompactor(new ObjectMapper(), " password , Token ", 64);
+
+    private String compact(String body) {
+        return compactor.compact(body.getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    @Test
+    void removesWhitespace() {
+        assertThat(compact("{ \"a\" : 1 ,\n  \"b\" : [ 1, 2 ] }")).isEqualTo("{\"a\":1,\"b\":[1,2]}");
+    }
+
+    @Test
+    void keepsNumbersExactly() {
+        assertThat(compact("{\"n\":1.10000000000000000001,\"big\":12345678901234567890}"))
+                .isEqualTo("{\"n\":1.10000000000000000001,\"big\":12345678901234567890}");
+    }
+
+    @Test
+    void masksFieldsAtAnyDepthIgnoringCase() {
+        JsonLogCompactor wide = new JsonLogCompactor(new ObjectMapper(), "password,token", 4096);
+        String body = "{\"Password\":\"secret\",\"user\":{\"TOKEN\":{\"a\":1}},\"list\":[{\"password\":[1,2]}],\"name\":\"ok\"}";
+
+        assertThat(wide.compact(body.getBytes(StandardCharsets.UTF_8), 0))
+                .isEqualTo("{\"Password\":\"***\",\"user\":{\"TOKEN\":\"***\"},\"list\":[{\"password\":\"***\"}],\"name\":\"ok\"}");
+    }
+
+    @Test
+    void emptyBodyIsEmptyObject() {
+        assertThat(compact("")).isEqualTo("{}");
+        assertThat(compact(" \r\n\t ")).isEqualTo("{}");
+    }
+
+    @Test
+    void nonJsonIsTrimmedRawText() {
+        assertThat(compact("  Internal Server Error \n")).isEqualTo("Internal Server Error");
+    }
+
+    @Test
+    void truncatesJsonAtLimit() {
+        String result = compact("{\"data\":\"" + "x".repeat(1_000) + "\"}");
+
+        assertThat(result).startsWith("{\"data\":\"xxx").endsWith(TRUNCATED);
+        assertThat(result.getBytes(StandardCharsets.UTF_8)).hasSize(64 + TRUNCATED.length());
+    }
+
+    @Test
+    void truncatesRawTextAtLimit() {
+        String result = compact("y".repeat(1_000));
+
+        assertThat(result).isEqualTo("y".repeat(64) + TRUNCATED);
+    }
+
+    @Test
+    void truncationNeverSplitsMultiByteCharacters() {
+        // 每個中文字 3 bytes，64 不是 3 的倍數：截斷點落在字元中間時退到字元開頭
+        String json = compact("{\"m\":\"" + "序".repeat(100) + "\"}");
+        String raw = compact("序".repeat(100));
+
+        assertThat(json).doesNotContain("�").endsWith(TRUNCATED);
+        assertThat(raw).doesNotContain("�").isEqualTo("序".repeat(21) + TRUNCATED);
+    }
+
+    @Test
+    void perCallLimitOverridesDefault() {
+        String body = "{\"data\":\"" + "x".repeat(100) + "\"}";
+
+        assertThat(compactor.compact(body.getBytes(StandardCharsets.UTF_8), 1_000)).isEqualTo(body);
+        assertThat(compactor.compact(body.getBytes(StandardCharsets.UTF_8), 16)).hasSize(16 + TRUNCATED.length());
+    }
+
+    @Test
+    void objectMasksFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("content-type", "application/json");
+        fields.put("Token", "abc");
+        fields.put("count", 3);
+
+        assertThat(compactor.object(fields)).isEqualTo("{\"content-type\":\"application/json\",\"Token\":\"***\",\"count\":\"3\"}");
+    }
+}
@@ -0,0 +1,78 @@
+package com.serial.service.allocator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeistelPermutationTest {
+
+    private static final String KEY = "test-key";
+
+    @Test
+    void isBijectionOverWholeKeyspace() {
+        FeistelPermutation permutation = new FeistelPermutation(SerialCodes.KEYSPACE, KEY);
+        BitSet seen = new BitSet((int) SerialCodes.KEYSPACE);
+
+        // 逐筆斷言的成本遠高於置換本身，只記錄第一個重複的位置
+        long firstDuplicate = -1;
+        for (long x = 0; x < SerialCodes.KEYSPACE; x++) {
+            int y = (int) permutation.encrypt(x);
+            if (seen.get(y) && firstDuplicate < 0) firstDuplicate = x;
+            seen.set(y);
+        }
+
+        assertThat(firstDuplicate).as("第一個重複輸出的輸入").isEqualTo(-1);
+        assertThat(seen.cardinality()).isEqualTo((int) SerialCodes.KEYSPACE);
+    }
+
+    @Test
+    void decryptInvertsEncrypt() {
+        FeistelPermutation permutation = new FeistelPermutation(SerialCodes.KEYSPACE, KEY);
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000_000; i++) {
+            long x = Math.floorMod(random.nextLong(), SerialCodes.KEYSPACE);
+            assertThat(permutation.decrypt(permutation.encrypt(x))).isEqualTo(x);
+        }
+        assertThat(permutation.decrypt(permutation.encrypt(0))).isZero();
+        assertThat(permutation.decrypt(permutation.encrypt(SerialCodes.KEYSPACE - 1))).isEqualTo(SerialCodes.KEYSPACE - 1);
+    }
+
+    @Test
+    void isBijectionOnOddSizedDomain() {
+        long domain = 1_000_003;
+        FeistelPermutation permutation = new FeistelPermutation(domain, KEY);
+        BitSet seen = new BitSet((int) domain);
+        for (long x = 0; x < domain; x++) {
+            long y = permutation.encrypt(x);
+            assertThat(y).isBetween(0L, domain - 1);
+            seen.set((int) y);
+            assertThat(permutation.decrypt(y)).isEqualTo(x);
+        }
+        assertThat(seen.cardinality()).isEqualTo((int) domain);
+    }
+
+    @Test
+    void differentKeysGiveDifferentPermutations() {
+        FeistelPermutation a = new FeistelPermutation(SerialCodes.KEYSPACE, "key-a");
+        FeistelPermutation b = new FeistelPermutation(SerialCodes.KEYSPACE, "key-b");
+        int same = 0;
+        for (long x = 0; x < 1_000; x++) {
+            if (a.encrypt(x) == b.encrypt(x)) same++;
+        }
+        assertThat(same).isLessThan(5);
+    }
+
+    @Test
+    void rejectsValuesOutsideDomainAndBlankKeys() {
+        FeistelPermutation permutation = new FeistelPermutation(SerialCodes.KEYSPACE, KEY);
+        assertThatThrownBy(() -> permutation.encrypt(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> permutation.encrypt(SerialCodes.KEYSPACE)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> permutation.decrypt(SerialCodes.KEYSPACE)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FeistelPermutation(SerialCodes.KEYSPACE, " ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FeistelPermutation(3, KEY)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
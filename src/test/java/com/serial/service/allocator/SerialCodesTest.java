@@ -0,0 +1,52 @@
+package com.serial.service.allocator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SerialCodesTest {
+
+    @Test
+    void convertsBoundaryIndexes() {
+        assertThat(SerialCodes.fromIndex(0)).isEqualTo("A0000000");
+        assertThat(SerialCodes.fromIndex(9_999_999)).isEqualTo("A9999999");
+        assertThat(SerialCodes.fromIndex(10_000_000)).isEqualTo("B0000000");
+        assertThat(SerialCodes.fromIndex(SerialCodes.KEYSPACE - 1)).isEqualTo("Z9999999");
+
+        assertThat(SerialCodes.toIndex("A0000000")).isZero();
+        assertThat(SerialCodes.toIndex("A0001234")).isEqualTo(1_234);
+        assertThat(SerialCodes.toIndex("Z9999999")).isEqualTo(SerialCodes.KEYSPACE - 1);
+    }
+
+    @Test
+    void roundTripsRandomIndexes() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long index = Math.floorMod(random.nextLong(), SerialCodes.KEYSPACE);
+            String code = SerialCodes.fromIndex(index);
+            assertThat(code).hasSize(SerialCodes.LENGTH).matches("[A-Z][0-9]{7}");
+            assertThat(SerialCodes.toIndex(code)).isEqualTo(index);
+        }
+    }
+
+    @Test
+    void rejectsIndexesOutsideKeyspace() {
+        assertThatThrownBy(() -> SerialCodes.fromIndex(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SerialCodes.fromIndex(SerialCodes.KEYSPACE)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void returnsMinusOneForMalformedCodes() {
+        assertThat(SerialCodes.toIndex(null)).isEqualTo(-1);
+        assertThat(SerialCodes.toIndex("")).isEqualTo(-1);
+        assertThat(SerialCodes.toIndex("A123456")).isEqualTo(-1);
+        assertThat(SerialCodes.toIndex("A12345678")).isEqualTo(-1);
+        assertThat(SerialCodes.toIndex("a1234567")).isEqualTo(-1);
+        assertThat(SerialCodes.toIndex("11234567")).isEqualTo(-1);
+        assertThat(SerialCodes.toIndex("A12345X7")).isEqualTo(-1);
+        assertThat(SerialCodes.toIndex("A１234567")).isEqualTo(-1);
+    }
+}
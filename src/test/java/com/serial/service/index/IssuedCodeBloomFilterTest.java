@@ -0,0 +1,59 @@
+package com.serial.service.index;
+
+import com.serial.service.allocator.SerialCodes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IssuedCodeBloomFilterTest {
+
+    private static IssuedCodeBloomFilter filter(long expectedInsertions, double fpp) {
+        return new IssuedCodeBloomFilter(null, null, null, new SimpleMeterRegistry(), expectedInsertions, fpp);
+    }
+
+    @Test
+    void registeredCodesAreNeverReportedMissing() {
+        IssuedCodeBloomFilter bloom = filter(100_000, 0.001);
+        Random random = new Random(42);
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            codes.add(SerialCodes.fromIndex((long) (random.nextDouble() * SerialCodes.KEYSPACE)));
+        }
+
+        bloom.markAll(codes);
+
+        assertThat(codes).allMatch(bloom::mightContain);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        IssuedCodeBloomFilter bloom = filter(100_000, 0.01);
+        for (long i = 0; i < 100_000; i++) {
+            bloom.put(SerialCodes.fromIndex(i * 2));
+        }
+
+        int falsePositives = 0;
+        for (long i = 0; i < 100_000; i++) {
+            if (bloom.mightContain(SerialCodes.fromIndex(i * 2 + 1))) falsePositives++;
+        }
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(bloom.estimatedFpp()).isLessThan(0.02);
+    }
+
+    @Test
+    void malformedCodesAreNeverContained() {
+        IssuedCodeBloomFilter bloom = filter(1_000, 0.001);
+        bloom.put("A1234567");
+
+        assertThat(bloom.mightContain("A1234567")).isTrue();
+        assertThat(bloom.mightContain("a1234567")).isFalse();
+        assertThat(bloom.mightContain("A123456")).isFalse();
+        assertThat(bloom.mightContain(null)).isFalse();
+    }
+}
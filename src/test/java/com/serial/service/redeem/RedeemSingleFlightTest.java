@@ -0,0 +1,104 @@
+package com.serial.service.redeem;
+
+import com.serial.dto.response.SerialRedeemResponseData;
+import com.serial.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedeemSingleFlightTest {
+
+    private static final String CONTENT = "ABCD2345";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RedeemSingleFlight singleFlight = new RedeemSingleFlight(meterRegistry);
+
+    /** 讓 leader 停在 action 中，直到 follower 已經在等待 */
+    private Future<SerialRedeemResponseData> startLeader(ExecutorService executor, CountDownLatch release,
+                                                         RuntimeException failure) throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        Future<SerialRedeemResponseData> leader = executor.submit(() -> singleFlight.redeem(CONTENT, () -> {
+            entered.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        return leader;
+    }
+
+    private Future<SerialRedeemResponseData> startFollower(ExecutorService executor, AtomicInteger actions) {
+        double coalesced = coalesced();
+        Future<SerialRedeemResponseData> follower = executor.submit(() -> singleFlight.redeem(CONTENT, () -> {
+            actions.incrementAndGet();
+            return new SerialRedeemResponseData(CONTENT, "2026-01-01 00:00:00");
+        }));
+        while (coalesced() == coalesced) Thread.onSpinWait();
+        return follower;
+    }
+
+    private double coalesced() {
+        return meterRegistry.counter("serial.redeem.singleflight.coalesced").count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void followerReceivesLeadersBusinessError() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch release = new CountDownLatch(1);
+            BusinessException failure = new BusinessException("此序號已過期");
+            Future<SerialRedeemResponseData> leader = startLeader(executor, release, failure);
+            AtomicInteger actions = new AtomicInteger();
+            Future<SerialRedeemResponseData> follower = startFollower(executor, actions);
+            release.countDown();
+
+            assertThatThrownBy(leader::get).cause().isSameAs(failure);
+            assertThatThrownBy(follower::get).isInstanceOf(ExecutionException.class).cause()
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("此序號已過期")
+                    .isNotSameAs(failure);
+            assertThat(actions).hasValue(0);
+        }
+    }
+
+    @Test
+    void followerRetriesAfterLeadersSystemError() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch release = new CountDownLatch(1);
+            Future<SerialRedeemResponseData> leader = startLeader(executor, release,
+                    new IllegalStateException("lock request time out period exceeded"));
+            AtomicInteger actions = new AtomicInteger();
+            Future<SerialRedeemResponseData> follower = startFollower(executor, actions);
+            release.countDown();
+
+            assertThatThrownBy(leader::get).cause().isInstanceOf(IllegalStateException.class);
+            assertThat(follower.get(5, TimeUnit.SECONDS).getSerialContent()).isEqualTo(CONTENT);
+            assertThat(actions).hasValue(1);
+        }
+    }
+
+    @Test
+    void finishedFlightIsNotRemembered() {
+        SerialRedeemResponseData result = singleFlight.redeem(CONTENT,
+                () -> new SerialRedeemResponseData(CONTENT, "2026-01-01 00:00:00"));
+
+        assertThat(result.getSerialContent()).isEqualTo(CONTENT);
+        assertThat(singleFlight.redeem(CONTENT, () -> result)).isSameAs(result);  // 結束後不保留結果
+    }
+}